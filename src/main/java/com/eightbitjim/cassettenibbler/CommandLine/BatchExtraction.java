@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.CommandLine;
+
+import com.eightbitjim.cassettenibbler.ExtractionContext;
+import com.eightbitjim.cassettenibbler.ExtractionMetrics;
+import com.eightbitjim.cassettenibbler.TapeExtractionOptions;
+import com.eightbitjim.cassettenibbler.TapeFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+public class BatchExtraction {
+    private static final long NANOSECONDS_IN_A_SECOND = 1000000000L;
+
+    private String [] arguments;
+    private List<String> inputFilenames;
+    private int numberOfWorkers;
+    private ExtractFile.OutputDestination outputDestination;
+    private String outputDirectory;
+    private TapeExtractionOptions options;
+    private CommandLineProgressIndicator progressIndicator;
+    private Set<String> usedOutputNames;
+    private long systemTimeAtStartInMillis;
+
+    private int inputFilesProcessed;
+    private int inputFilesFailed;
+    private long filesFound;
+    private long filesWithErrors;
+    private long programOrEnvironmentErrors;
+    private long audioProcessedInNanoseconds;
+    private StringBuilder failures;
+
+    public BatchExtraction(String [] arguments, List<String> inputFilenames, int numberOfWorkers,
+                           ExtractFile.OutputDestination outputDestination, String outputDirectory,
+                           TapeExtractionOptions options) {
+        this.arguments = arguments;
+        this.inputFilenames = inputFilenames;
+        this.numberOfWorkers = Math.max(1, Math.min(numberOfWorkers, inputFilenames.size()));
+        this.outputDestination = outputDestination;
+        this.outputDirectory = outputDirectory;
+        this.options = options;
+        usedOutputNames = new HashSet<>();
+        failures = new StringBuilder();
+    }
+
+    public void run() throws InterruptedException {
+        systemTimeAtStartInMillis = System.currentTimeMillis();
+        progressIndicator = new CommandLineProgressIndicator("Batch progress");
+
+        ExecutorService workers = Executors.newFixedThreadPool(numberOfWorkers, new BatchWorkerThreadFactory());
+        LinkedList<Future<BatchFileResult>> pendingResults = new LinkedList<>();
+        for (String filename : inputFilenames)
+            pendingResults.add(workers.submit(jobFor(filename)));
+
+        workers.shutdown();
+
+        // Each result is counted and output as soon as it is ready, then dropped, so that the files found
+        // and buffered output of a large batch are never all held at once
+        for (String filename : inputFilenames) {
+            BatchFileResult result = waitForResult(filename, pendingResults.removeFirst());
+            countResult(result);
+            progressIndicator.setProgressPercent(inputFilesProcessed * 100 / inputFilenames.size(), result.getFilename());
+            outputResult(result);
+        }
+
+        System.err.print(getSummary());
+    }
+
+    private Callable<BatchFileResult> jobFor(String filename) {
+        // Each input file gets its own subdirectory when writing files. Otherwise any pulse or scraped byte files
+        // share the output directory, so they are named after the input file instead.
+        String outputName = uniqueOutputNameFor(filename);
+        boolean writingFiles = outputDestination == ExtractFile.OutputDestination.FILES;
+        String fileOutputDirectory = writingFiles ? new File(outputDirectory, outputName).getPath() : outputDirectory;
+        String outputFilenamePrefix = writingFiles ? "" : outputName + ".";
+        ExtractionContext context = new ExtractionContext(new TapeExtractionOptions(options));
+        return () -> new ExtractFile(context, true).extractForBatch(arguments, filename, fileOutputDirectory, outputFilenamePrefix);
+    }
+
+    private BatchFileResult waitForResult(String filename, Future<BatchFileResult> pendingResult) throws InterruptedException {
+        try {
+            return pendingResult.get();
+        } catch (ExecutionException e) {
+            BatchFileResult result = new BatchFileResult(filename);
+            result.setError(e.getCause());
+            return result;
+        }
+    }
+
+    private String uniqueOutputNameFor(String filename) {
+        String name = new File(filename).getName();
+        int extensionStart = name.lastIndexOf('.');
+        if (extensionStart > 0)
+            name = name.substring(0, extensionStart);
+
+        String uniqueName = name;
+        int copyNumber = 2;
+        while (!usedOutputNames.add(uniqueName))
+            uniqueName = name + "_" + copyNumber++;
+
+        return uniqueName;
+    }
+
+    private void countResult(BatchFileResult result) {
+        inputFilesProcessed++;
+        ExtractionMetrics metrics = result.getMetrics();
+        filesFound += metrics.getFilesExtracted();
+        filesWithErrors += metrics.getFilesWithErrors();
+        programOrEnvironmentErrors += metrics.getProgramOrEnvironmentErrors();
+        audioProcessedInNanoseconds += result.getAudioProcessedInNanoseconds();
+        if (result.failed()) {
+            inputFilesFailed++;
+            failures.append("Failed: ").append(result.getFilename()).append(": ").append(result.getError().toString()).append("\n");
+        }
+    }
+
+    private void outputResult(BatchFileResult result) {
+        for (TapeFile file : result.getFilesFound().getList())
+            progressIndicator.pushFile(file, 0L);
+
+        switch (outputDestination) {
+            case STANDARD_OUT:
+                writeStandardOutput(result.getStandardOutput());
+                break;
+
+            case DIRECTORY_LISTING:
+                System.err.println(result.getFilename() + ":");
+                System.err.print(result.getFilesFound());
+                System.err.println();
+                break;
+
+            default:
+            case FILES:
+                break;
+        }
+    }
+
+    private void writeStandardOutput(byte [] data) {
+        PrintStream out = System.out;
+        try {
+            out.write(data);
+        } catch (IOException e) {
+            System.err.println("Error writing to standard out: " + e.toString());
+        }
+
+        out.flush();
+    }
+
+    public String getSummary() {
+        long timeTakenInMilliSeconds = System.currentTimeMillis() - systemTimeAtStartInMillis;
+        long audioProcessedInSeconds = audioProcessedInNanoseconds / NANOSECONDS_IN_A_SECOND;
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(failures);
+        builder.append("Batch: ").append(inputFilesProcessed).append(" input file").append(inputFilesProcessed == 1 ? "" : "s");
+        builder.append(" on ").append(numberOfWorkers).append(" worker").append(numberOfWorkers == 1 ? "" : "s");
+        builder.append(", ").append(filesFound).append(" file").append(filesFound == 1 ? "" : "s").append(" found");
+        builder.append(" (").append(filesWithErrors).append(" with errors)");
+        builder.append(", ").append(programOrEnvironmentErrors).append(" program error").append(programOrEnvironmentErrors == 1 ? "" : "s");
+        builder.append(", ").append(inputFilesFailed).append(" input file").append(inputFilesFailed == 1 ? "" : "s").append(" failed");
+        builder.append(". Processed ").append(audioProcessedInSeconds).append(" seconds of audio in ");
+        builder.append(timeTakenInMilliSeconds / 1000.0).append(" seconds");
+        if (timeTakenInMilliSeconds > 0)
+            builder.append(" (").append(audioProcessedInSeconds * 1000L / timeTakenInMilliSeconds).append("x realtime)");
+
+        builder.append("\n");
+        return builder.toString();
+    }
+
+    private static class BatchWorkerThreadFactory implements ThreadFactory {
+        private int workerNumber = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "batch-worker-" + workerNumber++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.CommandLine;
+
+import com.eightbitjim.cassettenibbler.DataSink.Directory;
+import com.eightbitjim.cassettenibbler.ExtractionMetrics;
+
+public class BatchFileResult {
+    private String filename;
+    private Directory filesFound;
+    private byte [] standardOutput;
+    private long audioProcessedInNanoseconds;
+    private ExtractionMetrics metrics;
+    private Throwable error;
+
+    public BatchFileResult(String filename) {
+        this.filename = filename;
+        filesFound = new Directory();
+        standardOutput = new byte[0];
+        metrics = new ExtractionMetrics();
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public Directory getFilesFound() {
+        return filesFound;
+    }
+
+    public ExtractionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(ExtractionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public byte [] getStandardOutput() {
+        return standardOutput;
+    }
+
+    public void setStandardOutput(byte [] standardOutput) {
+        this.standardOutput = standardOutput;
+    }
+
+    public long getAudioProcessedInNanoseconds() {
+        return audioProcessedInNanoseconds;
+    }
+
+    public void setAudioProcessedInNanoseconds(long audioProcessedInNanoseconds) {
+        this.audioProcessedInNanoseconds = audioProcessedInNanoseconds;
+    }
+
+    public boolean failed() {
+        return error != null;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public void setError(Throwable error) {
+        this.error = error;
+    }
+}
@@ -30,7 +30,9 @@ import com.eightbitjim.cassettenibbler.Platforms.Atari.AtariPlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.CommodorePlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.General.Filters.*;
 import com.eightbitjim.cassettenibbler.DataSource.DummySampleSource;
+import com.eightbitjim.cassettenibbler.DataSource.PackedPulseFormat;
 import com.eightbitjim.cassettenibbler.DataSource.PulseSourceFromInputStream;
+import com.eightbitjim.cassettenibbler.DataSource.TapeRegion;
 import com.eightbitjim.cassettenibbler.Platforms.Acorn.AcornPlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.Other.MPFI.OtherPlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.MSX.MSXPlatformProvider;
@@ -38,6 +40,12 @@ import com.eightbitjim.cassettenibbler.Platforms.Oric.OricPlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.SinclairPlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.Automatic.AutomaticPlatformProvider;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.TRS80PlatformProvider;
+import com.eightbitjim.cassettenibbler.Pipeline.AudioSegment;
+import com.eightbitjim.cassettenibbler.Pipeline.IntervalCache;
+import com.eightbitjim.cassettenibbler.Pipeline.ParallelPlatformRunner;
+import com.eightbitjim.cassettenibbler.Pipeline.SignalPathPlan;
+import com.eightbitjim.cassettenibbler.Pipeline.SilenceScanner;
+import com.eightbitjim.cassettenibbler.Pipeline.TimedTapeFile;
 
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.*;
@@ -58,6 +66,7 @@ public class ExtractFile {
 
     private Collection<Platform> availablePlatforms = new LinkedList<>();
     private String outputDirectory = ".";
+    private String outputFilenamePrefix = "";
     private String LOG_FILE_DEFAULT_PREFIX = "log_";
 
     private InputType inputType;
@@ -71,26 +80,52 @@ public class ExtractFile {
     private double lowPassFilterCutoff = 4800.0;
     private boolean highPassFilter = false;
     private double highPassFilterCutoff = 600.0;
+    private boolean butterworthFilters = false;
+    private boolean toneDemodulation = false;
+    private double hysteresisScale = 0.0;
     private boolean disableDefaultFilters = false;
+    private boolean decimateHighSampleRates = true;
+    private double decimationTargetSampleRate = Decimator.DEFAULT_TARGET_SAMPLE_RATE_IN_HERTZ;
     private boolean scapeBytesFromInputFiles = false;
+    private boolean savePulses = false;
+    private List<PulseStreamFileOutput> pulseOutputs = new LinkedList<>();
+    private int numberOfThreads = 1;
+    private int lineInputSampleRate = LineInput.DEFAULT_SAMPLE_RATE_IN_HZ;
+    private int lineInputBitsPerSample = LineInput.DEFAULT_BITS_PER_SAMPLE;
+    private int numberOfBatchWorkers = 0;
+    private boolean batchJob = false;
+    private boolean splitAtSilence = false;
+    private TapeRegion region = new TapeRegion();
+    private double minimumSilenceGapInSeconds = 3.0;
+    private String intervalCacheDirectory = null;
+    private IntervalCache intervalCache;
+    private static final String DEFAULT_INTERVAL_CACHE_DIRECTORY = ".cassette-nibbler-cache";
 
     private boolean needToDisplayHelp = false;
     private CommandLineProgressIndicator progressIndicator;
     private String configurationString;
+    private String [] arguments;
     private List<String> inputFilenames;
     private InputStream inputStream;
     private String soundOutput;
     private Collection<Platform> chosenPlatforms;
+    private List<FileStreamConsumer> fileConsumers = new LinkedList<>();
 
     private TimeCounter counter;
     private SampleStreamProvider sampleSource;
     private PulseSourceFromInputStream pulseSource;
     private IntervalSourceFromTAPInputStream intervalSource;
     private SampleStreamProvider connector;
+    private SignalPathPlan signalPaths;
+    private SharedFilterGraph sharedFilters;
+    private ParallelPlatformRunner parallelRunner;
     private Directory directory;
+    private PrintStream standardOutput = System.out;
     private transient TapeExtractionOptions options;
+    private ExtractionContext context;
 
     private static final String defaultChannelName = "preProcessing";
+    private static final long LINE_INPUT_WAIT_IN_NANOSECONDS = 10000000L;
 
     public static final void main(String args[]) {
         ExtractFile obj = new ExtractFile();
@@ -103,21 +138,44 @@ public class ExtractFile {
     }
 
     public ExtractFile() {
+        this(new ExtractionContext(), false);
+        setUpOptions();
+    }
+
+    ExtractFile(ExtractionContext context, boolean batchJob) {
+        this.context = context;
+        this.batchJob = batchJob;
+        options = context.getOptions();
         inputFilenames = new LinkedList<>();
         inputType = InputType.WAV;
         inputSource = InputSource.STREAM;
-        setUpOptions();
-        preparePlatforms();
+
+        ExtractionContext previousContext = context.bindToCurrentThread();
+        try {
+            preparePlatforms();
+        } finally {
+            ExtractionContext.restore(previousContext);
+        }
+
         chosenPlatforms = new LinkedList<>();
     }
 
     private void setUpOptions() {
-        options = TapeExtractionOptions.getInstance();
         options.setLogging(TapeExtractionOptions.LoggingMode.NONE, null);
         options.setAttemptToRecoverCorruptedFiles(true).setAllowIncorrectFrameChecksums(true).setAllowIncorrectFileChecksums(true);
     }
 
     private void runWithArguments(String [] args) throws IOException, PlatformAccessError, UnsupportedAudioFileException {
+        ExtractionContext previousContext = context.bindToCurrentThread();
+        try {
+            runInContext(args);
+        } finally {
+            context.close();
+            ExtractionContext.restore(previousContext);
+        }
+    }
+
+    private void runInContext(String [] args) throws IOException, PlatformAccessError, UnsupportedAudioFileException {
         parseArguments(args);
 
         if (error)
@@ -129,11 +187,18 @@ public class ExtractFile {
         }
 
         configureLogOutput();
+        if (runsAsBatch()) {
+            runBatch(args);
+            return;
+        }
+
         preparePlatformList();
         preparePlatformByteScrapingOutputFiles();
         printIntroductionText();
         initialiseChosenPlatforms();
         configurePlatforms();
+        preparePlatformPulseOutputFiles();
+        prepareSignalPaths();
         linkDestinationToPlatforms();
 
         counter = new TimeCounter();
@@ -150,13 +215,121 @@ public class ExtractFile {
                 break;
         }
 
+        stopParallelRunner();
+        closePulseOutputFiles();
         printFinalOutput();
     }
 
+    private boolean runsAsBatch() {
+        return numberOfBatchWorkers > 0 && inputSource == InputSource.STREAM && !inputFilenames.isEmpty();
+    }
+
+    private void runBatch(String [] args) {
+        if (options.getLogVerbosity() == TapeExtractionOptions.LoggingMode.NONE) {
+            printTitle();
+            printOptions();
+            System.err.println("Batch mode: " + inputFilenames.size() + " input files on up to " + numberOfBatchWorkers + " workers");
+        }
+
+        try {
+            new BatchExtraction(args, inputFilenames, numberOfBatchWorkers, outputDestination, outputDirectory, options).run();
+        } catch (InterruptedException e) {
+            System.err.println("Batch interrupted.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    BatchFileResult extractForBatch(String [] args, String filename, String fileOutputDirectory, String outputFilenamePrefix) {
+        BatchFileResult result = new BatchFileResult(filename);
+        ByteArrayOutputStream bufferedStandardOutput = new ByteArrayOutputStream();
+        ExtractionContext previousContext = context.bindToCurrentThread();
+
+        parseArguments(args);
+        inputFilenames.clear();
+        addFilenameToInputList(filename);
+        outputDirectory = fileOutputDirectory;
+        this.outputFilenamePrefix = outputFilenamePrefix;
+        standardOutput = new PrintStream(bufferedStandardOutput);
+
+        try {
+            if (outputDestination == OutputDestination.FILES)
+                new File(outputDirectory).mkdirs();
+
+            preparePlatformList();
+            preparePlatformByteScrapingOutputFiles();
+            initialiseChosenPlatforms();
+            configurePlatforms();
+            preparePlatformPulseOutputFiles();
+            prepareSignalPaths();
+            linkDestinationToPlatforms();
+            addFileStreamConsomerToPlatforms(result.getFilesFound());
+
+            counter = new TimeCounter();
+            processStreamInput();
+        } catch (Throwable t) {
+            result.setError(t);
+            closeInputStream();
+        } finally {
+            stopParallelRunner();
+            closePulseOutputFiles();
+            context.close();
+            ExtractionContext.restore(previousContext);
+        }
+
+        standardOutput.flush();
+        result.setStandardOutput(bufferedStandardOutput.toByteArray());
+        result.setAudioProcessedInNanoseconds(counter == null ? 0L : counter.getTimeInNanoSeconds());
+        result.setMetrics(context.getMetrics());
+        return result;
+    }
+
+    SegmentResult extractSegment(String [] args, String filename, AudioSegment segment) {
+        SegmentResult result = new SegmentResult(segment);
+        ExtractionContext previousContext = context.bindToCurrentThread();
+
+        parseArguments(args);
+        splitAtSilence = false;
+        numberOfThreads = 1;
+
+        try {
+            preparePlatformList();
+            initialiseChosenPlatforms();
+            configurePlatforms();
+            prepareSignalPaths();
+            // The metrics are shared with the whole recording, which counts these files when it is given them
+            addFileStreamConsomerToPlatforms(result);
+
+            counter = new TimeCounter();
+            sampleSource = new AudioInput(filename, defaultChannelName, segment.getFirstFrame(), segment.getNumberOfFrames());
+            configureSampleStreamInput();
+            linkSourceToPlatforms();
+            runThroughWavFile();
+        } catch (Throwable t) {
+            result.setError(t);
+        } finally {
+            context.close();
+            ExtractionContext.restore(previousContext);
+        }
+
+        result.setAudioProcessedInNanoseconds(counter == null ? 0L : counter.getTimeInNanoSeconds());
+        return result;
+    }
+
+    private void closeInputStream() {
+        if (inputStream == null)
+            return;
+
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            System.err.println("Error closing input: " + e.toString());
+        }
+    }
+
     private void initialiseChosenPlatforms() {
         String platformNamePostfix = "";
         for (Platform platform : chosenPlatforms) {
-            platform.initialise(platformNamePostfix);
+            platform.initialise(context, platformNamePostfix);
         }
     }
 
@@ -178,7 +351,7 @@ public class ExtractFile {
             fileCount++;
             updateProgressPercent(fileCount * 100 / numberOfFiles, source.getName());
             inputStream = source.getStream();
-            extractFromInputStream();
+            extractFromInputStream(source);
             inputStream.close();
         }
     }
@@ -206,27 +379,115 @@ public class ExtractFile {
         updateProgressPercent(100, counter.toString());
     }
 
-    private void extractFromInputStream() throws IOException, PlatformAccessError, UnsupportedAudioFileException {
+    private void extractFromInputStream(InputStreamSource source) throws IOException, PlatformAccessError, UnsupportedAudioFileException {
+        if (inputType == InputType.WAV && splitAtSilence && source.isFile()) {
+            extractSegmentsInParallel(source.getFilename());
+            return;
+        }
+
+        if (inputType == InputType.WAV && intervalCache != null && source.isFile()) {
+            intervalCache.startInput(source.getFilename(), signalSettings());
+            if (intervalCache.canReplay()) {
+                counter.addProcessedTime(intervalCache.replay());
+                return;
+            }
+
+            intervalCache.recordMissingStreams();
+        }
+
         if (inputType == InputType.WAV) {
-            AudioInput wavFile = new AudioInput(inputStream, defaultChannelName);
+            AudioInput wavFile = openAudioInput(source);
+            if (!region.isWholeTape())
+                wavFile.restrictToRegion(region);
+
             sampleSource = wavFile;
             configureSampleStreamInput();
         } else if (inputType == InputType.PULSES) {
             pulseSource = new PulseSourceFromInputStream(inputStream);
+            if (!region.isWholeTape())
+                pulseSource.restrictToRegion(region);
+
             connector = new DummySampleSource();
         } else if (inputType == InputType.COMMODORE_TAP) {
             intervalSource = new IntervalSourceFromTAPInputStream(inputStream);
+            if (!region.isWholeTape())
+                intervalSource.restrictToRegion(region.getStartInNanoseconds(), region.getEndInNanoseconds());
+
             connector = new DummySampleSource();
         }
 
         linkSourceToPlatforms();
         runThroughSource();
+        waitForParallelRunner();
+    }
+
+    private void extractSegmentsInParallel(String filename) throws IOException, UnsupportedAudioFileException {
+        List<AudioSegment> segments = findSegmentsSeparatedBySilence(filename);
+        SegmentedExtraction extraction = new SegmentedExtraction(arguments, filename, segments, numberOfSegmentWorkers(), options,
+                context.getMetrics());
+        ExtractionMetrics metricsBeforeSplit = context.getMetrics().snapshot();
+
+        try {
+            for (TimedTapeFile file : extraction.run(progressIndicator))
+                pushFileToConsumers(file.getFile(), file.getTimeIndex());
+        } catch (InterruptedException e) {
+            System.err.println("Segmented extraction interrupted.");
+            Thread.currentThread().interrupt();
+        }
+
+        counter.addProcessedTime(extraction.getAudioProcessedInNanoseconds());
+        printSplitSummary(filename, extraction, context.getMetrics().since(metricsBeforeSplit));
+    }
+
+    private void printSplitSummary(String filename, SegmentedExtraction extraction, ExtractionMetrics metrics) {
+        int numberOfSegments = extraction.getNumberOfSegments();
+        int numberOfWorkers = extraction.getNumberOfWorkers();
+        System.err.println("Split " + filename + " at silence into " + numberOfSegments + " segment" +
+                (numberOfSegments == 1 ? "" : "s") + " on " + numberOfWorkers + " worker" + (numberOfWorkers == 1 ? "" : "s") +
+                ", " + extraction.getNumberOfSegmentsFailed() + " failed. " + metrics);
+    }
+
+    private List<AudioSegment> findSegmentsSeparatedBySilence(String filename) throws IOException, UnsupportedAudioFileException {
+        SilenceScanner scanner = new SilenceScanner(minimumSilenceGapInSeconds);
+        AudioInput scanInput = new AudioInput(filename, defaultChannelName);
+        if (!region.isWholeTape())
+            scanInput.restrictToRegion(region);
+
+        scanInput.registerSampleStreamConsumer(scanner);
+        scanInput.processFile();
+        return scanner.getSegments();
+    }
+
+    private int numberOfSegmentWorkers() {
+        if (numberOfThreads > 1)
+            return numberOfThreads;
+
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    private void pushFileToConsumers(TapeFile file, long currentTimeIndex) {
+        for (FileStreamConsumer consumer : fileConsumers)
+            consumer.pushFile(file, currentTimeIndex);
+    }
+
+    private AudioInput openAudioInput(InputStreamSource source) throws IOException, UnsupportedAudioFileException {
+        if (source.isFile())
+            return new AudioInput(source.getFilename(), defaultChannelName);
+        else
+            return new AudioInput(inputStream, defaultChannelName);
     }
 
     private void configureSampleStreamInput() {
+        SampleStreamProvider decimatedSource = sampleSource;
+        if (decimateHighSampleRates) {
+            Decimator decimator = new Decimator(decimationTargetSampleRate, defaultChannelName);
+            sampleSource.registerSampleStreamConsumer(decimator);
+            decimatedSource = decimator;
+        }
+
         Amplify amplifier = new Amplify(volumeMultiplier * (invertWaveform ? -1.0 : 1.0));
         connector = amplifier;
-        sampleSource.registerSampleStreamConsumer(amplifier);
+        decimatedSource.registerSampleStreamConsumer(amplifier);
 
         if (differentiateSignal) {
             Differentiate differentiate = new Differentiate();
@@ -234,16 +495,27 @@ public class ExtractFile {
             connector = differentiate;
         }
 
-        if (lowPassFilter) {
-            LowPass lowPassFilter = new LowPass(lowPassFilterCutoff, defaultChannelName);
-            connector.registerSampleStreamConsumer(lowPassFilter);
-            connector = lowPassFilter;
-        }
+        if (butterworthFilters && lowPassFilter && highPassFilter) {
+            ButterworthFilter bandPassFilter = ButterworthFilter.bandPass(highPassFilterCutoff, lowPassFilterCutoff,
+                    ButterworthFilter.DEFAULT_ORDER, defaultChannelName);
+            connector.registerSampleStreamConsumer(bandPassFilter);
+            connector = bandPassFilter;
+        } else {
+            if (lowPassFilter) {
+                SampleStreamFilter lowPassFilter = butterworthFilters ?
+                        ButterworthFilter.lowPass(lowPassFilterCutoff, ButterworthFilter.DEFAULT_ORDER, defaultChannelName) :
+                        new LowPass(lowPassFilterCutoff, defaultChannelName);
+                connector.registerSampleStreamConsumer(lowPassFilter);
+                connector = lowPassFilter;
+            }
 
-        if (highPassFilter) {
-            HighPass highPassFilter = new HighPass(highPassFilterCutoff, defaultChannelName);
-            connector.registerSampleStreamConsumer(highPassFilter);
-            connector = highPassFilter;
+            if (highPassFilter) {
+                SampleStreamFilter highPassFilter = butterworthFilters ?
+                        ButterworthFilter.highPass(highPassFilterCutoff, ButterworthFilter.DEFAULT_ORDER, defaultChannelName) :
+                        new HighPass(highPassFilterCutoff, defaultChannelName);
+                connector.registerSampleStreamConsumer(highPassFilter);
+                connector = highPassFilter;
+            }
         }
 
         sampleSource.registerSampleStreamConsumer(counter);
@@ -261,6 +533,14 @@ public class ExtractFile {
     }
 
     private void addFileStreamConsomerToPlatforms(FileStreamConsumer consumer) {
+        if (!fileConsumers.contains(consumer))
+            fileConsumers.add(consumer);
+
+        if (parallelRunner != null) {
+            parallelRunner.getFileOutput().registerFileStreamConsumer(consumer);
+            return;
+        }
+
         for (Platform platform : chosenPlatforms) {
             try {
                 platform.getFileOutputPoint().registerFileStreamConsumer(consumer);
@@ -309,6 +589,9 @@ public class ExtractFile {
     private void configurePlatforms() {
         for (Platform platform : chosenPlatforms) {
             platform.setConfigurationString(configurationString);
+            platform.setToneDemodulation(toneDemodulation);
+            if (hysteresisScale > 0.0 && platform.getIntervalStreamSpec() != null)
+                platform.getIntervalStreamSpec().setHysteresisScale(hysteresisScale);
         }
     }
 
@@ -326,19 +609,19 @@ public class ExtractFile {
     }
 
     private void linkSourceToPlatforms() throws PlatformAccessError {
-        for (Platform platform : chosenPlatforms) {
-            switch (inputType) {
-                case WAV:
-                case SAMPLES:
-                    linkSourceToCorrectInputPoint(platform);
-                    break;
-                case PULSES:
+        switch (inputType) {
+            case WAV:
+            case SAMPLES:
+                connector.registerSampleStreamConsumer(getSignalPathInput());
+                break;
+            case PULSES:
+                for (Platform platform : chosenPlatforms)
                     pulseSource.registerPulseStreamConsumer(platform.getPulseInputPoint());
-                    break;
-                case COMMODORE_TAP:
+                break;
+            case COMMODORE_TAP:
+                for (Platform platform : chosenPlatforms)
                     intervalSource.registerIntervalStreamConsumer(platform.getIntervalInputPoint());
-                    break;
-            }
+                break;
         }
     }
 
@@ -363,19 +646,110 @@ public class ExtractFile {
         }
     }
 
+    private void preparePlatformPulseOutputFiles() throws PlatformAccessError {
+        if (!savePulses)
+            return;
+
+        for (Platform platform : chosenPlatforms) {
+            if (platform.hasOutputType(Platform.Type.PULSE) && platform.hasInputType(Platform.Type.PULSE))
+                preparePulseOutputFileFor(platform);
+        }
+    }
+
+    private void preparePulseOutputFileFor(Platform platform) throws PlatformAccessError {
+        PulseStreamProvider provider = platform.getRawPulseOutputPoint();
+        try {
+            PulseStreamFileOutput output = new PulseStreamFileOutput(outputDirectory, pulseFilenameFor(platform), defaultChannelName);
+            provider.registerPulseStreamConsumer(output);
+            pulseOutputs.add(output);
+        } catch (FileNotFoundException e) {
+            System.err.println(e.toString());
+        }
+    }
+
+    private String pulseFilenameFor(Platform platform) {
+        return outputFilenamePrefix + "pulses." + platform.getName() + PackedPulseFormat.FILENAME_SUFFIX;
+    }
+
+    private void closePulseOutputFiles() {
+        for (PulseStreamFileOutput output : pulseOutputs)
+            output.close();
+
+        pulseOutputs.clear();
+    }
+
     private String byteScrapingFilenameFor(Platform platform) {
         StringBuilder filename = new StringBuilder();
+        filename.append(outputFilenamePrefix);
         filename.append("scrape.");
         filename.append(platform.getName());
         filename.append(".bin");
         return filename.toString();
     }
 
-    private void linkSourceToCorrectInputPoint(Platform platform) throws PlatformAccessError {
-        if (disableDefaultFilters)
-            connector.registerSampleStreamConsumer(platform.getPostFilterWaveformInputPoint());
-        else
-            connector.registerSampleStreamConsumer(platform.getWaveformInputPoint());
+    private boolean usesSampleInput() {
+        return inputSource == InputSource.LINE || inputType == InputType.WAV || inputType == InputType.SAMPLES;
+    }
+
+    private void prepareSignalPaths() throws PlatformAccessError {
+        if (!usesSampleInput())
+            return;
+
+        signalPaths = new SignalPathPlan(chosenPlatforms, !disableDefaultFilters);
+        if (intervalCacheDirectory != null)
+            intervalCache = new IntervalCache(intervalCacheDirectory, signalPaths, defaultChannelName);
+
+        if (numberOfThreads > 1 && !splitAtSilence) {
+            parallelRunner = new ParallelPlatformRunner(signalPaths, numberOfThreads, defaultChannelName);
+            printSignalPathSummary(parallelRunner.getNumberOfFilters(), parallelRunner.getNumberOfIntervalExtractors(),
+                    parallelRunner.getNumberOfThreads());
+        }
+    }
+
+    // Everything ahead of the shared signal paths that changes the intervals they produce
+    private String signalSettings() {
+        StringBuilder settings = new StringBuilder();
+        settings.append("volume ").append(volumeMultiplier * (invertWaveform ? -1.0 : 1.0));
+        settings.append(" differentiate ").append(differentiateSignal);
+        settings.append(" lowpass ").append(lowPassFilter ? lowPassFilterCutoff : 0.0);
+        settings.append(" highpass ").append(highPassFilter ? highPassFilterCutoff : 0.0);
+        settings.append(" butterworth ").append(butterworthFilters);
+        settings.append(" decimate ").append(decimateHighSampleRates ? decimationTargetSampleRate : 0.0);
+        settings.append(" region ").append(region);
+        return settings.toString();
+    }
+
+    private SampleStreamConsumer getSignalPathInput() throws PlatformAccessError {
+        if (parallelRunner != null)
+            return parallelRunner;
+
+        if (sharedFilters == null) {
+            sharedFilters = signalPaths.build(defaultChannelName);
+            printSignalPathSummary(signalPaths.getNumberOfFilters(), signalPaths.getNumberOfIntervalExtractors(), 1);
+        }
+
+        return sharedFilters.getInput();
+    }
+
+    private void printSignalPathSummary(int numberOfFilters, int numberOfIntervalExtractors, int numberOfThreads) {
+        if (batchJob || options.getLogVerbosity() != TapeExtractionOptions.LoggingMode.NONE)
+            return;
+
+        System.err.print("Shared signal paths: " + numberOfFilters + " filters, " + numberOfIntervalExtractors + " interval extractors");
+        if (numberOfThreads > 1)
+            System.err.print(" on " + numberOfThreads + " worker threads");
+
+        System.err.println();
+    }
+
+    private void waitForParallelRunner() {
+        if (parallelRunner != null)
+            parallelRunner.waitUntilIdle();
+    }
+
+    private void stopParallelRunner() {
+        if (parallelRunner != null)
+            parallelRunner.shutdown();
     }
 
     private void configureLogOutput() {
@@ -405,7 +779,7 @@ public class ExtractFile {
                 break;
 
             case STANDARD_OUT:
-                fileStreamDataSink = new StreamOutputFileWriter(System.out, allowFilesWithErrors)
+                fileStreamDataSink = new StreamOutputFileWriter(standardOutput, allowFilesWithErrors)
                         .setOutputFileType(outputFileType);
 
                 break;
@@ -418,6 +792,7 @@ public class ExtractFile {
         }
 
         addFileStreamConsomerToPlatforms(fileStreamDataSink);
+        addFileStreamConsomerToPlatforms(context.getMetrics());
     }
 
     private String getFilePath(String directory, String filename) {
@@ -431,6 +806,7 @@ public class ExtractFile {
     }
 
     private void parseArguments(String [] args) {
+        arguments = args;
         if ((args.length == 1) && (args[0].equals("-help")))
             needToDisplayHelp = true;
         else
@@ -462,6 +838,33 @@ public class ExtractFile {
                     case "-scrape":
                         scapeBytesFromInputFiles = true;
                         break;
+                    case "-save-pulses":
+                        savePulses = true;
+                        break;
+                    case "-butterworth":
+                        butterworthFilters = true;
+                        break;
+                    case "-fsk":
+                        toneDemodulation = true;
+                        break;
+                    case "-hysteresis":
+                        hysteresisScale = 1.0;
+                        break;
+                    case "-interval-cache":
+                        intervalCacheDirectory = DEFAULT_INTERVAL_CACHE_DIRECTORY;
+                        break;
+                    case "-threads":
+                        numberOfThreads = Runtime.getRuntime().availableProcessors();
+                        break;
+                    case "-batch":
+                        numberOfBatchWorkers = Runtime.getRuntime().availableProcessors();
+                        break;
+                    case "-split-silence":
+                        splitAtSilence = true;
+                        break;
+                    case "-nodecimate":
+                        decimateHighSampleRates = false;
+                        break;
                     case "-nofilters":
                         disableDefaultFilters = true;
                         break;
@@ -516,18 +919,92 @@ public class ExtractFile {
                             break;
                         }
 
+                        if (args[i].startsWith("-hysteresis=")) {
+                            hysteresisScale = Double.parseDouble(args[i].substring("-hysteresis=".length()));
+                            break;
+                        }
+
                         if (args[i].startsWith("-lowpass=")) {
                             lowPassFilterCutoff = Double.parseDouble((args[i].substring("-lowpass=".length())));
                             lowPassFilter = true;
                             break;
                         }
 
+                        if (args[i].startsWith("-bandpass=")) {
+                            String [] edges = args[i].substring("-bandpass=".length()).split(":");
+                            if (edges.length != 2) {
+                                System.err.println("Band pass filter needs a lower and upper cutoff, e.g. -bandpass=300:4800");
+                                needToDisplayHelp = true;
+                                return;
+                            }
+
+                            highPassFilterCutoff = Double.parseDouble(edges[0]);
+                            lowPassFilterCutoff = Double.parseDouble(edges[1]);
+                            if (!(highPassFilterCutoff > 0.0 && highPassFilterCutoff < lowPassFilterCutoff)) {
+                                System.err.println("Band pass filter lower cutoff must be above zero and below the upper cutoff, e.g. -bandpass=300:4800");
+                                needToDisplayHelp = true;
+                                return;
+                            }
+
+                            highPassFilter = true;
+                            lowPassFilter = true;
+                            butterworthFilters = true;
+                            break;
+                        }
+
                         if (args[i].startsWith("-highpass=")) {
                             highPassFilterCutoff = Double.parseDouble((args[i].substring("-highpass=".length())));
                             highPassFilter = true;
                             break;
                         }
 
+                        if (args[i].startsWith("-threads=")) {
+                            numberOfThreads = Integer.parseInt(args[i].substring("-threads=".length()));
+                            break;
+                        }
+
+                        if (args[i].startsWith("-batch=")) {
+                            numberOfBatchWorkers = Integer.parseInt(args[i].substring("-batch=".length()));
+                            break;
+                        }
+
+                        if (args[i].startsWith("-split-silence=")) {
+                            minimumSilenceGapInSeconds = Double.parseDouble(args[i].substring("-split-silence=".length()));
+                            splitAtSilence = true;
+                            break;
+                        }
+
+                        if (args[i].startsWith("-linein-rate=")) {
+                            lineInputSampleRate = Integer.parseInt(args[i].substring("-linein-rate=".length()));
+                            break;
+                        }
+
+                        if (args[i].startsWith("-linein-bits=")) {
+                            lineInputBitsPerSample = Integer.parseInt(args[i].substring("-linein-bits=".length()));
+                            break;
+                        }
+
+                        if (args[i].startsWith("-decimate=")) {
+                            decimationTargetSampleRate = Double.parseDouble(args[i].substring("-decimate=".length()));
+                            decimateHighSampleRates = true;
+                            break;
+                        }
+
+                        if (args[i].startsWith("-interval-cache=")) {
+                            intervalCacheDirectory = args[i].substring("-interval-cache=".length());
+                            break;
+                        }
+
+                        if (args[i].startsWith("-start=")) {
+                            setRegionBoundary(args[i], "-start=");
+                            break;
+                        }
+
+                        if (args[i].startsWith("-end=")) {
+                            setRegionBoundary(args[i], "-end=");
+                            break;
+                        }
+
                         if (args[i].startsWith("-volume=")) {
                             volumeMultiplier = Double.parseDouble((args[i].substring("-volume=".length())));
                             break;
@@ -552,6 +1029,54 @@ public class ExtractFile {
 
             if (!inputSourceSpecified)
                 needToDisplayHelp = true;
+
+            checkRegionSuitsInputType();
+            checkSplitAtSilenceOptions();
+        }
+    }
+
+    private void setRegionBoundary(String argument, String option) {
+        String offset = argument.substring(option.length());
+        try {
+            if (option.equals("-start="))
+                region.setStart(offset);
+            else
+                region.setEnd(offset);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid offset for " + option + " " + offset + " (" + e.getMessage() + "). Use a time such as 90, 1:30 or 1:02:03.5,");
+            System.err.println("or a count such as 3969000samples or 1000pulses, for both -start and -end.");
+            needToDisplayHelp = true;
+        }
+    }
+
+    private void checkRegionSuitsInputType() {
+        if (region.isEmpty()) {
+            System.err.println("The end of the region to decode must be after its start: " + region);
+            needToDisplayHelp = true;
+        } else if (inputType == InputType.COMMODORE_TAP && region.usesCounts()) {
+            System.err.println("TAP input has no samples, so -start and -end must be given as times.");
+            needToDisplayHelp = true;
+        } else if (inputType != InputType.PULSES && region.usesPulseCounts()) {
+            System.err.println("Only pulse input can be split at a pulse count. Give -start and -end as times or sample counts.");
+            needToDisplayHelp = true;
+        }
+    }
+
+    private void checkSplitAtSilenceOptions() {
+        if (!splitAtSilence)
+            return;
+
+        // Each segment is decoded on its own, so output that follows the whole recording cannot be produced
+        rejectWithSplitAtSilence(soundOutput != null, "-sound-output");
+        rejectWithSplitAtSilence(scapeBytesFromInputFiles, "-scrape");
+        rejectWithSplitAtSilence(savePulses, "-save-pulses");
+        rejectWithSplitAtSilence(intervalCacheDirectory != null, "-interval-cache");
+    }
+
+    private void rejectWithSplitAtSilence(boolean optionGiven, String option) {
+        if (optionGiven) {
+            System.err.println(option + " cannot be used with -split-silence.");
+            needToDisplayHelp = true;
         }
     }
 
@@ -595,8 +1120,8 @@ public class ExtractFile {
         System.err.println("   stdout: output file contents to standard out");
         System.err.println("-input=<type>, specifies the format of the input files. One of:");
         System.err.println("   wav: an audio file, such as WAV (default)");
-        System.err.println("   pulses: a pulse file that was previously output with -logging=parsing");
-        System.err.println("   tap: a version 0 or 1 Commodore TAP file");
+        System.err.println("   pulses: a pulse file saved with -save-pulses, or output with -logging=parsing");
+        System.err.println("   tap: a version 0, 1 or 2 Commodore TAP file");
         System.err.println("-output=<type>, chooses format of output files. One of (defaults to all):");
         System.err.println("   binary: binary file content");
         System.err.println("   text: text, e.g. ASCII or Basic listing");
@@ -611,10 +1136,35 @@ public class ExtractFile {
         System.err.println("-invert: invert the incoming waveform before processing");
         System.err.println("-differentiate: differentiate the input signal before processing");
         System.err.println("-scrape: output any bytes found in platform-specific files if platform supports this");
+        System.err.println("-save-pulses: save each platform's pulses to pulses.<platform>.pulses, to re-run with -input=pulses");
+        System.err.println("-interval-cache=<dir>: keep the intervals found in each WAV file in this directory, and on later runs");
+        System.err.println("   with the same filters read them from there instead of the audio. -interval-cache uses " + DEFAULT_INTERVAL_CACHE_DIRECTORY);
         System.err.println("-nofilters: disable default high and low pass filters on all platforms");
+        System.err.println("-decimate=<hz>: reduce input recorded at twice this rate or more down to it (default 44100)");
+        System.err.println("-nodecimate: process input at the rate it was recorded, however high");
+        System.err.println("-threads=<n>: run the chosen platforms on n worker threads. -threads uses one per processor");
+        System.err.println("   with -split-silence, this is instead the number of segments decoded at once");
+        System.err.println("-batch=<n>: process the input files independently, n at a time. -batch uses one per processor");
+        System.err.println("   with -destination=directory, each input file's output goes to its own subdirectory");
+        System.err.println("   otherwise -save-pulses and -scrape files are named after each input file");
+        System.err.println("-split-silence=<seconds>: split each WAV file at silent gaps at least this long (default 3)");
+        System.err.println("   and decode the pieces in parallel, using -threads=<n> workers or one per processor.");
+        System.err.println("   Cannot be used with -sound-output, -scrape, -save-pulses or -interval-cache");
+        System.err.println("-start=<offset>, -end=<offset>: decode only this part of each input. Give a time such as 90, 1:30");
+        System.err.println("   or 1:02:03.5, a sample count such as 3969000samples, or for pulse input a pulse count such as 1000pulses.");
+        System.err.println("   Times found are still from the start of the tape");
         System.err.println("-linein: audio from default line input device rather than audio files (experimental)");
+        System.err.println("-linein-rate=<hz>: sample rate to capture line input at (default 44100)");
+        System.err.println("-linein-bits=<8|16>: bits per sample to capture line input at (default 8)");
         System.err.println("-lowpass=<freq>: pass signal through a low pass filter before processing, cutoff specified in hz");
         System.err.println("-highass=<freq>: pass signal through a high pass filter before processing, cutoff specified in hz");
+        System.err.println("-butterworth: use 4th order Butterworth filters for -lowpass and -highpass, for a sharper cutoff");
+        System.err.println("-bandpass=<low>:<high>: pass signal through a 4th order Butterworth band pass filter before processing");
+        System.err.println("-fsk: decode two tone platforms (acorn, msx, atari) with a tone detector rather than zero crossings,");
+        System.err.println("   which copes better with noisy or distorted recordings");
+        System.err.println("-hysteresis[=<scale>]: only count a zero crossing once the signal is past zero by a margin suited to");
+        System.err.println("   each platform, ignoring noise near zero, and time crossings to a fraction of a sample. The scale");
+        System.err.println("   widens or narrows every platform's margin (default 1.0). Platforms that need every crossing are unaffected");
         System.err.println("-volume=<1.0, etc>: amount to multiply incoming signal by");
         System.err.println("-intact-files-only: only recover files that appear complete and with no errors");
         System.err.println("-sound-output=<filename>: output sample data after filters to WAV audio file");
@@ -649,7 +1199,7 @@ public class ExtractFile {
             streamList.add(new InputStreamSource(System.in, "standard input"));
         } else {
             for (String filename : inputFilenames) {
-                InputStreamSource source = new InputStreamSource(new BufferedInputStream(new FileInputStream(filename)), filename);
+                InputStreamSource source = new InputStreamSource(new BufferedInputStream(new FileInputStream(filename)), filename, filename);
                 streamList.add(source);
             }
         }
@@ -689,7 +1239,7 @@ public class ExtractFile {
 
     private void runThroughSamples() throws PlatformAccessError {
         try {
-            LineInput lineInput = new LineInput(defaultChannelName);
+            LineInput lineInput = new LineInput(defaultChannelName, lineInputSampleRate, lineInputBitsPerSample);
             sampleSource = lineInput;
             configureSampleStreamInput();
             linkSourceToPlatforms();
@@ -699,21 +1249,27 @@ public class ExtractFile {
 
             lineInput.startAudioCapture();
 
-            while (System.in.available() == 0) {
-                lineInput.processReceivedSamples();
-                Thread.sleep(10);
-            }
+            while (System.in.available() == 0)
+                lineInput.processReceivedSamples(LINE_INPUT_WAIT_IN_NANOSECONDS);
 
             lineInput.stopAudioCapture();
+            waitForParallelRunner();
+            printCaptureOverruns(lineInput);
         } catch (DataSourceNotAvailableException e) {
             System.err.println(e.toString());
-        } catch (InterruptedException e) {
-            e.printStackTrace();
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private void printCaptureOverruns(LineInput lineInput) {
+        if (lineInput.getCaptureOverruns() == 0 && lineInput.getLineOverruns() == 0)
+            return;
+
+        System.err.println("Warning: audio capture overran " + lineInput.getCaptureOverruns() + " times (" +
+                lineInput.getSamplesDropped() + " samples lost), input line buffer full " + lineInput.getLineOverruns() + " times");
+    }
+
     private void preparePlatforms() {
         availablePlatforms.addAll(new CommodorePlatformProvider().getPlatforms());
         availablePlatforms.addAll(new AcornPlatformProvider().getPlatforms());
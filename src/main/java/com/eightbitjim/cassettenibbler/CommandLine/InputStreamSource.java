@@ -23,12 +23,26 @@ import java.io.InputStream;
 public class InputStreamSource {
     private InputStream stream;
     private String name;
+    private String filename;
 
     public InputStreamSource(InputStream stream, String name) {
         this.stream = stream;
         this.name = name;
     }
 
+    public InputStreamSource(InputStream stream, String name, String filename) {
+        this(stream, name);
+        this.filename = filename;
+    }
+
+    public boolean isFile() {
+        return filename != null;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.CommandLine;
+
+import com.eightbitjim.cassettenibbler.FileStreamConsumer;
+import com.eightbitjim.cassettenibbler.Pipeline.AudioSegment;
+import com.eightbitjim.cassettenibbler.Pipeline.TimedTapeFile;
+import com.eightbitjim.cassettenibbler.TapeFile;
+
+import java.util.LinkedList;
+import java.util.List;
+
+public class SegmentResult implements FileStreamConsumer {
+    private AudioSegment segment;
+    private List<TimedTapeFile> files;
+    private long audioProcessedInNanoseconds;
+    private Throwable error;
+
+    public SegmentResult(AudioSegment segment) {
+        this.segment = segment;
+        files = new LinkedList<>();
+    }
+
+    @Override
+    public void pushFile(TapeFile file, long currentTimeIndex) {
+        if (file != null)
+            files.add(new TimedTapeFile(file, currentTimeIndex));
+    }
+
+    public AudioSegment getSegment() {
+        return segment;
+    }
+
+    public List<TimedTapeFile> getFiles() {
+        return files;
+    }
+
+    public long getAudioProcessedInNanoseconds() {
+        return audioProcessedInNanoseconds;
+    }
+
+    public void setAudioProcessedInNanoseconds(long audioProcessedInNanoseconds) {
+        this.audioProcessedInNanoseconds = audioProcessedInNanoseconds;
+    }
+
+    public boolean failed() {
+        return error != null;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+
+    public void setError(Throwable error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.CommandLine;
+
+import com.eightbitjim.cassettenibbler.ExtractionContext;
+import com.eightbitjim.cassettenibbler.ExtractionMetrics;
+import com.eightbitjim.cassettenibbler.Pipeline.AudioSegment;
+import com.eightbitjim.cassettenibbler.Pipeline.TimedTapeFile;
+import com.eightbitjim.cassettenibbler.TapeExtractionOptions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class SegmentedExtraction {
+    private String [] arguments;
+    private String filename;
+    private List<AudioSegment> segments;
+    private int numberOfWorkers;
+    private TapeExtractionOptions options;
+    private ExtractionMetrics metrics;
+    private long audioProcessedInNanoseconds;
+    private int segmentsFailed;
+
+    public SegmentedExtraction(String [] arguments, String filename, List<AudioSegment> segments, int numberOfWorkers,
+                               TapeExtractionOptions options, ExtractionMetrics metrics) {
+        this.arguments = arguments;
+        this.filename = filename;
+        this.segments = segments;
+        this.numberOfWorkers = Math.max(1, Math.min(numberOfWorkers, segments.size()));
+        this.options = options;
+        this.metrics = metrics;
+    }
+
+    // Returns the files found in every segment, in the order they were found in the recording
+    public List<TimedTapeFile> run(CommandLineProgressIndicator progressIndicator) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(numberOfWorkers, new SegmentWorkerThreadFactory());
+        List<Future<SegmentResult>> pendingResults = new LinkedList<>();
+        for (AudioSegment segment : segments)
+            pendingResults.add(workers.submit(jobFor(segment)));
+
+        workers.shutdown();
+
+        List<TimedTapeFile> files = new ArrayList<>();
+        int segmentsCompleted = 0;
+        for (int i = 0; i < pendingResults.size(); i++) {
+            SegmentResult result = waitForResult(segments.get(i), pendingResults.get(i));
+            recordResult(result, files);
+            segmentsCompleted++;
+            if (progressIndicator != null)
+                progressIndicator.setProgressPercent(segmentsCompleted * 100 / segments.size(),
+                        "Segment " + segmentsCompleted + " of " + segments.size());
+        }
+
+        files.sort(Comparator.comparingLong(TimedTapeFile::getTimeIndex));
+        return files;
+    }
+
+    private Callable<SegmentResult> jobFor(AudioSegment segment) {
+        ExtractionContext context = new ExtractionContext(new TapeExtractionOptions(options), metrics);
+        return () -> new ExtractFile(context, true).extractSegment(arguments, filename, segment);
+    }
+
+    private SegmentResult waitForResult(AudioSegment segment, Future<SegmentResult> pendingResult) throws InterruptedException {
+        try {
+            return pendingResult.get();
+        } catch (ExecutionException e) {
+            SegmentResult result = new SegmentResult(segment);
+            result.setError(e.getCause());
+            return result;
+        }
+    }
+
+    private void recordResult(SegmentResult result, List<TimedTapeFile> files) {
+        audioProcessedInNanoseconds += result.getAudioProcessedInNanoseconds();
+        files.addAll(result.getFiles());
+        if (result.failed()) {
+            segmentsFailed++;
+            System.err.println(result.getSegment() + " of " + filename + " failed: " + result.getError().toString());
+        }
+    }
+
+    public int getNumberOfSegments() {
+        return segments.size();
+    }
+
+    public int getNumberOfWorkers() {
+        return numberOfWorkers;
+    }
+
+    public int getNumberOfSegmentsFailed() {
+        return segmentsFailed;
+    }
+
+    public long getAudioProcessedInNanoseconds() {
+        return audioProcessedInNanoseconds;
+    }
+
+    private static class SegmentWorkerThreadFactory implements ThreadFactory {
+        private int workerNumber = 0;
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "segment-worker-" + workerNumber++);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -25,7 +25,7 @@ public class IntervalStreamPrinter implements IntervalStreamConsumer {
     private static final double NANOSECONDS_IN_A_SECOND = 1000000000.0;
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         System.out.print(transition.transitionedToHigh ? "H" : "L");
         System.out.print((long)Math.floor(transition.secondsSinceLastTransition * NANOSECONDS_IN_A_SECOND));
         System.out.println();
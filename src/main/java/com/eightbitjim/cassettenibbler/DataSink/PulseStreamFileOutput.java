@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSink;
+
+import com.eightbitjim.cassettenibbler.DataSource.PackedPulseFormat;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseExtractiorParameters;
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+
+import java.io.BufferedOutputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class PulseStreamFileOutput implements PulseStreamConsumer {
+    private static final int BUFFER_SIZE = 65536;
+
+    private TapeExtractionLogging logging;
+    private OutputStream outputStream;
+    private long lastTimeIndex = 0;
+
+    public PulseStreamFileOutput(String directory, String filename, String channelName) throws FileNotFoundException {
+        outputStream = new BufferedOutputStream(new FileOutputStream(getFilePath(directory, filename)), BUFFER_SIZE);
+        logging = TapeExtractionLogging.getInstance(channelName);
+        try {
+            outputStream.write(PackedPulseFormat.HEADER);
+        } catch (IOException e) {
+            reportWriteError(0, e);
+        }
+    }
+
+    @Override
+    public void pushPulse(char pulseType, long currentTimeIndex) {
+        if (outputStream == null)
+            return;
+
+        try {
+            writePulse(pulseType, currentTimeIndex);
+            if (pulseType == PulseStreamConsumer.END_OF_STREAM)
+                outputStream.flush();
+        } catch (IOException e) {
+            reportWriteError(currentTimeIndex, e);
+        }
+    }
+
+    private void writePulse(char pulseType, long currentTimeIndex) throws IOException {
+        int code = PackedPulseFormat.codeForPulse(pulseType);
+        long delta = PackedPulseFormat.zigzagEncode(currentTimeIndex - lastTimeIndex);
+        lastTimeIndex = currentTimeIndex;
+
+        int firstByte = (code << PackedPulseFormat.SYMBOL_SHIFT) | (int)(delta & PackedPulseFormat.FIRST_DELTA_MASK);
+        delta >>>= PackedPulseFormat.FIRST_DELTA_BITS;
+        if (delta != 0)
+            firstByte |= PackedPulseFormat.MORE_DELTA_FOLLOWS;
+
+        outputStream.write(firstByte);
+        while (delta != 0) {
+            int deltaByte = (int)(delta & PackedPulseFormat.DELTA_BYTE_MASK);
+            delta >>>= PackedPulseFormat.DELTA_BYTE_BITS;
+            if (delta != 0)
+                deltaByte |= PackedPulseFormat.MORE_DELTA_BYTES_FOLLOW;
+
+            outputStream.write(deltaByte);
+        }
+
+        if (code == PackedPulseFormat.ESCAPE) {
+            outputStream.write(pulseType >> 8);
+            outputStream.write(pulseType & 0xff);
+        }
+    }
+
+    @Override
+    public void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters) {
+
+    }
+
+    public void close() {
+        if (outputStream == null)
+            return;
+
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            reportWriteError(lastTimeIndex, e);
+        }
+
+        outputStream = null;
+    }
+
+    private void reportWriteError(long currentTimeIndex, IOException e) {
+        logging.writeProgramOrEnvironmentError(currentTimeIndex, "Exception while writing to pulse output file: " + e.toString());
+    }
+
+    private String getFilePath(String directory, String filename) {
+        StringBuilder pathToReturn = new StringBuilder();
+        pathToReturn.append(directory);
+        if (!directory.endsWith("/") && !directory.endsWith("\\"))
+            pathToReturn.append("/");
+
+        pathToReturn.append(filename);
+        return pathToReturn.toString();
+    }
+}
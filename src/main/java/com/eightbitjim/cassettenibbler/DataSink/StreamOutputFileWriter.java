@@ -44,6 +44,9 @@ public class StreamOutputFileWriter implements FileStreamConsumer {
 
     @Override
     public void pushFile(TapeFile file, long currentTimeIndex) {
+        if (file == null)
+            return;
+
         if (outputFilesWithErrors || !file.containsErrors())
             outputSingleFile(file);
     }
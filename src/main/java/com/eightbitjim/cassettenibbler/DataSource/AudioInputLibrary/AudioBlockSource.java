@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource.AudioInputLibrary;
+
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+import com.eightbitjim.cassettenibbler.TimeBase;
+
+public abstract class AudioBlockSource {
+    private long totalFramesReceived;
+    private double currentNormalisedSampleValue;
+    private boolean endOfFile;
+    private double [] decodedBlock;
+    private int framesInDecodedBlock;
+    private int positionInDecodedBlock;
+
+    private TimeBase timeBase;
+    protected TapeExtractionLogging logging;
+
+    protected AudioBlockSource(String channelName) {
+        logging = TapeExtractionLogging.getInstance(channelName);
+        totalFramesReceived = 0;
+        timeBase = new TimeBase(1.0);
+    }
+
+    protected void allocateDecodedBlock(int framesPerBlock) {
+        decodedBlock = new double[Math.max(1, framesPerBlock)];
+        framesInDecodedBlock = 0;
+        positionInDecodedBlock = 0;
+    }
+
+    protected void setSampleRate(double sampleRateInHertz) {
+        timeBase.setSampleRate(sampleRateInHertz);
+    }
+
+    protected abstract int decodeNextBlock(double [] destination) throws Exception;
+
+    protected void recordFileDataInLoggingOutput() {
+        logging.writeFileParsingInformation("New audio input stream");
+        logging.writeFileParsingInformation("Sample rate " + timeBase.getSampleRate() + "hz");
+    }
+
+    public double getNextSampleNormalisedValue() {
+        if (positionInDecodedBlock >= framesInDecodedBlock)
+            readNextBlock();
+
+        if (framesInDecodedBlock < 1)
+            return currentNormalisedSampleValue;
+
+        currentNormalisedSampleValue = decodedBlock[positionInDecodedBlock++];
+        totalFramesReceived++;
+        return currentNormalisedSampleValue;
+    }
+
+    public int readNextBlock() {
+        framesInDecodedBlock = 0;
+        positionInDecodedBlock = 0;
+        if (endOfFile)
+            return 0;
+
+        try {
+            framesInDecodedBlock = decodeNextBlock(decodedBlock);
+            if (framesInDecodedBlock < 1)
+                recordEndOfFile();
+        } catch (Exception ex) {
+            logging.writeFileParsingInformation("Exception while reading audio file: " + ex.toString());
+            framesInDecodedBlock = 0;
+            recordEndOfFile();
+        }
+
+        return framesInDecodedBlock;
+    }
+
+    protected void startCountingFramesFrom(long frameNumber) {
+        totalFramesReceived = frameNumber;
+    }
+
+    public double [] getDecodedBlock() {
+        return decodedBlock;
+    }
+
+    public void registerBlockAsProcessed() {
+        totalFramesReceived += framesInDecodedBlock - positionInDecodedBlock;
+        positionInDecodedBlock = framesInDecodedBlock;
+    }
+
+    public long getTotalFramesReceived() {
+        return totalFramesReceived;
+    }
+
+    public double getSampleLengthInSeconds() {
+        return timeBase.getSampleLengthInSeconds();
+    }
+
+    public double getSampleRate() {
+        return timeBase.getSampleRate();
+    }
+
+    private void recordEndOfFile() {
+        endOfFile = true;
+        currentNormalisedSampleValue = 0.0;
+        logging.writeFileParsingInformation("End of audio input stream reached");
+        close();
+    }
+
+    protected void close() {
+    }
+
+    public double getCurrentTimeIndex() {
+        return timeBase.secondsAt(totalFramesReceived);
+    }
+
+    public boolean isEndOfFile() {
+        return endOfFile;
+    }
+}
@@ -18,36 +18,30 @@
 
 package com.eightbitjim.cassettenibbler.DataSource.AudioInputLibrary;
 
-import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 import javax.sound.sampled.UnsupportedAudioFileException;
 import java.io.*;
 
-public class AudioFile {
+public class AudioFile extends AudioBlockSource {
+    private static final int READ_BUFFER_SIZE_IN_BYTES = 64 * 1024;
+
     private int bytesPerFrame;
-    private long totalFramesReceived;
-    private double currentTimeIndex;
-    private double sampleLengthInSeconds;
-    private double currentNormalisedSampleValue;
-    private boolean endOfFile;
     private byte [] audioBytes;
+    private int bytesInBuffer;
     private InputStream inputStream;
 
     private AudioInputStream audioInputStream;
-    private TapeExtractionLogging logging;
 
     public AudioFile(String filename, String channelName) throws IOException, UnsupportedAudioFileException {
-        logging = TapeExtractionLogging.getInstance(channelName);
-        totalFramesReceived = 0;
+        super(channelName);
         openFileFromFilename(filename);
         initialise();
     }
 
     public AudioFile(InputStream inputStream, String channelName) throws IOException, UnsupportedAudioFileException {
-        logging = TapeExtractionLogging.getInstance(channelName);
-        totalFramesReceived = 0;
+        super(channelName);
         this.inputStream = inputStream;
         initialise();
     }
@@ -58,19 +52,25 @@ public class AudioFile {
 
     private void initialise() throws IOException, UnsupportedAudioFileException {
         ensureMarkResetIsSupported();
-        currentTimeIndex = 0.0;
         audioInputStream = AudioSystem.getAudioInputStream(inputStream);
         convertAudioInputStreamToPcmSigned();
 
-        sampleLengthInSeconds = (double)(1.0f / audioInputStream.getFormat().getSampleRate());
+        setSampleRate(audioInputStream.getFormat().getSampleRate());
         bytesPerFrame = audioInputStream.getFormat().getFrameSize();
         if (bytesPerFrame == AudioSystem.NOT_SPECIFIED)
             bytesPerFrame = 1;
 
-        audioBytes = new byte[bytesPerFrame];
+        allocateBuffers();
         recordFileDataInLoggingOutput();
     }
 
+    private void allocateBuffers() {
+        int framesPerBlock = Math.max(1, READ_BUFFER_SIZE_IN_BYTES / bytesPerFrame);
+        audioBytes = new byte[framesPerBlock * bytesPerFrame];
+        bytesInBuffer = 0;
+        allocateDecodedBlock(framesPerBlock);
+    }
+
     private void ensureMarkResetIsSupported() {
         if (!inputStream.markSupported())
             inputStream = new BufferedInputStream(inputStream);
@@ -90,60 +90,42 @@ public class AudioFile {
         }
     }
 
-    private void recordFileDataInLoggingOutput() {
-        logging.writeFileParsingInformation("New audio input stream");
-        logging.writeFileParsingInformation("Sample rate " + (1.0 / sampleLengthInSeconds) + "hz");
-    }
-
-    public double getNextSampleNormalisedValue() {
-        try {
-            int numBytesRead = 0;
-            int numFramesRead = 0;
-
-            numBytesRead = audioInputStream.read(audioBytes);
-            numFramesRead = numBytesRead / bytesPerFrame;
-            if (numFramesRead < 1)
-                recordEndOfFile();
-            else
-                processSample();
-        } catch (Exception ex) {
-            logging.writeFileParsingInformation("Exception while reading audio file: " + ex.toString());
-            recordEndOfFile();
-        }
+    @Override
+    protected int decodeNextBlock(double [] destination) throws IOException {
+        fillReadBuffer();
+        int framesInBuffer = bytesInBuffer / bytesPerFrame;
+        if (framesInBuffer > 0)
+            decodeFramesInReadBuffer(destination, framesInBuffer);
 
-        return currentNormalisedSampleValue;
+        return framesInBuffer;
     }
 
-    private void recordEndOfFile() {
-        endOfFile = true;
-        currentNormalisedSampleValue = 0.0;
-        logging.writeFileParsingInformation("End of audio input stream reached");
-    }
+    private void fillReadBuffer() throws IOException {
+        while (bytesInBuffer < audioBytes.length) {
+            int numBytesRead = audioInputStream.read(audioBytes, bytesInBuffer, audioBytes.length - bytesInBuffer);
+            if (numBytesRead < 0)
+                break;
 
-    private void processSample() {
-        int sampleValue = convertBytesToSignedInteger(audioBytes[0], audioBytes[1]);
-        double normalisedSampleValue = (double)sampleValue / (double)0x8000;
-        totalFramesReceived++;
-        currentNormalisedSampleValue = normalisedSampleValue;
-        currentTimeIndex = (double)totalFramesReceived * sampleLengthInSeconds;
+            bytesInBuffer += numBytesRead;
+        }
     }
 
-    private int convertBytesToSignedInteger(byte low, byte high) {
-        int unsignedValue = Byte.toUnsignedInt(low) + Byte.toUnsignedInt(high) * 0x100;
-        int signedValue;
-        if ((unsignedValue & 0x8000) == 0)
-            signedValue = unsignedValue;
-        else
-            signedValue = unsignedValue - 0x10000;
+    private void decodeFramesInReadBuffer(double [] destination, int framesInBuffer) {
+        int offset = 0;
+        for (int frame = 0; frame < framesInBuffer; frame++) {
+            int sampleValue = (audioBytes[offset] & 0xff) | (audioBytes[offset + 1] << 8);
+            destination[frame] = (double)sampleValue / (double)0x8000;
+            offset += bytesPerFrame;
+        }
 
-        return signedValue;
+        keepPartialFrameForNextRead(framesInBuffer * bytesPerFrame);
     }
 
-    public double getCurrentTimeIndex() {
-        return currentTimeIndex;
-    }
+    private void keepPartialFrameForNextRead(int bytesConsumed) {
+        int bytesRemaining = bytesInBuffer - bytesConsumed;
+        if (bytesRemaining > 0)
+            System.arraycopy(audioBytes, bytesConsumed, audioBytes, 0, bytesRemaining);
 
-    public boolean isEndOfFile() {
-        return endOfFile;
+        bytesInBuffer = bytesRemaining;
     }
 }
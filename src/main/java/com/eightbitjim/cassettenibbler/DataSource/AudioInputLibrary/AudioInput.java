@@ -18,6 +18,8 @@
 
 package com.eightbitjim.cassettenibbler.DataSource.AudioInputLibrary;
 
+import com.eightbitjim.cassettenibbler.DataSource.IncorrectFileFormatException;
+import com.eightbitjim.cassettenibbler.DataSource.TapeRegion;
 import com.eightbitjim.cassettenibbler.Sample;
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
 import com.eightbitjim.cassettenibbler.SampleStreamProvider;
@@ -32,11 +34,13 @@ import java.util.List;
 public class AudioInput implements SampleStreamProvider {
     private List<SampleStreamConsumer> consumers = new LinkedList<>();
     private Sample sampleToPush;
-    private AudioFile file;
+    private AudioBlockSource file;
+    private long regionStartFrame = 0L;
+    private long regionEndFrame = Long.MAX_VALUE;
 
     public AudioInput(String filename, String channelName) throws IOException, UnsupportedAudioFileException {
         sampleToPush = new Sample();
-        file = new AudioFile(new FileInputStream(filename), channelName);
+        file = openFile(filename, channelName);
     }
 
     public AudioInput(InputStream inputStream, String channelName) throws IOException, UnsupportedAudioFileException {
@@ -44,6 +48,44 @@ public class AudioInput implements SampleStreamProvider {
         file = new AudioFile(inputStream, channelName);
     }
 
+    // Reads only part of a WAV file. Sample indexes carry on from the start of the file, so timestamps are
+    // the same as they would be if the whole file was read.
+    public AudioInput(String filename, String channelName, long firstFrame, long numberOfFrames) throws IOException, UnsupportedAudioFileException {
+        sampleToPush = new Sample();
+        MappedWavFile wavFile = openMappedWavFile(filename, channelName);
+        wavFile.restrictToFrames(firstFrame, numberOfFrames);
+        file = wavFile;
+    }
+
+    // Decodes only the given region. A WAV file seeks straight to it, other input is decoded and discarded up to it.
+    public void restrictToRegion(TapeRegion region) {
+        regionStartFrame = region.getStartFrame(file.getSampleRate());
+        regionEndFrame = region.getEndFrame(file.getSampleRate());
+        if (file instanceof MappedWavFile)
+            ((MappedWavFile)file).restrictToFrames(regionStartFrame, regionEndFrame - regionStartFrame);
+    }
+
+    public double getSampleRate() {
+        return file.getSampleRate();
+    }
+
+    private MappedWavFile openMappedWavFile(String filename, String channelName) throws IOException, UnsupportedAudioFileException {
+        try {
+            return new MappedWavFile(filename, channelName);
+        } catch (IncorrectFileFormatException e) {
+            throw new UnsupportedAudioFileException("Only WAV files can be read in parts: " + e.toString());
+        }
+    }
+
+    private AudioBlockSource openFile(String filename, String channelName) throws IOException, UnsupportedAudioFileException {
+        try {
+            return new MappedWavFile(filename, channelName);
+        } catch (IncorrectFileFormatException e) {
+            // Not a WAV file that can be decoded directly, so fall back to the Java sound library
+            return new AudioFile(new FileInputStream(filename), channelName);
+        }
+    }
+
     public boolean processNextSampleAndReturnTrueIfFinished() {
         double normalizedValue = file.getNextSampleNormalisedValue();
         if (file.isEndOfFile()) {
@@ -55,6 +97,30 @@ public class AudioInput implements SampleStreamProvider {
         return false;
     }
 
+    public boolean processNextBlockAndReturnTrueIfFinished() {
+        int framesInBlock = file.readNextBlock();
+        if (framesInBlock < 1) {
+            pushEndOfStream();
+            return true;
+        }
+
+        long firstFrameInBlock = file.getTotalFramesReceived();
+        long endFrameInBlock = firstFrameInBlock + framesInBlock;
+        long firstFrameToPush = Math.max(firstFrameInBlock, regionStartFrame);
+        long endFrameToPush = Math.min(endFrameInBlock, regionEndFrame);
+        if (endFrameToPush > firstFrameToPush)
+            pushBlockToConsumers(file.getDecodedBlock(), (int)(firstFrameToPush - firstFrameInBlock),
+                    (int)(endFrameToPush - firstFrameToPush), firstFrameToPush);
+
+        file.registerBlockAsProcessed();
+        if (endFrameInBlock >= regionEndFrame) {
+            pushEndOfStream();
+            return true;
+        }
+
+        return false;
+    }
+
     private void pushEndOfStream() {
         pushSampleToConsumers(Sample.END_OF_STREAM, file.getCurrentTimeIndex());
     }
@@ -62,10 +128,18 @@ public class AudioInput implements SampleStreamProvider {
     public void processFile() {
         boolean finishedProcessing = false;
         while (!finishedProcessing) {
-            finishedProcessing = processNextSampleAndReturnTrueIfFinished();
+            finishedProcessing = processNextBlockAndReturnTrueIfFinished();
         }
     }
 
+    private void pushBlockToConsumers(double [] block, int offset, int frames, long firstFrame) {
+        // Each sample is timestamped at the end of its frame
+        long firstSampleIndex = firstFrame + 1;
+        double sampleRate = file.getSampleRate();
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(block, offset, frames, firstSampleIndex, sampleRate);
+    }
+
     private void pushSampleToConsumers(double normalizedValue, double timestampInSeconds) {
         sampleToPush.normalizedValue = normalizedValue;
         for (SampleStreamConsumer consumer : consumers)
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource.AudioInputLibrary;
+
+import com.eightbitjim.cassettenibbler.DataSource.IncorrectFileFormatException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class MappedWavFile extends AudioBlockSource {
+    private static final int FRAMES_PER_BLOCK = 16 * 1024;
+    private static final long MAXIMUM_MAPPED_WINDOW_IN_BYTES = 64L * 1024L * 1024L;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xfffe;
+    private static final int RIFF_HEADER_SIZE = 12;
+    private static final int CHUNK_HEADER_SIZE = 8;
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private WavSampleDecoder decoder;
+
+    private int formatCode;
+    private int numberOfChannels;
+    private int bitsPerSample;
+    private int bytesPerFrame;
+    private double sampleRate;
+    private boolean formatFound;
+
+    private long dataStartOffset;
+    private long dataLengthInBytes;
+    private long nextWindowOffset;
+    private MappedByteBuffer window;
+    private int positionInWindow;
+    private int bytesUsableInWindow;
+
+    public MappedWavFile(String filename, String channelName) throws IOException, IncorrectFileFormatException {
+        super(channelName);
+        file = new RandomAccessFile(filename, "r");
+        channel = file.getChannel();
+        try {
+            readHeader();
+        } catch (IOException | IncorrectFileFormatException e) {
+            close();
+            throw e;
+        }
+
+        setSampleRate(sampleRate);
+        allocateDecodedBlock(FRAMES_PER_BLOCK);
+        recordFileDataInLoggingOutput();
+    }
+
+    private void readHeader() throws IOException, IncorrectFileFormatException {
+        ByteBuffer riffHeader = readFromFile(0, RIFF_HEADER_SIZE);
+        if (riffHeader.getInt(0) != fourCharacterCode("RIFF") || riffHeader.getInt(8) != fourCharacterCode("WAVE"))
+            throw new IncorrectFileFormatException("Not a RIFF WAVE file");
+
+        long offset = RIFF_HEADER_SIZE;
+        long fileLength = channel.size();
+        while (offset + CHUNK_HEADER_SIZE <= fileLength) {
+            ByteBuffer chunkHeader = readFromFile(offset, CHUNK_HEADER_SIZE);
+            int chunkId = chunkHeader.getInt(0);
+            long chunkLength = chunkHeader.getInt(4) & 0xffffffffL;
+            long chunkDataOffset = offset + CHUNK_HEADER_SIZE;
+
+            if (chunkId == fourCharacterCode("fmt ")) {
+                readFormatChunk(chunkDataOffset, chunkLength);
+            } else if (chunkId == fourCharacterCode("data")) {
+                recordDataChunk(chunkDataOffset, chunkLength, fileLength);
+                return;
+            }
+
+            offset = chunkDataOffset + chunkLength + (chunkLength & 1);
+        }
+
+        throw new IncorrectFileFormatException("No data chunk found in WAV file");
+    }
+
+    private void readFormatChunk(long offset, long length) throws IOException, IncorrectFileFormatException {
+        if (length < 16)
+            throw new IncorrectFileFormatException("WAV format chunk is too short");
+
+        ByteBuffer format = readFromFile(offset, (int)Math.min(length, 40));
+        formatCode = format.getShort(0) & 0xffff;
+        numberOfChannels = format.getShort(2) & 0xffff;
+        sampleRate = (double)(format.getInt(4) & 0xffffffffL);
+        bytesPerFrame = format.getShort(12) & 0xffff;
+        bitsPerSample = format.getShort(14) & 0xffff;
+
+        if (formatCode == WAVE_FORMAT_EXTENSIBLE && length >= 26)
+            formatCode = format.getShort(24) & 0xffff;
+
+        if (numberOfChannels < 1 || sampleRate <= 0.0 || bytesPerFrame < (bitsPerSample + 7) / 8)
+            throw new IncorrectFileFormatException("Invalid WAV format chunk");
+
+        decoder = WavSampleDecoder.forFormat(formatCode, bitsPerSample);
+        formatFound = true;
+    }
+
+    private void recordDataChunk(long offset, long length, long fileLength) throws IncorrectFileFormatException {
+        if (!formatFound)
+            throw new IncorrectFileFormatException("WAV data chunk found before format chunk");
+
+        // Some recorders leave the length field unset while streaming, so never trust it beyond the end of the file
+        long lengthAvailable = fileLength - offset;
+        if (length == 0 || length > lengthAvailable)
+            length = lengthAvailable;
+
+        dataStartOffset = offset;
+        dataLengthInBytes = length - length % bytesPerFrame;
+        nextWindowOffset = 0;
+        bytesUsableInWindow = 0;
+        positionInWindow = 0;
+    }
+
+    private ByteBuffer readFromFile(long position, int length) throws IOException, IncorrectFileFormatException {
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+                throw new IncorrectFileFormatException("Unexpected end of WAV file header");
+        }
+
+        return buffer;
+    }
+
+    private static int fourCharacterCode(String code) {
+        return (code.charAt(0)) | (code.charAt(1) << 8) | (code.charAt(2) << 16) | (code.charAt(3) << 24);
+    }
+
+    @Override
+    protected int decodeNextBlock(double [] destination) throws IOException {
+        if (positionInWindow >= bytesUsableInWindow && !mapNextWindow())
+            return 0;
+
+        int framesAvailable = (bytesUsableInWindow - positionInWindow) / bytesPerFrame;
+        int framesToDecode = Math.min(framesAvailable, destination.length);
+        decoder.decode(window, positionInWindow, bytesPerFrame, destination, framesToDecode);
+        positionInWindow += framesToDecode * bytesPerFrame;
+        return framesToDecode;
+    }
+
+    private boolean mapNextWindow() throws IOException {
+        long bytesRemaining = dataLengthInBytes - nextWindowOffset;
+        if (bytesRemaining < bytesPerFrame)
+            return false;
+
+        long maximumWindowSize = MAXIMUM_MAPPED_WINDOW_IN_BYTES - MAXIMUM_MAPPED_WINDOW_IN_BYTES % bytesPerFrame;
+        long windowSize = Math.min(bytesRemaining, maximumWindowSize);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, dataStartOffset + nextWindowOffset, windowSize);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        nextWindowOffset += windowSize;
+        bytesUsableInWindow = (int)windowSize;
+        positionInWindow = 0;
+        return true;
+    }
+
+    public void restrictToFrames(long firstFrame, long numberOfFrames) {
+        long framesInFile = dataLengthInBytes / bytesPerFrame;
+        firstFrame = Math.max(0L, Math.min(firstFrame, framesInFile));
+        numberOfFrames = Math.max(0L, Math.min(numberOfFrames, framesInFile - firstFrame));
+
+        nextWindowOffset = firstFrame * bytesPerFrame;
+        dataLengthInBytes = (firstFrame + numberOfFrames) * bytesPerFrame;
+        bytesUsableInWindow = 0;
+        positionInWindow = 0;
+        startCountingFramesFrom(firstFrame);
+    }
+
+    public long getNumberOfFrames() {
+        return dataLengthInBytes / bytesPerFrame;
+    }
+
+    @Override
+    protected void close() {
+        window = null;
+        try {
+            file.close();
+        } catch (IOException e) {
+            logging.writeProgramOrEnvironmentError(0, "Could not close WAV file: " + e.toString());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource.AudioInputLibrary;
+
+import com.eightbitjim.cassettenibbler.DataSource.IncorrectFileFormatException;
+
+import java.nio.ByteBuffer;
+
+abstract class WavSampleDecoder {
+    static final int WAVE_FORMAT_PCM = 0x0001;
+    static final int WAVE_FORMAT_IEEE_FLOAT = 0x0003;
+
+    // Decodes the first channel of each frame. The source buffer must be little endian.
+    abstract void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames);
+
+    static WavSampleDecoder forFormat(int formatCode, int bitsPerSample) throws IncorrectFileFormatException {
+        if (formatCode == WAVE_FORMAT_PCM) {
+            switch (bitsPerSample) {
+                case 8:
+                    return new Unsigned8BitDecoder();
+                case 16:
+                    return new Signed16BitDecoder();
+                case 24:
+                    return new Signed24BitDecoder();
+                case 32:
+                    return new Signed32BitDecoder();
+            }
+        } else if (formatCode == WAVE_FORMAT_IEEE_FLOAT) {
+            switch (bitsPerSample) {
+                case 32:
+                    return new Float32BitDecoder();
+                case 64:
+                    return new Float64BitDecoder();
+            }
+        }
+
+        throw new IncorrectFileFormatException("No direct decoder for WAV format " + formatCode + " with " + bitsPerSample + " bits per sample");
+    }
+
+    static double clip(double value) {
+        if (value < -1.0)
+            return -1.0;
+
+        if (value > 1.0)
+            return 1.0;
+
+        return value;
+    }
+
+    static final class Unsigned8BitDecoder extends WavSampleDecoder {
+        @Override
+        void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames) {
+            for (int frame = 0; frame < numberOfFrames; frame++) {
+                int sampleValue = (source.get(position) & 0xff) - 0x80;
+                destination[frame] = (double)sampleValue / (double)0x80;
+                position += bytesPerFrame;
+            }
+        }
+    }
+
+    static final class Signed16BitDecoder extends WavSampleDecoder {
+        @Override
+        void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames) {
+            for (int frame = 0; frame < numberOfFrames; frame++) {
+                destination[frame] = (double)source.getShort(position) / (double)0x8000;
+                position += bytesPerFrame;
+            }
+        }
+    }
+
+    static final class Signed24BitDecoder extends WavSampleDecoder {
+        @Override
+        void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames) {
+            for (int frame = 0; frame < numberOfFrames; frame++) {
+                int sampleValue = (source.get(position) & 0xff)
+                        | ((source.get(position + 1) & 0xff) << 8)
+                        | (source.get(position + 2) << 16);
+
+                destination[frame] = (double)sampleValue / (double)0x800000;
+                position += bytesPerFrame;
+            }
+        }
+    }
+
+    static final class Signed32BitDecoder extends WavSampleDecoder {
+        @Override
+        void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames) {
+            for (int frame = 0; frame < numberOfFrames; frame++) {
+                destination[frame] = (double)source.getInt(position) / 2147483648.0;
+                position += bytesPerFrame;
+            }
+        }
+    }
+
+    static final class Float32BitDecoder extends WavSampleDecoder {
+        @Override
+        void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames) {
+            for (int frame = 0; frame < numberOfFrames; frame++) {
+                destination[frame] = clip(source.getFloat(position));
+                position += bytesPerFrame;
+            }
+        }
+    }
+
+    static final class Float64BitDecoder extends WavSampleDecoder {
+        @Override
+        void decode(ByteBuffer source, int position, int bytesPerFrame, double [] destination, int numberOfFrames) {
+            for (int frame = 0; frame < numberOfFrames; frame++) {
+                destination[frame] = clip(source.getDouble(position));
+                position += bytesPerFrame;
+            }
+        }
+    }
+}
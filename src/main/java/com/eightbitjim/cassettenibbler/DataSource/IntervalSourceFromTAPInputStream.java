@@ -30,19 +30,27 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
     enum State { READING_HEADER, WAITING_FOR_NEXT_INTERVAL, MULTI_BYTE_1, MULTI_BYTE_2, MULTI_BYTE_3 }
     private State state;
 
-    private int byteNumberWithinFile;
+    private static final int READ_BUFFER_SIZE = 65536;
+    private byte [] readBuffer = new byte[READ_BUFFER_SIZE];
+
+    private long byteNumberWithinFile;
     private List<IntervalStreamConsumer> consumers = new LinkedList<>();
     private InputStream inputStream;
 
-    private double currentTimeIndex = 0.0;
+    private long nanosecondsBeforeCurrentFile = 0;
+    private long halfClockCyclesElapsed = 0;
+    private TimeBase halfClockCycleTimeBase = new TimeBase(TAPHeader.CLOCK_CYCLES_PER_SECOND_C64_PAL * 2.0);
+    private double clockCyclesPerSecond = TAPHeader.CLOCK_CYCLES_PER_SECOND_C64_PAL;
     private Transition transition;
     private int value;
     private TAPHeader header;
     private int multiByteValue;
+    private boolean nextHalfWaveIsHigh;
+    private long regionStartInNanoseconds = 0L;
+    private long regionEndInNanoseconds = Long.MAX_VALUE;
+    private boolean pastEndOfRegion = false;
 
-    private static final double CLOCK_CYCLES_PER_SECOND_PAL = 985248.0;
-    private static final double CLOCK_CYCLES_PER_SECOND_NTSC = 1022730.0;
-    private static final int MAX_VERSION_SUPPORTED = 1;
+    private static final int MAX_VERSION_SUPPORTED = 2;
     public static final int END_OF_STREAM = -1;
     public static final int SUCCESS = 0;
 
@@ -51,6 +59,12 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
         reset();
     }
 
+    // TAP files have no index, so intervals before the start are still read but not passed on
+    public void restrictToRegion(long startInNanoseconds, long endInNanoseconds) {
+        regionStartInNanoseconds = startInNanoseconds;
+        regionEndInNanoseconds = endInNanoseconds;
+    }
+
     @Override
     public void registerIntervalStreamConsumer(IntervalStreamConsumer consumer) {
         if (!consumers.contains(consumer))
@@ -62,17 +76,35 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
         consumers.remove(consumer);
     }
 
+    // Reads and pushes the intervals in the next chunk of the stream
     public int getNextIntervalAndPushToConsumers() throws IOException {
-        if (inputStream.available() < 1) {
+        int bytesRead = pastEndOfRegion ? -1 : inputStream.read(readBuffer, 0, readBuffer.length);
+        if (bytesRead < 0) {
             pushEndOfStream();
             return END_OF_STREAM;
         }
 
-        value = inputStream.read();
+        for (int i = 0; i < bytesRead && !pastEndOfRegion; i++) {
+            value = readBuffer[i] & 0xff;
+            processByte();
+        }
+
+        return SUCCESS;
+    }
+
+    public void processStreamToEnd() throws IOException {
+        int status = SUCCESS;
+        while (status == SUCCESS) {
+            status = getNextIntervalAndPushToConsumers();
+        }
+    }
+
+    private void processByte() {
         switch (state) {
             case READING_HEADER:
+                // Header bytes are not part of the file size
                 processHeaderByte();
-                break;
+                return;
             case MULTI_BYTE_1:
                 processMultiByteValue(0);
                 break;
@@ -88,19 +120,11 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
         }
 
         countBytesRead();
-        return SUCCESS;
-    }
-
-    public void processStreamToEnd() throws IOException {
-        int status = SUCCESS;
-        while (status == SUCCESS) {
-            status = getNextIntervalAndPushToConsumers();
-        }
     }
 
     private void countBytesRead() {
         byteNumberWithinFile++;
-        if (state != State.READING_HEADER && byteNumberWithinFile >= header.getFileSize())
+        if (byteNumberWithinFile >= header.getFileSize())
             reset();
     }
 
@@ -109,14 +133,30 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
         byteNumberWithinFile = 0;
         header = new TAPHeader();
         transition = new Transition();
+        nextHalfWaveIsHigh = false;
     }
 
     private void pushEndOfStream() {
         transition.secondsSinceLastTransition = Transition.END_OF_STREAM;
-        pushIntervalToConsumers();
+        pushIntervalToConsumersAt(currentTimeIndex());
+    }
+
+    private long currentTimeIndex() {
+        return nanosecondsBeforeCurrentFile + halfClockCycleTimeBase.nanosecondsAt(halfClockCyclesElapsed);
     }
 
     private void pushIntervalToConsumers() {
+        long currentTimeIndex = currentTimeIndex();
+        if (currentTimeIndex > regionEndInNanoseconds) {
+            pastEndOfRegion = true;
+            return;
+        }
+
+        if (currentTimeIndex >= regionStartInNanoseconds)
+            pushIntervalToConsumersAt(currentTimeIndex);
+    }
+
+    private void pushIntervalToConsumersAt(long currentTimeIndex) {
         for (IntervalStreamConsumer consumer : consumers)
             consumer.pushInterval(transition, currentTimeIndex);
     }
@@ -128,18 +168,24 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
     }
 
     private void checkHeaderContents() {
-        if (byteNumberWithinFile < TAPHeader.HEADER_SIZE - 1)
-            return;
-
         if (header.getFileVersion() > MAX_VERSION_SUPPORTED) {
             reset();
         } else if (header.getFileSize() < 1) {
             reset();
         } else {
+            useClockRate(header.getClockCyclesPerSecond());
             state = State.WAITING_FOR_NEXT_INTERVAL;
         }
     }
 
+    private void useClockRate(double cyclesPerSecond) {
+        // Keep time running on from any earlier file in the stream, which may have used a different clock
+        nanosecondsBeforeCurrentFile = currentTimeIndex();
+        halfClockCyclesElapsed = 0;
+        clockCyclesPerSecond = cyclesPerSecond;
+        halfClockCycleTimeBase.setSampleRate(cyclesPerSecond * 2.0);
+    }
+
     private void processMultiByteValue(int index) {
         switch (index) {
             case 0:
@@ -152,7 +198,7 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
                 break;
             case 2:
                 multiByteValue |= (value << 16);
-                pushIntervalsForCycleLength((double)multiByteValue / CLOCK_CYCLES_PER_SECOND_PAL);
+                pushIntervalsForLength(multiByteValue);
                 state = State.WAITING_FOR_NEXT_INTERVAL;
                 break;
         }
@@ -162,24 +208,39 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
         if (value == 0)
             processZeroMarker();
         else {
-            double cycleLength = (double)value * 8.0 / CLOCK_CYCLES_PER_SECOND_PAL;
-            pushIntervalsForCycleLength(cycleLength);
+            pushIntervalsForLength(value * 8);
         }
     }
 
-    private void pushIntervalsForCycleLength(double cycleLengthInSeconds) {
-        double intervalLength = cycleLengthInSeconds / 2.0;
+    private void pushIntervalsForLength(int lengthInClockCycles) {
+        if (header.getFileVersion() == 2)
+            pushHalfWave(lengthInClockCycles);
+        else
+            pushIntervalsForCycleLength(lengthInClockCycles);
+    }
+
+    private void pushIntervalsForCycleLength(int cycleLengthInClockCycles) {
+        double intervalLength = (double)cycleLengthInClockCycles / clockCyclesPerSecond / 2.0;
 
         // Emit two intervals of half the cycle length as the Commodore hardware on which the TAP file format is
         // based only triggered on a rising pulse edge.
         transition.secondsSinceLastTransition = intervalLength;
         transition.transitionedToHigh = false;
-        currentTimeIndex += intervalLength;
+        halfClockCyclesElapsed += cycleLengthInClockCycles;
         pushIntervalToConsumers();
 
         transition.secondsSinceLastTransition = intervalLength;
         transition.transitionedToHigh = true;
-        currentTimeIndex += intervalLength;
+        halfClockCyclesElapsed += cycleLengthInClockCycles;
+        pushIntervalToConsumers();
+    }
+
+    private void pushHalfWave(int halfWaveLengthInClockCycles) {
+        // Version 2 records each half of the wave separately, as the C16 and Plus/4 trigger on both edges
+        transition.secondsSinceLastTransition = (double)halfWaveLengthInClockCycles / clockCyclesPerSecond;
+        transition.transitionedToHigh = nextHalfWaveIsHigh;
+        nextHalfWaveIsHigh = !nextHalfWaveIsHigh;
+        halfClockCyclesElapsed += halfWaveLengthInClockCycles * 2L;
         pushIntervalToConsumers();
     }
 
@@ -189,6 +250,7 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
                 pushLongCycleLength();
                 break;
             case 1:
+            case 2:
                 // A three byte cycle length will follow
                 state = State.MULTI_BYTE_1;
                 break;
@@ -198,13 +260,27 @@ public class IntervalSourceFromTAPInputStream implements IntervalStreamProvider
     private void pushLongCycleLength() {
         // Push a cycle length that is longer than the TAP file can represent, but we don't know how long the
         // original cycle was. So will assume it's the maximim cycle length * 2.
-        double cycleLength = (double)(255 * 8 * 2) / CLOCK_CYCLES_PER_SECOND_PAL;
-        pushIntervalsForCycleLength(cycleLength);
+        pushIntervalsForCycleLength(255 * 8 * 2);
     }
 }
 
 class TAPHeader {
     public static final int HEADER_SIZE = 20;
+
+    public static final double CLOCK_CYCLES_PER_SECOND_C64_PAL = 985248.0;
+    public static final double CLOCK_CYCLES_PER_SECOND_C64_NTSC = 1022730.0;
+    public static final double CLOCK_CYCLES_PER_SECOND_C64_OLD_NTSC = 1022727.0;
+    public static final double CLOCK_CYCLES_PER_SECOND_VIC20_PAL = 1108405.0;
+    public static final double CLOCK_CYCLES_PER_SECOND_VIC20_NTSC = 1022727.0;
+    public static final double CLOCK_CYCLES_PER_SECOND_C16_PAL = 886724.0;
+    public static final double CLOCK_CYCLES_PER_SECOND_C16_NTSC = 894886.0;
+
+    private static final int MACHINE_C64 = 0;
+    private static final int MACHINE_VIC20 = 1;
+    private static final int MACHINE_C16 = 2;
+    private static final int VIDEO_NTSC = 1;
+    private static final int VIDEO_OLD_NTSC = 2;
+
     public TAPHeader() {
         headerValues = new int [HEADER_SIZE];
         bytesRead = 0;
@@ -226,7 +302,31 @@ class TAPHeader {
         return headerValues[12];
     }
 
+    public int getMachine() {
+        return headerValues[13];
+    }
+
+    public int getVideoStandard() {
+        return headerValues[14];
+    }
+
+    public double getClockCyclesPerSecond() {
+        boolean ntsc = getVideoStandard() == VIDEO_NTSC || getVideoStandard() == VIDEO_OLD_NTSC;
+        switch (getMachine()) {
+            case MACHINE_VIC20:
+                return ntsc ? CLOCK_CYCLES_PER_SECOND_VIC20_NTSC : CLOCK_CYCLES_PER_SECOND_VIC20_PAL;
+            case MACHINE_C16:
+                return ntsc ? CLOCK_CYCLES_PER_SECOND_C16_NTSC : CLOCK_CYCLES_PER_SECOND_C16_PAL;
+            case MACHINE_C64:
+            default:
+                if (getVideoStandard() == VIDEO_OLD_NTSC)
+                    return CLOCK_CYCLES_PER_SECOND_C64_OLD_NTSC;
+
+                return ntsc ? CLOCK_CYCLES_PER_SECOND_C64_NTSC : CLOCK_CYCLES_PER_SECOND_C64_PAL;
+        }
+    }
+
     public long getFileSize() {
-        return headerValues[16] + headerValues[17] * 0x100 + headerValues[18] * 0x10000 + headerValues[19] * 0x1000000;
+        return headerValues[16] + headerValues[17] * 0x100 + headerValues[18] * 0x10000 + headerValues[19] * 0x1000000L;
     }
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.DataSource.Live;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Single producer, single consumer. The capture thread writes and the decoding thread reads, neither ever blocks.
+public class CaptureRingBuffer {
+    private final byte [] buffer;
+    private final int mask;
+    private final AtomicLong writePosition;
+    private final AtomicLong readPosition;
+    private final AtomicLong overruns;
+    private final AtomicLong bytesDropped;
+
+    public CaptureRingBuffer(int minimumCapacityInBytes) {
+        int capacity = Integer.highestOneBit(Math.max(2, minimumCapacityInBytes - 1)) << 1;
+        buffer = new byte[capacity];
+        mask = capacity - 1;
+        writePosition = new AtomicLong();
+        readPosition = new AtomicLong();
+        overruns = new AtomicLong();
+        bytesDropped = new AtomicLong();
+    }
+
+    // Writes all of the data or none of it, so that frames are never split
+    public boolean write(byte [] data, int offset, int length) {
+        long position = writePosition.get();
+        long freeSpace = buffer.length - (position - readPosition.get());
+        if (length > freeSpace) {
+            overruns.incrementAndGet();
+            bytesDropped.addAndGet(length);
+            return false;
+        }
+
+        int start = (int)(position & mask);
+        int firstPart = Math.min(length, buffer.length - start);
+        System.arraycopy(data, offset, buffer, start, firstPart);
+        System.arraycopy(data, offset + firstPart, buffer, 0, length - firstPart);
+        writePosition.lazySet(position + length);
+        return true;
+    }
+
+    public int read(byte [] destination, int offset, int length) {
+        long position = readPosition.get();
+        int bytesToRead = (int)Math.min(length, writePosition.get() - position);
+        if (bytesToRead < 1)
+            return 0;
+
+        int start = (int)(position & mask);
+        int firstPart = Math.min(bytesToRead, buffer.length - start);
+        System.arraycopy(buffer, start, destination, offset, firstPart);
+        System.arraycopy(buffer, 0, destination, offset + firstPart, bytesToRead - firstPart);
+        readPosition.lazySet(position + bytesToRead);
+        return bytesToRead;
+    }
+
+    public int available() {
+        return (int)(writePosition.get() - readPosition.get());
+    }
+
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    public long getOverruns() {
+        return overruns.get();
+    }
+
+    public long getBytesDropped() {
+        return bytesDropped.get();
+    }
+}
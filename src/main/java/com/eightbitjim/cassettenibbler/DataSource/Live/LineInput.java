@@ -23,34 +23,62 @@ import com.eightbitjim.cassettenibbler.Sample;
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
 import com.eightbitjim.cassettenibbler.SampleStreamProvider;
 import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+import com.eightbitjim.cassettenibbler.TimeBase;
 
 import javax.sound.sampled.*;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 public class LineInput implements SampleStreamProvider {
+    public static final int DEFAULT_SAMPLE_RATE_IN_HZ = 44100;
+    public static final int DEFAULT_BITS_PER_SAMPLE = 8;
+
+    private static final double CAPTURE_CHUNK_IN_SECONDS = 0.01;
+    private static final double RING_BUFFER_LENGTH_IN_SECONDS = 30.0;
+    private static final int FRAMES_PER_BLOCK = 4096;
+    private static final long IDLE_WAIT_IN_NANOSECONDS = 200000L;
+
     private AudioFormat lineInputFormat;
     private LinkedList<SampleStreamConsumer> consumers;
-    private int sampleRateInHz = 44100;
-    private double sampleRateInSeconds = 1.0 / (double)sampleRateInHz;
-    private boolean active;
-    private double currentTimeIndex;
-    private byte [] audioInputData;
+    private int sampleRateInHz;
+    private int bitsPerSample;
+    private int bytesPerFrame;
+    private TimeBase timeBase;
+    private long samplesProcessed;
+    private volatile boolean active;
     private TargetDataLine line;
     private Sample sample;
 
+    private CaptureRingBuffer ringBuffer;
+    private Thread captureThread;
+    private AtomicLong lineOverruns;
+    private byte [] encodedBlock;
+    private double [] decodedBlock;
+
     private TapeExtractionLogging logging;
 
     public LineInput(String channelName) throws DataSourceNotAvailableException {
+        this(channelName, DEFAULT_SAMPLE_RATE_IN_HZ, DEFAULT_BITS_PER_SAMPLE);
+    }
+
+    public LineInput(String channelName, int sampleRateInHz, int bitsPerSample) throws DataSourceNotAvailableException {
+        if (bitsPerSample != 8 && bitsPerSample != 16)
+            throw new DataSourceNotAvailableException("Audio input must be 8 or 16 bits per sample");
+
         logging = TapeExtractionLogging.getInstance(channelName);
         consumers = new LinkedList<>();
         sample = new Sample();
-        lineInputFormat = new AudioFormat(sampleRateInHz, 8, 1, false, false);
-        getTargetDataLine();
-        currentTimeIndex = 0.0;
-    }
+        this.sampleRateInHz = sampleRateInHz;
+        this.bitsPerSample = bitsPerSample;
+        bytesPerFrame = bitsPerSample / 8;
+        timeBase = new TimeBase(sampleRateInHz);
+        lineOverruns = new AtomicLong();
 
-    private void increaseCurrentTimeIndexByOneSample() {
-        currentTimeIndex += sampleRateInSeconds;
+        // 8 bit audio is conventionally unsigned, 16 bit signed
+        lineInputFormat = new AudioFormat(sampleRateInHz, bitsPerSample, 1, bitsPerSample == 16, false);
+        getTargetDataLine();
+        samplesProcessed = 0;
     }
 
     private void getTargetDataLine() throws DataSourceNotAvailableException {
@@ -75,54 +103,126 @@ public class LineInput implements SampleStreamProvider {
         }
     }
 
-    private void pushSample(Sample sample) {
-        for (SampleStreamConsumer consumer : consumers)
-            consumer.push(sample, currentTimeIndex);
-    }
-
     public Sample getLastSample() {
         return sample;
     }
 
     public void startAudioCapture() {
-        audioInputData = new byte[line.getBufferSize() / 5];
-        line.start();
+        int ringBufferSize = (int)(RING_BUFFER_LENGTH_IN_SECONDS * sampleRateInHz) * bytesPerFrame;
+        ringBuffer = new CaptureRingBuffer(ringBufferSize);
+        encodedBlock = new byte[FRAMES_PER_BLOCK * bytesPerFrame];
+        decodedBlock = new double[FRAMES_PER_BLOCK];
+
         active = true;
+        line.start();
+        captureThread = new Thread(new CaptureLoop(), "line-input-capture");
+        captureThread.setDaemon(true);
+        captureThread.setPriority(Thread.MAX_PRIORITY);
+        captureThread.start();
     }
 
+    // Stops capturing, decodes whatever is still buffered and then ends the stream
     public void stopAudioCapture() {
-        line.stop();
         active = false;
+        line.stop();
+        try {
+            captureThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        line.close();
+        processBufferedSamples();
+        pushEndOfStream();
+        logOverruns();
     }
 
-    public void processReceivedSamples() {
-        if (!active) {
+    // Waits up to the given time for audio to arrive, then decodes everything captured so far
+    public void processReceivedSamples(long maximumWaitInNanoseconds) {
+        if (ringBuffer == null) {
             logging.writeProgramOrEnvironmentError(0, "Attempted to read audio data when audio capture is not active.");
             return;
         }
 
-        while (line.available() > 0) {
-            int numBytesRead = line.read(audioInputData, 0, audioInputData.length);
-            processReceivedData(numBytesRead);
+        long waitUntil = System.nanoTime() + maximumWaitInNanoseconds;
+        while (ringBuffer.available() < bytesPerFrame && System.nanoTime() < waitUntil)
+            LockSupport.parkNanos(IDLE_WAIT_IN_NANOSECONDS);
+
+        processBufferedSamples();
+    }
+
+    public void processReceivedSamples() {
+        processReceivedSamples(0L);
+    }
+
+    private void processBufferedSamples() {
+        int bytesRead;
+        while ((bytesRead = ringBuffer.read(encodedBlock, 0, encodedBlock.length)) > 0) {
+            int frames = decodeBlock(bytesRead);
+            pushBlock(frames);
         }
     }
 
-    private void processReceivedData(int bytesInBuffer) {
-        for (byte value : audioInputData) {
-            processAudioByte(value);
-            increaseCurrentTimeIndexByOneSample();
+    private int decodeBlock(int bytesInBlock) {
+        int frames = bytesInBlock / bytesPerFrame;
+        if (bitsPerSample == 8) {
+            for (int i = 0; i < frames; i++)
+                decodedBlock[i] = ((double)Byte.toUnsignedInt(encodedBlock[i]) - 128.0) / 128.0;
+        } else {
+            for (int i = 0; i < frames; i++) {
+                int value = (encodedBlock[i * 2] & 0xff) | (encodedBlock[i * 2 + 1] << 8);
+                decodedBlock[i] = (double)value / 32768.0;
+            }
         }
+
+        return frames;
+    }
+
+    private void pushBlock(int frames) {
+        // Each sample is timestamped at the end of its frame
+        long firstSampleIndex = samplesProcessed + 1;
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(decodedBlock, 0, frames, firstSampleIndex, sampleRateInHz);
+
+        samplesProcessed += frames;
+        if (frames > 0)
+            sample.normalizedValue = decodedBlock[frames - 1];
+    }
+
+    private void pushEndOfStream() {
+        Sample endOfStream = new Sample();
+        endOfStream.normalizedValue = Sample.END_OF_STREAM;
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.push(endOfStream, timeBase.secondsAt(samplesProcessed));
+    }
+
+    private void logOverruns() {
+        if (getCaptureOverruns() > 0)
+            logging.writeDataError(timeBase.nanosecondsAt(samplesProcessed), "Audio capture buffer overran " + getCaptureOverruns() +
+                    " times, " + ringBuffer.getBytesDropped() / bytesPerFrame + " samples lost");
+
+        if (getLineOverruns() > 0)
+            logging.writeDataError(timeBase.nanosecondsAt(samplesProcessed), "Audio input line buffer was full " + getLineOverruns() + " times");
+    }
+
+    public long getCaptureOverruns() {
+        return ringBuffer == null ? 0L : ringBuffer.getOverruns();
     }
 
-    private void processAudioByte(byte value) {
-        sample.normalizedValue = normalizedValueFromByte(value);
-        pushSample(sample);
+    public long getSamplesDropped() {
+        return ringBuffer == null ? 0L : ringBuffer.getBytesDropped() / bytesPerFrame;
     }
 
-    private double normalizedValueFromByte(byte value) {
-        double normalizedValue = (double)(Byte.toUnsignedInt(value)) - 128.0;
-        normalizedValue /= 128.0;
-        return normalizedValue;
+    public long getLineOverruns() {
+        return lineOverruns.get();
+    }
+
+    public int getSampleRate() {
+        return sampleRateInHz;
+    }
+
+    public int getBitsPerSample() {
+        return bitsPerSample;
     }
 
     @Override
@@ -135,4 +235,34 @@ public class LineInput implements SampleStreamProvider {
     public void deregisterSampleStreamConsumer(SampleStreamConsumer consumer) {
         consumers.remove(consumer);
     }
+
+    private class CaptureLoop implements Runnable {
+        @Override
+        public void run() {
+            int chunkSize = Math.max(1, (int)(CAPTURE_CHUNK_IN_SECONDS * sampleRateInHz)) * bytesPerFrame;
+            byte [] chunk = new byte[chunkSize];
+
+            while (active) {
+                // A full line buffer means audio may have been lost before it reached us
+                if (line.available() >= line.getBufferSize())
+                    lineOverruns.incrementAndGet();
+
+                captureChunk(chunk, chunk.length);
+            }
+
+            int remainingBytes;
+            while ((remainingBytes = Math.min(line.available(), chunk.length)) >= bytesPerFrame) {
+                if (captureChunk(chunk, remainingBytes) < 1)
+                    break;
+            }
+        }
+
+        private int captureChunk(byte [] chunk, int length) {
+            int bytesRead = line.read(chunk, 0, length - length % bytesPerFrame);
+            if (bytesRead > 0)
+                ringBuffer.write(chunk, 0, bytesRead - bytesRead % bytesPerFrame);
+
+            return bytesRead;
+        }
+    }
 }
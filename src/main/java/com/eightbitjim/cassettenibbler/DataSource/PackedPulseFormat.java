@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+
+// Binary pulse stream, as written by -save-pulses. An 8 byte header is followed by one record per pulse. Bits 7-5 of
+// the first byte hold the pulse symbol, bit 4 is set if more of the timestamp delta follows, and bits 3-0 hold its
+// lowest bits. The rest of the delta follows 7 bits at a time, lowest first, with the top bit set on all but the last
+// byte. A delta is the nanoseconds since the previous pulse, zigzag encoded as time goes back to zero at the start of
+// each new input. Any other pulse character is written as ESCAPE followed by the two bytes of the character.
+public class PackedPulseFormat {
+    public static final byte [] HEADER = { 'C', 'N', 'P', 'U', 'L', 'S', 'E', 1 };
+    public static final String FILENAME_SUFFIX = ".pulses";
+
+    public static final int ESCAPE = 7;
+    public static final int SYMBOL_SHIFT = 5;
+    public static final int MORE_DELTA_FOLLOWS = 0x10;
+    public static final int FIRST_DELTA_MASK = 0x0f;
+    public static final int FIRST_DELTA_BITS = 4;
+    public static final int DELTA_BYTE_MASK = 0x7f;
+    public static final int DELTA_BYTE_BITS = 7;
+    public static final int MORE_DELTA_BYTES_FOLLOW = 0x80;
+
+    private static final char [] SYMBOLS = {
+            PulseStreamConsumer.SHORT_PULSE,
+            PulseStreamConsumer.MEDIUM_PULSE,
+            PulseStreamConsumer.LONG_PULSE,
+            PulseStreamConsumer.INVALID_PULSE_TOO_SHORT,
+            PulseStreamConsumer.INVALID_PULSE_TOO_LONG,
+            PulseStreamConsumer.SILENCE,
+            PulseStreamConsumer.END_OF_STREAM
+    };
+
+    public static int codeForPulse(char pulse) {
+        switch (pulse) {
+            case PulseStreamConsumer.SHORT_PULSE: return 0;
+            case PulseStreamConsumer.MEDIUM_PULSE: return 1;
+            case PulseStreamConsumer.LONG_PULSE: return 2;
+            case PulseStreamConsumer.INVALID_PULSE_TOO_SHORT: return 3;
+            case PulseStreamConsumer.INVALID_PULSE_TOO_LONG: return 4;
+            case PulseStreamConsumer.SILENCE: return 5;
+            case PulseStreamConsumer.END_OF_STREAM: return 6;
+            default: return ESCAPE;
+        }
+    }
+
+    public static char pulseForCode(int code) {
+        return SYMBOLS[code];
+    }
+
+    public static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    public static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static boolean startsWithHeader(byte [] buffer, int length) {
+        if (length < HEADER.length)
+            return false;
+
+        for (int i = 0; i < HEADER.length; i++)
+            if (buffer[i] != HEADER[i])
+                return false;
+
+        return true;
+    }
+}
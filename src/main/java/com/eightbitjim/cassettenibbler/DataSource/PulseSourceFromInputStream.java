@@ -26,6 +26,8 @@ import java.io.InputStream;
 import java.util.LinkedList;
 import java.util.List;
 
+// Reads either the packed format written by -save-pulses, which keeps the original timestamps, or one character per
+// pulse as output by -logging=parsing, where the time index is just the pulse count.
 public class PulseSourceFromInputStream implements PulseStreamProvider {
     private List<PulseStreamConsumer> consumers = new LinkedList<>();
     private InputStream inputStream;
@@ -34,12 +36,42 @@ public class PulseSourceFromInputStream implements PulseStreamProvider {
 
     public static final int SUCCESS = 0;
 
-    private int timeCount = 0;
+    private static final int READ_BUFFER_SIZE = 65536;
+    private byte [] readBuffer = new byte[READ_BUFFER_SIZE];
+    private int bytesInBuffer = 0;
+    private int positionInBuffer = 0;
+    private boolean formatKnown = false;
+    private boolean packedFormat = false;
+
+    private long pulseCount = 0;
+    private long timeIndex = 0;
+    private long firstPulse = 0;
+    private long endPulse = Long.MAX_VALUE;
+    private long firstTimeIndex = 0;
+    private long endTimeIndex = Long.MAX_VALUE;
+    private boolean lastPulseWasEndOfStream = false;
 
     public PulseSourceFromInputStream(InputStream stream) {
         inputStream = stream;
     }
 
+    // Pulses before the region are read but not passed on, so time indexes stay as they were on the tape. Only the
+    // packed format has timestamps, so a region given as times needs a packed file.
+    public void restrictToRegion(TapeRegion region) throws IOException {
+        if (region.usesTimeOffsets() && !isPackedFormat())
+            throw new IOException("Pulse file has no timestamps, so -start and -end must be pulse counts, e.g. 1000pulses");
+
+        firstPulse = region.getStartCount();
+        endPulse = region.getEndCount();
+        firstTimeIndex = region.getStartInNanoseconds();
+        endTimeIndex = region.getEndInNanoseconds();
+    }
+
+    public boolean isPackedFormat() throws IOException {
+        checkFormat();
+        return packedFormat;
+    }
+
     @Override
     public void registerPulseStreamConsumer(PulseStreamConsumer consumer) {
         if (!consumers.contains(consumer))
@@ -52,23 +84,112 @@ public class PulseSourceFromInputStream implements PulseStreamProvider {
     }
 
     public int getNextPulseAndPushToConsumers() throws IOException {
-        if (inputStream.available() < 1) {
-            pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM);
+        checkFormat();
+        int nextByte = pulseCount < endPulse ? nextByte() : -1;
+        if (nextByte < 0) {
+            pushEndOfStream();
             return END_OF_STREAM;
         }
 
-        int nextPulse = inputStream.read();
-        if (nextPulse < 0) {
-            pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM);
-            return END_OF_STREAM;
+        if (packedFormat)
+            return decodePackedPulse(nextByte);
+
+        timeIndex = pulseCount;
+        pushPulse((char)nextByte);
+        return SUCCESS;
+    }
+
+    private void checkFormat() throws IOException {
+        if (formatKnown)
+            return;
+
+        fillBuffer();
+        formatKnown = true;
+        packedFormat = PackedPulseFormat.startsWithHeader(readBuffer, bytesInBuffer);
+        if (packedFormat)
+            positionInBuffer = PackedPulseFormat.HEADER.length;
+    }
+
+    private int decodePackedPulse(int firstByte) throws IOException {
+        int code = firstByte >>> PackedPulseFormat.SYMBOL_SHIFT;
+        long delta = firstByte & PackedPulseFormat.FIRST_DELTA_MASK;
+        int shift = PackedPulseFormat.FIRST_DELTA_BITS;
+        int deltaByte = (firstByte & PackedPulseFormat.MORE_DELTA_FOLLOWS) != 0 ? PackedPulseFormat.MORE_DELTA_BYTES_FOLLOW : 0;
+        while ((deltaByte & PackedPulseFormat.MORE_DELTA_BYTES_FOLLOW) != 0) {
+            deltaByte = nextByte();
+            if (deltaByte < 0)
+                return truncatedRecord();
+
+            delta |= (long)(deltaByte & PackedPulseFormat.DELTA_BYTE_MASK) << shift;
+            shift += PackedPulseFormat.DELTA_BYTE_BITS;
+        }
+
+        char pulse;
+        if (code == PackedPulseFormat.ESCAPE) {
+            int highByte = nextByte();
+            int lowByte = nextByte();
+            if (lowByte < 0)
+                return truncatedRecord();
+
+            pulse = (char)((highByte << 8) | lowByte);
         } else {
-            pushPulseToConsumers((char)nextPulse);
-            return SUCCESS;
+            pulse = PackedPulseFormat.pulseForCode(code);
+        }
+
+        timeIndex += PackedPulseFormat.zigzagDecode(delta);
+        if (timeIndex >= endTimeIndex) {
+            pushEndOfStream();
+            return END_OF_STREAM;
+        }
+
+        pushPulse(pulse);
+        return SUCCESS;
+    }
+
+    private int truncatedRecord() {
+        pushEndOfStream();
+        return END_OF_STREAM;
+    }
+
+    private int nextByte() throws IOException {
+        if (positionInBuffer >= bytesInBuffer && !fillBuffer())
+            return -1;
+
+        return readBuffer[positionInBuffer++] & 0xff;
+    }
+
+    private boolean fillBuffer() throws IOException {
+        positionInBuffer = 0;
+        bytesInBuffer = 0;
+        while (bytesInBuffer < PackedPulseFormat.HEADER.length) {
+            int bytesRead = inputStream.read(readBuffer, bytesInBuffer, readBuffer.length - bytesInBuffer);
+            if (bytesRead < 0)
+                break;
+
+            bytesInBuffer += bytesRead;
         }
+
+        return bytesInBuffer > 0;
     }
 
-    private void pushPulseToConsumers(char pulse) {
+    private void pushEndOfStream() {
+        if (packedFormat && lastPulseWasEndOfStream)
+            return;
+
+        if (!packedFormat)
+            timeIndex = pulseCount;
+
+        pushPulse(PulseStreamConsumer.END_OF_STREAM);
+    }
+
+    private void pushPulse(char pulse) {
+        boolean inRegion = (pulseCount >= firstPulse && timeIndex >= firstTimeIndex) || pulse == PulseStreamConsumer.END_OF_STREAM;
+        pulseCount++;
+        lastPulseWasEndOfStream = pulse == PulseStreamConsumer.END_OF_STREAM;
+        if (!inRegion)
+            return;
+
         for (PulseStreamConsumer consumer : consumers)
-            consumer.pushPulse(pulse, timeCount++);
+            consumer.pushPulse(pulse, timeIndex);
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.DataSource;
+
+import com.eightbitjim.cassettenibbler.TimeBase;
+
+import java.util.regex.Pattern;
+
+// The part of a recording to decode. Each end is either a time, such as 90, 1:30 or 1:02:03.5, or a count such as
+// 3969000samples of audio input or 1000pulses of pulse input. Both ends must count the same thing.
+public class TapeRegion {
+    private static final String SAMPLES_SUFFIX = "samples";
+    private static final String PULSES_SUFFIX = "pulses";
+    private static final long NO_COUNT = -1L;
+    private static final Pattern WHOLE_NUMBER = Pattern.compile("[0-9]+");
+    private static final Pattern DECIMAL_NUMBER = Pattern.compile("[0-9]+(\\.[0-9]*)?|\\.[0-9]+");
+
+    private double startInSeconds;
+    private long startCount;
+    private double endInSeconds;
+    private long endCount;
+    private String countSuffix;
+    private boolean startIsTime;
+    private boolean endIsTime;
+
+    public TapeRegion() {
+        startInSeconds = 0.0;
+        startCount = NO_COUNT;
+        endInSeconds = Double.POSITIVE_INFINITY;
+        endCount = NO_COUNT;
+        countSuffix = null;
+    }
+
+    public TapeRegion setStart(String offset) {
+        startIsTime = !isCount(offset);
+        checkSameUnits(startIsTime, endIsTime, endCount, offset);
+        if (startIsTime) {
+            startInSeconds = parseTimeOffset(offset);
+            startCount = NO_COUNT;
+        } else {
+            startCount = parseCount(offset);
+            startInSeconds = 0.0;
+        }
+
+        return this;
+    }
+
+    public TapeRegion setEnd(String offset) {
+        endIsTime = !isCount(offset);
+        checkSameUnits(endIsTime, startIsTime, startCount, offset);
+        if (endIsTime) {
+            endInSeconds = parseTimeOffset(offset);
+            endCount = NO_COUNT;
+        } else {
+            endCount = parseCount(offset);
+            endInSeconds = Double.POSITIVE_INFINITY;
+        }
+
+        return this;
+    }
+
+    private static void checkSameUnits(boolean isTime, boolean otherEndIsTime, long otherEndCount, String offset) {
+        if ((isTime && otherEndCount != NO_COUNT) || (!isTime && otherEndIsTime))
+            throw new NumberFormatException("Cannot give one end as a time and the other as a count: " + offset);
+    }
+
+    private static boolean isCount(String offset) {
+        return offset.endsWith(SAMPLES_SUFFIX) || offset.endsWith(PULSES_SUFFIX);
+    }
+
+    private long parseCount(String offset) {
+        String suffix = offset.endsWith(SAMPLES_SUFFIX) ? SAMPLES_SUFFIX : PULSES_SUFFIX;
+        if (countSuffix != null && !countSuffix.equals(suffix))
+            throw new NumberFormatException("Cannot mix sample and pulse counts: " + offset);
+
+        long count = Long.parseLong(offset.substring(0, offset.length() - suffix.length()).trim());
+        if (count < 0)
+            throw new NumberFormatException("Negative count: " + offset);
+
+        countSuffix = suffix;
+        return count;
+    }
+
+    private static double parseTimeOffset(String offset) {
+        String time = offset.endsWith("s") ? offset.substring(0, offset.length() - 1) : offset;
+        String [] parts = time.split(":", -1);
+        if (parts.length > 3)
+            throw new NumberFormatException("Too many fields in time: " + offset);
+
+        // Only the seconds may have a fraction, and every field after the first must be under 60
+        double seconds = 0.0;
+        for (int i = 0; i < parts.length; i++) {
+            boolean lastField = i == parts.length - 1;
+            if (!(lastField ? DECIMAL_NUMBER : WHOLE_NUMBER).matcher(parts[i]).matches())
+                throw new NumberFormatException("Invalid time: " + offset);
+
+            double value = Double.parseDouble(parts[i]);
+            if (i > 0 && value >= 60.0)
+                throw new NumberFormatException("Field out of range in time: " + offset);
+
+            seconds = seconds * 60.0 + value;
+        }
+
+        return seconds;
+    }
+
+    public boolean isWholeTape() {
+        return !hasStart() && !hasEnd();
+    }
+
+    public boolean hasStart() {
+        return startCount != NO_COUNT || startInSeconds > 0.0;
+    }
+
+    public boolean hasEnd() {
+        return endCount != NO_COUNT || endInSeconds != Double.POSITIVE_INFINITY;
+    }
+
+    public boolean usesCounts() {
+        return startCount != NO_COUNT || endCount != NO_COUNT;
+    }
+
+    public boolean usesSampleCounts() {
+        return usesCounts() && countSuffix.equals(SAMPLES_SUFFIX);
+    }
+
+    public boolean usesPulseCounts() {
+        return usesCounts() && countSuffix.equals(PULSES_SUFFIX);
+    }
+
+    public boolean usesTimeOffsets() {
+        return startInSeconds > 0.0 || endInSeconds != Double.POSITIVE_INFINITY;
+    }
+
+    public long getStartFrame(double sampleRateInHertz) {
+        if (startCount != NO_COUNT)
+            return startCount;
+
+        return (long)Math.floor(startInSeconds * sampleRateInHertz);
+    }
+
+    // Exclusive, or Long.MAX_VALUE if the region runs to the end of the recording
+    public long getEndFrame(double sampleRateInHertz) {
+        if (endCount != NO_COUNT)
+            return endCount;
+
+        if (endInSeconds == Double.POSITIVE_INFINITY)
+            return Long.MAX_VALUE;
+
+        return (long)Math.ceil(endInSeconds * sampleRateInHertz);
+    }
+
+    public long getStartInNanoseconds() {
+        return TimeBase.nanosecondsFromSeconds(startInSeconds);
+    }
+
+    public long getEndInNanoseconds() {
+        if (endInSeconds == Double.POSITIVE_INFINITY)
+            return Long.MAX_VALUE;
+
+        return TimeBase.nanosecondsFromSeconds(endInSeconds);
+    }
+
+    public long getStartCount() {
+        return startCount == NO_COUNT ? 0L : startCount;
+    }
+
+    // Exclusive, or Long.MAX_VALUE if no end count was given
+    public long getEndCount() {
+        return endCount == NO_COUNT ? Long.MAX_VALUE : endCount;
+    }
+
+    public boolean isEmpty() {
+        if (startCount != NO_COUNT && endCount != NO_COUNT)
+            return endCount <= startCount;
+
+        if (startCount == NO_COUNT && endCount == NO_COUNT)
+            return endInSeconds <= startInSeconds;
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("from ");
+        builder.append(startCount != NO_COUNT ? startCount + " " + countSuffix : startInSeconds + "s");
+        builder.append(" to ");
+        if (endCount != NO_COUNT)
+            builder.append(endCount).append(" ").append(countSuffix);
+        else if (endInSeconds == Double.POSITIVE_INFINITY)
+            builder.append("end");
+        else
+            builder.append(endInSeconds).append("s");
+
+        return builder.toString();
+    }
+}
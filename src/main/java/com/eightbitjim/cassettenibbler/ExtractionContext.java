@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler;
+
+import java.util.TreeMap;
+
+public class ExtractionContext {
+    private static final ExtractionContext defaultContext = new ExtractionContext();
+    private static final ThreadLocal<ExtractionContext> boundContext = new ThreadLocal<>();
+
+    private TapeExtractionOptions options;
+    private TreeMap<String, TapeExtractionLogging> loggingChannels;
+    private ExtractionMetrics metrics;
+
+    public ExtractionContext() {
+        this(new TapeExtractionOptions());
+    }
+
+    public ExtractionContext(TapeExtractionOptions options) {
+        this(options, new ExtractionMetrics());
+    }
+
+    // For work split off from another session, so that its errors are counted with that session's.
+    public ExtractionContext(TapeExtractionOptions options, ExtractionMetrics metrics) {
+        this.options = options;
+        this.metrics = metrics;
+        loggingChannels = new TreeMap<>();
+    }
+
+    // The context bound to this thread, or the process wide default if none is bound.
+    public static ExtractionContext current() {
+        ExtractionContext context = boundContext.get();
+        return context == null ? defaultContext : context;
+    }
+
+    // Returns whatever was bound before so that it can be passed to restore() afterwards.
+    public ExtractionContext bindToCurrentThread() {
+        ExtractionContext previous = boundContext.get();
+        boundContext.set(this);
+        return previous;
+    }
+
+    public static void restore(ExtractionContext previous) {
+        if (previous == null)
+            boundContext.remove();
+        else
+            boundContext.set(previous);
+    }
+
+    public TapeExtractionOptions getOptions() {
+        return options;
+    }
+
+    public ExtractionMetrics getMetrics() {
+        return metrics;
+    }
+
+    public synchronized TapeExtractionLogging getLogging(String channelName) {
+        TapeExtractionLogging logging = loggingChannels.get(channelName);
+        if (logging == null) {
+            logging = new TapeExtractionLogging(channelName, options, metrics);
+            loggingChannels.put(channelName, logging);
+        }
+
+        return logging;
+    }
+
+    public synchronized void close() {
+        for (TapeExtractionLogging logging : loggingChannels.values())
+            logging.close();
+
+        loggingChannels.clear();
+    }
+}
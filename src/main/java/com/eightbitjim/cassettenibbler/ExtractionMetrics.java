@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ExtractionMetrics implements FileStreamConsumer {
+    private AtomicLong filesExtracted;
+    private AtomicLong filesWithErrors;
+    private AtomicLong programOrEnvironmentErrors;
+
+    public ExtractionMetrics() {
+        filesExtracted = new AtomicLong();
+        filesWithErrors = new AtomicLong();
+        programOrEnvironmentErrors = new AtomicLong();
+    }
+
+    private ExtractionMetrics(long filesExtracted, long filesWithErrors, long programOrEnvironmentErrors) {
+        this.filesExtracted = new AtomicLong(filesExtracted);
+        this.filesWithErrors = new AtomicLong(filesWithErrors);
+        this.programOrEnvironmentErrors = new AtomicLong(programOrEnvironmentErrors);
+    }
+
+    public ExtractionMetrics snapshot() {
+        return new ExtractionMetrics(getFilesExtracted(), getFilesWithErrors(), getProgramOrEnvironmentErrors());
+    }
+
+    // What has been counted since an earlier snapshot of these metrics
+    public ExtractionMetrics since(ExtractionMetrics earlier) {
+        return new ExtractionMetrics(getFilesExtracted() - earlier.getFilesExtracted(),
+                getFilesWithErrors() - earlier.getFilesWithErrors(),
+                getProgramOrEnvironmentErrors() - earlier.getProgramOrEnvironmentErrors());
+    }
+
+    @Override
+    public void pushFile(TapeFile file, long currentTimeIndex) {
+        if (file == null)
+            return;
+
+        filesExtracted.incrementAndGet();
+        if (file.containsErrors())
+            filesWithErrors.incrementAndGet();
+    }
+
+    public void recordProgramOrEnvironmentError() {
+        programOrEnvironmentErrors.incrementAndGet();
+    }
+
+    public long getFilesExtracted() {
+        return filesExtracted.get();
+    }
+
+    public long getFilesWithErrors() {
+        return filesWithErrors.get();
+    }
+
+    public long getProgramOrEnvironmentErrors() {
+        return programOrEnvironmentErrors.get();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Files extracted: ").append(getFilesExtracted());
+        builder.append(" (").append(getFilesWithErrors()).append(" with errors), ");
+        builder.append("program errors: ").append(getProgramOrEnvironmentErrors());
+        return builder.toString();
+    }
+}
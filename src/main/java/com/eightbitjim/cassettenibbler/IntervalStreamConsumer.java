@@ -19,5 +19,5 @@
 package com.eightbitjim.cassettenibbler;
 
 public interface IntervalStreamConsumer {
-    void pushInterval(Transition transition, double currentTimeIndex);
+    void pushInterval(Transition transition, long currentTimeIndex);
 }
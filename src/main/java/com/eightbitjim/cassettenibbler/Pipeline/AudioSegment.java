@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+public class AudioSegment {
+    private int index;
+    private long firstFrame;
+    private long numberOfFrames;
+
+    public AudioSegment(int index, long firstFrame, long numberOfFrames) {
+        this.index = index;
+        this.firstFrame = firstFrame;
+        this.numberOfFrames = numberOfFrames;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public long getFirstFrame() {
+        return firstFrame;
+    }
+
+    public long getNumberOfFrames() {
+        return numberOfFrames;
+    }
+
+    public long getEndFrame() {
+        return firstFrame + numberOfFrames;
+    }
+
+    @Override
+    public String toString() {
+        return "Segment " + index + ": frames " + firstFrame + " to " + getEndFrame();
+    }
+}
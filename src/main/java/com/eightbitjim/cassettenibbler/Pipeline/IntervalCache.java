@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.PlatformAccessError;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ThreasholdLine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps the interval streams of each shared signal path on disk, named by a hash of the input file, the settings used
+// to read it and the filters and threashold line of each stream on the path. When every path of a later run is found there, the intervals are replayed
+// straight into the platforms and the audio is not read at all.
+//
+// Each interval is stored as a varint holding the zigzag encoded nanoseconds since the previous one, shifted left past
+// the polarity and end of stream flags, then a second varint holding how far the interval length differs from that.
+public class IntervalCache {
+    static final byte [] HEADER = { 'C', 'N', 'I', 'N', 'T', 'V', 'L', 1 };
+    static final String FILENAME_SUFFIX = ".intervals";
+    static final String TEMPORARY_SUFFIX = ".partial";
+    static final int FLAG_BITS = 2;
+    static final long TRANSITIONED_TO_HIGH = 1;
+    static final long END_OF_STREAM = 2;
+    static final double NANOSECONDS_IN_A_SECOND = 1000000000.0;
+    static final long REPLAY_WINDOW_IN_NANOSECONDS = 100000000L;
+
+    private static final int HASH_BUFFER_SIZE = 1 << 20;
+
+    private File directory;
+    private List<SignalPathLeaf> leaves;
+    private IntervalCacheRecorder [][] recorders;
+    private File [][] cacheFiles;
+
+    public IntervalCache(String directory, SignalPathPlan plan, String channelName) {
+        this.directory = new File(directory);
+        leaves = plan.getLeaves();
+        recorders = new IntervalCacheRecorder[leaves.size()][];
+        cacheFiles = new File[leaves.size()][];
+        for (SignalPathLeaf leaf : leaves) {
+            if (!leaf.isSharedIntervalStream())
+                continue;
+
+            int numberOfLines = leaf.getThreasholdLines().size();
+            recorders[leaf.getIndex()] = new IntervalCacheRecorder[numberOfLines];
+            cacheFiles[leaf.getIndex()] = new File[numberOfLines];
+            for (int line = 0; line < numberOfLines; line++) {
+                recorders[leaf.getIndex()][line] = new IntervalCacheRecorder(channelName);
+                leaf.addIntervalStreamConsumer(line, recorders[leaf.getIndex()][line]);
+            }
+        }
+    }
+
+    public void startInput(String filename, String settings) throws IOException {
+        String inputHash = hashOfFile(filename);
+        for (SignalPathLeaf leaf : leaves) {
+            if (!leaf.isSharedIntervalStream())
+                continue;
+
+            List<ThreasholdLine> threasholdLines = leaf.getThreasholdLines();
+            for (int line = 0; line < threasholdLines.size(); line++) {
+                String key = hashOfString(inputHash + "|" + settings + "|" + leaf.getFilters() + "|" + threasholdLines.get(line)
+                        + "|" + leaf.getHysteresis());
+                cacheFiles[leaf.getIndex()][line] = new File(directory, key + FILENAME_SUFFIX);
+            }
+        }
+    }
+
+    public boolean canReplay() {
+        for (SignalPathLeaf leaf : leaves) {
+            if (!leaf.isSharedIntervalStream())
+                return false;
+
+            for (File cacheFile : cacheFiles[leaf.getIndex()]) {
+                if (!cacheFile.isFile())
+                    return false;
+            }
+        }
+
+        return true;
+    }
+
+    public void recordMissingStreams() {
+        for (SignalPathLeaf leaf : leaves) {
+            int index = leaf.getIndex();
+            if (recorders[index] == null)
+                continue;
+
+            for (int line = 0; line < recorders[index].length; line++) {
+                if (cacheFiles[index][line].isFile())
+                    recorders[index][line].stopRecording();
+                else
+                    recorders[index][line].recordTo(cacheFiles[index][line]);
+            }
+        }
+    }
+
+    public void stopRecording() {
+        for (IntervalCacheRecorder [] recordersOnLeaf : recorders) {
+            if (recordersOnLeaf == null)
+                continue;
+
+            for (IntervalCacheRecorder recorder : recordersOnLeaf)
+                recorder.stopRecording();
+        }
+    }
+
+    // Pushes the cached intervals of all paths in time order, and returns the time index of the last one
+    public long replay() throws IOException, PlatformAccessError {
+        List<IntervalCacheReader> readers = new ArrayList<>();
+        List<List<IntervalStreamConsumer>> consumers = new ArrayList<>();
+        try {
+            for (SignalPathLeaf leaf : leaves) {
+                for (int line = 0; line < cacheFiles[leaf.getIndex()].length; line++) {
+                    readers.add(new IntervalCacheReader(cacheFiles[leaf.getIndex()][line]));
+                    consumers.add(consumersOf(leaf, line));
+                }
+            }
+
+            return replayInTimeOrder(readers, consumers);
+        } finally {
+            for (IntervalCacheReader reader : readers)
+                reader.close();
+        }
+    }
+
+    private List<IntervalStreamConsumer> consumersOf(SignalPathLeaf leaf, int threasholdLine) throws PlatformAccessError {
+        List<IntervalStreamConsumer> consumers = new ArrayList<>();
+        for (Platform platform : leaf.getPlatforms())
+            consumers.add(platform.getIntervalInputPoint(threasholdLine));
+
+        return consumers;
+    }
+
+    // A single threaded run hands each block of samples to the paths in order, so the streams are replayed the same
+    // way: a window at a time, with each stream in turn pushing all of its intervals up to the end of the window
+    private long replayInTimeOrder(List<IntervalCacheReader> readers, List<List<IntervalStreamConsumer>> consumers) throws IOException {
+        int numberOfStreams = readers.size();
+        boolean [] streamHasInterval = new boolean[numberOfStreams];
+        for (int i = 0; i < numberOfStreams; i++)
+            streamHasInterval[i] = readers.get(i).readNextInterval();
+
+        long lastTimeIndex = 0;
+        long endOfWindow = 0;
+        while (true) {
+            long earliestTimeIndex = Long.MAX_VALUE;
+            for (int i = 0; i < numberOfStreams; i++) {
+                if (streamHasInterval[i])
+                    earliestTimeIndex = Math.min(earliestTimeIndex, readers.get(i).getTimeIndex());
+            }
+
+            if (earliestTimeIndex == Long.MAX_VALUE)
+                return lastTimeIndex;
+
+            // Skip straight over any stretch where none of the streams has an interval
+            endOfWindow = Math.max(endOfWindow, earliestTimeIndex - earliestTimeIndex % REPLAY_WINDOW_IN_NANOSECONDS)
+                    + REPLAY_WINDOW_IN_NANOSECONDS;
+            for (int i = 0; i < numberOfStreams; i++) {
+                IntervalCacheReader reader = readers.get(i);
+                while (streamHasInterval[i] && reader.getTimeIndex() < endOfWindow) {
+                    lastTimeIndex = Math.max(lastTimeIndex, reader.getTimeIndex());
+                    for (IntervalStreamConsumer consumer : consumers.get(i))
+                        consumer.pushInterval(reader.getTransition(), reader.getTimeIndex());
+
+                    streamHasInterval[i] = !reader.getTransition().isEndOfStream() && reader.readNextInterval();
+                }
+            }
+        }
+    }
+
+    private static String hashOfFile(String filename) throws IOException {
+        MessageDigest digest = newDigest();
+        byte [] buffer = new byte[HASH_BUFFER_SIZE];
+        try (InputStream inputStream = new FileInputStream(filename)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) >= 0)
+                digest.update(buffer, 0, bytesRead);
+        }
+
+        return toHex(digest.digest());
+    }
+
+    private static String hashOfString(String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not available", e);
+        }
+    }
+
+    private static String toHex(byte [] bytes) {
+        StringBuilder builder = new StringBuilder();
+        for (byte b : bytes)
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+
+        return builder.toString();
+    }
+
+    static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarint(OutputStream outputStream, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            outputStream.write((int)(value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+
+        outputStream.write((int)value);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.Transition;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class IntervalCacheReader {
+    private static final int BUFFER_SIZE = 65536;
+
+    private InputStream inputStream;
+    private byte [] buffer;
+    private int bufferPosition;
+    private int bufferLength;
+    private Transition transition;
+    private long timeIndex;
+    private boolean endOfStream;
+
+    public IntervalCacheReader(File file) throws IOException {
+        inputStream = new FileInputStream(file);
+        buffer = new byte[BUFFER_SIZE];
+        transition = new Transition();
+        checkHeader(file);
+    }
+
+    private void checkHeader(File file) throws IOException {
+        for (byte expected : IntervalCache.HEADER) {
+            if (nextByte() != (expected & 0xff)) {
+                close();
+                throw new IOException("Not an interval cache file: " + file);
+            }
+        }
+    }
+
+    // Reads the next interval. Returns false once the end of the stream has been read.
+    public boolean readNextInterval() throws IOException {
+        if (endOfStream)
+            return false;
+
+        long head = readVarint();
+        if (head < 0) {
+            endOfStream = true;
+            transition.secondsSinceLastTransition = Transition.END_OF_STREAM;
+            return true;
+        }
+
+        long timeDelta = IntervalCache.zigzagDecode(head >>> IntervalCache.FLAG_BITS);
+        timeIndex += timeDelta;
+        transition.transitionedToHigh = (head & IntervalCache.TRANSITIONED_TO_HIGH) != 0;
+        if ((head & IntervalCache.END_OF_STREAM) != 0) {
+            endOfStream = true;
+            transition.secondsSinceLastTransition = Transition.END_OF_STREAM;
+            return true;
+        }
+
+        long difference = readVarint();
+        if (difference < 0)
+            throw new IOException("Interval cache file is truncated");
+
+        long intervalInNanoseconds = timeDelta + IntervalCache.zigzagDecode(difference);
+        transition.secondsSinceLastTransition = (double)intervalInNanoseconds / IntervalCache.NANOSECONDS_IN_A_SECOND;
+        return true;
+    }
+
+    // Returns -1 at the end of the stream. Values written are never negative as they are zigzag encoded first.
+    private long readVarint() throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int nextByte = nextByte();
+            if (nextByte < 0)
+                return -1;
+
+            value |= (long)(nextByte & 0x7f) << shift;
+            if ((nextByte & 0x80) == 0)
+                return value;
+
+            shift += 7;
+        }
+    }
+
+    private int nextByte() throws IOException {
+        if (bufferPosition == bufferLength) {
+            bufferLength = inputStream.read(buffer);
+            bufferPosition = 0;
+            if (bufferLength <= 0) {
+                bufferLength = 0;
+                return -1;
+            }
+        }
+
+        return buffer[bufferPosition++] & 0xff;
+    }
+
+    public Transition getTransition() {
+        return transition;
+    }
+
+    public long getTimeIndex() {
+        return timeIndex;
+    }
+
+    public void close() {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            // Nothing more to read
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+import com.eightbitjim.cassettenibbler.Transition;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Writes one shared interval stream to the cache. Nothing is kept unless the stream reaches its end.
+public class IntervalCacheRecorder implements IntervalStreamConsumer {
+    private static final int BUFFER_SIZE = 65536;
+
+    private TapeExtractionLogging logging;
+    private volatile File target;
+    private File temporaryFile;
+    private OutputStream outputStream;
+    private long lastTimeIndex;
+
+    public IntervalCacheRecorder(String channelName) {
+        logging = TapeExtractionLogging.getInstance(channelName);
+    }
+
+    public void recordTo(File target) {
+        abandon();
+        this.target = target;
+    }
+
+    public void stopRecording() {
+        abandon();
+        target = null;
+    }
+
+    @Override
+    public void pushInterval(Transition transition, long currentTimeIndex) {
+        if (target == null)
+            return;
+
+        try {
+            if (outputStream == null)
+                open();
+
+            writeInterval(transition, currentTimeIndex);
+            if (transition.isEndOfStream())
+                commit();
+        } catch (IOException e) {
+            logging.writeProgramOrEnvironmentError(currentTimeIndex, "Exception while writing interval cache: " + e.toString());
+            stopRecording();
+        }
+    }
+
+    private void open() throws IOException {
+        File directory = target.getParentFile();
+        if (directory != null)
+            directory.mkdirs();
+
+        temporaryFile = new File(target.getPath() + IntervalCache.TEMPORARY_SUFFIX);
+        outputStream = new BufferedOutputStream(new FileOutputStream(temporaryFile), BUFFER_SIZE);
+        outputStream.write(IntervalCache.HEADER);
+        lastTimeIndex = 0;
+    }
+
+    private void writeInterval(Transition transition, long currentTimeIndex) throws IOException {
+        long timeDelta = currentTimeIndex - lastTimeIndex;
+        lastTimeIndex = currentTimeIndex;
+
+        long flags = transition.transitionedToHigh ? IntervalCache.TRANSITIONED_TO_HIGH : 0;
+        if (transition.isEndOfStream())
+            flags |= IntervalCache.END_OF_STREAM;
+
+        IntervalCache.writeVarint(outputStream, IntervalCache.zigzagEncode(timeDelta) << IntervalCache.FLAG_BITS | flags);
+        if (!transition.isEndOfStream()) {
+            // The interval is usually the same as the time since the last one, so only the difference is stored
+            long intervalInNanoseconds = Math.round(transition.secondsSinceLastTransition * IntervalCache.NANOSECONDS_IN_A_SECOND);
+            IntervalCache.writeVarint(outputStream, IntervalCache.zigzagEncode(intervalInNanoseconds - timeDelta));
+        }
+    }
+
+    private void commit() throws IOException {
+        outputStream.close();
+        outputStream = null;
+        if (!temporaryFile.renameTo(target)) {
+            target.delete();
+            if (!temporaryFile.renameTo(target))
+                throw new IOException("Cannot rename " + temporaryFile + " to " + target);
+        }
+
+        target = null;
+    }
+
+    private void abandon() {
+        if (outputStream == null)
+            return;
+
+        try {
+            outputStream.close();
+        } catch (IOException e) {
+            // Being thrown away anyway
+        }
+
+        outputStream = null;
+        temporaryFile.delete();
+    }
+}
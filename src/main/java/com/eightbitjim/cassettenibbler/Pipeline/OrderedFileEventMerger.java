@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.FileStreamConsumer;
+import com.eightbitjim.cassettenibbler.FileStreamProvider;
+import com.eightbitjim.cassettenibbler.TapeFile;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+public class OrderedFileEventMerger implements FileStreamProvider {
+    // Leaf index for files pushed while no leaf is being fed, such as when a platform flushes at end of stream.
+    public static final int OUTSIDE_ANY_LEAF = -1;
+
+    private long [] lastSequenceProcessedByLeaf;
+    private List<FileStreamConsumer> consumers;
+
+    public OrderedFileEventMerger(int numberOfLeaves) {
+        lastSequenceProcessedByLeaf = new long[numberOfLeaves];
+        Arrays.fill(lastSequenceProcessedByLeaf, -1L);
+        consumers = new LinkedList<>();
+    }
+
+    public synchronized void leafProcessed(int leafIndex, long sequence) {
+        if (lastSequenceProcessedByLeaf[leafIndex] < sequence) {
+            lastSequenceProcessedByLeaf[leafIndex] = sequence;
+            notifyAll();
+        }
+    }
+
+    public synchronized void leavesProcessed(int [] leafIndexes, long sequence) {
+        for (int leafIndex : leafIndexes) {
+            if (lastSequenceProcessedByLeaf[leafIndex] < sequence)
+                lastSequenceProcessedByLeaf[leafIndex] = sequence;
+        }
+
+        notifyAll();
+    }
+
+    public synchronized void deliverInOrder(TapeFile file, long currentTimeIndex, long sequence, int leafIndex) {
+        // A single threaded run hands each block to every leaf in turn, so a file found by this leaf is
+        // only passed on once all earlier leaves have finished with this block and all later leaves have
+        // finished with the one before it. A file found outside any leaf waits for every leaf to finish with the
+        // block before this one.
+        while (!earlierLeavesHaveProcessed(sequence, leafIndex)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        for (FileStreamConsumer consumer : consumers)
+            consumer.pushFile(file, currentTimeIndex);
+    }
+
+    private boolean earlierLeavesHaveProcessed(long sequence, int leafIndex) {
+        for (int i = 0; i < lastSequenceProcessedByLeaf.length; i++) {
+            if (i == leafIndex)
+                continue;
+
+            boolean leafComesFirst = leafIndex != OUTSIDE_ANY_LEAF && i < leafIndex;
+            long sequenceNeeded = leafComesFirst ? sequence : sequence - 1;
+            if (lastSequenceProcessedByLeaf[i] < sequenceNeeded)
+                return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized void registerFileStreamConsumer(FileStreamConsumer consumer) {
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    @Override
+    public synchronized void deregisterFileStreamConsumer(FileStreamConsumer consumer) {
+        consumers.remove(consumer);
+    }
+}
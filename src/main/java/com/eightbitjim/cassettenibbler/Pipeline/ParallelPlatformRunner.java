@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.FileStreamProvider;
+import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.PlatformAccessError;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.SharedFilterGraph;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+public class ParallelPlatformRunner implements SampleStreamConsumer {
+    private static final int RING_BUFFER_SLOTS = 16;
+
+    private SampleRingBuffer ringBuffer;
+    private OrderedFileEventMerger merger;
+    private List<Thread> threads;
+    private int numberOfFilters;
+    private int numberOfIntervalExtractors;
+
+    public ParallelPlatformRunner(SignalPathPlan plan, int numberOfThreads, String channelName) throws PlatformAccessError {
+        ringBuffer = new SampleRingBuffer(RING_BUFFER_SLOTS);
+        merger = new OrderedFileEventMerger(plan.getLeaves().size());
+        threads = new LinkedList<>();
+
+        int workerNumber = 0;
+        for (List<SignalPathLeaf> group : partition(plan.getLeaves(), numberOfThreads)) {
+            PlatformWorker worker = new PlatformWorker(ringBuffer, merger, group, channelName);
+            SharedFilterGraph graph = plan.build(group, channelName, worker);
+            worker.setInput(graph.getInput());
+            numberOfFilters += plan.getNumberOfFilters();
+            numberOfIntervalExtractors += plan.getNumberOfIntervalExtractors();
+            collectFilesFrom(group, worker);
+
+            Thread thread = new Thread(worker, "platform-worker-" + workerNumber++);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        for (Thread thread : threads)
+            thread.start();
+    }
+
+    private void collectFilesFrom(List<SignalPathLeaf> group, PlatformWorker worker) throws PlatformAccessError {
+        for (SignalPathLeaf leaf : group) {
+            for (Platform platform : leaf.getPlatforms()) {
+                if (platform.hasOutputType(Platform.Type.FILE))
+                    platform.getFileOutputPoint().registerFileStreamConsumer(worker.getFileCollector());
+            }
+        }
+    }
+
+    private List<List<SignalPathLeaf>> partition(List<SignalPathLeaf> leaves, int numberOfThreads) {
+        int numberOfGroups = Math.max(1, Math.min(numberOfThreads, leaves.size()));
+        List<List<SignalPathLeaf>> groups = new ArrayList<>();
+        int [] load = new int[numberOfGroups];
+        for (int i = 0; i < numberOfGroups; i++)
+            groups.add(new ArrayList<>());
+
+        List<SignalPathLeaf> heaviestFirst = new ArrayList<>(leaves);
+        heaviestFirst.sort(Comparator.comparingInt((SignalPathLeaf leaf) -> leaf.getPlatforms().size()).reversed());
+        for (SignalPathLeaf leaf : heaviestFirst) {
+            int lightest = 0;
+            for (int i = 1; i < numberOfGroups; i++) {
+                if (load[i] < load[lightest])
+                    lightest = i;
+            }
+
+            groups.get(lightest).add(leaf);
+            load[lightest] += leaf.getPlatforms().size();
+        }
+
+        // Each worker must visit its leaves in the same order as a single threaded run would
+        for (List<SignalPathLeaf> group : groups)
+            group.sort(Comparator.comparingInt(SignalPathLeaf::getIndex));
+
+        groups.removeIf(List::isEmpty);
+        return groups;
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        ringBuffer.publishSample(sample.normalizedValue, currentTimeIndex);
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        ringBuffer.publishBlock(samples, offset, length, firstSampleIndex, sampleRateInHertz);
+    }
+
+    public void waitUntilIdle() {
+        ringBuffer.waitUntilAllSlotsRead();
+    }
+
+    public void shutdown() {
+        ringBuffer.publishShutdown();
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public FileStreamProvider getFileOutput() {
+        return merger;
+    }
+
+    public int getNumberOfThreads() {
+        return threads.size();
+    }
+
+    public int getNumberOfFilters() {
+        return numberOfFilters;
+    }
+
+    public int getNumberOfIntervalExtractors() {
+        return numberOfIntervalExtractors;
+    }
+}
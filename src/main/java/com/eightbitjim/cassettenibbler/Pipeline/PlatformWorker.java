@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.ExtractionContext;
+import com.eightbitjim.cassettenibbler.FileStreamConsumer;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+import com.eightbitjim.cassettenibbler.TapeFile;
+import com.eightbitjim.cassettenibbler.TimeBase;
+
+import java.util.List;
+
+public class PlatformWorker implements Runnable, SignalPathLeafDecorator {
+    private SampleRingBuffer ringBuffer;
+    private SampleRingBuffer.Cursor cursor;
+    private OrderedFileEventMerger merger;
+    private SampleStreamConsumer input;
+    private int [] leafIndexes;
+    private Sample sample;
+    private FileStreamConsumer fileCollector;
+    private ExtractionContext context;
+    private String channelName;
+    private boolean [] failedLeaves;
+    private int numberOfLeavesFailed;
+
+    private long currentSequence;
+    private int currentLeaf;
+
+    public PlatformWorker(SampleRingBuffer ringBuffer, OrderedFileEventMerger merger, List<SignalPathLeaf> leaves, String channelName) {
+        this.ringBuffer = ringBuffer;
+        this.merger = merger;
+        this.channelName = channelName;
+        cursor = ringBuffer.addCursor();
+        sample = new Sample();
+        currentLeaf = OrderedFileEventMerger.OUTSIDE_ANY_LEAF;
+
+        leafIndexes = new int[leaves.size()];
+        for (int i = 0; i < leaves.size(); i++)
+            leafIndexes[i] = leaves.get(i).getIndex();
+
+        int highestLeafIndex = -1;
+        for (int leafIndex : leafIndexes)
+            highestLeafIndex = Math.max(highestLeafIndex, leafIndex);
+
+        failedLeaves = new boolean[highestLeafIndex + 1];
+
+        fileCollector = new FileCollector();
+        context = ExtractionContext.current();
+    }
+
+    public void setInput(SampleStreamConsumer input) {
+        this.input = input;
+    }
+
+    public FileStreamConsumer getFileCollector() {
+        return fileCollector;
+    }
+
+    @Override
+    public SampleStreamConsumer decorate(SignalPathLeaf leaf, SampleStreamConsumer destination) {
+        return new TrackedLeafInput(leaf.getIndex(), destination);
+    }
+
+    @Override
+    public void run() {
+        context.bindToCurrentThread();
+        long sequence = cursor.getLastSequenceRead() + 1;
+        while (true) {
+            SampleRingBuffer.Slot slot = ringBuffer.waitForSlot(sequence);
+            if (slot.type == SampleRingBuffer.SlotType.SHUTDOWN) {
+                ringBuffer.releaseSlot(cursor, sequence);
+                return;
+            }
+
+            currentSequence = sequence;
+            if (numberOfLeavesFailed < leafIndexes.length) {
+                try {
+                    processSlot(slot);
+                } catch (RuntimeException e) {
+                    failAllLeaves(slot, e);
+                }
+            }
+
+            merger.leavesProcessed(leafIndexes, sequence);
+            ringBuffer.releaseSlot(cursor, sequence);
+            sequence++;
+        }
+    }
+
+    private void processSlot(SampleRingBuffer.Slot slot) {
+        switch (slot.type) {
+            case BLOCK:
+                input.pushBlock(slot.samples, 0, slot.length, slot.firstSampleIndex, slot.sampleRateInHertz);
+                break;
+            case SAMPLE:
+                sample.normalizedValue = slot.value;
+                input.push(sample, slot.timeIndex);
+                break;
+        }
+    }
+
+    private void failAllLeaves(SampleRingBuffer.Slot slot, RuntimeException e) {
+        // Filters shared by every leaf on this worker threw, so none of them can be trusted with more samples
+        logFailure(nanosecondsAt(slot), "all signal paths on this worker", e);
+        for (int leafIndex : leafIndexes)
+            markFailed(leafIndex);
+    }
+
+    private void failLeaf(int leafIndex, long nanoseconds, RuntimeException e) {
+        // A platform that threw is left in an unknown state, so it is fed nothing more
+        logFailure(nanoseconds, "signal path " + leafIndex, e);
+        markFailed(leafIndex);
+    }
+
+    private void logFailure(long nanoseconds, String abandoned, RuntimeException e) {
+        TapeExtractionLogging.getInstance(channelName).writeProgramOrEnvironmentError(nanoseconds,
+                "Exception in platform worker, abandoning " + abandoned + ": " + e.toString());
+    }
+
+    private void markFailed(int leafIndex) {
+        if (!failedLeaves[leafIndex]) {
+            failedLeaves[leafIndex] = true;
+            numberOfLeavesFailed++;
+        }
+    }
+
+    private static long nanosecondsAt(SampleRingBuffer.Slot slot) {
+        if (slot.type == SampleRingBuffer.SlotType.BLOCK)
+            return new TimeBase(slot.sampleRateInHertz).nanosecondsAt(slot.firstSampleIndex);
+
+        return TimeBase.nanosecondsFromSeconds(slot.timeIndex);
+    }
+
+    private class TrackedLeafInput implements SampleStreamConsumer {
+        private int leafIndex;
+        private SampleStreamConsumer destination;
+
+        TrackedLeafInput(int leafIndex, SampleStreamConsumer destination) {
+            this.leafIndex = leafIndex;
+            this.destination = destination;
+        }
+
+        @Override
+        public void push(Sample sample, double currentTimeIndex) {
+            if (failedLeaves[leafIndex]) {
+                leaveLeaf();
+                return;
+            }
+
+            currentLeaf = leafIndex;
+            try {
+                destination.push(sample, currentTimeIndex);
+            } catch (RuntimeException e) {
+                failLeaf(leafIndex, TimeBase.nanosecondsFromSeconds(currentTimeIndex), e);
+            }
+
+            leaveLeaf();
+        }
+
+        @Override
+        public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+            if (failedLeaves[leafIndex]) {
+                leaveLeaf();
+                return;
+            }
+
+            currentLeaf = leafIndex;
+            try {
+                destination.pushBlock(samples, offset, length, firstSampleIndex, sampleRateInHertz);
+            } catch (RuntimeException e) {
+                failLeaf(leafIndex, new TimeBase(sampleRateInHertz).nanosecondsAt(firstSampleIndex), e);
+            }
+
+            leaveLeaf();
+        }
+
+        private void leaveLeaf() {
+            merger.leafProcessed(leafIndex, currentSequence);
+            currentLeaf = OrderedFileEventMerger.OUTSIDE_ANY_LEAF;
+        }
+    }
+
+    private class FileCollector implements FileStreamConsumer {
+        @Override
+        public void pushFile(TapeFile file, long currentTimeIndex) {
+            merger.deliverInOrder(file, currentTimeIndex, currentSequence, currentLeaf);
+        }
+    }
+}
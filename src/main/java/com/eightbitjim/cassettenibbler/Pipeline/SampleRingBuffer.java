@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+public class SampleRingBuffer {
+    public enum SlotType { BLOCK, SAMPLE, SHUTDOWN }
+
+    public static class Slot {
+        SlotType type;
+        double [] samples = new double[0];
+        int length;
+        long firstSampleIndex;
+        double sampleRateInHertz;
+        double value;
+        double timeIndex;
+    }
+
+    public static class Cursor {
+        private final AtomicLong lastSequenceRead = new AtomicLong(-1);
+
+        public long getLastSequenceRead() {
+            return lastSequenceRead.get();
+        }
+    }
+
+    private static final int SPIN_ATTEMPTS = 100;
+    private static final int YIELD_ATTEMPTS = 200;
+    private static final long PARK_NANOSECONDS = 50000L;
+
+    private final Slot [] slots;
+    private final int mask;
+    private final AtomicLong lastSequencePublished = new AtomicLong(-1);
+    private volatile Cursor [] cursors = new Cursor[0];
+
+    public SampleRingBuffer(int minimumNumberOfSlots) {
+        int size = 1;
+        while (size < minimumNumberOfSlots)
+            size <<= 1;
+
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++)
+            slots[i] = new Slot();
+
+        mask = size - 1;
+    }
+
+    public synchronized Cursor addCursor() {
+        Cursor cursor = new Cursor();
+        cursor.lastSequenceRead.set(lastSequencePublished.get());
+        Cursor [] newCursors = new Cursor[cursors.length + 1];
+        System.arraycopy(cursors, 0, newCursors, 0, cursors.length);
+        newCursors[cursors.length] = cursor;
+        cursors = newCursors;
+        return cursor;
+    }
+
+    public Slot claimNextSlot() {
+        long sequence = lastSequencePublished.get() + 1;
+        int attempt = 0;
+        while (sequence - slowestCursorPosition() > slots.length)
+            idle(attempt++);
+
+        return slots[(int)(sequence & mask)];
+    }
+
+    public void publishClaimedSlot() {
+        lastSequencePublished.set(lastSequencePublished.get() + 1);
+    }
+
+    public void publishBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        Slot slot = claimNextSlot();
+        if (slot.samples.length < length)
+            slot.samples = new double[length];
+
+        System.arraycopy(samples, offset, slot.samples, 0, length);
+        slot.type = SlotType.BLOCK;
+        slot.length = length;
+        slot.firstSampleIndex = firstSampleIndex;
+        slot.sampleRateInHertz = sampleRateInHertz;
+        publishClaimedSlot();
+    }
+
+    public void publishSample(double value, double timeIndex) {
+        Slot slot = claimNextSlot();
+        slot.type = SlotType.SAMPLE;
+        slot.value = value;
+        slot.timeIndex = timeIndex;
+        publishClaimedSlot();
+    }
+
+    public void publishShutdown() {
+        Slot slot = claimNextSlot();
+        slot.type = SlotType.SHUTDOWN;
+        publishClaimedSlot();
+    }
+
+    public Slot waitForSlot(long sequence) {
+        int attempt = 0;
+        while (lastSequencePublished.get() < sequence)
+            idle(attempt++);
+
+        return slots[(int)(sequence & mask)];
+    }
+
+    public void releaseSlot(Cursor cursor, long sequence) {
+        cursor.lastSequenceRead.set(sequence);
+    }
+
+    public void waitUntilAllSlotsRead() {
+        long lastPublished = lastSequencePublished.get();
+        int attempt = 0;
+        while (slowestCursorPosition() < lastPublished)
+            idle(attempt++);
+    }
+
+    private long slowestCursorPosition() {
+        long slowest = lastSequencePublished.get();
+        for (Cursor cursor : cursors)
+            slowest = Math.min(slowest, cursor.lastSequenceRead.get());
+
+        return slowest;
+    }
+
+    private static void idle(int attempt) {
+        if (attempt < SPIN_ATTEMPTS)
+            return;
+
+        if (attempt < YIELD_ATTEMPTS)
+            Thread.yield();
+        else
+            LockSupport.parkNanos(PARK_NANOSECONDS);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ThreasholdLine;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ToneStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+public class SignalPathLeaf {
+    private FilterChain filters;
+    private boolean sharedIntervalStream;
+    private List<ThreasholdLine> threasholdLines;
+    private double hysteresis;
+    private ToneStreamSpec toneStream;
+    private SampleStreamConsumer sampleInput;
+    private List<Platform> platforms;
+    private List<List<IntervalStreamConsumer>> intervalConsumers;
+    private int index;
+
+    static SignalPathLeaf forIntervalStream(FilterChain filters, List<ThreasholdLine> threasholdLines, double hysteresis) {
+        SignalPathLeaf leaf = new SignalPathLeaf(filters);
+        leaf.sharedIntervalStream = true;
+        leaf.threasholdLines = threasholdLines;
+        leaf.hysteresis = hysteresis;
+        for (int i = 0; i < threasholdLines.size(); i++)
+            leaf.intervalConsumers.add(new LinkedList<>());
+
+        return leaf;
+    }
+
+    static SignalPathLeaf forToneStream(FilterChain filters, ToneStreamSpec toneStream) {
+        SignalPathLeaf leaf = new SignalPathLeaf(filters);
+        leaf.toneStream = toneStream;
+        return leaf;
+    }
+
+    static SignalPathLeaf forSampleInput(FilterChain filters, SampleStreamConsumer sampleInput) {
+        SignalPathLeaf leaf = new SignalPathLeaf(filters);
+        leaf.sampleInput = sampleInput;
+        return leaf;
+    }
+
+    private SignalPathLeaf(FilterChain filters) {
+        this.filters = filters;
+        platforms = new LinkedList<>();
+        threasholdLines = new ArrayList<>();
+        intervalConsumers = new ArrayList<>();
+    }
+
+    boolean hasIntervalStream(FilterChain filters, List<ThreasholdLine> threasholdLines, double hysteresis) {
+        return sharedIntervalStream && this.filters.equals(filters) && this.threasholdLines.equals(threasholdLines)
+                && Double.compare(this.hysteresis, hysteresis) == 0;
+    }
+
+    boolean hasToneStream(FilterChain filters, ToneStreamSpec toneStream) {
+        return this.toneStream != null && this.filters.equals(filters) && this.toneStream.equals(toneStream);
+    }
+
+    void addPlatform(Platform platform) {
+        platforms.add(platform);
+    }
+
+    // Extra consumers of one threashold line's interval stream, attached alongside the platforms whenever the leaf is built
+    public void addIntervalStreamConsumer(int threasholdLine, IntervalStreamConsumer consumer) {
+        List<IntervalStreamConsumer> consumers = intervalConsumers.get(threasholdLine);
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    public List<IntervalStreamConsumer> getIntervalStreamConsumers(int threasholdLine) {
+        return intervalConsumers.get(threasholdLine);
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    public FilterChain getFilters() {
+        return filters;
+    }
+
+    public boolean isSharedIntervalStream() {
+        return sharedIntervalStream;
+    }
+
+    public boolean isSharedToneStream() {
+        return toneStream != null;
+    }
+
+    public ToneStreamSpec getToneStream() {
+        return toneStream;
+    }
+
+    public List<ThreasholdLine> getThreasholdLines() {
+        return threasholdLines;
+    }
+
+    public double getHysteresis() {
+        return hysteresis;
+    }
+
+    public SampleStreamConsumer getSampleInput() {
+        return sampleInput;
+    }
+
+    public List<Platform> getPlatforms() {
+        return platforms;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+}
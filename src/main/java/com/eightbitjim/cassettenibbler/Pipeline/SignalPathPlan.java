@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
+import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.PlatformAccessError;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.GoertzelFSKDemodulator;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamRegistry;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ThreasholdLine;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ToneStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterStage;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.SharedFilterGraph;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SignalPathPlan {
+    private static final SignalPathLeafDecorator NO_DECORATION = (leaf, destination) -> destination;
+
+    private List<SignalPathLeaf> leaves;
+    private int numberOfFilters;
+    private int numberOfIntervalExtractors;
+
+    public SignalPathPlan(Collection<Platform> platforms, boolean useDefaultFilters) throws PlatformAccessError {
+        List<SignalPathLeaf> leavesInCreationOrder = new ArrayList<>();
+        for (Platform platform : platforms)
+            addPlatform(platform, useDefaultFilters, leavesInCreationOrder);
+
+        leaves = leavesInProcessingOrder(leavesInCreationOrder);
+    }
+
+    private void addPlatform(Platform platform, boolean useDefaultFilters, List<SignalPathLeaf> leavesInCreationOrder) throws PlatformAccessError {
+        FilterChain filters = useDefaultFilters ? platform.getInputFilterChain() : new FilterChain();
+        SignalPathLeaf leaf;
+        if (platform.usesSharedToneStream()) {
+            ToneStreamSpec spec = platform.getToneStreamSpec();
+            leaf = findToneStream(leavesInCreationOrder, filters, spec);
+            if (leaf == null) {
+                leaf = SignalPathLeaf.forToneStream(filters, spec);
+                leavesInCreationOrder.add(leaf);
+            }
+        } else if (platform.usesSharedIntervalStream()) {
+            IntervalStreamSpec spec = platform.getIntervalStreamSpec();
+            FilterChain signal = filters.followedBy(spec.getPostFilters());
+            leaf = findIntervalStream(leavesInCreationOrder, signal, spec.getThreasholdLines(), spec.getHysteresis());
+            if (leaf == null) {
+                leaf = SignalPathLeaf.forIntervalStream(signal, spec.getThreasholdLines(), spec.getHysteresis());
+                leavesInCreationOrder.add(leaf);
+            }
+        } else {
+            if (!useDefaultFilters || !filters.isEmpty())
+                leaf = SignalPathLeaf.forSampleInput(filters, platform.getPostFilterWaveformInputPoint());
+            else
+                leaf = SignalPathLeaf.forSampleInput(filters, platform.getWaveformInputPoint());
+
+            leavesInCreationOrder.add(leaf);
+        }
+
+        leaf.addPlatform(platform);
+    }
+
+    private SignalPathLeaf findIntervalStream(List<SignalPathLeaf> leaves, FilterChain signal, List<ThreasholdLine> threasholdLines, double hysteresis) {
+        for (SignalPathLeaf leaf : leaves) {
+            if (leaf.hasIntervalStream(signal, threasholdLines, hysteresis))
+                return leaf;
+        }
+
+        return null;
+    }
+
+    private SignalPathLeaf findToneStream(List<SignalPathLeaf> leaves, FilterChain filters, ToneStreamSpec spec) {
+        for (SignalPathLeaf leaf : leaves) {
+            if (leaf.hasToneStream(filters, spec))
+                return leaf;
+        }
+
+        return null;
+    }
+
+    private List<SignalPathLeaf> leavesInProcessingOrder(List<SignalPathLeaf> leavesInCreationOrder) {
+        // A shared filter graph passes each block to its leaves depth first, in the order that each branch
+        // was first attached. Numbering the leaves in that order means any subset of them can be built into
+        // a separate graph and still be processed in the same relative order.
+        PlanNode root = new PlanNode(null);
+        for (SignalPathLeaf leaf : leavesInCreationOrder) {
+            PlanNode node = root;
+            for (FilterStage stage : leaf.getFilters().getStages())
+                node = node.childFor(stage);
+
+            node.outputs.add(new PlanNode(leaf));
+        }
+
+        List<SignalPathLeaf> orderedLeaves = new ArrayList<>();
+        root.addLeavesTo(orderedLeaves);
+        for (int i = 0; i < orderedLeaves.size(); i++)
+            orderedLeaves.get(i).setIndex(i);
+
+        return orderedLeaves;
+    }
+
+    public List<SignalPathLeaf> getLeaves() {
+        return leaves;
+    }
+
+    public SharedFilterGraph build(String channelName) throws PlatformAccessError {
+        return build(leaves, channelName, NO_DECORATION);
+    }
+
+    public SharedFilterGraph build(List<SignalPathLeaf> leavesToBuild, String channelName, SignalPathLeafDecorator decorator) throws PlatformAccessError {
+        SharedFilterGraph graph = new SharedFilterGraph(channelName);
+        DecoratingIntervalStreamRegistry registry = new DecoratingIntervalStreamRegistry(graph, channelName, decorator);
+
+        for (SignalPathLeaf leaf : leavesToBuild) {
+            if (leaf.isSharedIntervalStream()) {
+                registry.leafBeingAttached = leaf;
+                List<IntervalStreamProvider> streams = registry.getIntervalStreams(leaf.getFilters(), leaf.getThreasholdLines(), leaf.getHysteresis());
+                for (int line = 0; line < streams.size(); line++) {
+                    IntervalStreamProvider stream = streams.get(line);
+                    for (Platform platform : leaf.getPlatforms())
+                        stream.registerIntervalStreamConsumer(platform.getIntervalInputPoint(line));
+
+                    for (IntervalStreamConsumer consumer : leaf.getIntervalStreamConsumers(line))
+                        stream.registerIntervalStreamConsumer(consumer);
+                }
+            } else if (leaf.isSharedToneStream()) {
+                GoertzelFSKDemodulator demodulator = new GoertzelFSKDemodulator(leaf.getToneStream(), channelName);
+                for (Platform platform : leaf.getPlatforms())
+                    demodulator.registerPulseStreamConsumer(platform.getToneDecisionInputPoint());
+
+                graph.attach(leaf.getFilters(), decorator.decorate(leaf, demodulator));
+            } else {
+                graph.attach(leaf.getFilters(), decorator.decorate(leaf, leaf.getSampleInput()));
+            }
+        }
+
+        numberOfFilters = graph.getNumberOfFilters();
+        numberOfIntervalExtractors = registry.getNumberOfExtractors();
+        return graph;
+    }
+
+    public int getNumberOfFilters() {
+        return numberOfFilters;
+    }
+
+    public int getNumberOfIntervalExtractors() {
+        return numberOfIntervalExtractors;
+    }
+
+    private static class DecoratingIntervalStreamRegistry extends IntervalStreamRegistry {
+        private SharedFilterGraph graph;
+        private SignalPathLeafDecorator decorator;
+        SignalPathLeaf leafBeingAttached;
+
+        DecoratingIntervalStreamRegistry(SharedFilterGraph graph, String channelName, SignalPathLeafDecorator decorator) {
+            super(graph, channelName);
+            this.graph = graph;
+            this.decorator = decorator;
+        }
+
+        @Override
+        protected void attachExtractor(FilterChain filters, SampleStreamConsumer extractor) {
+            graph.attach(filters, decorator.decorate(leafBeingAttached, extractor));
+        }
+    }
+
+    private static class PlanNode {
+        SignalPathLeaf leaf;
+        Map<FilterStage, PlanNode> children;
+        List<PlanNode> outputs;
+
+        PlanNode(SignalPathLeaf leaf) {
+            this.leaf = leaf;
+            children = new LinkedHashMap<>();
+            outputs = new ArrayList<>();
+        }
+
+        PlanNode childFor(FilterStage stage) {
+            PlanNode child = children.get(stage);
+            if (child == null) {
+                child = new PlanNode(null);
+                children.put(stage, child);
+                outputs.add(child);
+            }
+
+            return child;
+        }
+
+        void addLeavesTo(List<SignalPathLeaf> orderedLeaves) {
+            for (PlanNode output : outputs) {
+                if (output.leaf != null)
+                    orderedLeaves.add(output.leaf);
+                else
+                    output.addLeavesTo(orderedLeaves);
+            }
+        }
+    }
+}
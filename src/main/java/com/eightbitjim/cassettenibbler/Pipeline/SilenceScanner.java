@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+public class SilenceScanner implements SampleStreamConsumer {
+    private static final double WINDOW_LENGTH_IN_SECONDS = 0.01;
+    private static final double SIGNAL_LEVEL_PERCENTILE = 0.9;
+    private static final double SILENCE_FRACTION_OF_SIGNAL_LEVEL = 0.1;
+    private static final double MINIMUM_SILENCE_LEVEL = 0.002;
+    private static final double LOWEST_TONE_FREQUENCY_IN_HERTZ = 100.0;
+    private static final int INITIAL_NUMBER_OF_WINDOWS = 1024;
+
+    private double minimumGapInSeconds;
+    private double sampleRateInHertz;
+    private int windowLengthInFrames;
+    private int minimumZeroCrossingsInTone;
+
+    private float [] windowLevels;
+    private int [] windowZeroCrossings;
+    private int numberOfWindows;
+
+    private double sumOfSquaresInWindow;
+    private int framesInWindow;
+    private int zeroCrossingsInWindow;
+    private boolean lastSampleWasPositive;
+    private long totalFrames;
+    private long firstFrame = -1L;
+
+    public SilenceScanner(double minimumGapInSeconds) {
+        this.minimumGapInSeconds = minimumGapInSeconds;
+        windowLevels = new float[INITIAL_NUMBER_OF_WINDOWS];
+        windowZeroCrossings = new int[INITIAL_NUMBER_OF_WINDOWS];
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        if (sample.isEndOfStream())
+            finishWindow();
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (windowLengthInFrames == 0)
+            setSampleRate(sampleRateInHertz);
+
+        if (firstFrame < 0)
+            firstFrame = firstSampleIndex - 1;
+
+        int end = offset + length;
+        for (int i = offset; i < end; i++)
+            addSample(samples[i]);
+    }
+
+    private void setSampleRate(double sampleRateInHertz) {
+        this.sampleRateInHertz = sampleRateInHertz;
+        windowLengthInFrames = Math.max(1, (int)Math.round(sampleRateInHertz * WINDOW_LENGTH_IN_SECONDS));
+        minimumZeroCrossingsInTone = (int)Math.ceil(LOWEST_TONE_FREQUENCY_IN_HERTZ * 2.0 * WINDOW_LENGTH_IN_SECONDS);
+    }
+
+    private void addSample(double value) {
+        boolean positive = value >= 0.0;
+        if (positive != lastSampleWasPositive)
+            zeroCrossingsInWindow++;
+
+        lastSampleWasPositive = positive;
+        sumOfSquaresInWindow += value * value;
+        framesInWindow++;
+        totalFrames++;
+
+        if (framesInWindow == windowLengthInFrames)
+            finishWindow();
+    }
+
+    private void finishWindow() {
+        if (framesInWindow == 0)
+            return;
+
+        if (numberOfWindows == windowLevels.length) {
+            windowLevels = Arrays.copyOf(windowLevels, numberOfWindows * 2);
+            windowZeroCrossings = Arrays.copyOf(windowZeroCrossings, numberOfWindows * 2);
+        }
+
+        windowLevels[numberOfWindows] = (float)Math.sqrt(sumOfSquaresInWindow / framesInWindow);
+        windowZeroCrossings[numberOfWindows] = zeroCrossingsInWindow;
+        numberOfWindows++;
+
+        sumOfSquaresInWindow = 0.0;
+        framesInWindow = 0;
+        zeroCrossingsInWindow = 0;
+    }
+
+    // Splits at the middle of every gap that is long enough, ignoring silence at the very start or end.
+    public List<AudioSegment> getSegments() {
+        finishWindow();
+        List<AudioSegment> segments = new LinkedList<>();
+        double silenceLevel = getSilenceLevel();
+        int minimumWindowsInGap = (int)Math.ceil(minimumGapInSeconds / WINDOW_LENGTH_IN_SECONDS);
+
+        long origin = Math.max(0L, firstFrame);
+        long segmentStart = origin;
+        int window = 0;
+        while (window < numberOfWindows) {
+            if (!isSilent(window, silenceLevel)) {
+                window++;
+                continue;
+            }
+
+            int gapStart = window;
+            while (window < numberOfWindows && isSilent(window, silenceLevel))
+                window++;
+
+            boolean gapIsInsideRecording = gapStart > 0 && window < numberOfWindows;
+            if (gapIsInsideRecording && window - gapStart >= minimumWindowsInGap) {
+                long splitFrame = origin + (long)(gapStart + window) / 2 * windowLengthInFrames;
+                segments.add(new AudioSegment(segments.size(), segmentStart, splitFrame - segmentStart));
+                segmentStart = splitFrame;
+            }
+        }
+
+        segments.add(new AudioSegment(segments.size(), segmentStart, origin + totalFrames - segmentStart));
+        return segments;
+    }
+
+    private boolean isSilent(int window, double silenceLevel) {
+        return windowLevels[window] < silenceLevel || windowZeroCrossings[window] < minimumZeroCrossingsInTone;
+    }
+
+    private double getSilenceLevel() {
+        if (numberOfWindows == 0)
+            return MINIMUM_SILENCE_LEVEL;
+
+        float [] sortedLevels = Arrays.copyOf(windowLevels, numberOfWindows);
+        Arrays.sort(sortedLevels);
+        double signalLevel = sortedLevels[(int)((numberOfWindows - 1) * SIGNAL_LEVEL_PERCENTILE)];
+        return Math.max(MINIMUM_SILENCE_LEVEL, signalLevel * SILENCE_FRACTION_OF_SIGNAL_LEVEL);
+    }
+}
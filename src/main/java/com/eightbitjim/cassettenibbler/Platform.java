@@ -18,6 +18,11 @@
 
 package com.eightbitjim.cassettenibbler;
 
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ToneStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.FSKPulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+
 import java.util.Collection;
 import java.util.LinkedList;
 
@@ -32,6 +37,11 @@ public abstract class Platform {
 
     protected String configurationString;
 
+    protected FilterChain inputFilters;
+    protected IntervalStreamSpec intervalStream;
+    protected ToneStreamSpec toneStream;
+    protected FSKPulseExtractor tonePulseExtractor;
+    protected boolean useToneDemodulation;
     protected SampleStreamConsumer sampleInput;
     protected SampleStreamConsumer postFilterSampleInput;
     protected IntervalStreamConsumer intervalInput;
@@ -44,12 +54,22 @@ public abstract class Platform {
 
     public Platform() {
         configurationString = "";
+        inputFilters = new FilterChain();
         initialiseInputTypes();
         initialiseOutputTypes();
     }
 
     public abstract void initialise(String channelName);
 
+    public void initialise(ExtractionContext context, String channelName) {
+        ExtractionContext previous = context.bindToCurrentThread();
+        try {
+            initialise(channelName);
+        } finally {
+            ExtractionContext.restore(previous);
+        }
+    }
+
     public boolean hasHighProcessingOverhead() {
         return false;
     }
@@ -125,6 +145,38 @@ public abstract class Platform {
             throw new PlatformAccessError("No waveform input point");
     }
 
+    public FilterChain getInputFilterChain() {
+        return inputFilters;
+    }
+
+    public boolean usesSharedIntervalStream() {
+        return intervalStream != null && intervalInput != null;
+    }
+
+    public IntervalStreamSpec getIntervalStreamSpec() {
+        return intervalStream;
+    }
+
+    public void setToneDemodulation(boolean enabled) {
+        useToneDemodulation = enabled;
+    }
+
+    // FSK platforms can take their pulses from a shared tone demodulator instead of from zero crossings
+    public boolean usesSharedToneStream() {
+        return useToneDemodulation && toneStream != null && tonePulseExtractor != null;
+    }
+
+    public ToneStreamSpec getToneStreamSpec() {
+        return toneStream;
+    }
+
+    public PulseStreamConsumer getToneDecisionInputPoint() throws PlatformAccessError {
+        if (tonePulseExtractor != null)
+            return tonePulseExtractor;
+        else
+            throw new PlatformAccessError("No tone decision input point");
+    }
+
     public SampleStreamConsumer getPostFilterWaveformInputPoint() throws PlatformAccessError {
         if (postFilterSampleInput != null)
             return postFilterSampleInput;
@@ -139,6 +191,14 @@ public abstract class Platform {
             throw new PlatformAccessError("No interval input point");
     }
 
+    // The input point for each threashold line of the platform's interval stream spec
+    public IntervalStreamConsumer getIntervalInputPoint(int threasholdLine) throws PlatformAccessError {
+        if (threasholdLine == 0)
+            return getIntervalInputPoint();
+        else
+            throw new PlatformAccessError("No interval input point for threashold line " + threasholdLine);
+    }
+
     public PulseStreamConsumer getPulseInputPoint() throws PlatformAccessError {
         if (pulseInput != null)
             return pulseInput;
@@ -161,6 +221,9 @@ public abstract class Platform {
     }
 
     public PulseStreamProvider getRawPulseOutputPoint() throws PlatformAccessError {
+        if (usesSharedToneStream())
+            return tonePulseExtractor;
+
         if (pulseOutput != null)
             return pulseOutput;
         else
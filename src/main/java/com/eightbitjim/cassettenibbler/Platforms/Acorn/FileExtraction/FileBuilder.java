@@ -35,6 +35,7 @@ public class FileBuilder {
 
     public FileBuilder(String channelName) {
         logging = TapeExtractionLogging.getInstance(channelName);
+        data = new LinkedList<>();
         filename = new int[0];
         previousBlockNumber = -1;
         currentFile = new BBCTapeFile();
@@ -19,13 +19,16 @@
 package com.eightbitjim.cassettenibbler.Platforms.Acorn.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.Platforms.Acorn.ByteExtraction.ByteScraper;
 import com.eightbitjim.cassettenibbler.Platforms.Acorn.FileExtraction.AcornByte;
 import com.eightbitjim.cassettenibbler.Platforms.Acorn.FileExtraction.BBCFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Acorn.PulseExtraction.AcornPulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ToneStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.FSKPulseExtractor;
 
 public class BBC1200Baud extends Platform {
 
@@ -40,20 +43,24 @@ public class BBC1200Baud extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(4800, channelName);
-        HighPass highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         AcornPulseExtractor pulseExtractor = new AcornPulseExtractor();
         BBCFileExtractor fileExtractor = new BBCFileExtractor(true, channelName);
         ByteScraper byteScraper = new ByteScraper(AcornByte.Baud.BAUD_1200, channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
         pulseExtractor.registerPulseStreamConsumer(byteScraper);
 
-        sampleInput = lowPass;
+        toneStream = new ToneStreamSpec(1200.0, 2400.0);
+        tonePulseExtractor = new FSKPulseExtractor(PulseStreamConsumer.LONG_PULSE, 1.0 / 1200.0,
+                PulseStreamConsumer.SHORT_PULSE, 1.0 / 2400.0);
+        tonePulseExtractor.registerPulseStreamConsumer(fileExtractor);
+        tonePulseExtractor.registerPulseStreamConsumer(byteScraper);
+
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
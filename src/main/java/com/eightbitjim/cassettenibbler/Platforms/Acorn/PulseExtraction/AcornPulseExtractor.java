@@ -19,6 +19,8 @@
 package com.eightbitjim.cassettenibbler.Platforms.Acorn.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.*;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.LeaderTracker;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 
 import java.util.LinkedList;
 import java.util.List;
@@ -33,6 +35,7 @@ public class AcornPulseExtractor implements PulseStreamProvider, IntervalStreamC
     private static final double shortPulseMinimum = shortPulseLength - shortPulseLength / leewayOnPulseLength;
     private static final double longPulseMinimum = longPulseLength - (longPulseLength - shortPulseLength) / leewayOnPulseLength;
     private static final double longPulseMaximum = longPulseLength + longPulseLength / leewayOnPulseLength;
+    private PulseClassifier classifier = PulseClassifier.forShortAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;
@@ -41,9 +44,8 @@ public class AcornPulseExtractor implements PulseStreamProvider, IntervalStreamC
     private Transition interval;
     private double secondsSinceLastHighToLowTransition = 0.0;
 
-    private double [] leaderBuffer;
+    private LeaderTracker leaderTracker;
     private static final int LEADER_BUFFER_LENGTH = 64;
-    private int leaderBufferPointer;
     private long currentTimeIndex;
 
     private List<PulseStreamConsumer> consumers;
@@ -52,9 +54,9 @@ public class AcornPulseExtractor implements PulseStreamProvider, IntervalStreamC
         consumers = new LinkedList<>();
         interval = new Transition();
         currentTimeIndex = 0;
-        leaderBuffer = new double[LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(LEADER_BUFFER_LENGTH, percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
+        classifier.setUpperLimits(shortPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -71,24 +73,15 @@ public class AcornPulseExtractor implements PulseStreamProvider, IntervalStreamC
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % LEADER_BUFFER_LENGTH;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < LEADER_BUFFER_LENGTH; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)LEADER_BUFFER_LENGTH;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < shortPulseLength - shortPulseLength * toleranceForPulseCountingAsLeader
                 || average > shortPulseLength + shortPulseLength * toleranceForPulseCountingAsLeader)) {
             return;
@@ -98,10 +91,7 @@ public class AcornPulseExtractor implements PulseStreamProvider, IntervalStreamC
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -116,12 +106,12 @@ public class AcornPulseExtractor implements PulseStreamProvider, IntervalStreamC
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM);
         } else {
             this.interval = transition;
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
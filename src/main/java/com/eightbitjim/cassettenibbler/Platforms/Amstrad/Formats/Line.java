@@ -24,6 +24,7 @@ import java.io.InputStream;
 public class Line {
     private InputStream inputStream;
     private StringBuilder builder;
+    private Token token;
 
     private static final int END_OF_LINE_MARKER = 0;
     private static final int EXTENDED_TOKEN_PREFIX = 0xff;
@@ -32,6 +33,7 @@ public class Line {
     public Line(InputStream inputStream) throws IOException {
         this.inputStream = inputStream;
         builder = new StringBuilder();
+        token = new Token();
         constructLine();
     }
 
@@ -55,7 +57,7 @@ public class Line {
                 break;
         }
 
-        Token.lineEnded();
+        token.lineEnded();
     }
 
     private void processValue(int tokenValue) throws IOException {
@@ -112,7 +114,7 @@ public class Line {
         if (tokenValue == EXTENDED_TOKEN_PREFIX)
             tokenValue = getByteValue() + 0x100;
 
-        builder.append(Token.getStringForTokenValue(tokenValue));
+        builder.append(token.getStringForTokenValue(tokenValue));
     }
 
     private void processBinaryIntegerValue() throws IOException {
@@ -57,15 +57,15 @@ public class Token {
             "ROUND", "STRING$", "TEST", "TESTR", "COPYCHR$", "VPOS"
     };
 
-    private static boolean insideRemStatement;
-    private static boolean insideQuote;
+    private boolean insideRemStatement;
+    private boolean insideQuote;
 
-    public static void lineEnded() {
+    public void lineEnded() {
         insideRemStatement = false;
         insideQuote = false;
     }
 
-    public static String getStringForTokenValue(int value) {
+    public String getStringForTokenValue(int value) {
         boolean foundRemStatement = false;
         switch (value) {
             case 0: // End of line
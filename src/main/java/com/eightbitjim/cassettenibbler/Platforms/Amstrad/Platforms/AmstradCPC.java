@@ -21,9 +21,9 @@ package com.eightbitjim.cassettenibbler.Platforms.Amstrad.Platforms;
 import com.eightbitjim.cassettenibbler.Platform;
 import com.eightbitjim.cassettenibbler.Platforms.Amstrad.FileExtraction.FileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.Amstrad.PulseExtraction.AmstradPulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 
 public class AmstradCPC extends Platform {
 
@@ -38,18 +38,16 @@ public class AmstradCPC extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(4800, channelName);
-        HighPass highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec();
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         AmstradPulseExtractor pulseExtractor = new AmstradPulseExtractor(channelName);
         FileStateMachine fileExtractor = new FileStateMachine(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         intervalInput = pulseExtractor;
         postFilterSampleInput = intervalExtractor;
         pulseInput = fileExtractor;
@@ -51,7 +51,7 @@ public class AmstradPulseExtractor implements IntervalStreamConsumer, PulseStrea
     }
 
     public void processInterval() {
-        intervalShiftMultiplier = pilotToneDetection.registerWithPilotToneBufferAndReturnIntervalShift(currentTransitionLengthInTstates);
+        intervalShiftMultiplier = pilotToneDetection.registerIntervalAndReturnIntervalShift(currentTransitionLengthInTstates);
         adjustIntervalToMatchFrequencyShift();
         secondTStateInWave = !secondTStateInWave;
         processDataPulse();
@@ -65,7 +65,7 @@ public class AmstradPulseExtractor implements IntervalStreamConsumer, PulseStrea
     }
 
     private void processDataPulse() {
-        if (pilotToneDetection.pilotToneIsValid()) {
+        if (pilotToneDetection.isLocked()) {
             logging.writeFileParsingInformation("PILOT TONE DETECTED");
             return;
         }
@@ -119,12 +119,12 @@ public class AmstradPulseExtractor implements IntervalStreamConsumer, PulseStrea
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             currentTransitionLengthInTstates = (int)(transition.secondsSinceLastTransition / TSTATE_IN_SECONDS);
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
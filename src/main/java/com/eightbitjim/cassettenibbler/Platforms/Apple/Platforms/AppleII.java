@@ -21,14 +21,12 @@ package com.eightbitjim.cassettenibbler.Platforms.Apple.Platforms;
 import com.eightbitjim.cassettenibbler.Platform;
 import com.eightbitjim.cassettenibbler.Platforms.Apple.FileExtraction.AppleFileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.Apple.PulseExtraction.ApplePulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 
 public class AppleII extends Platform {
 
-    LowPass lowPass;
-    HighPass highPass;
     ZeroCrossingIntervalExtractor intervalExtractor;
     ApplePulseExtractor pulseExtractor;
     AppleFileStateMachine fileExtractor;
@@ -44,18 +42,16 @@ public class AppleII extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        lowPass = new LowPass(4800, channelName);
-        highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec();
         intervalExtractor = new ZeroCrossingIntervalExtractor();
         pulseExtractor = new ApplePulseExtractor(channelName);
         fileExtractor = new AppleFileStateMachine(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         pulseInput = fileExtractor;
         pulseOutput = pulseExtractor;
@@ -18,65 +18,14 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.Apple.PulseExtraction;
 
-public class ApplePilotToneDetection {
-    private static final double MICROSECOND = 1.0 / 1000000.0;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.ToneLockDetector;
 
+public class ApplePilotToneDetection extends ToneLockDetector {
     private static final int PILOT_TONE_HALF_CYCLE_TIME_IN_MICROSECONDS = 650;
+    private static final int TOLERANCE_IN_MICROSECONDS = 300;
     private static final int maximumPulsesBeforeLosingPilotTone = 3;
-    private int [] pilotToneBuffer;
-    private static final int pilotToneBufferLength = 32;
-    private int pilotToneBufferPointer;
-    private int numberOfPulsesSincePilotToneValid;
-    private double intervalShift;
 
     public ApplePilotToneDetection() {
-        pilotToneBuffer = new int[pilotToneBufferLength];
-        pilotToneBufferPointer = 0;
-        numberOfPulsesSincePilotToneValid = Integer.MAX_VALUE;
-        intervalShift = 1.0;
-    }
-
-    public double registerWithPilotToneBufferAndReturnIntervalShift(int currentTransitionLengthInTstates) {
-        pilotToneBuffer[pilotToneBufferPointer] = currentTransitionLengthInTstates;
-        pilotToneBufferPointer = (pilotToneBufferPointer + 1 ) % pilotToneBufferLength;
-        if (pilotToneBufferIsValid())
-            intervalShift = getIntervalShiftMultiplier();
-
-        return intervalShift;
-    }
-
-    private boolean pilotToneBufferIsValid() {
-        for (int i = 0; i < pilotToneBufferLength - 1; i++) {
-            if (!intervalsCountsAsPilotTone(pilotToneBuffer[i], pilotToneBuffer[i + 1])) {
-                numberOfPulsesSincePilotToneValid++;
-                return false;
-            }
-        }
-
-        numberOfPulsesSincePilotToneValid = 0;
-        return true;
-    }
-
-    public boolean pilotToneIsValid() {
-        return numberOfPulsesSincePilotToneValid < maximumPulsesBeforeLosingPilotTone;
-    }
-
-    private double getIntervalShiftMultiplier() {
-        double lastValue = pilotToneBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < pilotToneBufferLength; i++) {
-            sum += pilotToneBuffer[i];
-        }
-
-        double average = sum / (double)(pilotToneBufferLength);
-        return (double) PILOT_TONE_HALF_CYCLE_TIME_IN_MICROSECONDS / average;
-    }
-
-    private boolean intervalsCountsAsPilotTone(int tstate1, int tstate2) {
-        int toleranceInTStates = 300;
-        if (Math.abs((tstate1 + tstate2) - PILOT_TONE_HALF_CYCLE_TIME_IN_MICROSECONDS * 2) < toleranceInTStates)
-            return true;
-        else
-            return false;
+        super(PILOT_TONE_HALF_CYCLE_TIME_IN_MICROSECONDS, TOLERANCE_IN_MICROSECONDS, maximumPulsesBeforeLosingPilotTone);
     }
 }
@@ -55,7 +55,7 @@ public class ApplePulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     public void processInterval() {
-        intervalShiftMultiplier = pilotToneDetection.registerWithPilotToneBufferAndReturnIntervalShift(currentTransitionLengthInTstates);
+        intervalShiftMultiplier = pilotToneDetection.registerIntervalAndReturnIntervalShift(currentTransitionLengthInTstates);
         adjustIntervalToMatchFrequencyShift();
         secondTStateInWave = !secondTStateInWave;
         switch (state) {
@@ -92,7 +92,7 @@ public class ApplePulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     private void checkForPilotTone() {
-        if (pilotToneDetection.pilotToneIsValid()) {
+        if (pilotToneDetection.isLocked()) {
             state = State.RECEIVING_PILOT_TONE;
         }
     }
@@ -105,7 +105,7 @@ public class ApplePulseExtractor implements IntervalStreamConsumer, PulseStreamP
             return;
         }
 
-        if (!pilotToneDetection.pilotToneIsValid()) {
+        if (!pilotToneDetection.isLocked()) {
                 state = State.WAITING_FOR_PILOT_TONE;
                 generatePulse(PulseStreamConsumer.SILENCE);
                 return;
@@ -116,7 +116,7 @@ public class ApplePulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     private void processDataPulse() {
-        if (pilotToneDetection.pilotToneIsValid()) {
+        if (pilotToneDetection.isLocked()) {
             state = State.RECEIVING_PILOT_TONE;
             return;
         }
@@ -169,12 +169,12 @@ public class ApplePulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             currentTransitionLengthInTstates = (int)(transition.secondsSinceLastTransition / MICROSECOND);
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
@@ -126,7 +126,7 @@ public class AtariFileStateMachine implements FileStreamProvider, PulseStreamCon
 
     private void waitingForLeaderBytes() {
         leaderRecogniser.addPulse(currentPulse);
-        if (leaderRecogniser.isLeaderValid())
+        if (leaderRecogniser.isRecognised())
             setState(State.RECEIVING_DATA);
     }
 
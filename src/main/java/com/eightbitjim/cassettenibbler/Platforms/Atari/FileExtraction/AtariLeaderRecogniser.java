@@ -18,11 +18,12 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.Atari.FileExtraction;
 
+import com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction.PulseSequenceRecogniser;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 
-public class AtariLeaderRecogniser {
+public class AtariLeaderRecogniser extends PulseSequenceRecogniser {
 
-    private final char [] compareWith = {
+    private static final char [] leaderSequence = {
             PulseStreamConsumer.SHORT_PULSE,
             PulseStreamConsumer.MEDIUM_PULSE,
             PulseStreamConsumer.SHORT_PULSE,
@@ -42,29 +43,10 @@ public class AtariLeaderRecogniser {
             PulseStreamConsumer.SHORT_PULSE,
             PulseStreamConsumer.MEDIUM_PULSE,
             PulseStreamConsumer.SHORT_PULSE,
-            PulseStreamConsumer.MEDIUM_PULSE,
+            PulseStreamConsumer.MEDIUM_PULSE
     };
 
-    private char [] buffer = new char[compareWith.length];
-    private int bufferPointer = 0;
-
-    public void reset() {
-        for (int i = 0; i < buffer.length; i++)
-            buffer[i] = 0;
-    }
-
-    public void addPulse(char pulse) {
-        buffer[bufferPointer] = pulse;
-        bufferPointer = (bufferPointer + 1) % buffer.length;
-    }
-
-    public boolean isLeaderValid() {
-        for (int i = 0; i < compareWith.length; i++) {
-            int positionInBuffer = (bufferPointer + i) % buffer.length;
-            if (compareWith[i] != buffer[positionInBuffer])
-                return false;
-        }
-
-        return true;
+    public AtariLeaderRecogniser() {
+        super(leaderSequence);
     }
 }
@@ -19,13 +19,16 @@
 package com.eightbitjim.cassettenibbler.Platforms.Atari.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.Platforms.Apple.FileExtraction.AppleFileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.Apple.PulseExtraction.ApplePulseExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Atari.FileExtraction.AtariFileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.Atari.PulseExtraction.AtariPulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ToneStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.FSKPulseExtractor;
 
 public class Atari8Bit extends Platform {
 
@@ -40,18 +43,21 @@ public class Atari8Bit extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(6000, channelName);
-        HighPass highPass = new HighPass(3800, channelName);
+        inputFilters = new FilterChain().lowPass(6000).highPass(3800);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         AtariPulseExtractor pulseExtractor = new AtariPulseExtractor();
         AtariFileStateMachine fileExtractor = new AtariFileStateMachine(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        toneStream = new ToneStreamSpec(3995.0, 5327.0);
+        tonePulseExtractor = new FSKPulseExtractor(PulseStreamConsumer.SHORT_PULSE, 1.0 / 600.0,
+                PulseStreamConsumer.MEDIUM_PULSE, 1.0 / 600.0);
+        tonePulseExtractor.registerPulseStreamConsumer(fileExtractor);
+
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         pulseInput = fileExtractor;
         pulseOutput = pulseExtractor;
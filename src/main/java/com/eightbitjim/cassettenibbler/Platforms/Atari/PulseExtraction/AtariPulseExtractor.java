@@ -108,12 +108,12 @@ public class AtariPulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             currentTransitionLengthInMicroseconds = (int)(transition.secondsSinceLastTransition / MICROSECOND);
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
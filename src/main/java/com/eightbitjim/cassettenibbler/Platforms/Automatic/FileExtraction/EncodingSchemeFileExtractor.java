@@ -94,6 +94,16 @@ public class EncodingSchemeFileExtractor implements PulseStreamConsumer, FileStr
 
     @Override
     public void pushPulse(char pulseType, long currentTimeIndex) {
+        acceptPulse(pulseType, currentTimeIndex);
+    }
+
+    @Override
+    public void pushPulses(byte [] symbols, long [] timestamps, int count) {
+        for (int i = 0; i < count; i++)
+            acceptPulse((char)(symbols[i] & 0xff), timestamps[i]);
+    }
+
+    private void acceptPulse(char pulseType, long currentTimeIndex) {
         if (pulseType == PulseStreamConsumer.INVALID_PULSE_TOO_SHORT)
             return;
 
@@ -19,6 +19,8 @@
 package com.eightbitjim.cassettenibbler.Platforms.Automatic.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.*;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseBlockBuffer;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseExtractiorParameters;
 import com.eightbitjim.cassettenibbler.Platforms.Automatic.FormatDetection.FrequencyAnalysis.Analysis;
 
@@ -35,11 +37,13 @@ public class AutomaticPulseExtractor implements IntervalStreamConsumer, PulseStr
     public double mediumPulseMinimum;
     public double longPulseMinimum;
     public double longPulseMaximum;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private Analysis intervalAnalaysis;
     private Queue<Transition> intervalBuffer;
     private int queueLength = 200000;
     private List<PulseStreamConsumer> consumers;
+    private PulseBlockBuffer pulseBlock;
 
     private double NANOSECOND = 1.0 / 1000000000.0;
     private long intervalInNanoseconds = 25000;
@@ -64,6 +68,7 @@ public class AutomaticPulseExtractor implements IntervalStreamConsumer, PulseStr
 
         intervalBuffer = new ArrayBlockingQueue<Transition>(queueLength);
         consumers = new LinkedList<>();
+        pulseBlock = new PulseBlockBuffer(consumers);
         intervalAnalaysis = new Analysis("interval analysys", (int)numberOfIntervals);
         parameters = new PulseExtractiorParameters();
         interval = 0;
@@ -82,7 +87,7 @@ public class AutomaticPulseExtractor implements IntervalStreamConsumer, PulseStr
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         transition = makeNewTransitionForQueue(transition);
         addTransitionToAnalysis(transition);
 
@@ -94,6 +99,9 @@ public class AutomaticPulseExtractor implements IntervalStreamConsumer, PulseStr
         } else {
             processInterval(transition);
         }
+
+        if (transition.isEndOfStream())
+            pulseBlock.flush();
     }
 
     private Transition makeNewTransitionForQueue(Transition original) {
@@ -209,22 +217,19 @@ public class AutomaticPulseExtractor implements IntervalStreamConsumer, PulseStr
         mediumPulseMinimum = parameters.shortPulseLength + (parameters.mediumPulseLength - parameters.shortPulseLength) / 2.0;
         longPulseMinimum = parameters.longPulseLength - (parameters.longPulseLength - parameters.mediumPulseLength) / 2.0;
         longPulseMaximum = parameters.longPulseLength + parameters.longPulseLength / 2.0;
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     private void pushPulseToConsumers(char pulseType) {
-        for (PulseStreamConsumer consumer : consumers)
-            consumer.pushPulse(pulseType, 0); // TODO time index
+        pulseBlock.addPulse(pulseType, 0); // TODO time index
     }
 
     private void pushPulseTimingValuesToConsumers() {
+        pulseBlock.flush();
         for (PulseStreamConsumer consumer : consumers)
             consumer.notifyChangeOfPulseLengths(parameters);
     }
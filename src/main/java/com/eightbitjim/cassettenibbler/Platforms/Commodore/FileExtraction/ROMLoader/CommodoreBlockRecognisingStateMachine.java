@@ -19,6 +19,7 @@
 package com.eightbitjim.cassettenibbler.Platforms.Commodore.FileExtraction.ROMLoader;
 
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.ByteExtraction.CommodoreByteFrame;
+import com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction.PulseSequenceRecogniser;
 import com.eightbitjim.cassettenibbler.TapeFile;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
@@ -59,8 +60,8 @@ public class CommodoreBlockRecognisingStateMachine {
     private boolean firstPulse;
     private boolean leaderOrTrailerCurrentlyValid;
 
-    private int shortPulsesInARow;
     private static final int MINIMUM_LEADER_LENGTH = 16;
+    private PulseSequenceRecogniser leaderRecogniser = PulseSequenceRecogniser.forPulsesInARow(SHORT_PULSE, MINIMUM_LEADER_LENGTH);
     private RepeatedStatus currentBlockIsRepeated;
     private int syncChainBytesReceived;
 
@@ -80,7 +81,7 @@ public class CommodoreBlockRecognisingStateMachine {
         logging.writeFileParsingInformationWithTimestamp(currentTimeIndex, "Switching state to " + destinationState.toString());
         switch (destinationState) {
             case WAITING_FOR_LEADER:
-                shortPulsesInARow = 0;
+                leaderRecogniser.reset();
                 break;
 
             case RECEIVING_LEADER:
@@ -184,12 +185,8 @@ public class CommodoreBlockRecognisingStateMachine {
     }
 
     private void checkForLeaderOrTrailer() {
-        if (currentPulse == SHORT_PULSE)
-            shortPulsesInARow++;
-        else
-            shortPulsesInARow = 0;
-
-        if (shortPulsesInARow >= MINIMUM_LEADER_LENGTH) {
+        leaderRecogniser.addPulse(currentPulse);
+        if (leaderRecogniser.isRecognised()) {
             if (!leaderOrTrailerCurrentlyValid)
                 logging.writeFileParsingInformation("LEADER OR TRAILER DETECTED");
 
@@ -211,7 +208,7 @@ public class CommodoreBlockRecognisingStateMachine {
             switchStateTo(State.RECEIVING_SYNC_CHAIN);
             return;
         } else {
-            shortPulsesInARow = 0;
+            leaderRecogniser.reset();
             switchStateTo(State.WAITING_FOR_LEADER);
         }
     }
@@ -139,7 +139,7 @@ public class TurboTapeFileStateMachine {
 
     private void matchSyncStream() {
         leaderRecogniser.addPulse(currentPulse);
-        if (leaderRecogniser.isLeaderValid()) {
+        if (leaderRecogniser.isRecognised()) {
             logging.writeFileParsingInformation("Possible sync start");
             switchToState(State.SYNC_IN_PROGRESS);
         }
@@ -18,11 +18,12 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.Commodore.FileExtraction.TurboTape;
 
+import com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction.PulseSequenceRecogniser;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 
-public class TurboTapeLeaderRecogniser {
+public class TurboTapeLeaderRecogniser extends PulseSequenceRecogniser {
 
-    private final char [] compareWith = {
+    private static final char [] leaderSequence = {
             PulseStreamConsumer.MEDIUM_PULSE,
             PulseStreamConsumer.MEDIUM_PULSE,
             PulseStreamConsumer.MEDIUM_PULSE,
@@ -33,26 +34,7 @@ public class TurboTapeLeaderRecogniser {
             PulseStreamConsumer.MEDIUM_PULSE
     };
 
-    private char [] buffer = new char[compareWith.length];
-    private int bufferPointer = 0;
-
-    public void reset() {
-        for (int i = 0; i < buffer.length; i++)
-            buffer[i] = 0;
-    }
-
-    public void addPulse(char pulse) {
-        buffer[bufferPointer] = pulse;
-        bufferPointer = (bufferPointer + 1) % buffer.length;
-    }
-
-    public boolean isLeaderValid() {
-        for (int i = 0; i < compareWith.length; i++) {
-            int positionInBuffer = (bufferPointer + i) % buffer.length;
-            if (compareWith[i] != buffer[positionInBuffer])
-                return false;
-        }
-
-        return true;
+    public TurboTapeLeaderRecogniser() {
+        super(leaderSequence);
     }
 }
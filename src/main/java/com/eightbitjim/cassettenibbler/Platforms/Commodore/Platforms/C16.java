@@ -21,8 +21,9 @@ package com.eightbitjim.cassettenibbler.Platforms.Commodore.Platforms;
 import com.eightbitjim.cassettenibbler.Platform;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.FileExtraction.ROMLoader.CommodoreFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.PulseExtraction.Commodore16Plus4PulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 
 public class C16 extends Platform {
     private static final String C16PLUS4_DEFAULT_FILE_EXTENSION = "c16plus4";
@@ -38,16 +39,16 @@ public class C16 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        HighPass highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().highPass(200);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         Commodore16Plus4PulseExtractor pulseExtractor = new Commodore16Plus4PulseExtractor();
         CommodoreFileExtractor fileExtractor = new CommodoreFileExtractor(C16PLUS4_DEFAULT_FILE_EXTENSION, channelName);
 
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = highPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
@@ -21,6 +21,7 @@ package com.eightbitjim.cassettenibbler.Platforms.Commodore.Platforms;
 import com.eightbitjim.cassettenibbler.Platform;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.FileExtraction.ROMLoader.CommodoreFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.PulseExtraction.Commodore16Plus4PulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
 
 public class Plus4 extends Platform {
@@ -37,6 +38,7 @@ public class Plus4 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         Commodore16Plus4PulseExtractor pulseExtractor = new Commodore16Plus4PulseExtractor();
         CommodoreFileExtractor fileExtractor = new CommodoreFileExtractor(C16PLUS4_DEFAULT_FILE_EXTENSION, channelName);
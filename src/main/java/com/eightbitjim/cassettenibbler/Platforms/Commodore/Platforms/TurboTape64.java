@@ -21,9 +21,9 @@ package com.eightbitjim.cassettenibbler.Platforms.Commodore.Platforms;
 import com.eightbitjim.cassettenibbler.Platform;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.FileExtraction.TurboTape.TurboTapeFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Commodore.PulseExtraction.TurboTapePulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 
 public class TurboTape64 extends Platform {
 
@@ -38,18 +38,16 @@ public class TurboTape64 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(4800, channelName);
-        HighPass highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         TurboTapePulseExtractor pulseExtractor = new TurboTapePulseExtractor(false);
         TurboTapeFileExtractor fileExtractor = new TurboTapeFileExtractor(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
@@ -18,6 +18,8 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.Commodore.PulseExtraction;
 
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.LeaderTracker;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.Transition;
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
@@ -37,6 +39,7 @@ public class Commodore16Plus4PulseExtractor implements PulseStreamProvider, Inte
     private static final double mediumPulseMinimum = shortPulseLength + (mediumPulseLength - shortPulseLength) / 2;
     private static final double longPulseMinimum = mediumPulseLength + (longPulseLength - mediumPulseLength) / 2;
     private static final double longPulseMaximum = longPulseLength + (longPulseLength - mediumPulseLength) / 2;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;
@@ -45,9 +48,8 @@ public class Commodore16Plus4PulseExtractor implements PulseStreamProvider, Inte
     private Transition interval;
     private double secondsSinceLastHighToLowTransition = 0.0;
 
-    private double [] leaderBuffer;
+    private LeaderTracker leaderTracker;
     private static final int LEADER_BUFFER_LENGTH = 32;
-    private int leaderBufferPointer;
 
     private long currentTimeIndex;
     private List<PulseStreamConsumer> consumers;
@@ -56,9 +58,9 @@ public class Commodore16Plus4PulseExtractor implements PulseStreamProvider, Inte
         consumers = new LinkedList<>();
         interval = new Transition();
         currentTimeIndex = 0;
-        leaderBuffer = new double[LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(LEADER_BUFFER_LENGTH, percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -74,24 +76,15 @@ public class Commodore16Plus4PulseExtractor implements PulseStreamProvider, Inte
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % LEADER_BUFFER_LENGTH;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < LEADER_BUFFER_LENGTH; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)LEADER_BUFFER_LENGTH;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < shortPulseLength / toleranceForPulseCountingAsLeader
                 || average > shortPulseLength * toleranceForPulseCountingAsLeader)) {
             return;
@@ -101,11 +94,7 @@ public class Commodore16Plus4PulseExtractor implements PulseStreamProvider, Inte
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -120,9 +109,9 @@ public class Commodore16Plus4PulseExtractor implements PulseStreamProvider, Inte
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         this.interval = transition;
-        this.currentTimeIndex = (long)(currentTimeIndex / NANOSECOND);
+        this.currentTimeIndex = currentTimeIndex;
         processInterval();
     }
 
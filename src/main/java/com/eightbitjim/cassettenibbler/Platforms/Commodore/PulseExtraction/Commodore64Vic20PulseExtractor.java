@@ -19,6 +19,8 @@
 package com.eightbitjim.cassettenibbler.Platforms.Commodore.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.LeaderTracker;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.Transition;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.PulseStreamProvider;
@@ -42,6 +44,7 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
     private double mediumPulseMinimum;
     private double longPulseMinimum;
     private double longPulseMaximum;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;
@@ -50,9 +53,8 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
     private Transition interval;
     private double secondsSinceLastHighToLowTransition = 0.0;
 
-    private double [] leaderBuffer;
+    private LeaderTracker leaderTracker;
     private static final int LEADER_BUFFER_LENGTH = 32;
-    private int leaderBufferPointer;
 
     private long currentTimeIndex;
     private List<PulseStreamConsumer> consumers;
@@ -67,8 +69,7 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
     public void reset() {
         interval = new Transition();
         currentTimeIndex = 0;
-        leaderBuffer = new double[LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(LEADER_BUFFER_LENGTH, percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
         adjustPulseTimingsToMatchSettings();
     }
@@ -84,6 +85,7 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
         mediumPulseMinimum = shortPulseLength + (mediumPulseLength - shortPulseLength) / 2.0;
         longPulseMinimum = longPulseLength - (longPulseLength - mediumPulseLength) / 2.0;
         longPulseMaximum = longPulseLength + longPulseLength / 2.0;
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -111,24 +113,15 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % LEADER_BUFFER_LENGTH;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < LEADER_BUFFER_LENGTH; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)LEADER_BUFFER_LENGTH;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < shortPulseLength / toleranceForPulseCountingAsLeader
                 || average > shortPulseLength * toleranceForPulseCountingAsLeader)) {
             return;
@@ -138,11 +131,7 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -157,9 +146,9 @@ public class Commodore64Vic20PulseExtractor implements PulseStreamProvider, Inte
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         this.interval = transition;
-        this.currentTimeIndex = (long)(currentTimeIndex / NANOSECOND);
+        this.currentTimeIndex = currentTimeIndex;
         processInterval();
         if (transition.isEndOfStream())
             pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM);
@@ -19,6 +19,8 @@
 package com.eightbitjim.cassettenibbler.Platforms.Commodore.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.LeaderTracker;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.PulseStreamProvider;
 import com.eightbitjim.cassettenibbler.Transition;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
@@ -37,6 +39,7 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
     private double mediumPulseMinimum;
     private double longPulseMinimum;
     private double longPulseMaximum;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;//15.0;
@@ -45,9 +48,8 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
     private Transition interval;
     private double secondsSinceLastHighToLowTransition = 0.0;
 
-    private double [] leaderBuffer;
+    private LeaderTracker leaderTracker;
     private static final int LEADER_BUFFER_LENGTH = 32;
-    private int leaderBufferPointer;
 
     private long currentTimeIndex;
     private List<PulseStreamConsumer> consumers;
@@ -62,8 +64,7 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
     public void reset() {
         interval = new Transition();
         currentTimeIndex = 0;
-        leaderBuffer = new double[LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(LEADER_BUFFER_LENGTH, percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
         adjustPulseTimingsToMatchSettings();
     }
@@ -79,6 +80,7 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
         mediumPulseMinimum = shortPulseLength + (mediumPulseLength - shortPulseLength) / 2.0;
         longPulseMinimum = longPulseLength - (longPulseLength - mediumPulseLength) / 2.0;
         longPulseMaximum = longPulseLength + longPulseLength / 2.0;
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -106,24 +108,15 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % LEADER_BUFFER_LENGTH;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < LEADER_BUFFER_LENGTH; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)LEADER_BUFFER_LENGTH;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < shortPulseLength / toleranceForPulseCountingAsLeader
                 || average > shortPulseLength * toleranceForPulseCountingAsLeader)) {
             return;
@@ -133,11 +126,7 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -152,9 +141,9 @@ public class TurboTapePulseExtractor implements PulseStreamProvider, IntervalStr
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         this.interval = transition;
-        this.currentTimeIndex = (long)(currentTimeIndex / NANOSECOND);
+        this.currentTimeIndex = currentTimeIndex;
         processInterval();
         if (transition.isEndOfStream())
             pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM);
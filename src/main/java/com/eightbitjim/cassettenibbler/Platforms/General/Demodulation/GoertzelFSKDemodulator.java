@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import com.eightbitjim.cassettenibbler.PulseStreamProvider;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleRateFinder;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+import com.eightbitjim.cassettenibbler.TimeBase;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+// Sliding Goertzel demodulator for two tone FSK. Each tone is correlated with a quadrature oscillator over a window
+// from the ToneStreamSpec, and the window sums are updated one sample at a time so the cost per sample does not
+// depend on the window length. Several times per cycle of the low tone the stronger tone is pushed as a decision:
+// HIGH_TONE, LOW_TONE, or SILENCE when neither tone accounts for enough of the energy in the window. Decisions are
+// timed at the centre of the window. The tones are compared relative to the strength each has when heard on its own,
+// as filters and tape heads rarely pass both at the same level and a weaker tone would otherwise lose time at every
+// change of tone. FSKPulseExtractor turns them into the pulses a platform expects.
+public class GoertzelFSKDemodulator implements SampleStreamConsumer, PulseStreamProvider {
+    public static final char HIGH_TONE = PulseStreamConsumer.SHORT_PULSE;
+    public static final char LOW_TONE = PulseStreamConsumer.LONG_PULSE;
+
+    private static final int LOW = 0;
+    private static final int HIGH = 1;
+    private static final int DECISIONS_PER_LOW_TONE_CYCLE = 16;
+    // A pure tone scores 1.0, a window split evenly across both tones 0.25 and white noise about 1 / window length
+    private static final double MINIMUM_TONALITY = 0.2;
+    private static final double TONALITY_OF_A_CLEAN_TONE = 0.8;
+    private static final double REFERENCE_POWER_SMOOTHING = 0.01;
+    private static final int WINDOWS_BETWEEN_RECALCULATION = 256;
+
+    private ToneStreamSpec spec;
+    private TapeExtractionLogging logging;
+    private List<PulseStreamConsumer> consumers;
+
+    private TimeBase timeBase;
+    private int windowLength;
+    private int decisionInterval;
+    private double [] rotationCos;
+    private double [] rotationSin;
+    private double [] oscillatorCos;
+    private double [] oscillatorSin;
+    private double [] sumCos;
+    private double [] sumSin;
+    private double [] referencePower;
+    private double [][] windowCos;
+    private double [][] windowSin;
+    private double [] windowEnergy;
+    private double sumEnergy;
+    private int windowPosition;
+    private int samplesInWindow;
+    private int samplesUntilDecision;
+    private int windowsUntilRecalculation;
+    private long lastSampleIndex;
+
+    private SampleRateFinder sampleRateFinder;
+
+    public GoertzelFSKDemodulator(ToneStreamSpec spec, String channelName) {
+        this.spec = spec;
+        logging = TapeExtractionLogging.getInstance(channelName);
+        consumers = new LinkedList<>();
+        sampleRateFinder = new SampleRateFinder();
+        rotationCos = new double[2];
+        rotationSin = new double[2];
+        oscillatorCos = new double[2];
+        oscillatorSin = new double[2];
+        sumCos = new double[2];
+        sumSin = new double[2];
+        referencePower = new double[2];
+    }
+
+    private void designFor(double sampleRateInHertz) {
+        timeBase = new TimeBase(sampleRateInHertz);
+        windowLength = Math.max(2, (int)Math.round(sampleRateInHertz * spec.getWindowInSeconds()));
+        decisionInterval = Math.max(1, (int)Math.round(sampleRateInHertz / spec.getLowToneInHertz() / DECISIONS_PER_LOW_TONE_CYCLE));
+        setRotation(LOW, spec.getLowToneInHertz(), sampleRateInHertz);
+        setRotation(HIGH, spec.getHighToneInHertz(), sampleRateInHertz);
+        windowCos = new double[2][windowLength];
+        windowSin = new double[2][windowLength];
+        windowEnergy = new double[windowLength];
+        startWindow();
+        logging.writeFileParsingInformation("FSK demodulator " + spec + ": window of " + windowLength
+                + " samples at " + (int)sampleRateInHertz + "hz");
+    }
+
+    private void setRotation(int tone, double frequencyInHertz, double sampleRateInHertz) {
+        double step = 2.0 * Math.PI * frequencyInHertz / sampleRateInHertz;
+        rotationCos[tone] = Math.cos(step);
+        rotationSin[tone] = Math.sin(step);
+    }
+
+    private void startWindow() {
+        for (int tone = LOW; tone <= HIGH; tone++) {
+            oscillatorCos[tone] = 1.0;
+            oscillatorSin[tone] = 0.0;
+            sumCos[tone] = 0.0;
+            sumSin[tone] = 0.0;
+            Arrays.fill(windowCos[tone], 0.0);
+            Arrays.fill(windowSin[tone], 0.0);
+        }
+
+        Arrays.fill(windowEnergy, 0.0);
+        sumEnergy = 0.0;
+        windowPosition = 0;
+        samplesInWindow = 0;
+        samplesUntilDecision = decisionInterval;
+        referencePower[LOW] = 0.0;
+        referencePower[HIGH] = 0.0;
+        windowsUntilRecalculation = WINDOWS_BETWEEN_RECALCULATION;
+    }
+
+    private void processSample(double value, long sampleIndex) {
+        int position = windowPosition;
+        for (int tone = LOW; tone <= HIGH; tone++) {
+            double c = value * oscillatorCos[tone];
+            double s = value * oscillatorSin[tone];
+            sumCos[tone] += c - windowCos[tone][position];
+            sumSin[tone] += s - windowSin[tone][position];
+            windowCos[tone][position] = c;
+            windowSin[tone][position] = s;
+
+            double rotatedCos = oscillatorCos[tone] * rotationCos[tone] - oscillatorSin[tone] * rotationSin[tone];
+            oscillatorSin[tone] = oscillatorCos[tone] * rotationSin[tone] + oscillatorSin[tone] * rotationCos[tone];
+            oscillatorCos[tone] = rotatedCos;
+        }
+
+        double energy = value * value;
+        sumEnergy += energy - windowEnergy[position];
+        windowEnergy[position] = energy;
+
+        if (++windowPosition == windowLength) {
+            windowPosition = 0;
+            windowCompleted();
+        }
+
+        if (samplesInWindow < windowLength)
+            samplesInWindow++;
+
+        lastSampleIndex = sampleIndex;
+        if (--samplesUntilDecision == 0) {
+            samplesUntilDecision = decisionInterval;
+            if (samplesInWindow == windowLength)
+                pushDecision(sampleIndex);
+        }
+    }
+
+    private void windowCompleted() {
+        // Keep the oscillators on the unit circle, and now and then rebuild the running sums so rounding errors
+        // cannot build up over a long recording
+        for (int tone = LOW; tone <= HIGH; tone++) {
+            double magnitude = Math.sqrt(oscillatorCos[tone] * oscillatorCos[tone] + oscillatorSin[tone] * oscillatorSin[tone]);
+            oscillatorCos[tone] /= magnitude;
+            oscillatorSin[tone] /= magnitude;
+        }
+
+        if (--windowsUntilRecalculation > 0)
+            return;
+
+        windowsUntilRecalculation = WINDOWS_BETWEEN_RECALCULATION;
+        sumEnergy = sumOf(windowEnergy);
+        for (int tone = LOW; tone <= HIGH; tone++) {
+            sumCos[tone] = sumOf(windowCos[tone]);
+            sumSin[tone] = sumOf(windowSin[tone]);
+        }
+    }
+
+    private static double sumOf(double [] values) {
+        double sum = 0.0;
+        for (double value : values)
+            sum += value;
+
+        return sum;
+    }
+
+    private void pushDecision(long sampleIndex) {
+        double lowPower = sumCos[LOW] * sumCos[LOW] + sumSin[LOW] * sumSin[LOW];
+        double highPower = sumCos[HIGH] * sumCos[HIGH] + sumSin[HIGH] * sumSin[HIGH];
+        double powerOfAPureTone = windowLength * sumEnergy / 2.0;
+        double strongest = Math.max(lowPower, highPower);
+
+        char decision;
+        if (sumEnergy <= 0.0 || strongest < MINIMUM_TONALITY * powerOfAPureTone) {
+            decision = PulseStreamConsumer.SILENCE;
+        } else {
+            decision = highToneIsStronger(lowPower, highPower) ? HIGH_TONE : LOW_TONE;
+            if (strongest > TONALITY_OF_A_CLEAN_TONE * powerOfAPureTone)
+                updateReferencePower(decision == HIGH_TONE ? HIGH : LOW, strongest);
+        }
+
+        pushToConsumers(decision, timeBase.nanosecondsAt(Math.max(0, sampleIndex - windowLength / 2)));
+    }
+
+    private boolean highToneIsStronger(double lowPower, double highPower) {
+        if (referencePower[LOW] == 0.0 || referencePower[HIGH] == 0.0)
+            return highPower > lowPower;
+
+        return highPower * referencePower[LOW] > lowPower * referencePower[HIGH];
+    }
+
+    private void updateReferencePower(int tone, double power) {
+        if (referencePower[tone] == 0.0)
+            referencePower[tone] = power;
+        else
+            referencePower[tone] += (power - referencePower[tone]) * REFERENCE_POWER_SMOOTHING;
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (timeBase == null || !timeBase.hasSampleRate(sampleRateInHertz))
+            designFor(sampleRateInHertz);
+
+        for (int i = 0; i < length; i++)
+            processSample(samples[offset + i], firstSampleIndex + i);
+
+        sampleRateFinder.blockPushed(firstSampleIndex + length - 1, sampleRateInHertz);
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        if (sample.isEndOfStream()) {
+            pushToConsumers(PulseStreamConsumer.END_OF_STREAM, timeBase == null ? 0 : timeBase.nanosecondsAt(lastSampleIndex));
+            reset();
+            return;
+        }
+
+        // The first sample is held until the second gives the sample rate
+        if (timeBase == null) {
+            double sampleRateInHertz = sampleRateFinder.sampleRateAt(currentTimeIndex);
+            if (sampleRateInHertz == 0.0) {
+                sampleRateFinder.samplePushed(sample.normalizedValue, currentTimeIndex);
+                return;
+            }
+
+            designFor(sampleRateInHertz);
+            processSample(sampleRateFinder.getPreviousSampleValue(),
+                    Math.round(sampleRateFinder.getPreviousSampleTimeInSeconds() * timeBase.getSampleRate()));
+        }
+
+        processSample(sample.normalizedValue, Math.round(currentTimeIndex * timeBase.getSampleRate()));
+        sampleRateFinder.samplePushed(sample.normalizedValue, currentTimeIndex);
+    }
+
+    private void reset() {
+        if (timeBase != null)
+            startWindow();
+
+        sampleRateFinder.reset();
+    }
+
+    private void pushToConsumers(char decision, long timeIndexInNanoseconds) {
+        for (PulseStreamConsumer consumer : consumers)
+            consumer.pushPulse(decision, timeIndexInNanoseconds);
+    }
+
+    @Override
+    public void registerPulseStreamConsumer(PulseStreamConsumer consumer) {
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    @Override
+    public void deregisterPulseStreamConsumer(PulseStreamConsumer consumer) {
+        consumers.remove(consumer);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleRateFinder;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TimeBase;
+import com.eightbitjim.cassettenibbler.Transition;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// Zero crossing detector with a Schmitt trigger. The signal has to pass the threashold line by a margin before a
+// transition is recognised, so noise around the line no longer produces bursts of tiny intervals. The margin is a
+// fraction of the recent peak level, so it follows the volume of the recording. A recognised transition is timed at
+// the point the signal last crossed the threashold line, interpolated between the samples either side, so intervals
+// are not rounded to whole sample periods.
+public class HysteresisIntervalExtractor implements IntervalStreamProvider, SampleStreamConsumer {
+    private static final double PEAK_DECAY_TIME_IN_SECONDS = 0.02;
+
+    private double hysteresis;
+    private double threasholdLine;
+    private List<IntervalStreamConsumer> consumers;
+    private Transition transition;
+
+    private TimeBase timeBase;
+    private double peakDecayPerSample;
+    private double peakLevel;
+    private boolean state;
+    private boolean stateValid;
+    private double previousValue;
+    private double positionOfCrossing;
+    private double positionOfLastTransition;
+    private long currentSampleIndex;
+
+    private SampleRateFinder sampleRateFinder;
+
+    public HysteresisIntervalExtractor(double hysteresis) {
+        this.hysteresis = hysteresis;
+        threasholdLine = 0.0;
+        consumers = new LinkedList<>();
+        sampleRateFinder = new SampleRateFinder();
+        transition = new Transition();
+    }
+
+    public void setThreasholdLine(double value) {
+        threasholdLine = value;
+    }
+
+    private void setSampleRate(double sampleRateInHertz) {
+        if (timeBase == null)
+            timeBase = new TimeBase(sampleRateInHertz);
+        else
+            timeBase.setSampleRate(sampleRateInHertz);
+
+        peakDecayPerSample = Math.exp(-1.0 / (sampleRateInHertz * PEAK_DECAY_TIME_IN_SECONDS));
+    }
+
+    private void processSample(double value, long sampleIndex) {
+        currentSampleIndex = sampleIndex;
+        double deviation = value - threasholdLine;
+        peakLevel = Math.max(Math.abs(deviation), peakLevel * peakDecayPerSample);
+
+        if (!stateValid) {
+            state = deviation > 0.0;
+            stateValid = true;
+            positionOfLastTransition = sampleIndex;
+            positionOfCrossing = sampleIndex;
+            previousValue = value;
+            return;
+        }
+
+        // Remember the latest crossing of the line away from the current state. It becomes the transition time if
+        // the signal then carries on past the margin.
+        double previousDeviation = previousValue - threasholdLine;
+        if (state ? (previousDeviation > 0.0 && deviation <= 0.0) : (previousDeviation <= 0.0 && deviation > 0.0))
+            positionOfCrossing = (double)(sampleIndex - 1) + previousDeviation / (previousDeviation - deviation);
+
+        previousValue = value;
+        double margin = peakLevel * hysteresis;
+        if (state ? deviation < -margin : deviation > margin) {
+            state = !state;
+            foundTransition(positionOfCrossing, state);
+        }
+    }
+
+    private void foundTransition(double position, boolean transitionedToHigh) {
+        transition.secondsSinceLastTransition = (position - positionOfLastTransition) * timeBase.getSampleLengthInSeconds();
+        transition.transitionedToHigh = transitionedToHigh;
+        positionOfLastTransition = position;
+        pushIntervalToConsumers(transition, nanosecondsAt(position));
+    }
+
+    private long nanosecondsAt(double position) {
+        long wholeSamples = (long)Math.floor(position);
+        double fraction = position - (double)wholeSamples;
+        return timeBase.nanosecondsAt(wholeSamples)
+                + (long)(fraction * timeBase.getSampleLengthInSeconds() * (double)TimeBase.NANOSECONDS_IN_A_SECOND);
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (timeBase == null || !timeBase.hasSampleRate(sampleRateInHertz))
+            setSampleRate(sampleRateInHertz);
+
+        for (int i = 0; i < length; i++)
+            processSample(samples[offset + i], firstSampleIndex + i);
+
+        sampleRateFinder.blockPushed(firstSampleIndex + length - 1, sampleRateInHertz);
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        if (sample.isEndOfStream()) {
+            pushEndOfStream();
+            return;
+        }
+
+        // The first sample is held until the second gives the sample rate
+        if (timeBase == null) {
+            double sampleRateInHertz = sampleRateFinder.sampleRateAt(currentTimeIndex);
+            if (sampleRateInHertz == 0.0) {
+                sampleRateFinder.samplePushed(sample.normalizedValue, currentTimeIndex);
+                return;
+            }
+
+            setSampleRate(sampleRateInHertz);
+            processSample(sampleRateFinder.getPreviousSampleValue(),
+                    Math.round(sampleRateFinder.getPreviousSampleTimeInSeconds() * timeBase.getSampleRate()));
+        }
+
+        processSample(sample.normalizedValue, Math.round(currentTimeIndex * timeBase.getSampleRate()));
+        sampleRateFinder.samplePushed(sample.normalizedValue, currentTimeIndex);
+    }
+
+    private void pushEndOfStream() {
+        long endTime = 0;
+        if (stateValid) {
+            foundTransition(currentSampleIndex, state);
+            endTime = timeBase.nanosecondsAt(currentSampleIndex);
+        }
+
+        Transition endOfStream = new Transition();
+        endOfStream.secondsSinceLastTransition = Transition.END_OF_STREAM;
+        pushIntervalToConsumers(endOfStream, endTime);
+
+        stateValid = false;
+        peakLevel = 0.0;
+        sampleRateFinder.reset();
+    }
+
+    private void pushIntervalToConsumers(Transition transition, long timeIndexInNanoseconds) {
+        for (IntervalStreamConsumer consumer : consumers)
+            consumer.pushInterval(transition, timeIndexInNanoseconds);
+    }
+
+    @Override
+    public void registerIntervalStreamConsumer(IntervalStreamConsumer consumer) {
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    @Override
+    public void deregisterIntervalStreamConsumer(IntervalStreamConsumer consumer) {
+        consumers.remove(consumer);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.SharedFilterGraph;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IntervalStreamRegistry {
+    private SharedFilterGraph filterGraph;
+    private Map<StreamKey, List<IntervalStreamProvider>> extractors;
+    private TapeExtractionLogging logging;
+
+    public IntervalStreamRegistry(SharedFilterGraph filterGraph, String channelName) {
+        this.filterGraph = filterGraph;
+        extractors = new HashMap<>();
+        logging = TapeExtractionLogging.getInstance(channelName);
+    }
+
+    public IntervalStreamProvider getIntervalStream(FilterChain filters, double threasholdLine) {
+        return getIntervalStream(filters, threasholdLine, 0.0);
+    }
+
+    public IntervalStreamProvider getIntervalStream(FilterChain filters, double threasholdLine, double hysteresis) {
+        return getIntervalStreams(filters, Collections.singletonList(new ThreasholdLine(threasholdLine, false)), hysteresis).get(0);
+    }
+
+    // Returns one stream per threashold line. Several lines, or an inverted one, are read in a single pass
+    // without hysteresis.
+    public List<IntervalStreamProvider> getIntervalStreams(FilterChain filters, List<ThreasholdLine> threasholdLines, double hysteresis) {
+        StreamKey key = new StreamKey(filters, threasholdLines, hysteresis);
+        List<IntervalStreamProvider> streams = extractors.get(key);
+        if (streams == null) {
+            if (threasholdLines.size() > 1 || threasholdLines.get(0).isInverted())
+                streams = newMultiThresholdStreams(filters, threasholdLines);
+            else
+                streams = Collections.singletonList(newIntervalStream(filters, threasholdLines.get(0).getLevel(), hysteresis));
+
+            extractors.put(key, streams);
+            logging.writeFileParsingInformation("New shared interval stream: " + filters + " threashold "
+                    + (threasholdLines.size() == 1 ? threasholdLines.get(0) : threasholdLines)
+                    + (hysteresis > 0.0 ? " hysteresis " + hysteresis : ""));
+        }
+
+        return streams;
+    }
+
+    private IntervalStreamProvider newIntervalStream(FilterChain filters, double threasholdLine, double hysteresis) {
+        if (hysteresis > 0.0) {
+            HysteresisIntervalExtractor hysteresisExtractor = new HysteresisIntervalExtractor(hysteresis);
+            hysteresisExtractor.setThreasholdLine(threasholdLine);
+            attachExtractor(filters, hysteresisExtractor);
+            return hysteresisExtractor;
+        }
+
+        ZeroCrossingIntervalExtractor zeroCrossingExtractor = new ZeroCrossingIntervalExtractor();
+        zeroCrossingExtractor.setThreasholdLine(threasholdLine);
+        attachExtractor(filters, zeroCrossingExtractor);
+        return zeroCrossingExtractor;
+    }
+
+    private List<IntervalStreamProvider> newMultiThresholdStreams(FilterChain filters, List<ThreasholdLine> threasholdLines) {
+        MultiThresholdIntervalExtractor multiThresholdExtractor = new MultiThresholdIntervalExtractor();
+        List<IntervalStreamProvider> streams = new ArrayList<>();
+        for (ThreasholdLine line : threasholdLines)
+            streams.add(multiThresholdExtractor.addThreasholdLine(line));
+
+        attachExtractor(filters, multiThresholdExtractor);
+        return streams;
+    }
+
+    protected void attachExtractor(FilterChain filters, SampleStreamConsumer extractor) {
+        filterGraph.attach(filters, extractor);
+    }
+
+    public int getNumberOfExtractors() {
+        return extractors.size();
+    }
+
+    private static class StreamKey {
+        FilterChain filters;
+        List<ThreasholdLine> threasholdLines;
+        double hysteresis;
+
+        StreamKey(FilterChain filters, List<ThreasholdLine> threasholdLines, double hysteresis) {
+            this.filters = filters;
+            this.threasholdLines = threasholdLines;
+            this.hysteresis = hysteresis;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof StreamKey))
+                return false;
+
+            StreamKey key = (StreamKey)other;
+            return filters.equals(key.filters) && threasholdLines.equals(key.threasholdLines)
+                    && Double.compare(hysteresis, key.hysteresis) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return (filters.hashCode() * 31 + threasholdLines.hashCode()) * 31 + Double.hashCode(hysteresis);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IntervalStreamSpec {
+    private FilterChain postFilters;
+    private List<ThreasholdLine> threasholdLines;
+    private double hysteresisBand;
+    private double hysteresisScale;
+
+    public IntervalStreamSpec() {
+        postFilters = new FilterChain();
+        threasholdLines = new ArrayList<>();
+        threasholdLines.add(new ThreasholdLine(0.0, false));
+        hysteresisBand = 0.0;
+        hysteresisScale = 0.0;
+    }
+
+    public IntervalStreamSpec setPostFilters(FilterChain postFilters) {
+        this.postFilters = postFilters;
+        return this;
+    }
+
+    public IntervalStreamSpec setThreasholdLine(double threasholdLine) {
+        threasholdLines = new ArrayList<>();
+        threasholdLines.add(new ThreasholdLine(threasholdLine, false));
+        return this;
+    }
+
+    // For platforms that look at the signal through several threashold lines in one pass, each line feeding the
+    // platform's interval input point of the same index. Hysteresis only applies to a single, uninverted line.
+    public IntervalStreamSpec setThreasholdLines(List<ThreasholdLine> threasholdLines) {
+        this.threasholdLines = new ArrayList<>(threasholdLines);
+        return this;
+    }
+
+    // Margin either side of the threashold line that this platform's signal copes with when hysteresis is turned
+    // on, as a fraction of the signal's peak level. Zero if the platform always needs a plain zero crossing detector.
+    public IntervalStreamSpec setHysteresisBand(double hysteresisBand) {
+        this.hysteresisBand = hysteresisBand;
+        return this;
+    }
+
+    // Turns hysteresis on, scaling the platform's band. Zero, the default, turns it off.
+    public IntervalStreamSpec setHysteresisScale(double hysteresisScale) {
+        this.hysteresisScale = hysteresisScale;
+        return this;
+    }
+
+    public FilterChain getPostFilters() {
+        return postFilters;
+    }
+
+    public List<ThreasholdLine> getThreasholdLines() {
+        return threasholdLines;
+    }
+
+    public double getHysteresis() {
+        return hysteresisBand * hysteresisScale;
+    }
+}
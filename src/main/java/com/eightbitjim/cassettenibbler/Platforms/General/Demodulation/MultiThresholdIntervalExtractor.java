@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TimeBase;
+import com.eightbitjim.cassettenibbler.Transition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+// Zero crossing detection against many threashold lines in a single pass. The threasholds are kept sorted, so each
+// sample only needs to find how many of them lie below it; the threasholds between that and the previous sample's
+// count are the ones crossed. Each threashold has its own interval stream, which behaves like a
+// ZeroCrossingIntervalExtractor at that threashold and only does any work when a crossing happens. An inverted stream
+// is high while the signal is below its threashold, as if the signal had been amplified by a negative amount.
+public class MultiThresholdIntervalExtractor implements SampleStreamConsumer {
+    private List<ThreasholdStream> streams;
+    private double [] threasholds;
+    private ThreasholdStream [] streamsInThreasholdOrder;
+    private int threasholdsBelowSignal;
+    private boolean levelIsValid;
+    private long currentSampleIndex;
+    private double currentTimeIndex;
+
+    private TimeBase timeBase;
+    private Transition transition;
+
+    public MultiThresholdIntervalExtractor() {
+        streams = new ArrayList<>();
+        threasholds = new double[0];
+        streamsInThreasholdOrder = new ThreasholdStream[0];
+        transition = new Transition();
+    }
+
+    public IntervalStreamProvider addThreasholdLine(ThreasholdLine line) {
+        return addThreasholdLine(line.getLevel(), line.isInverted());
+    }
+
+    public IntervalStreamProvider addThreasholdLine(double threasholdLine, boolean inverted) {
+        for (ThreasholdStream stream : streams) {
+            if (Double.compare(stream.threasholdLine, threasholdLine) == 0 && stream.inverted == inverted)
+                return stream;
+        }
+
+        ThreasholdStream stream = new ThreasholdStream(threasholdLine, inverted);
+        streams.add(stream);
+        sortThreasholds();
+        return stream;
+    }
+
+    private void sortThreasholds() {
+        streamsInThreasholdOrder = streams.toArray(new ThreasholdStream[streams.size()]);
+        Arrays.sort(streamsInThreasholdOrder, (a, b) -> Double.compare(a.threasholdLine, b.threasholdLine));
+        threasholds = new double[streamsInThreasholdOrder.length];
+        for (int i = 0; i < threasholds.length; i++)
+            threasholds[i] = streamsInThreasholdOrder[i].threasholdLine;
+
+        levelIsValid = false;
+    }
+
+    public int getNumberOfThreasholdLines() {
+        return streams.size();
+    }
+
+    private int threasholdsBelow(double value, int startingGuess) {
+        int count = startingGuess;
+        while (count < threasholds.length && threasholds[count] < value)
+            count++;
+
+        while (count > 0 && threasholds[count - 1] >= value)
+            count--;
+
+        return count;
+    }
+
+    private void processSample(double value) {
+        if (!levelIsValid) {
+            threasholdsBelowSignal = threasholdsBelow(value, 0);
+            levelIsValid = true;
+            return;
+        }
+
+        int level = threasholdsBelow(value, threasholdsBelowSignal);
+        if (level > threasholdsBelowSignal) {
+            for (int i = threasholdsBelowSignal; i < level; i++)
+                streamsInThreasholdOrder[i].foundTransition(true);
+        } else {
+            for (int i = threasholdsBelowSignal - 1; i >= level; i--)
+                streamsInThreasholdOrder[i].foundTransition(false);
+        }
+
+        threasholdsBelowSignal = level;
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (timeBase == null)
+            startCountingSampleIndexes(sampleRateInHertz);
+        else if (!timeBase.hasSampleRate(sampleRateInHertz))
+            timeBase.setSampleRate(sampleRateInHertz);
+
+        for (int i = 0; i < length; i++) {
+            currentSampleIndex = firstSampleIndex + i;
+            processSample(samples[offset + i]);
+        }
+    }
+
+    private void startCountingSampleIndexes(double sampleRateInHertz) {
+        timeBase = new TimeBase(sampleRateInHertz);
+        // Carry over any time already seen through the per sample interface
+        for (ThreasholdStream stream : streams)
+            stream.sampleIndexOfLastTransition = Math.round(stream.timeIndexOfLastTransition * sampleRateInHertz);
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        if (sample.isEndOfStream()) {
+            pushEndOfStream();
+            return;
+        }
+
+        this.currentTimeIndex = currentTimeIndex;
+        if (timeBase != null)
+            currentSampleIndex = Math.round(currentTimeIndex * timeBase.getSampleRate());
+
+        processSample(sample.normalizedValue);
+    }
+
+    private void pushEndOfStream() {
+        // Like a single threashold extractor, each stream finishes with the interval still in progress
+        for (int i = 0; i < streamsInThreasholdOrder.length; i++)
+            streamsInThreasholdOrder[i].foundTransition(levelIsValid && i < threasholdsBelowSignal);
+
+        Transition endOfStream = new Transition();
+        endOfStream.secondsSinceLastTransition = Transition.END_OF_STREAM;
+        long timeIndexInNanoseconds = timeBase == null ?
+                TimeBase.nanosecondsFromSeconds(currentTimeIndex) : timeBase.nanosecondsAt(currentSampleIndex);
+
+        for (ThreasholdStream stream : streamsInThreasholdOrder)
+            stream.pushIntervalToConsumers(endOfStream, timeIndexInNanoseconds);
+    }
+
+    private class ThreasholdStream implements IntervalStreamProvider {
+        double threasholdLine;
+        boolean inverted;
+        long sampleIndexOfLastTransition;
+        double timeIndexOfLastTransition;
+        List<IntervalStreamConsumer> consumers;
+
+        ThreasholdStream(double threasholdLine, boolean inverted) {
+            this.threasholdLine = threasholdLine;
+            this.inverted = inverted;
+            consumers = new LinkedList<>();
+        }
+
+        void foundTransition(boolean signalWentAbove) {
+            transition.transitionedToHigh = signalWentAbove != inverted;
+            if (timeBase != null) {
+                transition.secondsSinceLastTransition = timeBase.secondsBetween(sampleIndexOfLastTransition, currentSampleIndex);
+                sampleIndexOfLastTransition = currentSampleIndex;
+                pushIntervalToConsumers(transition, timeBase.nanosecondsAt(currentSampleIndex));
+            } else {
+                transition.secondsSinceLastTransition = currentTimeIndex - timeIndexOfLastTransition;
+                timeIndexOfLastTransition = currentTimeIndex;
+                pushIntervalToConsumers(transition, TimeBase.nanosecondsFromSeconds(currentTimeIndex));
+            }
+        }
+
+        void pushIntervalToConsumers(Transition transition, long timeIndexInNanoseconds) {
+            for (IntervalStreamConsumer consumer : consumers)
+                consumer.pushInterval(transition, timeIndexInNanoseconds);
+        }
+
+        @Override
+        public void registerIntervalStreamConsumer(IntervalStreamConsumer consumer) {
+            if (!consumers.contains(consumer))
+                consumers.add(consumer);
+        }
+
+        @Override
+        public void deregisterIntervalStreamConsumer(IntervalStreamConsumer consumer) {
+            consumers.remove(consumer);
+        }
+    }
+}
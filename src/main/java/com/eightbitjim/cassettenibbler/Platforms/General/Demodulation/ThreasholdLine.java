@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+// A threashold line that an interval stream compares the signal against. An inverted line is high while the signal
+// is below it, as if the signal had been amplified by a negative amount.
+public class ThreasholdLine {
+    private final double level;
+    private final boolean inverted;
+
+    public ThreasholdLine(double level, boolean inverted) {
+        this.level = level;
+        this.inverted = inverted;
+    }
+
+    public double getLevel() {
+        return level;
+    }
+
+    public boolean isInverted() {
+        return inverted;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ThreasholdLine))
+            return false;
+
+        ThreasholdLine line = (ThreasholdLine)other;
+        return Double.compare(level, line.level) == 0 && inverted == line.inverted;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(level) * 31 + (inverted ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        return inverted ? level + " inverted" : Double.toString(level);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+// The two tones of an FSK recording. Platforms with the same tones share one demodulator.
+public class ToneStreamSpec {
+    private double lowToneInHertz;
+    private double highToneInHertz;
+
+    public ToneStreamSpec(double lowToneInHertz, double highToneInHertz) {
+        if (lowToneInHertz <= 0.0 || highToneInHertz <= lowToneInHertz)
+            throw new IllegalArgumentException("Invalid FSK tones: " + lowToneInHertz + "hz and " + highToneInHertz + "hz");
+
+        this.lowToneInHertz = lowToneInHertz;
+        this.highToneInHertz = highToneInHertz;
+    }
+
+    public double getLowToneInHertz() {
+        return lowToneInHertz;
+    }
+
+    public double getHighToneInHertz() {
+        return highToneInHertz;
+    }
+
+    // Long enough to hold a whole cycle of the low tone and to separate the two tones from each other
+    public double getWindowInSeconds() {
+        return Math.max(1.0 / lowToneInHertz, 1.0 / (highToneInHertz - lowToneInHertz));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ToneStreamSpec))
+            return false;
+
+        ToneStreamSpec spec = (ToneStreamSpec)other;
+        return Double.compare(lowToneInHertz, spec.lowToneInHertz) == 0 && Double.compare(highToneInHertz, spec.highToneInHertz) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(lowToneInHertz) * 31 + Double.hashCode(highToneInHertz);
+    }
+
+    @Override
+    public String toString() {
+        return (int)lowToneInHertz + "hz/" + (int)highToneInHertz + "hz";
+    }
+}
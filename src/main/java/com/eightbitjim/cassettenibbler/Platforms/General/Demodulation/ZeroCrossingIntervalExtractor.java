@@ -20,6 +20,7 @@ package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
 
 import com.eightbitjim.cassettenibbler.Sample;
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TimeBase;
 import com.eightbitjim.cassettenibbler.Transition;
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
 import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
@@ -37,7 +38,12 @@ public class ZeroCrossingIntervalExtractor implements IntervalStreamProvider, Sa
     private double currentTimeIndex;
     private double timeIndexOfLastTransition;
 
+    private TimeBase timeBase;
+    private long currentSampleIndex;
+    private long sampleIndexOfLastTransition;
+
     private Sample sample;
+    private Sample lastSampleInBlock;
     private List<IntervalStreamConsumer> consumers;
     private double threasholdLine;
     private Transition transition;
@@ -46,9 +52,12 @@ public class ZeroCrossingIntervalExtractor implements IntervalStreamProvider, Sa
         threasholdLine = 0.0;
         currentTimeIndex = 0;
         timeIndexOfLastTransition = currentTimeIndex;
+        currentSampleIndex = 0;
+        sampleIndexOfLastTransition = 0;
         consumers = new LinkedList<>();
         transition = new Transition();
         sample = new Sample();
+        lastSampleInBlock = new Sample();
     }
 
     public void setThreasholdLine(double value) {
@@ -73,10 +82,26 @@ public class ZeroCrossingIntervalExtractor implements IntervalStreamProvider, Sa
     }
 
     private void foundTransition() {
+        foundTransition(sampleValueIsHigh());
+    }
+
+    private void foundTransition(boolean transitionedToHigh) {
+        if (timeBase != null) {
+            foundTransitionAtSampleIndex(transitionedToHigh);
+            return;
+        }
+
         transition.secondsSinceLastTransition = currentTimeIndex - timeIndexOfLastTransition;
-        transition.transitionedToHigh = sampleValueIsHigh();
+        transition.transitionedToHigh = transitionedToHigh;
         timeIndexOfLastTransition = currentTimeIndex;
-        pushIntervalToConsumers(transition);
+        pushIntervalToConsumers(transition, TimeBase.nanosecondsFromSeconds(currentTimeIndex));
+    }
+
+    private void foundTransitionAtSampleIndex(boolean transitionedToHigh) {
+        transition.secondsSinceLastTransition = timeBase.secondsBetween(sampleIndexOfLastTransition, currentSampleIndex);
+        transition.transitionedToHigh = transitionedToHigh;
+        sampleIndexOfLastTransition = currentSampleIndex;
+        pushIntervalToConsumers(transition, timeBase.nanosecondsAt(currentSampleIndex));
     }
 
     private void pushEndOfStream() {
@@ -84,7 +109,8 @@ public class ZeroCrossingIntervalExtractor implements IntervalStreamProvider, Sa
 
         Transition transition = new Transition();
         transition.secondsSinceLastTransition = Transition.END_OF_STREAM;
-        pushIntervalToConsumers(transition);
+        pushIntervalToConsumers(transition, timeBase == null ?
+                TimeBase.nanosecondsFromSeconds(currentTimeIndex) : timeBase.nanosecondsAt(currentSampleIndex));
     }
 
     private void pushPartiallyCompleteInterval() {
@@ -97,14 +123,57 @@ public class ZeroCrossingIntervalExtractor implements IntervalStreamProvider, Sa
             pushEndOfStream();
         else {
             this.currentTimeIndex = currentTimeIndex;
+            if (timeBase != null)
+                currentSampleIndex = Math.round(currentTimeIndex * timeBase.getSampleRate());
+
             this.sample = sample;
             processSample();
         }
     }
 
-    private void pushIntervalToConsumers(Transition transition) {
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (timeBase == null)
+            startCountingSampleIndexes(sampleRateInHertz);
+        else if (!timeBase.hasSampleRate(sampleRateInHertz))
+            timeBase.setSampleRate(sampleRateInHertz);
+
+        double threashold = threasholdLine;
+        boolean state = lastQuantizedState;
+        int start = 0;
+        if (!lastQuantizedStateValid) {
+            state = samples[offset] > threashold;
+            lastQuantizedStateValid = true;
+            start = 1;
+        }
+
+        for (int i = start; i < length; i++) {
+            boolean quantizedState = samples[offset + i] > threashold;
+            if (quantizedState != state) {
+                state = quantizedState;
+                currentSampleIndex = firstSampleIndex + i;
+                foundTransitionAtSampleIndex(quantizedState);
+            }
+        }
+
+        lastQuantizedState = state;
+        currentSampleIndex = firstSampleIndex + length - 1;
+        sample = lastSampleInBlock;
+        sample.normalizedValue = samples[offset + length - 1];
+    }
+
+    private void startCountingSampleIndexes(double sampleRateInHertz) {
+        timeBase = new TimeBase(sampleRateInHertz);
+        // Carry over any time already seen through the per sample interface
+        sampleIndexOfLastTransition = Math.round(timeIndexOfLastTransition * sampleRateInHertz);
+    }
+
+    private void pushIntervalToConsumers(Transition transition, long timeIndexInNanoseconds) {
         for (IntervalStreamConsumer consumer : consumers)
-            consumer.pushInterval(transition, currentTimeIndex);
+            consumer.pushInterval(transition, timeIndexInNanoseconds);
     }
 
     @Override
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction;
+
+// Recognises a fixed sequence of pulses, such as a leader or sync pattern, as the pulses arrive. Rather than keeping
+// the most recent pulses and comparing them against the sequence each time, it remembers how much of the sequence
+// the latest pulses match and moves on from that through a precomputed table (a Knuth-Morris-Pratt automaton), so
+// each pulse costs the same however long the sequence. A run of one pulse type comes down to counting that pulse in
+// a row.
+public class PulseSequenceRecogniser {
+    private char [] symbols;
+    private int [][] nextMatchedLength;
+    private int sequenceLength;
+    private int matchedLength;
+
+    public PulseSequenceRecogniser(char... sequence) {
+        if (sequence.length == 0)
+            throw new IllegalArgumentException("Pulse sequence must not be empty");
+
+        sequenceLength = sequence.length;
+        findSymbols(sequence);
+        buildTable(sequence);
+        reset();
+    }
+
+    public static PulseSequenceRecogniser forPulsesInARow(char pulse, int numberOfPulses) {
+        char [] sequence = new char[numberOfPulses];
+        for (int i = 0; i < numberOfPulses; i++)
+            sequence[i] = pulse;
+
+        return new PulseSequenceRecogniser(sequence);
+    }
+
+    private void findSymbols(char [] sequence) {
+        StringBuilder found = new StringBuilder();
+        for (char pulse : sequence) {
+            if (found.indexOf(String.valueOf(pulse)) < 0)
+                found.append(pulse);
+        }
+
+        symbols = found.toString().toCharArray();
+    }
+
+    private int symbolIndex(char pulse) {
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i] == pulse)
+                return i;
+        }
+
+        return -1;
+    }
+
+    private void buildTable(char [] sequence) {
+        nextMatchedLength = new int[sequenceLength + 1][symbols.length];
+        nextMatchedLength[0][symbolIndex(sequence[0])] = 1;
+
+        int fallback = 0;
+        for (int matched = 1; matched <= sequenceLength; matched++) {
+            System.arraycopy(nextMatchedLength[fallback], 0, nextMatchedLength[matched], 0, symbols.length);
+            if (matched < sequenceLength) {
+                int symbol = symbolIndex(sequence[matched]);
+                nextMatchedLength[matched][symbol] = matched + 1;
+                fallback = nextMatchedLength[fallback][symbol];
+            }
+        }
+    }
+
+    public void reset() {
+        matchedLength = 0;
+    }
+
+    public void addPulse(char pulse) {
+        int symbol = symbolIndex(pulse);
+        matchedLength = symbol < 0 ? 0 : nextMatchedLength[matchedLength][symbol];
+    }
+
+    public boolean isRecognised() {
+        return matchedLength == sequenceLength;
+    }
+}
@@ -20,20 +20,21 @@ package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
 
 import com.eightbitjim.cassettenibbler.Sample;
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
-import com.eightbitjim.cassettenibbler.SampleStreamProvider;
 
 import java.util.LinkedList;
 import java.util.List;
 
-public class Amplify implements SampleStreamConsumer, SampleStreamProvider {
+public class Amplify implements SampleStreamFilter {
 
     private double multiplier = 1.0;
     private List<SampleStreamConsumer> consumers;
     private Sample modifiedSample;
+    private double [] modifiedBlock;
 
     public Amplify(double multiplier) {
         setMultiplier(multiplier);
         modifiedSample = new Sample();
+        modifiedBlock = new double[0];
         consumers = new LinkedList<>();
     }
 
@@ -52,6 +53,18 @@ public class Amplify implements SampleStreamConsumer, SampleStreamProvider {
             consumer.push(modifiedSample, currentTimeIndex);
     }
 
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (modifiedBlock.length < length)
+            modifiedBlock = new double[length];
+
+        for (int i = 0; i < length; i++)
+            modifiedBlock[i] = samples[offset + i] * multiplier;
+
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(modifiedBlock, 0, length, firstSampleIndex, sampleRateInHertz);
+    }
+
     @Override
     public void registerSampleStreamConsumer(SampleStreamConsumer consumer) {
         if (!consumers.contains(consumer))
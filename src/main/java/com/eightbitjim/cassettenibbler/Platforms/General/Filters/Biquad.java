@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+// A second order IIR section in transposed direct form II. Coefficients follow the RBJ audio EQ cookbook and are
+// normalised so that a0 is 1.
+public class Biquad {
+    private double b0;
+    private double b1;
+    private double b2;
+    private double a1;
+    private double a2;
+    private double z1;
+    private double z2;
+
+    private Biquad(double b0, double b1, double b2, double a0, double a1, double a2) {
+        this.b0 = b0 / a0;
+        this.b1 = b1 / a0;
+        this.b2 = b2 / a0;
+        this.a1 = a1 / a0;
+        this.a2 = a2 / a0;
+    }
+
+    public static Biquad lowPass(double cutoffInHertz, double q, double sampleRateInHertz) {
+        double w0 = 2.0 * Math.PI * cutoffInHertz / sampleRateInHertz;
+        double cosW0 = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2.0 * q);
+        return new Biquad((1.0 - cosW0) / 2.0, 1.0 - cosW0, (1.0 - cosW0) / 2.0,
+                1.0 + alpha, -2.0 * cosW0, 1.0 - alpha);
+    }
+
+    public static Biquad highPass(double cutoffInHertz, double q, double sampleRateInHertz) {
+        double w0 = 2.0 * Math.PI * cutoffInHertz / sampleRateInHertz;
+        double cosW0 = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2.0 * q);
+        return new Biquad((1.0 + cosW0) / 2.0, -(1.0 + cosW0), (1.0 + cosW0) / 2.0,
+                1.0 + alpha, -2.0 * cosW0, 1.0 - alpha);
+    }
+
+    public void reset() {
+        z1 = 0.0;
+        z2 = 0.0;
+    }
+
+    // Settles the section as if the input had been at this level forever, so a stream starting away from zero
+    // doesn't ring. Returns the output it settles at.
+    public double settleAt(double input) {
+        double output = input * (b0 + b1 + b2) / (1.0 + a1 + a2);
+        z2 = b2 * input - a2 * output;
+        z1 = b1 * input - a1 * output + z2;
+        return output;
+    }
+
+    public double filter(double input) {
+        double output = b0 * input + z1;
+        z1 = b1 * input - a1 * output + z2;
+        z2 = b2 * input - a2 * output;
+        return output;
+    }
+
+    public void filter(double [] samples, int offset, int length) {
+        double c0 = b0, c1 = b1, c2 = b2, d1 = a1, d2 = a2;
+        double s1 = z1, s2 = z2;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            double input = samples[i];
+            double output = c0 * input + s1;
+            s1 = c1 * input - d1 * output + s2;
+            s2 = c2 * input - d2 * output;
+            samples[i] = output;
+        }
+
+        z1 = s1;
+        z2 = s2;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleRateFinder;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// Butterworth filter of any even order, built from cascaded biquad sections. A band pass is a high pass at the
+// lower edge followed by a low pass at the upper edge, each of the given order. The sections are designed once for
+// the sample rate of the stream, and again only if a block arrives at a different rate.
+public class ButterworthFilter implements SampleStreamFilter {
+    public enum Response { LOW_PASS, HIGH_PASS, BAND_PASS }
+
+    public static final int DEFAULT_ORDER = 4;
+    private static final double HIGHEST_CUTOFF_AS_FRACTION_OF_SAMPLE_RATE = 0.45;
+
+    private Response response;
+    private double lowerCutoffInHertz;
+    private double upperCutoffInHertz;
+    private int order;
+    private TapeExtractionLogging logging;
+    private List<SampleStreamConsumer> consumers;
+
+    private Biquad [] sections;
+    private double designedSampleRate;
+    private boolean sectionsSettled;
+    private double [] filteredBlock;
+    private Sample filteredSample;
+    private SampleRateFinder sampleRateFinder;
+
+    public static ButterworthFilter lowPass(double cutoffInHertz, int order, String channelName) {
+        return new ButterworthFilter(Response.LOW_PASS, 0.0, cutoffInHertz, order, channelName);
+    }
+
+    public static ButterworthFilter highPass(double cutoffInHertz, int order, String channelName) {
+        return new ButterworthFilter(Response.HIGH_PASS, cutoffInHertz, 0.0, order, channelName);
+    }
+
+    public static ButterworthFilter bandPass(double lowerCutoffInHertz, double upperCutoffInHertz, int order, String channelName) {
+        return new ButterworthFilter(Response.BAND_PASS, lowerCutoffInHertz, upperCutoffInHertz, order, channelName);
+    }
+
+    private ButterworthFilter(Response response, double lowerCutoffInHertz, double upperCutoffInHertz, int order, String channelName) {
+        if (order < 2 || order % 2 != 0)
+            throw new IllegalArgumentException("Butterworth filter order must be even: " + order);
+
+        if (response == Response.BAND_PASS && !(lowerCutoffInHertz < upperCutoffInHertz))
+            throw new IllegalArgumentException("Band pass lower cutoff must be below upper cutoff: " + lowerCutoffInHertz + ", " + upperCutoffInHertz);
+
+        this.response = response;
+        this.lowerCutoffInHertz = lowerCutoffInHertz;
+        this.upperCutoffInHertz = upperCutoffInHertz;
+        this.order = order;
+        logging = TapeExtractionLogging.getInstance(channelName);
+        consumers = new LinkedList<>();
+        filteredBlock = new double[0];
+        filteredSample = new Sample();
+        sampleRateFinder = new SampleRateFinder();
+        sections = new Biquad[0];
+        designedSampleRate = 0.0;
+    }
+
+    private void designFor(double sampleRateInHertz) {
+        List<Biquad> cascade = new LinkedList<>();
+        if (response != Response.LOW_PASS)
+            addSections(cascade, false, lowerCutoffInHertz, sampleRateInHertz);
+
+        if (response != Response.HIGH_PASS)
+            addSections(cascade, true, upperCutoffInHertz, sampleRateInHertz);
+
+        sections = cascade.toArray(new Biquad[cascade.size()]);
+        designedSampleRate = sampleRateInHertz;
+        sectionsSettled = false;
+        logging.writeFileParsingInformation("Butterworth " + response + " filter: order " + order + ", "
+                + sections.length + " sections at " + (int)sampleRateInHertz + "hz");
+    }
+
+    private void addSections(List<Biquad> cascade, boolean lowPass, double cutoffInHertz, double sampleRateInHertz) {
+        double cutoff = Math.min(cutoffInHertz, sampleRateInHertz * HIGHEST_CUTOFF_AS_FRACTION_OF_SAMPLE_RATE);
+        for (int k = 0; k < order / 2; k++) {
+            // Each pair of Butterworth poles becomes one section with this Q
+            double q = 1.0 / (2.0 * Math.cos(Math.PI * (2 * k + 1) / (2.0 * order)));
+            cascade.add(lowPass ? Biquad.lowPass(cutoff, q, sampleRateInHertz) : Biquad.highPass(cutoff, q, sampleRateInHertz));
+        }
+    }
+
+    private void settleSections(double firstInput) {
+        double value = firstInput;
+        for (Biquad section : sections)
+            value = section.settleAt(value);
+
+        sectionsSettled = true;
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (sampleRateInHertz != designedSampleRate)
+            designFor(sampleRateInHertz);
+
+        if (filteredBlock.length < length)
+            filteredBlock = new double[length];
+
+        System.arraycopy(samples, offset, filteredBlock, 0, length);
+        if (!sectionsSettled)
+            settleSections(filteredBlock[0]);
+
+        for (Biquad section : sections)
+            section.filter(filteredBlock, 0, length);
+
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(filteredBlock, 0, length, firstSampleIndex, sampleRateInHertz);
+
+        sampleRateFinder.blockPushed(firstSampleIndex + length - 1, sampleRateInHertz);
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        if (sample.isEndOfStream()) {
+            distributeToConsumers(sample, currentTimeIndex);
+            reset();
+            return;
+        }
+
+        if (designedSampleRate == 0.0) {
+            double sampleRateInHertz = sampleRateFinder.sampleRateAt(currentTimeIndex);
+            if (sampleRateInHertz != 0.0)
+                designFor(sampleRateInHertz);
+        }
+
+        double value = sample.normalizedValue;
+        if (designedSampleRate != 0.0) {
+            if (!sectionsSettled)
+                settleSections(value);
+
+            for (Biquad section : sections)
+                value = section.filter(value);
+        }
+
+        filteredSample.normalizedValue = value;
+        distributeToConsumers(filteredSample, currentTimeIndex);
+        sampleRateFinder.samplePushed(sample.normalizedValue, currentTimeIndex);
+    }
+
+    private void reset() {
+        for (Biquad section : sections)
+            section.reset();
+
+        sectionsSettled = false;
+        sampleRateFinder.reset();
+    }
+
+    private void distributeToConsumers(Sample sample, double timeIndex) {
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.push(sample, timeIndex);
+    }
+
+    @Override
+    public void registerSampleStreamConsumer(SampleStreamConsumer consumer) {
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    @Override
+    public void deregisterSampleStreamConsumer(SampleStreamConsumer consumer) {
+        consumers.remove(consumer);
+    }
+}
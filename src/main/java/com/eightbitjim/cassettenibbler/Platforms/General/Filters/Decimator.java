@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// Reduces high sample rate input to no less than the target rate by an integer factor. Input below twice
+// the target rate is passed through untouched.
+public class Decimator implements SampleStreamFilter {
+    public static final double DEFAULT_TARGET_SAMPLE_RATE_IN_HERTZ = 44100.0;
+
+    private static final int TAPS_PER_PHASE = 24;
+    private static final double PASSBAND_FRACTION_OF_OUTPUT_NYQUIST = 0.9;
+
+    private TapeExtractionLogging logging;
+    private List<SampleStreamConsumer> consumers;
+    private double targetSampleRateInHertz;
+
+    private double inputSampleRateInHertz;
+    private int factor;
+    private double [] coefficients;
+    private double [] history;
+    private int historyPosition;
+    private double [] decimatedBlock;
+
+    public Decimator(double targetSampleRateInHertz, String channelName) {
+        consumers = new LinkedList<>();
+        this.targetSampleRateInHertz = targetSampleRateInHertz;
+        logging = TapeExtractionLogging.getInstance(channelName);
+        decimatedBlock = new double[0];
+        factor = 1;
+    }
+
+    public int getFactor() {
+        return factor;
+    }
+
+    private void configureForSampleRate(double sampleRateInHertz) {
+        inputSampleRateInHertz = sampleRateInHertz;
+        factor = Math.max(1, (int)Math.floor(sampleRateInHertz / targetSampleRateInHertz));
+        if (factor < 2) {
+            coefficients = null;
+            return;
+        }
+
+        coefficients = antiAliasingFilter(factor);
+        history = new double[coefficients.length * 2];
+        historyPosition = 0;
+        logging.writeFileParsingInformation("Decimating from " + (int)sampleRateInHertz + "hz by a factor of " + factor +
+                " using " + coefficients.length + " taps");
+    }
+
+    // Blackman windowed sinc low pass, cutting off just below the Nyquist frequency of the output
+    private static double [] antiAliasingFilter(int factor) {
+        int numberOfTaps = TAPS_PER_PHASE * factor + 1;
+        double cutoff = PASSBAND_FRACTION_OF_OUTPUT_NYQUIST * 0.5 / factor;
+        double [] taps = new double[numberOfTaps];
+        double middle = (numberOfTaps - 1) / 2.0;
+        double sum = 0.0;
+        for (int i = 0; i < numberOfTaps; i++) {
+            double x = i - middle;
+            double sinc = x == 0.0 ? 2.0 * cutoff : Math.sin(2.0 * Math.PI * cutoff * x) / (Math.PI * x);
+            double window = 0.42 - 0.5 * Math.cos(2.0 * Math.PI * i / (numberOfTaps - 1))
+                    + 0.08 * Math.cos(4.0 * Math.PI * i / (numberOfTaps - 1));
+            taps[i] = sinc * window;
+            sum += taps[i];
+        }
+
+        for (int i = 0; i < numberOfTaps; i++)
+            taps[i] /= sum;
+
+        return taps;
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+        // Per sample input carries no sample rate, so it is passed on as it is
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.push(sample, currentTimeIndex);
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (sampleRateInHertz != inputSampleRateInHertz)
+            configureForSampleRate(sampleRateInHertz);
+
+        if (factor < 2) {
+            for (SampleStreamConsumer consumer : consumers)
+                consumer.pushBlock(samples, offset, length, firstSampleIndex, sampleRateInHertz);
+
+            return;
+        }
+
+        int outputLength = decimate(samples, offset, length, firstSampleIndex);
+
+        // Output sample n is input sample n * factor, moved back by the filter's delay so that timestamps are
+        // unchanged. The first few outputs only hold the filter filling up, so are dropped.
+        long firstOutputIndex = (firstSampleIndex + factor - 1) / factor - TAPS_PER_PHASE / 2;
+        int outputsToDrop = (int)Math.min(outputLength, Math.max(0L, 1L - firstOutputIndex));
+        if (outputLength - outputsToDrop < 1)
+            return;
+
+        double outputSampleRate = sampleRateInHertz / factor;
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(decimatedBlock, outputsToDrop, outputLength - outputsToDrop,
+                    firstOutputIndex + outputsToDrop, outputSampleRate);
+    }
+
+    // Only the samples that are kept are ever filtered, which is where a polyphase decimator saves its work
+    private int decimate(double [] samples, int offset, int length, long firstSampleIndex) {
+        int maximumOutputLength = length / factor + 1;
+        if (decimatedBlock.length < maximumOutputLength)
+            decimatedBlock = new double[maximumOutputLength];
+
+        int numberOfTaps = coefficients.length;
+        int outputLength = 0;
+        long sampleIndex = firstSampleIndex;
+        for (int i = 0; i < length; i++) {
+            // The history is stored twice over so that the newest numberOfTaps samples are always contiguous
+            double value = samples[offset + i];
+            history[historyPosition] = value;
+            history[historyPosition + numberOfTaps] = value;
+            historyPosition++;
+            if (historyPosition == numberOfTaps)
+                historyPosition = 0;
+
+            if (sampleIndex++ % factor == 0)
+                decimatedBlock[outputLength++] = filterHistory(numberOfTaps);
+        }
+
+        return outputLength;
+    }
+
+    private double filterHistory(int numberOfTaps) {
+        double sum = 0.0;
+        int oldest = historyPosition;
+        for (int k = 0; k < numberOfTaps; k++)
+            sum += coefficients[numberOfTaps - 1 - k] * history[oldest + k];
+
+        return sum;
+    }
+
+    @Override
+    public void registerSampleStreamConsumer(SampleStreamConsumer consumer) {
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    @Override
+    public void deregisterSampleStreamConsumer(SampleStreamConsumer consumer) {
+        consumers.remove(consumer);
+    }
+}
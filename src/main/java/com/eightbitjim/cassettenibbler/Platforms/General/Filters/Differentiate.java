@@ -32,11 +32,13 @@ public class Differentiate implements SampleStreamConsumer, SampleStreamProvider
 
     private List<SampleStreamConsumer> consumers;
     private Sample modifiedSample;
+    private double [] modifiedBlock;
 
     public Differentiate() {
         consumers = new LinkedList<>();
         previousValue = 0.0;
         modifiedSample = new Sample();
+        modifiedBlock = new double[0];
         previousValueIsValid = false;
     }
 
@@ -57,6 +59,28 @@ public class Differentiate implements SampleStreamConsumer, SampleStreamProvider
         previousValueIsValid = true;
     }
 
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (modifiedBlock.length < length)
+            modifiedBlock = new double[length];
+
+        double previous = previousValueIsValid ? previousValue : samples[offset];
+        for (int i = 0; i < length; i++) {
+            double value = samples[offset + i];
+            modifiedBlock[i] = value - previous;
+            previous = value;
+        }
+
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(modifiedBlock, 0, length, firstSampleIndex, sampleRateInHertz);
+
+        previousValue = previous;
+        previousValueIsValid = true;
+    }
+
     private void distributeToConsumers(Sample sample, double timeIndex) {
         for (SampleStreamConsumer consumer : consumers)
             consumer.push(sample, timeIndex);
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class FilterChain {
+    private List<FilterStage> stages;
+
+    public FilterChain() {
+        stages = new ArrayList<>();
+    }
+
+    public FilterChain lowPass(double cutoffInHertz) {
+        return addStage(new FilterStage(FilterStage.Type.LOW_PASS, cutoffInHertz));
+    }
+
+    public FilterChain highPass(double cutoffInHertz) {
+        return addStage(new FilterStage(FilterStage.Type.HIGH_PASS, cutoffInHertz));
+    }
+
+    public FilterChain butterworthLowPass(double cutoffInHertz) {
+        return addStage(new FilterStage(FilterStage.Type.BUTTERWORTH_LOW_PASS, cutoffInHertz));
+    }
+
+    public FilterChain butterworthHighPass(double cutoffInHertz) {
+        return addStage(new FilterStage(FilterStage.Type.BUTTERWORTH_HIGH_PASS, cutoffInHertz));
+    }
+
+    public FilterChain butterworthBandPass(double lowerCutoffInHertz, double upperCutoffInHertz) {
+        return butterworthHighPass(lowerCutoffInHertz).butterworthLowPass(upperCutoffInHertz);
+    }
+
+    public FilterChain amplify(double multiplier) {
+        return addStage(new FilterStage(FilterStage.Type.AMPLIFY, multiplier));
+    }
+
+    public FilterChain addStage(FilterStage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    public FilterChain followedBy(FilterChain other) {
+        FilterChain combined = new FilterChain();
+        combined.stages.addAll(stages);
+        combined.stages.addAll(other.stages);
+        return combined;
+    }
+
+    public List<FilterStage> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    public boolean isEmpty() {
+        return stages.isEmpty();
+    }
+
+    public SampleStreamConsumer build(String channelName, SampleStreamConsumer destination) {
+        SampleStreamConsumer input = destination;
+        for (int i = stages.size() - 1; i >= 0; i--) {
+            SampleStreamFilter filter = stages.get(i).createFilter(channelName);
+            filter.registerSampleStreamConsumer(input);
+            input = filter;
+        }
+
+        return input;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FilterChain && stages.equals(((FilterChain)other).stages);
+    }
+
+    @Override
+    public int hashCode() {
+        return stages.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (FilterStage stage : stages) {
+            if (builder.length() > 0)
+                builder.append(" -> ");
+            builder.append(stage);
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+public class FilterStage {
+    public enum Type { LOW_PASS, HIGH_PASS, AMPLIFY, BUTTERWORTH_LOW_PASS, BUTTERWORTH_HIGH_PASS }
+
+    private Type type;
+    private double parameter;
+
+    public FilterStage(Type type, double parameter) {
+        this.type = type;
+        this.parameter = parameter;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getParameter() {
+        return parameter;
+    }
+
+    public SampleStreamFilter createFilter(String channelName) {
+        switch (type) {
+            case LOW_PASS:
+                return new LowPass(parameter, channelName);
+            case HIGH_PASS:
+                return new HighPass(parameter, channelName);
+            case BUTTERWORTH_LOW_PASS:
+                return ButterworthFilter.lowPass(parameter, ButterworthFilter.DEFAULT_ORDER, channelName);
+            case BUTTERWORTH_HIGH_PASS:
+                return ButterworthFilter.highPass(parameter, ButterworthFilter.DEFAULT_ORDER, channelName);
+            case AMPLIFY:
+            default:
+                return new Amplify(parameter);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof FilterStage))
+            return false;
+
+        FilterStage stage = (FilterStage)other;
+        return type == stage.type && Double.compare(parameter, stage.parameter) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return type.hashCode() * 31 + Double.hashCode(parameter);
+    }
+
+    @Override
+    public String toString() {
+        return type.toString().toLowerCase() + "(" + parameter + ")";
+    }
+}
@@ -20,17 +20,17 @@ package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
 
 import com.eightbitjim.cassettenibbler.Sample;
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
-import com.eightbitjim.cassettenibbler.SampleStreamProvider;
 import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
 
 import java.util.LinkedList;
 import java.util.List;
 
-public class HighPass implements SampleStreamConsumer, SampleStreamProvider {
+public class HighPass implements SampleStreamFilter {
 
     private double cutoffFrequencyInHertz;
     private List<SampleStreamConsumer> consumers;
     private Sample modifiedSample;
+    private double [] modifiedBlock;
     private double currentTimeIndex;
     private double expectedSampleTimeInSeconds;
     private boolean lastSampleTimeIsValid;
@@ -45,6 +45,7 @@ public class HighPass implements SampleStreamConsumer, SampleStreamProvider {
 
     public HighPass(double cutoffFrequencyInHertz, String channelName) {
         consumers = new LinkedList<>();
+        modifiedBlock = new double[0];
         this.cutoffFrequencyInHertz = cutoffFrequencyInHertz;
         logging = TapeExtractionLogging.getInstance(channelName);
         reset();
@@ -92,6 +93,59 @@ public class HighPass implements SampleStreamConsumer, SampleStreamProvider {
         lastSampleTimeIsValid = true;
     }
 
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (modifiedBlock.length < length)
+            modifiedBlock = new double[length];
+
+        double samplePeriod = 1.0 / sampleRateInHertz;
+        if (Math.abs(samplePeriod - expectedSampleTimeInSeconds) > expectedSampleTimeInSeconds / 20.0) {
+            expectedSampleTimeInSeconds = samplePeriod;
+            registerSamplePeriod(samplePeriod);
+            logging.writeFileParsingInformation("High pass filter: Sample rate detected as " + (int)sampleRateInHertz + "hz");
+        }
+
+        int start = 0;
+        if (!lastSampleTimeIsValid) {
+            x1 = samples[offset];
+            y1 = clip(x1);
+            modifiedBlock[0] = y1;
+            start = 1;
+        }
+
+        double x = x1;
+        double y = y1;
+        double a = alpha;
+        for (int i = start; i < length; i++) {
+            double sampleValue = samples[offset + i];
+            y = clip(a * y + a * (sampleValue - x));
+            x = sampleValue;
+            modifiedBlock[i] = y;
+        }
+
+        x1 = x;
+        y1 = y;
+        currentTimeIndex = (double)(firstSampleIndex + length - 1) * samplePeriod;
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(modifiedBlock, 0, length, firstSampleIndex, sampleRateInHertz);
+
+        lastSampleTimeInSeconds = currentTimeIndex;
+        lastSampleTimeIsValid = true;
+    }
+
+    private static double clip(double value) {
+        if (value < Sample.MIN_VALUE)
+            return Sample.MIN_VALUE;
+
+        if (value > Sample.MAX_VALUE)
+            return Sample.MAX_VALUE;
+
+        return value;
+    }
+
     private void registerSamplePeriod(double period) {
         RC  = 1.0 / (2.0 * Math.PI * cutoffFrequencyInHertz);
         alpha = RC / (RC + period);
@@ -20,13 +20,12 @@ package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
 
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
 import com.eightbitjim.cassettenibbler.Sample;
-import com.eightbitjim.cassettenibbler.SampleStreamProvider;
 import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
 
 import java.util.LinkedList;
 import java.util.List;
 
-public class LowPass implements SampleStreamConsumer, SampleStreamProvider {
+public class LowPass implements SampleStreamFilter {
     private double sampleTimeInSeconds;
     private TapeExtractionLogging logging;
     private List<SampleStreamConsumer> consumers;
@@ -40,9 +39,11 @@ public class LowPass implements SampleStreamConsumer, SampleStreamProvider {
     private double lastSampleTimeInSeconds;
     private double cutoffInHertz;
     Sample modifiedSample;
+    private double [] modifiedBlock;
 
     public LowPass(double cutoffInHertz, String channelName) {
         consumers = new LinkedList<>();
+        modifiedBlock = new double[0];
         this.cutoffInHertz = cutoffInHertz;
         logging = TapeExtractionLogging.getInstance(channelName);
         reset();
@@ -99,6 +100,42 @@ public class LowPass implements SampleStreamConsumer, SampleStreamProvider {
         lastSampleTimeIsValid = true;
     }
 
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (modifiedBlock.length < length)
+            modifiedBlock = new double[length];
+
+        double samplePeriod = 1.0 / sampleRateInHertz;
+        if (Math.abs(samplePeriod - sampleTimeInSeconds) > sampleTimeInSeconds / 20.0) {
+            sampleTimeInSeconds = samplePeriod;
+            registerSamplePeriod(sampleTimeInSeconds);
+            logging.writeFileParsingInformation("Low pass filter: Sample rate detected as " + (int)sampleRateInHertz + "hz");
+        }
+
+        int start = 0;
+        if (!lastSampleTimeIsValid) {
+            modifiedBlock[0] = samples[offset];
+            start = 1;
+        }
+
+        double y = y1;
+        double a = alpha;
+        for (int i = start; i < length; i++) {
+            y = y + a * (samples[offset + i] - y);
+            modifiedBlock[i] = y;
+        }
+
+        y1 = y;
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(modifiedBlock, 0, length, firstSampleIndex, sampleRateInHertz);
+
+        lastSampleTimeInSeconds = (double)(firstSampleIndex + length - 1) * samplePeriod;
+        lastSampleTimeIsValid = true;
+    }
+
     private void distributeToConsumers(Sample sample, double timeIndex) {
         for (SampleStreamConsumer consumer : consumers)
             consumer.push(sample, timeIndex);
@@ -20,12 +20,11 @@ package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
 
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
 import com.eightbitjim.cassettenibbler.Sample;
-import com.eightbitjim.cassettenibbler.SampleStreamProvider;
 
 import java.util.LinkedList;
 import java.util.List;
 
-public class SampleStreamSplitter implements SampleStreamConsumer, SampleStreamProvider {
+public class SampleStreamSplitter implements SampleStreamFilter {
     private List <SampleStreamConsumer> consumers = new LinkedList<>();
 
     @Override
@@ -34,6 +33,12 @@ public class SampleStreamSplitter implements SampleStreamConsumer, SampleStreamP
             consumer.push(sample, currentTimeIndex);
     }
 
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        for (SampleStreamConsumer consumer : consumers)
+            consumer.pushBlock(samples, offset, length, firstSampleIndex, sampleRateInHertz);
+    }
+
     @Override
     public void registerSampleStreamConsumer(SampleStreamConsumer consumer) {
         if (!consumers.contains(consumer))
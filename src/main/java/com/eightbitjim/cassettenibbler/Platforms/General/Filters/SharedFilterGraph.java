@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class SharedFilterGraph {
+    private FilterNode root;
+    private String channelName;
+    private TapeExtractionLogging logging;
+    private int numberOfFilters;
+
+    public SharedFilterGraph(String channelName) {
+        this.channelName = channelName;
+        logging = TapeExtractionLogging.getInstance(channelName);
+        root = new FilterNode(new SampleStreamSplitter());
+        numberOfFilters = 0;
+    }
+
+    public void attach(FilterChain chain, SampleStreamConsumer destination) {
+        FilterNode node = root;
+        for (FilterStage stage : chain.getStages())
+            node = childOf(node, stage);
+
+        node.filter.registerSampleStreamConsumer(destination);
+        logging.writeFileParsingInformation("Attached consumer to shared filter chain: " + chain);
+    }
+
+    private FilterNode childOf(FilterNode node, FilterStage stage) {
+        FilterNode child = node.children.get(stage);
+        if (child == null) {
+            child = new FilterNode(stage.createFilter(channelName));
+            node.children.put(stage, child);
+            node.filter.registerSampleStreamConsumer(child.filter);
+            numberOfFilters++;
+        }
+
+        return child;
+    }
+
+    public SampleStreamConsumer getInput() {
+        return root.filter;
+    }
+
+    public int getNumberOfFilters() {
+        return numberOfFilters;
+    }
+
+    private static class FilterNode {
+        SampleStreamFilter filter;
+        Map<FilterStage, FilterNode> children;
+
+        FilterNode(SampleStreamFilter filter) {
+            this.filter = filter;
+            children = new LinkedHashMap<>();
+        }
+    }
+}
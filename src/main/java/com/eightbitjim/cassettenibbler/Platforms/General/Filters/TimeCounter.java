@@ -20,14 +20,15 @@ package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
 
 import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
 import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.TimeBase;
 
 public class TimeCounter implements SampleStreamConsumer {
-    private static final double NANOSECOND = 1.0 / 1000000000.0;
     private static final long NANOSECONDS_IN_A_SECOND = 1000000000L;
 
     private long counter;
     private long lastCounterValue;
     private long systemTimeAtStartInMillis;
+    private TimeBase timeBase;
 
     public TimeCounter() {
         counter = 0L;
@@ -37,7 +38,25 @@ public class TimeCounter implements SampleStreamConsumer {
 
     @Override
     public void push(Sample sample, double currentTimeIndex) {
-        long currentCounter = (long)(currentTimeIndex / NANOSECOND);
+        registerTimeIndex(TimeBase.nanosecondsFromSeconds(currentTimeIndex));
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (length < 1)
+            return;
+
+        if (timeBase == null) {
+            // Input may start part way through a recording, so only count from the first sample seen
+            timeBase = new TimeBase(sampleRateInHertz);
+            lastCounterValue = timeBase.nanosecondsAt(firstSampleIndex - 1);
+        } else if (!timeBase.hasSampleRate(sampleRateInHertz))
+            timeBase.setSampleRate(sampleRateInHertz);
+
+        registerTimeIndex(timeBase.nanosecondsAt(firstSampleIndex + length - 1));
+    }
+
+    private void registerTimeIndex(long currentCounter) {
         if (currentCounter < lastCounterValue)
             lastCounterValue = currentCounter;
 
@@ -45,6 +64,10 @@ public class TimeCounter implements SampleStreamConsumer {
         lastCounterValue = currentCounter;
     }
 
+    public void addProcessedTime(long nanoseconds) {
+        counter += nanoseconds;
+    }
+
     public long getTimeInNanoSeconds() {
         return counter;
     }
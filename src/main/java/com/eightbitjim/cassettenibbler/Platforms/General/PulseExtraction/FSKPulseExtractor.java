@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import com.eightbitjim.cassettenibbler.PulseStreamProvider;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.GoertzelFSKDemodulator;
+import com.eightbitjim.cassettenibbler.TimeBase;
+
+import java.util.LinkedList;
+import java.util.List;
+
+// Turns the tone decisions of a GoertzelFSKDemodulator into a platform's own pulses. The time spent in each tone is
+// divided into pulses of the length given for that tone, rounded to the nearest whole pulse, so a platform can ask
+// for one pulse per cycle or one per bit. Short drop outs count towards the tone they interrupt.
+public class FSKPulseExtractor implements PulseStreamConsumer, PulseStreamProvider {
+    private static final double PULSE_LENGTHS_TO_COUNT_AS_SILENCE = 4.0;
+
+    private char lowTonePulse;
+    private double lowTonePulseLengthInSeconds;
+    private char highTonePulse;
+    private double highTonePulseLengthInSeconds;
+    private double minimumSilenceInSeconds;
+
+    private char currentTone;
+    private double secondsInCurrentTone;
+    private double secondsOfSilence;
+    private boolean silenceReported;
+    private boolean lastDecisionTimeIsValid;
+    private long lastDecisionTime;
+
+    private List<PulseStreamConsumer> consumers;
+
+    public FSKPulseExtractor(char lowTonePulse, double lowTonePulseLengthInSeconds, char highTonePulse, double highTonePulseLengthInSeconds) {
+        this.lowTonePulse = lowTonePulse;
+        this.lowTonePulseLengthInSeconds = lowTonePulseLengthInSeconds;
+        this.highTonePulse = highTonePulse;
+        this.highTonePulseLengthInSeconds = highTonePulseLengthInSeconds;
+        minimumSilenceInSeconds = Math.max(lowTonePulseLengthInSeconds, highTonePulseLengthInSeconds) * PULSE_LENGTHS_TO_COUNT_AS_SILENCE;
+        consumers = new LinkedList<>();
+        reset();
+    }
+
+    private void reset() {
+        currentTone = PulseStreamConsumer.SILENCE;
+        secondsInCurrentTone = 0.0;
+        secondsOfSilence = 0.0;
+        silenceReported = true;
+        lastDecisionTimeIsValid = false;
+    }
+
+    @Override
+    public void pushPulse(char decision, long currentTimeIndex) {
+        if (decision == PulseStreamConsumer.END_OF_STREAM) {
+            finishTone(currentTimeIndex);
+            pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM, currentTimeIndex);
+            reset();
+            return;
+        }
+
+        double seconds = lastDecisionTimeIsValid ? (double)(currentTimeIndex - lastDecisionTime) / (double)TimeBase.NANOSECONDS_IN_A_SECOND : 0.0;
+        lastDecisionTime = currentTimeIndex;
+        lastDecisionTimeIsValid = true;
+
+        if (decision == PulseStreamConsumer.SILENCE)
+            addSilence(seconds, currentTimeIndex);
+        else
+            addTone(decision, seconds, currentTimeIndex);
+    }
+
+    private void addSilence(double seconds, long currentTimeIndex) {
+        secondsOfSilence += seconds;
+        if (silenceReported || secondsOfSilence < minimumSilenceInSeconds)
+            return;
+
+        finishTone(currentTimeIndex);
+        currentTone = PulseStreamConsumer.SILENCE;
+        silenceReported = true;
+        pushPulseToConsumers(PulseStreamConsumer.SILENCE, currentTimeIndex);
+    }
+
+    private void addTone(char tone, double seconds, long currentTimeIndex) {
+        if (!silenceReported)
+            secondsInCurrentTone += secondsOfSilence;
+
+        secondsOfSilence = 0.0;
+        silenceReported = false;
+
+        if (tone != currentTone) {
+            finishTone(currentTimeIndex);
+            currentTone = tone;
+        }
+
+        secondsInCurrentTone += seconds;
+        double pulseLength = pulseLengthFor(currentTone);
+        // Hold back the last pulse until the tone ends, so the total is rounded rather than truncated
+        while (secondsInCurrentTone >= pulseLength * 1.5) {
+            pushPulseToConsumers(pulseFor(currentTone), currentTimeIndex);
+            secondsInCurrentTone -= pulseLength;
+        }
+    }
+
+    private void finishTone(long currentTimeIndex) {
+        if (currentTone != PulseStreamConsumer.SILENCE && secondsInCurrentTone >= pulseLengthFor(currentTone) / 2.0)
+            pushPulseToConsumers(pulseFor(currentTone), currentTimeIndex);
+
+        secondsInCurrentTone = 0.0;
+    }
+
+    private char pulseFor(char tone) {
+        return tone == GoertzelFSKDemodulator.HIGH_TONE ? highTonePulse : lowTonePulse;
+    }
+
+    private double pulseLengthFor(char tone) {
+        return tone == GoertzelFSKDemodulator.HIGH_TONE ? highTonePulseLengthInSeconds : lowTonePulseLengthInSeconds;
+    }
+
+    @Override
+    public void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters) {
+
+    }
+
+    @Override
+    public void registerPulseStreamConsumer(PulseStreamConsumer consumer) {
+        if (!consumers.contains(consumer))
+            consumers.add(consumer);
+    }
+
+    @Override
+    public void deregisterPulseStreamConsumer(PulseStreamConsumer consumer) {
+        consumers.remove(consumer);
+    }
+
+    private void pushPulseToConsumers(char pulseType, long currentTimeIndex) {
+        for (PulseStreamConsumer consumer : consumers)
+            consumer.pushPulse(pulseType, currentTimeIndex);
+    }
+}
@@ -32,8 +32,7 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
     private double secondsSinceLastHighToLowTransition = 0.0;
     public static final double NANOSECOND = 1.0 / 1000000000.0;
 
-    private double [] leaderBuffer;
-    private int leaderBufferPointer;
+    private LeaderTracker leaderTracker;
 
     private long currentTimeIndex;
     private List<PulseStreamConsumer> consumers;
@@ -44,6 +43,7 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
     public double mediumPulseMinimum;
     public double longPulseMinimum;
     public double longPulseMaximum;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     public GeneralPulseExtraction(PulseExtractiorParameters parameters) {
         this.parameters = parameters;
@@ -51,8 +51,7 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
         consumers = new LinkedList<>();
         interval = new Transition();
         currentTimeIndex = 0;
-        leaderBuffer = new double[parameters.LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(parameters.LEADER_BUFFER_LENGTH, parameters.percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
 
         adjustPulseTimingsToMatchSettings();
@@ -69,6 +68,7 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
         mediumPulseMinimum = parameters.shortPulseLength + (parameters.mediumPulseLength - parameters.shortPulseLength) / 2.0;
         longPulseMinimum = parameters.longPulseLength - (parameters.longPulseLength - parameters.mediumPulseLength) / 2.0;
         longPulseMaximum = parameters.longPulseLength + parameters.longPulseLength / 2.0;
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -99,24 +99,15 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % leaderBuffer.length;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < leaderBuffer.length; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > parameters.percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)leaderBuffer.length;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < parameters.shortPulseLength / parameters.toleranceForPulseCountingAsLeader
                 || average > parameters.shortPulseLength * parameters.toleranceForPulseCountingAsLeader)) {
             return;
@@ -126,11 +117,7 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -145,9 +132,9 @@ public class GeneralPulseExtraction implements PulseStreamProvider, IntervalStre
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         this.interval = transition;
-        this.currentTimeIndex = (long)(currentTimeIndex / NANOSECOND);
+        this.currentTimeIndex = currentTimeIndex;
         processInterval();
         if (transition.isEndOfStream())
             pushPulseToConsumers(PulseStreamConsumer.END_OF_STREAM);
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+// Holds the most recent pulse lengths to spot a steady leader tone and measure its speed. Rather than rescanning the
+// buffer for every pulse, it keeps a running total and a count of neighbouring entries that differ by more than the
+// allowed percentage, and updates both as each entry is replaced. The total is recalculated each time round the
+// buffer so that rounding errors cannot build up.
+public class LeaderTracker {
+    private double [] pulseLengths;
+    private int pointer;
+    private double sum;
+    private int unevenNeighbours;
+    private double percentageDifferenceNotToCountAsSamePulseLength;
+
+    public LeaderTracker(int numberOfPulses, double percentageDifferenceNotToCountAsSamePulseLength) {
+        pulseLengths = new double[numberOfPulses];
+        this.percentageDifferenceNotToCountAsSamePulseLength = percentageDifferenceNotToCountAsSamePulseLength;
+        pointer = 0;
+        sum = 0.0;
+        unevenNeighbours = 0;
+    }
+
+    public void addPulseLength(double pulseLengthInSeconds) {
+        unevenNeighbours -= unevenNeighboursOf(pointer);
+        sum += pulseLengthInSeconds - pulseLengths[pointer];
+        pulseLengths[pointer] = pulseLengthInSeconds;
+        unevenNeighbours += unevenNeighboursOf(pointer);
+
+        pointer = (pointer + 1) % pulseLengths.length;
+        if (pointer == 0)
+            recalculateSum();
+    }
+
+    private int unevenNeighboursOf(int position) {
+        int count = 0;
+        if (position > 0 && neighboursAreUneven(position - 1, position))
+            count++;
+
+        if (position < pulseLengths.length - 1 && neighboursAreUneven(position, position + 1))
+            count++;
+
+        return count;
+    }
+
+    private boolean neighboursAreUneven(int first, int second) {
+        double differenceFromLastPulseLength = Math.abs(pulseLengths[second] - pulseLengths[first]);
+        return differenceFromLastPulseLength / pulseLengths[second] * 100.0 > percentageDifferenceNotToCountAsSamePulseLength;
+    }
+
+    private void recalculateSum() {
+        sum = 0.0;
+        for (double pulseLength : pulseLengths)
+            sum += pulseLength;
+    }
+
+    public boolean isSteady() {
+        return unevenNeighbours == 0;
+    }
+
+    public double getAveragePulseLength() {
+        return sum / (double)pulseLengths.length;
+    }
+}
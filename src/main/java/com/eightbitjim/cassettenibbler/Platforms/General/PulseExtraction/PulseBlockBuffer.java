@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+
+import java.util.List;
+
+// Collects pulses for a provider and hands them to its consumers a block at a time through pushPulses(), so a
+// provider with many consumers makes one call per consumer per block rather than per pulse. A block is closed
+// as soon as it holds an end of stream, silence or too long pulse, so consumers that only finish files on those
+// pulses push their files in the same order as if the pulses had been sent one by one. Call flush() before
+// anything else is sent to the consumers, and when the input ends.
+public class PulseBlockBuffer {
+    private static final int DEFAULT_BLOCK_LENGTH = 1024;
+
+    private List<PulseStreamConsumer> consumers;
+    private byte [] symbols;
+    private long [] timestamps;
+    private int count;
+
+    public PulseBlockBuffer(List<PulseStreamConsumer> consumers) {
+        this(consumers, DEFAULT_BLOCK_LENGTH);
+    }
+
+    public PulseBlockBuffer(List<PulseStreamConsumer> consumers, int blockLength) {
+        this.consumers = consumers;
+        symbols = new byte[Math.max(1, blockLength)];
+        timestamps = new long[symbols.length];
+        count = 0;
+    }
+
+    public void addPulse(char pulseType, long currentTimeIndex) {
+        symbols[count] = (byte)pulseType;
+        timestamps[count] = currentTimeIndex;
+        count++;
+
+        if (count == symbols.length || pulseCanEndAFile(pulseType))
+            flush();
+    }
+
+    public void flush() {
+        if (count == 0)
+            return;
+
+        for (PulseStreamConsumer consumer : consumers)
+            consumer.pushPulses(symbols, timestamps, count);
+
+        count = 0;
+    }
+
+    private static boolean pulseCanEndAFile(char pulseType) {
+        switch (pulseType) {
+            case PulseStreamConsumer.END_OF_STREAM:
+            case PulseStreamConsumer.INVALID_PULSE_TOO_LONG:
+            case PulseStreamConsumer.SILENCE:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+
+import java.util.Arrays;
+
+// Classifies pulse lengths by looking them up in a table of microsecond buckets rather than testing against each
+// limit in turn. A pulse gets the type of the first limit it is shorter than, or the above limits type if there is
+// none. Buckets too close to a limit to be sure which side a pulse falls are marked, and only those pulses are
+// checked against the limits directly, so the results are the same as comparing against every limit. The table
+// depends only on the limits; pulse lengths should already be scaled by any interval shift multiplier.
+public class PulseClassifier {
+    private static final double BUCKETS_PER_SECOND = 1000000.0;
+    private static final int MAXIMUM_TABLE_LENGTH = 4096;
+    private static final char CHECK_AGAINST_LIMITS = 0;
+
+    private char [] pulseTypes;
+    private char pulseTypeAboveLimits;
+    private double [] upperLimitsInSeconds;
+    private char [] table;
+    private double bucketsPerSecond;
+
+    public PulseClassifier(char [] pulseTypes, char pulseTypeAboveLimits) {
+        this.pulseTypes = pulseTypes.clone();
+        this.pulseTypeAboveLimits = pulseTypeAboveLimits;
+        upperLimitsInSeconds = new double[pulseTypes.length];
+        table = new char[0];
+        bucketsPerSecond = BUCKETS_PER_SECOND;
+    }
+
+    public static PulseClassifier forShortMediumAndLongPulses() {
+        return new PulseClassifier(new char [] {
+                PulseStreamConsumer.INVALID_PULSE_TOO_SHORT,
+                PulseStreamConsumer.SHORT_PULSE,
+                PulseStreamConsumer.MEDIUM_PULSE,
+                PulseStreamConsumer.LONG_PULSE },
+                PulseStreamConsumer.INVALID_PULSE_TOO_LONG);
+    }
+
+    public static PulseClassifier forShortAndLongPulses() {
+        return new PulseClassifier(new char [] {
+                PulseStreamConsumer.INVALID_PULSE_TOO_SHORT,
+                PulseStreamConsumer.SHORT_PULSE,
+                PulseStreamConsumer.LONG_PULSE },
+                PulseStreamConsumer.INVALID_PULSE_TOO_LONG);
+    }
+
+    public void setUpperLimits(double... upperLimitsInSeconds) {
+        if (upperLimitsInSeconds.length != pulseTypes.length)
+            throw new IllegalArgumentException("Need one upper limit for each of the " + pulseTypes.length + " pulse types");
+
+        if (Arrays.equals(upperLimitsInSeconds, this.upperLimitsInSeconds) && table.length > 0)
+            return;
+
+        this.upperLimitsInSeconds = upperLimitsInSeconds.clone();
+        buildTable();
+    }
+
+    private void buildTable() {
+        double longestLimit = 0.0;
+        for (double limit : upperLimitsInSeconds)
+            longestLimit = Math.max(longestLimit, limit);
+
+        bucketsPerSecond = Math.min(BUCKETS_PER_SECOND, (MAXIMUM_TABLE_LENGTH - 2) / longestLimit);
+        table = new char[(int)(longestLimit * bucketsPerSecond) + 2];
+        for (int bucket = 0; bucket < table.length; bucket++)
+            table[bucket] = checkAgainstLimits((bucket + 0.5) / bucketsPerSecond);
+
+        for (double limit : upperLimitsInSeconds)
+            markBucketsEitherSideOf(limit);
+    }
+
+    private void markBucketsEitherSideOf(double limit) {
+        int bucket = (int)(limit * bucketsPerSecond);
+        for (int i = bucket - 1; i <= bucket + 1; i++) {
+            if (i >= 0 && i < table.length)
+                table[i] = CHECK_AGAINST_LIMITS;
+        }
+    }
+
+    public char getPulseType(double pulseLengthInSeconds) {
+        if (!(pulseLengthInSeconds >= 0.0))
+            return checkAgainstLimits(pulseLengthInSeconds);
+
+        double bucket = pulseLengthInSeconds * bucketsPerSecond;
+        if (bucket >= table.length)
+            return pulseTypeAboveLimits;
+
+        char pulseType = table[(int)bucket];
+        if (pulseType == CHECK_AGAINST_LIMITS)
+            return checkAgainstLimits(pulseLengthInSeconds);
+
+        return pulseType;
+    }
+
+    private char checkAgainstLimits(double pulseLengthInSeconds) {
+        for (int i = 0; i < upperLimitsInSeconds.length; i++) {
+            if (pulseLengthInSeconds < upperLimitsInSeconds[i])
+                return pulseTypes[i];
+        }
+
+        return pulseTypeAboveLimits;
+    }
+}
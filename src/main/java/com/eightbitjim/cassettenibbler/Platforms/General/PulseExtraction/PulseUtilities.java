@@ -21,18 +21,24 @@ package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 
 public class PulseUtilities {
+    private static final char [] pulseTypes = {
+            PulseStreamConsumer.END_OF_STREAM,
+            PulseStreamConsumer.INVALID_PULSE_TOO_LONG,
+            PulseStreamConsumer.INVALID_PULSE_TOO_SHORT,
+            PulseStreamConsumer.LONG_PULSE,
+            PulseStreamConsumer.MEDIUM_PULSE,
+            PulseStreamConsumer.SHORT_PULSE,
+            PulseStreamConsumer.SILENCE
+    };
+
+    private static final boolean [] isPulseType = new boolean[128];
+
+    static {
+        for (char pulseType : pulseTypes)
+            isPulseType[pulseType] = true;
+    }
+
     public static boolean isPulseAnnotation(char pulse) {
-        switch (pulse) {
-            case PulseStreamConsumer.END_OF_STREAM:
-            case PulseStreamConsumer.INVALID_PULSE_TOO_LONG:
-            case PulseStreamConsumer.INVALID_PULSE_TOO_SHORT:
-            case PulseStreamConsumer.LONG_PULSE:
-            case PulseStreamConsumer.MEDIUM_PULSE:
-            case PulseStreamConsumer.SHORT_PULSE:
-            case PulseStreamConsumer.SILENCE:
-                return false;
-            default:
-                return true;
-        }
+        return pulse >= isPulseType.length || !isPulseType[pulse];
     }
 }
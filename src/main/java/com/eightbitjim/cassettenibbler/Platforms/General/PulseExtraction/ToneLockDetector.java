@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+// Detects a steady pilot or sync tone of known period in whole units (T states, microseconds) and measures how far
+// the recording's speed is from it. The tone is locked while every pair of neighbouring intervals in the buffer adds
+// up to within the tolerance of a full cycle, and stays locked for a few intervals after that stops being true. A
+// running total and a count of pairs outside the tolerance are updated as each interval replaces the oldest, so each
+// interval costs the same however long the buffer.
+public class ToneLockDetector {
+    private static final int DEFAULT_BUFFER_LENGTH = 32;
+
+    private int targetPeriod;
+    private int tolerance;
+    private int maximumIntervalsBeforeLosingLock;
+    private int [] intervalBuffer;
+    private int intervalBufferPointer;
+    private long sum;
+    private int pairsOutsideTolerance;
+    private int numberOfIntervalsSinceLocked;
+    private double intervalShift;
+
+    public ToneLockDetector(int targetPeriod, int tolerance, int maximumIntervalsBeforeLosingLock) {
+        this(targetPeriod, tolerance, maximumIntervalsBeforeLosingLock, DEFAULT_BUFFER_LENGTH);
+    }
+
+    public ToneLockDetector(int targetPeriod, int tolerance, int maximumIntervalsBeforeLosingLock, int bufferLength) {
+        this.targetPeriod = targetPeriod;
+        this.tolerance = tolerance;
+        this.maximumIntervalsBeforeLosingLock = maximumIntervalsBeforeLosingLock;
+        intervalBuffer = new int[bufferLength];
+        intervalBufferPointer = 0;
+        sum = 0;
+        pairsOutsideTolerance = 0;
+        for (int i = 0; i < bufferLength - 1; i++) {
+            if (!intervalsCountAsTone(intervalBuffer[i], intervalBuffer[i + 1]))
+                pairsOutsideTolerance++;
+        }
+
+        numberOfIntervalsSinceLocked = Integer.MAX_VALUE;
+        intervalShift = 1.0;
+    }
+
+    public double registerIntervalAndReturnIntervalShift(int interval) {
+        replaceInterval(intervalBufferPointer, interval);
+        intervalBufferPointer = (intervalBufferPointer + 1) % intervalBuffer.length;
+
+        if (pairsOutsideTolerance == 0) {
+            numberOfIntervalsSinceLocked = 0;
+            intervalShift = (double)targetPeriod / ((double)sum / (double)intervalBuffer.length);
+        } else {
+            numberOfIntervalsSinceLocked++;
+        }
+
+        return intervalShift;
+    }
+
+    private void replaceInterval(int position, int interval) {
+        pairsOutsideTolerance -= pairsOutsideToleranceAround(position);
+        sum += interval - intervalBuffer[position];
+        intervalBuffer[position] = interval;
+        pairsOutsideTolerance += pairsOutsideToleranceAround(position);
+    }
+
+    private int pairsOutsideToleranceAround(int position) {
+        int count = 0;
+        if (position > 0 && !intervalsCountAsTone(intervalBuffer[position - 1], intervalBuffer[position]))
+            count++;
+
+        if (position < intervalBuffer.length - 1 && !intervalsCountAsTone(intervalBuffer[position], intervalBuffer[position + 1]))
+            count++;
+
+        return count;
+    }
+
+    private boolean intervalsCountAsTone(int interval1, int interval2) {
+        return Math.abs((interval1 + interval2) - targetPeriod * 2) < tolerance;
+    }
+
+    public boolean isLocked() {
+        return numberOfIntervalsSinceLocked < maximumIntervalsBeforeLosingLock;
+    }
+}
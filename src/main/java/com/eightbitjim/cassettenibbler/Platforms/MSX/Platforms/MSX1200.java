@@ -19,9 +19,12 @@
 package com.eightbitjim.cassettenibbler.Platforms.MSX.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ToneStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.FSKPulseExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.MSX.FileExtraction.MSXFileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.MSX.PulseExtraction.MSXPulseExtractor;
 
@@ -38,18 +41,21 @@ public class MSX1200 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(4800, channelName);
-        HighPass highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         MSXPulseExtractor pulseExtractor = new MSXPulseExtractor(MSXPulseExtractor.Baud.BAUD_1200);
         MSXFileStateMachine fileExtractor = new MSXFileStateMachine(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        toneStream = new ToneStreamSpec(1200.0, 2400.0);
+        tonePulseExtractor = new FSKPulseExtractor(PulseStreamConsumer.MEDIUM_PULSE, 1.0 / 1200.0,
+                PulseStreamConsumer.SHORT_PULSE, 1.0 / 2400.0);
+        tonePulseExtractor.registerPulseStreamConsumer(fileExtractor);
+
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
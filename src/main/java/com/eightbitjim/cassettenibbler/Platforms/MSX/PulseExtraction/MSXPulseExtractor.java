@@ -19,6 +19,8 @@
 package com.eightbitjim.cassettenibbler.Platforms.MSX.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.LeaderTracker;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.PulseStreamProvider;
 import com.eightbitjim.cassettenibbler.Transition;
@@ -39,6 +41,7 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
     private double mediumPulseMinimum;
     private double longPulseMinimum;
     private double longPulseMaximum;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;
@@ -47,9 +50,8 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
     private Transition interval;
     private double secondsSinceLastHighToLowTransition = 0.0;
 
-    private double [] leaderBuffer;
+    private LeaderTracker leaderTracker;
     private static final int LEADER_BUFFER_LENGTH = 32;
-    private int leaderBufferPointer;
     private long currentTimeIndex;
 
     private List<PulseStreamConsumer> consumers;
@@ -59,8 +61,7 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
         consumers = new LinkedList<>();
         setUpPulseLengths(baud);
         currentTimeIndex = 0;
-        leaderBuffer = new double[LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(LEADER_BUFFER_LENGTH, percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
     }
 
@@ -84,6 +85,7 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
         mediumPulseMinimum = shortPulseLength + shortPulseLength / 3.0;
         longPulseMinimum = longPulseLength - shortPulseLength / 2.0;
         longPulseMaximum = longPulseLength + (longPulseLength * 2.0);
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -101,8 +103,7 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % LEADER_BUFFER_LENGTH;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
@@ -110,18 +111,10 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < LEADER_BUFFER_LENGTH; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)LEADER_BUFFER_LENGTH;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < shortPulseLength - shortPulseLength * toleranceForPulseCountingAsLeader
                 || average > shortPulseLength + shortPulseLength * toleranceForPulseCountingAsLeader)) {
             return;
@@ -131,11 +124,7 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -150,12 +139,12 @@ public class MSXPulseExtractor implements IntervalStreamConsumer, PulseStreamPro
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             this.interval = transition;
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
@@ -136,7 +136,7 @@ public class OricFileStateMachine {
 
     private void matchSyncStream() {
         leaderRecogniser.addPulse(currentPulse);
-        if (leaderRecogniser.isLeaderValid()) {
+        if (leaderRecogniser.isRecognised()) {
             pushStringToPulseStream("POSSIBLE SYNC START RECEIVED");
             processSyncValue();
         }
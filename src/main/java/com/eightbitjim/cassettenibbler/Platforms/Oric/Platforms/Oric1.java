@@ -19,10 +19,9 @@
 package com.eightbitjim.cassettenibbler.Platforms.Oric.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.Amplify;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 import com.eightbitjim.cassettenibbler.Platforms.Oric.FileExtraction.OricOneFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Oric.PulseExtraction.OricPulseExtractor;
 
@@ -39,21 +38,17 @@ public class Oric1 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(4800, channelName);
-        HighPass highPass = new HighPass(200, channelName);
-        Amplify inverter = new Amplify(-1.0);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec().setPostFilters(new FilterChain().amplify(-1.0)).setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         OricPulseExtractor pulseExtractor = new OricPulseExtractor();
         OricOneFileExtractor fileExtractor = new OricOneFileExtractor(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(inverter);
-        inverter.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
-        postFilterSampleInput = inverter;
+        postFilterSampleInput = intervalStream.getPostFilters().build(channelName, intervalExtractor);
+        sampleInput = inputFilters.build(channelName, postFilterSampleInput);
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
 
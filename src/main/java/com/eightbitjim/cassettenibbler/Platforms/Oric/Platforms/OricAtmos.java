@@ -19,18 +19,14 @@
 package com.eightbitjim.cassettenibbler.Platforms.Oric.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.Amplify;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 import com.eightbitjim.cassettenibbler.Platforms.Oric.FileExtraction.OricAtmosFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Oric.FileExtraction.OricOneFileExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Oric.PulseExtraction.OricPulseExtractor;
 
 public class OricAtmos extends Platform {
-    LowPass lowPass;
-    HighPass highPass;
-    Amplify inverter;
     ZeroCrossingIntervalExtractor intervalExtractor;
     OricPulseExtractor pulseExtractor;
     OricAtmosFileExtractor fileExtractor;
@@ -46,22 +42,17 @@ public class OricAtmos extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        lowPass = new LowPass(4800, channelName);
-        highPass = new HighPass(200, channelName);
-        inverter = new Amplify(-1.0);
-
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec().setPostFilters(new FilterChain().amplify(-1.0)).setHysteresisBand(0.1);
         intervalExtractor = new ZeroCrossingIntervalExtractor();
         pulseExtractor = new OricPulseExtractor();
         fileExtractor = new OricAtmosFileExtractor(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(inverter);
-        inverter.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
-        postFilterSampleInput = inverter;
+        postFilterSampleInput = intervalStream.getPostFilters().build(channelName, intervalExtractor);
+        sampleInput = inputFilters.build(channelName, postFilterSampleInput);
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
 
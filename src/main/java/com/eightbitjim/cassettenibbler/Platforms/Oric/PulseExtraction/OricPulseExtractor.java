@@ -19,6 +19,8 @@
 package com.eightbitjim.cassettenibbler.Platforms.Oric.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.LeaderTracker;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.PulseStreamProvider;
 import com.eightbitjim.cassettenibbler.Transition;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
@@ -38,6 +40,7 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     private static final double mediumPulseMinimum = shortPulseLength + shortPulseLength;
     private static final double longPulseMinimum = longPulseLength - (longPulseLength - mediumPulseLength) / leewayOnPulseLength;
     private static final double longPulseMaximum = longPulseLength + (longPulseLength);
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;
@@ -46,9 +49,8 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     private Transition interval;
     private double secondsSinceLastHighToLowTransition = 0.0;
 
-    private double [] leaderBuffer;
+    private LeaderTracker leaderTracker;
     private static final int LEADER_BUFFER_LENGTH = 32;
-    private int leaderBufferPointer;
     private long currentTimeIndex;
 
     private List<PulseStreamConsumer> consumers;
@@ -57,9 +59,9 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
         interval = new Transition();
         consumers = new LinkedList<>();
         currentTimeIndex = 0;
-        leaderBuffer = new double[LEADER_BUFFER_LENGTH];
-        leaderBufferPointer = 0;
+        leaderTracker = new LeaderTracker(LEADER_BUFFER_LENGTH, percentageDifferenceNotToCountAsSamePulseLength);
         intervalShiftMultiplier = 1.0;
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -77,8 +79,7 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     }
 
     private void registerWithLeaderBuffer() {
-        leaderBuffer[leaderBufferPointer] = secondsSinceLastHighToLowTransition;
-        leaderBufferPointer = (leaderBufferPointer + 1 ) % LEADER_BUFFER_LENGTH;
+        leaderTracker.addPulseLength(secondsSinceLastHighToLowTransition);
         adjustFreqncyIfValidLeaderBuffer();
     }
 
@@ -86,18 +87,10 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     }
 
     private void adjustFreqncyIfValidLeaderBuffer() {
-        double lastValue = leaderBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < LEADER_BUFFER_LENGTH; i++) {
-            double differenceFromLastPulseLength = Math.abs(leaderBuffer[i] - lastValue);
-            lastValue = leaderBuffer[i];
-            sum += lastValue;
-            if (differenceFromLastPulseLength / lastValue * 100.0 > percentageDifferenceNotToCountAsSamePulseLength) {
-                return;
-            }
-        }
+        if (!leaderTracker.isSteady())
+            return;
 
-        double average = sum / (double)LEADER_BUFFER_LENGTH;
+        double average = leaderTracker.getAveragePulseLength();
         if ((average < longPulseLength - longPulseLength * toleranceForPulseCountingAsLeader
                 || average > longPulseLength + longPulseLength * toleranceForPulseCountingAsLeader)) {
             return;
@@ -107,11 +100,7 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -126,12 +115,12 @@ public class OricPulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             this.interval = transition;
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
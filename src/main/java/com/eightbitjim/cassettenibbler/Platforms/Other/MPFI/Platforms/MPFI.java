@@ -19,16 +19,14 @@
 package com.eightbitjim.cassettenibbler.Platforms.Other.MPFI.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 import com.eightbitjim.cassettenibbler.Platforms.Other.MPFI.FileExtraction.MPFIFileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.Other.MPFI.PulseExtraction.PulseExtractor;
 
 public class MPFI extends Platform {
 
-    LowPass lowPass;
-    HighPass highPass;
     ZeroCrossingIntervalExtractor intervalExtractor;
     PulseExtractor pulseExtractor;
     MPFIFileStateMachine fileExtractor;
@@ -44,18 +42,16 @@ public class MPFI extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        lowPass = new LowPass(4800, channelName);
-        highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         intervalExtractor = new ZeroCrossingIntervalExtractor();
         pulseExtractor = new PulseExtractor(channelName);
         fileExtractor = new MPFIFileStateMachine(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         pulseInput = fileExtractor;
         pulseOutput = pulseExtractor;
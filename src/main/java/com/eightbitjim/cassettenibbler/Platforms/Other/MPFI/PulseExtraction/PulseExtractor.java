@@ -55,8 +55,8 @@ public class PulseExtractor implements IntervalStreamConsumer, PulseStreamProvid
     }
 
     public void processInterval() {
-        intervalShiftMultiplier = leadSyncDetection.registerWithSyncToneBufferAndReturnIntervalShift(currentTransitionLengthInMicroseconds);
-        midOrTailSyncDetection.registerWithSyncToneBufferAndReturnIntervalShift(currentTransitionLengthInMicroseconds);
+        intervalShiftMultiplier = leadSyncDetection.registerIntervalAndReturnIntervalShift(currentTransitionLengthInMicroseconds);
+        midOrTailSyncDetection.registerIntervalAndReturnIntervalShift(currentTransitionLengthInMicroseconds);
 
         adjustIntervalToMatchFrequencyShift();
         checkForLeadSync(); // Always check for lead sync as it signals the start of a new file
@@ -91,14 +91,14 @@ public class PulseExtractor implements IntervalStreamConsumer, PulseStreamProvid
     }
 
     private void checkForLeadSync() {
-        if (leadSyncDetection.isValid() && state != State.RECEIVING_LEAD_SYNC) {
+        if (leadSyncDetection.isLocked() && state != State.RECEIVING_LEAD_SYNC) {
             state = State.RECEIVING_LEAD_SYNC;
             logging.writeFileParsingInformation("LEAD SYNC DETECTED");
         }
     }
 
     private void checkIfLeadSyncFinished() {
-        if (!leadSyncDetection.isValid()) {
+        if (!leadSyncDetection.isLocked()) {
             state = State.RECEIVING_HEADER;
             logging.writeFileParsingInformation("LEAD SYNC ENDED");
             processDataPulse();
@@ -109,7 +109,7 @@ public class PulseExtractor implements IntervalStreamConsumer, PulseStreamProvid
     }
 
     private void processDataPulse() {
-        if (leadSyncDetection.isValid()) {
+        if (leadSyncDetection.isLocked()) {
             state = State.RECEIVING_LEAD_SYNC;
             generatePulse(PulseStreamConsumer.MEDIUM_PULSE);
             return;
@@ -163,12 +163,12 @@ public class PulseExtractor implements IntervalStreamConsumer, PulseStreamProvid
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             currentTransitionLengthInMicroseconds = (int)(transition.secondsSinceLastTransition / MICROSECOND);
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
@@ -22,12 +22,14 @@ import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseUt
 import com.eightbitjim.cassettenibbler.FileStreamConsumer;
 import com.eightbitjim.cassettenibbler.FileStreamProvider;
 import com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction.GenericTapeFile;
+import com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction.PulseSequenceRecogniser;
 import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseExtractiorParameters;
 import com.eightbitjim.cassettenibbler.TapeFile;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.PulseStreamProvider;
 import com.eightbitjim.cassettenibbler.TapeExtractionLogging;
 import com.eightbitjim.cassettenibbler.TapeExtractionOptions;
+import com.eightbitjim.cassettenibbler.TimeBase;
 
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -57,9 +59,8 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
     private List<FileStreamConsumer> fileStreamConsumers;
     private List<PulseStreamConsumer> pulseStreamConsumers;
     private int state;
-    private char [] pulseBuffer;
-    private static final int SIZE_OF_PULSE_BUFFER = 64;
-    private int bufferPointer;
+    private PulseSequenceRecogniser leaderRecogniser;
+    private static final int MINIMUM_LEADER_LENGTH = 63;
     private int bitPointer;
     private int constructingByte;
     private int [] headerBuffer;
@@ -69,7 +70,7 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
     private int syncPulses;
 
     private int numberOfByteErrorsInARow;
-    private int fileCount;
+    private long headerLeaderTimeIndex;
 
     Stack<TapeFile> fileStack;
     SpectrumTapeFile currentFile;
@@ -85,12 +86,11 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
         fileStreamConsumers = new LinkedList<>();
         pulseStreamConsumers = new LinkedList<>();
         state = WAITING_FOR_HEADER_LEADER;
-        pulseBuffer = new char[SIZE_OF_PULSE_BUFFER];
-        bufferPointer = SIZE_OF_PULSE_BUFFER - 1;
+        leaderRecogniser = PulseSequenceRecogniser.forPulsesInARow(PulseStreamConsumer.LONG_PULSE, MINIMUM_LEADER_LENGTH);
         headerBuffer = new int[LENGTH_OF_HEADER];
         fileStack = new Stack<>();
         resetByte();
-        fileCount = 0;
+        headerLeaderTimeIndex = 0;
         leaderIsCurrentlyValid = false;
     }
 
@@ -129,21 +129,10 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
     }
 
     private void updateLeaderDetection(char pulseType) {
-        bufferPointer = (bufferPointer + 1) % SIZE_OF_PULSE_BUFFER;
-        pulseBuffer[bufferPointer] = pulseType;
-
-        for (int i = 0; i < SIZE_OF_PULSE_BUFFER - 1; i++) {
-            int positionToCheck = bufferPointer - 1 - i;
-            if (positionToCheck < 0)
-                positionToCheck += SIZE_OF_PULSE_BUFFER;
-
-            if (pulseBuffer[positionToCheck] != PulseStreamConsumer.LONG_PULSE) {
-                leaderIsCurrentlyValid = false;
-                return;
-            }
-        }
-
-        leaderIsCurrentlyValid = true;
+        // The leader is judged on the pulses before this one
+        leaderIsCurrentlyValid = leaderRecogniser.isRecognised();
+        leaderRecogniser.addPulse(pulseType);
+        currentPulse = pulseType;
     }
 
     private void checkForValidLeader() {
@@ -153,7 +142,7 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
         if (state == WAITING_FOR_HEADER_LEADER) {
             state = HEADER_LEADER_FOUND;
             logging.writeFileParsingInformation("HEADER LEADER DETECTED");
-            fileCount++;
+            headerLeaderTimeIndex = currentTimeIndex;
         }
         else
             state = DATA_LEADER_FOUND;
@@ -303,7 +292,7 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
     }
 
     private void changeCurrentPulseTo(char pulse) {
-        pulseBuffer[bufferPointer] = pulse;
+        currentPulse = pulse;
     }
 
     private void resetStateMachine() {
@@ -408,7 +397,9 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
 
     private void startReceivingOrphanDataBlock() {
         currentFile = new SpectrumTapeFile();
-        currentFile.filename = "headlessFile" + fileCount;
+        // Named after where it is on the tape rather than a count, so that the name is the same when only part of the
+        // tape is decoded, or it is decoded in separate segments
+        currentFile.filename = "headlessFile" + headerLeaderTimeIndex / TimeBase.NANOSECONDS_IN_A_SECOND + "s";
         currentFile.isInError();
         logging.writeFileParsingInformation("FILE NAME: " + currentFile.filename.toUpperCase());
         resetDataBuffer(65535); // Receive maximim size, and finish when there is an error
@@ -467,7 +458,7 @@ public class SpectrumFileStateMachine implements PulseStreamConsumer, FileStream
     }
 
     private char currentPulse() {
-        return pulseBuffer[bufferPointer];
+        return currentPulse;
     }
 
     @Override
@@ -18,19 +18,20 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.Sinclair.Platforms;
 
-import com.eightbitjim.cassettenibbler.Platforms.Sinclair.PulseExtraction.ZX81PulseExtractor;
 import com.eightbitjim.cassettenibbler.DataSink.Directory;
+import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
 import com.eightbitjim.cassettenibbler.Platform;
-import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.Amplify;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.SampleStreamSplitter;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.MultiThresholdIntervalExtractor;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.ByteExtraction.ZX81ByteReader;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.FileExtraction.ZX8081.ZX81FileExtract;
+import com.eightbitjim.cassettenibbler.Platforms.Sinclair.PulseExtraction.ZX81PulseExtractor;
 
 public class ZX80 extends Platform {
 
+    private static final double MINIMUM_VOLUME = 0.000001;
+
     Directory fileCombiner = new Directory();
-    SampleStreamSplitter splitter = new SampleStreamSplitter();
+    MultiThresholdIntervalExtractor intervalExtractor = new MultiThresholdIntervalExtractor();
 
     @Override
     public void initialise(String channelName) {
@@ -39,27 +40,26 @@ public class ZX80 extends Platform {
         double minVolume = -30.0;
         double maxVolume = 30.0;
         double volumeStep = 0.2;
+        double threasholdLine = -0.5;
 
+        // Amplifying by each volume and comparing against the threashold is the same as comparing the
+        // unamplified signal against threashold / volume, so every volume shares one pass over the samples
         for (double volume = minVolume; volume < maxVolume; volume += volumeStep) {
-            Amplify amplifier = new Amplify(volume);
-            ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
+            if (Math.abs(volume) < MINIMUM_VOLUME)
+                continue;
+
+            IntervalStreamProvider intervalStream = intervalExtractor.addThreasholdLine(threasholdLine / volume, volume < 0.0);
             ZX81PulseExtractor pulseExtractor = new ZX81PulseExtractor();
             ZX81ByteReader byteExtractor = new ZX81ByteReader(channelName);
             ZX81FileExtract fileExtractor = new ZX81FileExtract(channelName);
 
-            splitter.registerSampleStreamConsumer(amplifier);
-            amplifier.registerSampleStreamConsumer(intervalExtractor);
-            amplifier.setMultiplier(volume);
-
-            intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
-            intervalExtractor.setThreasholdLine(-0.5);
-
+            intervalStream.registerIntervalStreamConsumer(pulseExtractor);
             pulseExtractor.registerPulseStreamConsumer(byteExtractor);
             byteExtractor.registerByteStreamConsumer(fileExtractor);
             fileExtractor.registerFileStreamConsumer(fileCombiner);
         }
 
-        sampleInput = splitter;
+        sampleInput = intervalExtractor;
         intervalInput = null;
         pulseInput = null;
 
@@ -70,11 +70,6 @@ public class ZX80 extends Platform {
         registerTypes();
     }
 
-    @Override
-    public boolean hasHighProcessingOverhead() {
-        return true;
-    }
-
     public ZX80() {
         super();
 
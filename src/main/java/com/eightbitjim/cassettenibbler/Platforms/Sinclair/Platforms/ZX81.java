@@ -19,20 +19,27 @@
 package com.eightbitjim.cassettenibbler.Platforms.Sinclair.Platforms;
 
 import com.eightbitjim.cassettenibbler.DataSink.Directory;
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.IntervalStreamProvider;
 import com.eightbitjim.cassettenibbler.Platform;
-import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.SampleStreamSplitter;
-import com.eightbitjim.cassettenibbler.Platforms.Sinclair.PulseExtraction.ZX81PulseExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.Amplify;
+import com.eightbitjim.cassettenibbler.PlatformAccessError;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.MultiThresholdIntervalExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ThreasholdLine;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.ByteExtraction.ZX81ByteReader;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.FileExtraction.ZX8081.ZX81FileExtract;
+import com.eightbitjim.cassettenibbler.Platforms.Sinclair.PulseExtraction.ZX81PulseExtractor;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class ZX81 extends Platform {
 
+    private static final double MINIMUM_VOLUME = 0.000001;
+
     Directory fileCombiner = new Directory();
-    SampleStreamSplitter splitter = new SampleStreamSplitter();
+    MultiThresholdIntervalExtractor intervalExtractor = new MultiThresholdIntervalExtractor();
+    List<ZX81PulseExtractor> pulseExtractors = new ArrayList<>();
 
     @Override
     public void initialise(String channelName) {
@@ -41,29 +48,38 @@ public class ZX81 extends Platform {
         double minVolume = -10.0;
         double maxVolume = 10.0;
         double volumeStep = 1.0;
+        double threasholdLine = 0.5;
 
+        // Amplifying by each volume and comparing against the threashold is the same as comparing the
+        // unamplified signal against threashold / volume, so every volume shares one pass over the samples.
+        // The lines are shared interval streams too, so they can be cached like any other platform's.
+        List<ThreasholdLine> threasholdLines = new ArrayList<>();
         for (double volume = minVolume; volume < maxVolume; volume += volumeStep) {
-            Amplify amplifier = new Amplify(volume);
-            ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
+            if (Math.abs(volume) < MINIMUM_VOLUME)
+                continue;
+
+            threasholdLines.add(new ThreasholdLine(threasholdLine / volume, volume < 0.0));
+        }
+
+        intervalStream = new IntervalStreamSpec().setThreasholdLines(threasholdLines);
+
+        // Samples pushed straight to the platform go through its own extractor, built from the same lines
+        for (ThreasholdLine line : intervalStream.getThreasholdLines()) {
+            IntervalStreamProvider lineStream = intervalExtractor.addThreasholdLine(line);
             ZX81PulseExtractor pulseExtractor = new ZX81PulseExtractor();
             ZX81ByteReader byteExtractor = new ZX81ByteReader(channelName);
             ZX81FileExtract fileExtractor = new ZX81FileExtract(channelName);
 
-            splitter.registerSampleStreamConsumer(amplifier);
-            amplifier.registerSampleStreamConsumer(intervalExtractor);
-            amplifier.setMultiplier(volume);
-
-            intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
-            intervalExtractor.setThreasholdLine(0.5);
-
+            lineStream.registerIntervalStreamConsumer(pulseExtractor);
             pulseExtractor.registerPulseStreamConsumer(byteExtractor);
             byteExtractor.registerByteStreamConsumer(fileExtractor);
             fileExtractor.registerFileStreamConsumer(fileCombiner);
-            intervalInput = pulseExtractor;
+            pulseExtractors.add(pulseExtractor);
         }
 
-        sampleInput = splitter;
-        postFilterSampleInput = splitter;
+        sampleInput = intervalExtractor;
+        postFilterSampleInput = intervalExtractor;
+        intervalInput = pulseExtractors.get(0);
         pulseInput = null;
 
         intervalOutput = null;
@@ -74,8 +90,11 @@ public class ZX81 extends Platform {
     }
 
     @Override
-    public boolean hasHighProcessingOverhead() {
-        return true;
+    public IntervalStreamConsumer getIntervalInputPoint(int threasholdLine) throws PlatformAccessError {
+        if (threasholdLine >= 0 && threasholdLine < pulseExtractors.size())
+            return pulseExtractors.get(threasholdLine);
+        else
+            throw new PlatformAccessError("No interval input point for threashold line " + threasholdLine);
     }
 
     public ZX81() {
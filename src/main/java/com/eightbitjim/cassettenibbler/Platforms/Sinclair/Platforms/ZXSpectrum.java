@@ -19,11 +19,11 @@
 package com.eightbitjim.cassettenibbler.Platforms.Sinclair.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.FileExtraction.ZXSpectrum.SpectrumFileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.Sinclair.PulseExtraction.SpectrumPulseExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 
 public class ZXSpectrum extends Platform {
 
@@ -38,18 +38,18 @@ public class ZXSpectrum extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(4800, channelName);
-        HighPass highPass = new HighPass(200, channelName);
+        inputFilters = new FilterChain().lowPass(4800).highPass(200);
+        // No hysteresis band. The short sync pulse is filtered down to a fraction of the pilot tone's level and
+        // even a narrow band swallows it.
+        intervalStream = new IntervalStreamSpec();
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         SpectrumPulseExtractor pulseExtractor = new SpectrumPulseExtractor(channelName);
         SpectrumFileStateMachine fileExtractor = new SpectrumFileStateMachine(channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         pulseInput = fileExtractor;
         pulseOutput = pulseExtractor;
@@ -18,63 +18,14 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.Sinclair.PulseExtraction;
 
-public class SpectrumPilotToneDetection {
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.ToneLockDetector;
+
+public class SpectrumPilotToneDetection extends ToneLockDetector {
     private static final int PILOT_TONE_T_STATES = 2168;
+    private static final int TOLERANCE_IN_T_STATES = 400;
     private static final int maximumPulsesBeforeLosingPilotTone = 3;
-    private int [] pilotToneBuffer;
-    private static final int pilotToneBufferLength = 32;
-    private int pilotToneBufferPointer;
-    private int numberOfPulsesSincePilotToneValid;
-    private double intervalShift;
 
     public SpectrumPilotToneDetection() {
-        pilotToneBuffer = new int[pilotToneBufferLength];
-        pilotToneBufferPointer = 0;
-        numberOfPulsesSincePilotToneValid = Integer.MAX_VALUE;
-        intervalShift = 1.0;
-    }
-
-    public double registerWithPilotToneBufferAndReturnIntervalShift(int currentTransitionLengthInTstates) {
-        pilotToneBuffer[pilotToneBufferPointer] = currentTransitionLengthInTstates;
-        pilotToneBufferPointer = (pilotToneBufferPointer + 1 ) % pilotToneBufferLength;
-        if (pilotToneBufferIsValid())
-            intervalShift = getIntervalShiftMultiplier();
-
-        return intervalShift;
-    }
-
-    private boolean pilotToneBufferIsValid() {
-        for (int i = 0; i < pilotToneBufferLength - 1; i++) {
-            if (!intervalsCountsAsPilotTone(pilotToneBuffer[i], pilotToneBuffer[i + 1])) {
-                numberOfPulsesSincePilotToneValid++;
-                return false;
-            }
-        }
-
-        numberOfPulsesSincePilotToneValid = 0;
-        return true;
-    }
-
-    public boolean pilotToneIsValid() {
-        return numberOfPulsesSincePilotToneValid < maximumPulsesBeforeLosingPilotTone;
-    }
-
-    private double getIntervalShiftMultiplier() {
-        double lastValue = pilotToneBuffer[0];
-        double sum = lastValue;
-        for (int i = 1; i < pilotToneBufferLength; i++) {
-            sum += pilotToneBuffer[i];
-        }
-
-        double average = sum / (double)(pilotToneBufferLength);
-        return (double)PILOT_TONE_T_STATES / average;
-    }
-
-    private boolean intervalsCountsAsPilotTone(int tstate1, int tstate2) {
-        int toleranceInTStates = 400;
-        if (Math.abs((tstate1 + tstate2) - PILOT_TONE_T_STATES * 2) < toleranceInTStates)
-            return true;
-        else
-            return false;
+        super(PILOT_TONE_T_STATES, TOLERANCE_IN_T_STATES, maximumPulsesBeforeLosingPilotTone);
     }
 }
@@ -55,7 +55,7 @@ public class SpectrumPulseExtractor implements IntervalStreamConsumer, PulseStre
     }
 
     public void processInterval() {
-        intervalShiftMultiplier = pilotToneDetection.registerWithPilotToneBufferAndReturnIntervalShift(currentTransitionLengthInTstates);
+        intervalShiftMultiplier = pilotToneDetection.registerIntervalAndReturnIntervalShift(currentTransitionLengthInTstates);
         adjustIntervalToMatchFrequencyShift();
         secondTStateInWave = !secondTStateInWave;
         switch (state) {
@@ -93,7 +93,7 @@ public class SpectrumPulseExtractor implements IntervalStreamConsumer, PulseStre
     }
 
     private void checkForPilotTone() {
-        if (pilotToneDetection.pilotToneIsValid()) {
+        if (pilotToneDetection.isLocked()) {
             state = State.RECEIVING_PILOT_TONE;
         }
     }
@@ -107,7 +107,7 @@ public class SpectrumPulseExtractor implements IntervalStreamConsumer, PulseStre
         }
 
 
-        if (!pilotToneDetection.pilotToneIsValid()) {
+        if (!pilotToneDetection.isLocked()) {
                 state = State.WAITING_FOR_PILOT_TONE;
                 generatePulse(PulseStreamConsumer.SILENCE);
                 return;
@@ -118,7 +118,7 @@ public class SpectrumPulseExtractor implements IntervalStreamConsumer, PulseStre
     }
 
     private void processDataPulse() {
-        if (pilotToneDetection.pilotToneIsValid()) {
+        if (pilotToneDetection.isLocked()) {
             state = State.RECEIVING_PILOT_TONE;
             return;
         }
@@ -173,12 +173,12 @@ public class SpectrumPulseExtractor implements IntervalStreamConsumer, PulseStre
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             currentTransitionLengthInTstates = (int)(transition.secondsSinceLastTransition / TSTATE_IN_SECONDS);
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
@@ -92,9 +92,9 @@ public class ZX81PulseExtractor implements IntervalStreamConsumer, PulseStreamPr
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         this.interval = transition;
-        this.currentTimeIndex = (long)(currentTimeIndex / NANOSECOND);
+        this.currentTimeIndex = currentTimeIndex;
         processInterval();
     }
 
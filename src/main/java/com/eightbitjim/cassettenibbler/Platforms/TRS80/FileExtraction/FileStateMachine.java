@@ -132,7 +132,7 @@ public class FileStateMachine implements FileStreamProvider, PulseStreamConsumer
 
     private void waitingForLeader() {
         leaderRecogniser.addPulse(currentPulse);
-        if (leaderRecogniser.leaderIsValid()) {
+        if (leaderRecogniser.isRecognised()) {
             logging.writeFileParsingInformation("Leader sequence found");
             createNewBlock();
             setState(State.RECEIVING_BLOCK);
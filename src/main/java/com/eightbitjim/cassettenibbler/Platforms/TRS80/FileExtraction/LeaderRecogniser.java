@@ -18,13 +18,10 @@
 
 package com.eightbitjim.cassettenibbler.Platforms.TRS80.FileExtraction;
 
+import com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction.PulseSequenceRecogniser;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 
-public class LeaderRecogniser {
-    private char [] compareWith;
-    private char [] buffer;
-    private int bufferPointer = 0;
-
+public class LeaderRecogniser extends PulseSequenceRecogniser {
     private static final int BYTE_LENGTH = 8;
     private static final char ONE_PULSE = PulseStreamConsumer.SHORT_PULSE;
     private static final char ZERO_PULSE = PulseStreamConsumer.MEDIUM_PULSE;
@@ -32,12 +29,11 @@ public class LeaderRecogniser {
     private static final int [] matchSequence = { 0x55, 0x3c }; // TRS80 leader plus sync
 
     public LeaderRecogniser() {
-        createComparisonBuffer();
-        createInputBuffer();
+        super(createComparisonBuffer());
     }
 
-    private void createComparisonBuffer() {
-        compareWith = new char [matchSequence.length * BYTE_LENGTH];
+    private static char [] createComparisonBuffer() {
+        char [] compareWith = new char [matchSequence.length * BYTE_LENGTH];
         int position = 0;
         while (position < compareWith.length) {
             int currentByteValue = matchSequence[position / 8];
@@ -47,29 +43,7 @@ public class LeaderRecogniser {
 
             position++;
         }
-    }
-
-    private void createInputBuffer() {
-        buffer = new char[compareWith.length];
-    }
-
-    public void reset() {
-        for (int i = 0; i < buffer.length; i++)
-            buffer[i] = 0;
-    }
-
-    public void addPulse(char pulse) {
-        buffer[bufferPointer] = pulse;
-        bufferPointer = (bufferPointer + 1) % buffer.length;
-    }
-
-    public boolean leaderIsValid() {
-        for (int i = 0; i < compareWith.length; i++) {
-            int positionInBuffer = (bufferPointer + i) % buffer.length;
-            if (compareWith[i] != buffer[positionInBuffer])
-                return false;
-        }
 
-        return true;
+        return compareWith;
     }
 }
@@ -19,9 +19,9 @@
 package com.eightbitjim.cassettenibbler.Platforms.TRS80.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.FileExtraction.FileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.FileExtraction.TapeFile;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.PulseExtraction.TRS80PulseExtractor;
@@ -39,18 +39,16 @@ public class Dragon32 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        LowPass lowPass = new LowPass(3000, channelName);
-        HighPass highPass = new HighPass(800, channelName);
+        inputFilters = new FilterChain().lowPass(3000).highPass(800);
+        intervalStream = new IntervalStreamSpec().setHysteresisBand(0.1);
         ZeroCrossingIntervalExtractor intervalExtractor = new ZeroCrossingIntervalExtractor();
         TRS80PulseExtractor pulseExtractor = new TRS80PulseExtractor();
         FileStateMachine fileExtractor = new FileStateMachine(TapeFile.FileType.DRAGON32, channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
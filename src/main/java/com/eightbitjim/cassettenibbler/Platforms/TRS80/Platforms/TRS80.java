@@ -19,16 +19,14 @@
 package com.eightbitjim.cassettenibbler.Platforms.TRS80.Platforms;
 
 import com.eightbitjim.cassettenibbler.Platform;
+import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.IntervalStreamSpec;
 import com.eightbitjim.cassettenibbler.Platforms.General.Demodulation.ZeroCrossingIntervalExtractor;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.HighPass;
-import com.eightbitjim.cassettenibbler.Platforms.General.Filters.LowPass;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.FilterChain;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.FileExtraction.FileStateMachine;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.FileExtraction.TapeFile;
 import com.eightbitjim.cassettenibbler.Platforms.TRS80.PulseExtraction.TRS80PulseExtractor;
 
 public class TRS80 extends Platform {
-    LowPass lowPass;
-    HighPass highPass;
     ZeroCrossingIntervalExtractor intervalExtractor;
     TRS80PulseExtractor pulseExtractor;
     FileStateMachine fileExtractor;
@@ -44,18 +42,16 @@ public class TRS80 extends Platform {
     public void initialise(String channelName) {
         channelName = name + channelName;
 
-        lowPass = new LowPass(3000, channelName);
-        highPass = new HighPass(800, channelName);
+        inputFilters = new FilterChain().lowPass(3000).highPass(800);
+        intervalStream = new IntervalStreamSpec();
         intervalExtractor = new ZeroCrossingIntervalExtractor();
         pulseExtractor = new TRS80PulseExtractor();
         fileExtractor = new FileStateMachine(TapeFile.FileType.TRS80, channelName);
 
-        lowPass.registerSampleStreamConsumer(highPass);
-        highPass.registerSampleStreamConsumer(intervalExtractor);
         intervalExtractor.registerIntervalStreamConsumer(pulseExtractor);
         pulseExtractor.registerPulseStreamConsumer(fileExtractor);
 
-        sampleInput = lowPass;
+        sampleInput = inputFilters.build(channelName, intervalExtractor);
         postFilterSampleInput = intervalExtractor;
         intervalInput = pulseExtractor;
         pulseInput = fileExtractor;
@@ -19,6 +19,7 @@
 package com.eightbitjim.cassettenibbler.Platforms.TRS80.PulseExtraction;
 
 import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseClassifier;
 import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
 import com.eightbitjim.cassettenibbler.PulseStreamProvider;
 import com.eightbitjim.cassettenibbler.Transition;
@@ -37,6 +38,7 @@ public class TRS80PulseExtractor implements IntervalStreamConsumer, PulseStreamP
     private double mediumPulseMinimum;
     private double longPulseMinimum;
     private double longPulseMaximum;
+    private PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
 
     private double intervalShiftMultiplier;
     private static final double percentageDifferenceNotToCountAsSamePulseLength = 10.0;
@@ -71,6 +73,7 @@ public class TRS80PulseExtractor implements IntervalStreamConsumer, PulseStreamP
         mediumPulseMinimum = shortPulseLength + shortPulseLength / 2.0;
         longPulseMinimum = longPulseLength - shortPulseLength / 2.0;
         longPulseMaximum = longPulseLength + (longPulseLength * 2.0);
+        classifier.setUpperLimits(shortPulseMinimum, mediumPulseMinimum, longPulseMinimum, longPulseMaximum);
     }
 
     public void processInterval() {
@@ -89,11 +92,7 @@ public class TRS80PulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     public char getPulseType() {
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < shortPulseMinimum) return PulseStreamConsumer.INVALID_PULSE_TOO_SHORT;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < mediumPulseMinimum) return PulseStreamConsumer.SHORT_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMinimum) return PulseStreamConsumer.MEDIUM_PULSE;
-        if (secondsSinceLastHighToLowTransition * intervalShiftMultiplier < longPulseMaximum) return PulseStreamConsumer.LONG_PULSE;
-        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+        return classifier.getPulseType(secondsSinceLastHighToLowTransition * intervalShiftMultiplier);
     }
 
     @Override
@@ -108,12 +107,12 @@ public class TRS80PulseExtractor implements IntervalStreamConsumer, PulseStreamP
     }
 
     @Override
-    public void pushInterval(Transition transition, double currentTimeIndex) {
+    public void pushInterval(Transition transition, long currentTimeIndex) {
         if (transition.isEndOfStream()) {
             pushEndOfStream();
         } else {
             this.interval = transition;
-            this.currentTimeIndex = (long) (currentTimeIndex / NANOSECOND);
+            this.currentTimeIndex = currentTimeIndex;
             processInterval();
         }
     }
@@ -31,5 +31,12 @@ public interface PulseStreamConsumer {
 
     void pushPulse(char pulseType, long currentTimeIndex);
 
+    // Pushes count pulses at once, each pulse type held in the low byte of symbols[i] with its time index in
+    // timestamps[i]. Consumers that only handle single pulses get them one at a time from here.
+    default void pushPulses(byte [] symbols, long [] timestamps, int count) {
+        for (int i = 0; i < count; i++)
+            pushPulse((char)(symbols[i] & 0xff), timestamps[i]);
+    }
+
     void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters);
 }
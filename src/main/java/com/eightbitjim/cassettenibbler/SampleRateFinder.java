@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler;
+
+// Single samples carry no sample rate, so a consumer that needs one works it out from the time between the first two
+// and keeps it. A block carries its rate, and its last sample counts as the one before any single sample that follows.
+public class SampleRateFinder {
+    private boolean previousSampleTimeIsValid;
+    private double previousSampleTimeInSeconds;
+    private double previousSampleValue;
+
+    // The sample rate implied by a sample at this time, or 0 if there is no earlier sample to measure from
+    public double sampleRateAt(double currentTimeIndex) {
+        if (!previousSampleTimeIsValid || currentTimeIndex <= previousSampleTimeInSeconds)
+            return 0.0;
+
+        return 1.0 / (currentTimeIndex - previousSampleTimeInSeconds);
+    }
+
+    public void samplePushed(double value, double currentTimeIndex) {
+        previousSampleValue = value;
+        previousSampleTimeInSeconds = currentTimeIndex;
+        previousSampleTimeIsValid = true;
+    }
+
+    public void blockPushed(long lastSampleIndex, double sampleRateInHertz) {
+        previousSampleTimeInSeconds = (double)lastSampleIndex / sampleRateInHertz;
+        previousSampleTimeIsValid = true;
+    }
+
+    public double getPreviousSampleValue() {
+        return previousSampleValue;
+    }
+
+    public double getPreviousSampleTimeInSeconds() {
+        return previousSampleTimeInSeconds;
+    }
+
+    public void reset() {
+        previousSampleTimeIsValid = false;
+    }
+}
@@ -20,4 +20,15 @@ package com.eightbitjim.cassettenibbler;
 
 public interface SampleStreamConsumer {
     void push(Sample sample, double currentTimeIndex);
+
+    // The time index of samples[offset + i] is (firstSampleIndex + i) / sampleRateInHertz seconds. End of stream is
+    // still signalled through push(). Consumers that only handle single samples get them one at a time from here.
+    default void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        Sample sample = new Sample();
+        double sampleLengthInSeconds = 1.0 / sampleRateInHertz;
+        for (int i = 0; i < length; i++) {
+            sample.normalizedValue = samples[offset + i];
+            push(sample, (double)(firstSampleIndex + i) * sampleLengthInSeconds);
+        }
+    }
 }
@@ -21,15 +21,16 @@ package com.eightbitjim.cassettenibbler;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
-import java.util.TreeMap;
 
 public class TapeExtractionLogging {
-    private TapeExtractionOptions options = TapeExtractionOptions.getInstance();
-    private static TreeMap<String, TapeExtractionLogging> instances = new TreeMap<>();
+    private TapeExtractionOptions options;
+    private ExtractionMetrics metrics;
     private LoggingChannel channel;
     private static final String LOG_FILENAME_SUFFIX = ".txt";
 
-    private TapeExtractionLogging(String channelName) {
+    TapeExtractionLogging(String channelName, TapeExtractionOptions options, ExtractionMetrics metrics) {
+        this.options = options;
+        this.metrics = metrics;
         channel = new LoggingChannel();
         channel.name = channelName;
 
@@ -46,16 +47,11 @@ public class TapeExtractionLogging {
     }
 
     public static TapeExtractionLogging getInstance(String channelName) {
-        TapeExtractionLogging instance = instances.get(channelName);
-        if(instance == null) {
-            instance = new TapeExtractionLogging(channelName);
-            instances.put(channelName, instance);
-        }
-
-        return instance;
+        return ExtractionContext.current().getLogging(channelName);
     }
 
     public void writeProgramOrEnvironmentError(long nanoseconds, String message) {
+        metrics.recordProgramOrEnvironmentError();
         if (options.getLogVerbosity() != TapeExtractionOptions.LoggingMode.NONE)
             writeLine(nanoseconds, message, true);
     }
@@ -93,6 +89,11 @@ public class TapeExtractionLogging {
         if (options.getLogVerbosity() == TapeExtractionOptions.LoggingMode.FILE_PARSING_PULSES)
             channel.stream.print(pulseType);
     }
+
+    void close() {
+        if (channel.stream != System.err)
+            channel.stream.close();
+    }
 }
 
 class LoggingChannel {
@@ -33,18 +33,21 @@ public class TapeExtractionOptions {
     protected LoggingMode loggingMode;
     protected String logBaseFilename; // Null if not logging to files
 
-    private static TapeExtractionOptions instance = null;
-
     protected TapeExtractionOptions() {
         loggingMode = LoggingMode.NONE;
         logBaseFilename = null; // Don't log to file
     }
 
+    public TapeExtractionOptions(TapeExtractionOptions optionsToCopy) {
+        allowIncorrectFrameChecksums = optionsToCopy.allowIncorrectFrameChecksums;
+        allowIncorrectFileChecksums = optionsToCopy.allowIncorrectFileChecksums;
+        attemptToRecoverCorruptedFiles = optionsToCopy.attemptToRecoverCorruptedFiles;
+        loggingMode = optionsToCopy.loggingMode;
+        logBaseFilename = optionsToCopy.logBaseFilename;
+    }
+
     public static TapeExtractionOptions getInstance() {
-        if(instance == null) {
-            instance = new TapeExtractionOptions();
-        }
-        return instance;
+        return ExtractionContext.current().getOptions();
     }
 
     public String getLogBaseFilename() {
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017. James Lean
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler;
+
+public class TimeBase {
+    public static final long NANOSECONDS_IN_A_SECOND = 1000000000L;
+
+    private double sampleRateInHertz;
+    private double sampleLengthInSeconds;
+    private long wholeSampleRate;
+    private boolean sampleRateIsWholeNumber;
+
+    public TimeBase(double sampleRateInHertz) {
+        setSampleRate(sampleRateInHertz);
+    }
+
+    public void setSampleRate(double sampleRateInHertz) {
+        this.sampleRateInHertz = sampleRateInHertz;
+        sampleLengthInSeconds = 1.0 / sampleRateInHertz;
+        wholeSampleRate = (long)sampleRateInHertz;
+        sampleRateIsWholeNumber = wholeSampleRate > 0 && (double)wholeSampleRate == sampleRateInHertz;
+    }
+
+    public boolean hasSampleRate(double sampleRateInHertz) {
+        return this.sampleRateInHertz == sampleRateInHertz;
+    }
+
+    public double getSampleRate() {
+        return sampleRateInHertz;
+    }
+
+    public double getSampleLengthInSeconds() {
+        return sampleLengthInSeconds;
+    }
+
+    public double secondsAt(long sampleIndex) {
+        return (double)sampleIndex * sampleLengthInSeconds;
+    }
+
+    public double secondsBetween(long earlierSampleIndex, long laterSampleIndex) {
+        return (double)(laterSampleIndex - earlierSampleIndex) * sampleLengthInSeconds;
+    }
+
+    public long nanosecondsAt(long sampleIndex) {
+        if (!sampleRateIsWholeNumber)
+            return (long)(secondsAt(sampleIndex) * (double)NANOSECONDS_IN_A_SECOND);
+
+        // Split into whole seconds and remainder so the result is exact and cannot overflow on long recordings
+        long wholeSeconds = sampleIndex / wholeSampleRate;
+        long remainingSamples = sampleIndex % wholeSampleRate;
+        return wholeSeconds * NANOSECONDS_IN_A_SECOND + remainingSamples * NANOSECONDS_IN_A_SECOND / wholeSampleRate;
+    }
+
+    public static long nanosecondsFromSeconds(double seconds) {
+        return (long)(seconds * (double)NANOSECONDS_IN_A_SECOND);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Transition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalSourceFromTAPInputStreamTest implements IntervalStreamConsumer {
+
+    private static final double C64_PAL_CLOCK = 985248.0;
+    private static final double C64_NTSC_CLOCK = 1022730.0;
+    private static final double C16_PAL_CLOCK = 886724.0;
+    private static final double ALLOWED_ERROR_IN_SECONDS = 1e-12;
+    private static final long ALLOWED_ERROR_IN_NANOSECONDS = 1L;
+
+    private static final int MACHINE_C64 = 0;
+    private static final int MACHINE_C16 = 2;
+    private static final int VIDEO_PAL = 0;
+    private static final int VIDEO_NTSC = 1;
+
+    private List<Double> intervals;
+    private List<Boolean> levels;
+    private List<Long> timeIndexes;
+    private boolean endOfStreamSeen;
+
+    @Before
+    public void individualSetup() {
+        intervals = new ArrayList<>();
+        levels = new ArrayList<>();
+        timeIndexes = new ArrayList<>();
+        endOfStreamSeen = false;
+    }
+
+    @Test
+    public void testVersionOneSplitsEachCycleIntoTwoHalves() throws IOException {
+        readTap(tapFile(1, MACHINE_C64, VIDEO_PAL, 0x30));
+
+        assertEquals("Number of intervals", 2, intervals.size());
+        double halfCycle = 0x30 * 8 / C64_PAL_CLOCK / 2.0;
+        checkInterval(0, halfCycle, false, halfCycle);
+        checkInterval(1, halfCycle, true, halfCycle * 2.0);
+        assertTrue("End of stream pushed", endOfStreamSeen);
+    }
+
+    @Test
+    public void testVersionTwoPushesEachHalfWave() throws IOException {
+        readTap(tapFile(2, MACHINE_C16, VIDEO_PAL, 0x10, 0x20, 0x18));
+
+        assertEquals("Number of intervals", 3, intervals.size());
+        double first = 0x10 * 8 / C16_PAL_CLOCK;
+        double second = 0x20 * 8 / C16_PAL_CLOCK;
+        double third = 0x18 * 8 / C16_PAL_CLOCK;
+        checkInterval(0, first, false, first);
+        checkInterval(1, second, true, first + second);
+        checkInterval(2, third, false, first + second + third);
+    }
+
+    @Test
+    public void testVersionTwoLongHalfWave() throws IOException {
+        int length = 0x012345;
+        readTap(tapFile(2, MACHINE_C16, VIDEO_PAL, 0x00, length & 0xff, (length >> 8) & 0xff, length >> 16, 0x10));
+
+        assertEquals("Number of intervals", 2, intervals.size());
+        double first = length / C16_PAL_CLOCK;
+        double second = 0x10 * 8 / C16_PAL_CLOCK;
+        checkInterval(0, first, false, first);
+        checkInterval(1, second, true, first + second);
+    }
+
+    @Test
+    public void testNTSCClock() throws IOException {
+        readTap(tapFile(1, MACHINE_C64, VIDEO_NTSC, 0x2f, 0x2f));
+
+        assertEquals("Number of intervals", 4, intervals.size());
+        double halfCycle = 0x2f * 8 / C64_NTSC_CLOCK / 2.0;
+        for (int i = 0; i < intervals.size(); i++)
+            checkInterval(i, halfCycle, i % 2 == 1, halfCycle * (i + 1));
+    }
+
+    @Test
+    public void testVersionZeroMarkerIsLongCycle() throws IOException {
+        readTap(tapFile(0, MACHINE_C64, VIDEO_PAL, 0x00));
+
+        assertEquals("Number of intervals", 2, intervals.size());
+        double halfCycle = 255 * 8 * 2 / C64_PAL_CLOCK / 2.0;
+        checkInterval(0, halfCycle, false, halfCycle);
+        checkInterval(1, halfCycle, true, halfCycle * 2.0);
+    }
+
+    private void checkInterval(int index, double lengthInSeconds, boolean transitionedToHigh, double timeIndexInSeconds) {
+        assertEquals("Length of interval " + index, lengthInSeconds, intervals.get(index), ALLOWED_ERROR_IN_SECONDS);
+        assertEquals("Level after interval " + index, transitionedToHigh, levels.get(index));
+        assertEquals("Time index of interval " + index, Math.round(timeIndexInSeconds * 1e9), (long)timeIndexes.get(index),
+                ALLOWED_ERROR_IN_NANOSECONDS);
+    }
+
+    private void readTap(byte [] tapFile) throws IOException {
+        IntervalSourceFromTAPInputStream source = new IntervalSourceFromTAPInputStream(new ByteArrayInputStream(tapFile));
+        source.registerIntervalStreamConsumer(this);
+        source.processStreamToEnd();
+    }
+
+    private static byte [] tapFile(int version, int machine, int videoStandard, int ... data) {
+        ByteArrayOutputStream tapFile = new ByteArrayOutputStream();
+        for (char c : "C64-TAPE-RAW".toCharArray())
+            tapFile.write(c);
+
+        tapFile.write(version);
+        tapFile.write(machine);
+        tapFile.write(videoStandard);
+        tapFile.write(0);
+        for (int i = 0; i < 4; i++)
+            tapFile.write((data.length >> (i * 8)) & 0xff);
+
+        for (int value : data)
+            tapFile.write(value);
+
+        return tapFile.toByteArray();
+    }
+
+    @Override
+    public void pushInterval(Transition transition, long currentTimeIndex) {
+        if (transition.isEndOfStream()) {
+            endOfStreamSeen = true;
+            return;
+        }
+
+        intervals.add(transition.secondsSinceLastTransition);
+        levels.add(transition.transitionedToHigh);
+        timeIndexes.add(currentTimeIndex);
+    }
+}
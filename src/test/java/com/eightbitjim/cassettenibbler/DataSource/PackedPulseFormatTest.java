@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource;
+
+import com.eightbitjim.cassettenibbler.DataSink.PulseStreamFileOutput;
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseExtractiorParameters;
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PackedPulseFormatTest implements PulseStreamConsumer {
+
+    private static final String PULSE_FILENAME = "test.pulses";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String channelName = "channel";
+
+    private StringBuilder pulses;
+    private List<Long> timeIndexes;
+
+    @Before
+    public void individualSetup() {
+        pulses = new StringBuilder();
+        timeIndexes = new ArrayList<>();
+    }
+
+    @Test
+    public void testZigzagRoundTrip() {
+        long [] values = { 0L, 1L, -1L, 7L, -8L, 8L, 1000000000L, -1000000000L, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long value : values) {
+            long encoded = PackedPulseFormat.zigzagEncode(value);
+            assertEquals("Zigzag round trip of " + value, value, PackedPulseFormat.zigzagDecode(encoded));
+        }
+
+        assertEquals("Small negative values stay small", 1L, PackedPulseFormat.zigzagEncode(-1L));
+        assertEquals("Small positive values stay small", 2L, PackedPulseFormat.zigzagEncode(1L));
+    }
+
+    @Test
+    public void testEverySymbolHasItsOwnCode() {
+        char [] symbols = { SHORT_PULSE, MEDIUM_PULSE, LONG_PULSE, INVALID_PULSE_TOO_SHORT, INVALID_PULSE_TOO_LONG, SILENCE, END_OF_STREAM };
+        for (char symbol : symbols) {
+            int code = PackedPulseFormat.codeForPulse(symbol);
+            assertTrue("Code for " + symbol + " is not an escape", code != PackedPulseFormat.ESCAPE);
+            assertEquals("Symbol for code " + code, symbol, PackedPulseFormat.pulseForCode(code));
+        }
+
+        assertEquals("Code for an unknown pulse", PackedPulseFormat.ESCAPE, PackedPulseFormat.codeForPulse('x'));
+    }
+
+    @Test
+    public void testRoundTripKeepsPulsesAndTimestamps() throws IOException {
+        String expectedPulses = "smlsmx'*?\u0101sme";
+        // Deltas either side of each byte boundary of the encoding, a repeated time, and time going back to zero
+        long [] expectedTimes = { 0L, 7L, 8L, 8L, 2055L, 2056L, 264199L, 1000000000000L, 1000000000001L, 0L,
+                123456789L, 123456790L, 123456790L };
+        writePulses(expectedPulses, expectedTimes);
+
+        readPulses(new FileInputStream(pulseFile()), null);
+        assertEquals("Pulses read back", expectedPulses, pulses.toString());
+        for (int i = 0; i < expectedTimes.length; i++)
+            assertEquals("Time index of pulse " + i, expectedTimes[i], (long)timeIndexes.get(i));
+    }
+
+    @Test
+    public void testRegionOfPackedFileByTime() throws IOException {
+        long [] times = { 0L, 1000000000L, 2000000000L, 3000000000L, 4000000000L, 5000000000L };
+        writePulses("smlsme", times);
+
+        readPulses(new FileInputStream(pulseFile()), new TapeRegion().setStart("2").setEnd("4"));
+        assertEquals("Pulses from 2 to 4 seconds", "lse", pulses.toString());
+        assertEquals("Time index of first pulse", 2000000000L, (long)timeIndexes.get(0));
+    }
+
+    @Test
+    public void testRegionOfPackedFileByPulseCount() throws IOException {
+        long [] times = { 0L, 1000000000L, 2000000000L, 3000000000L, 4000000000L, 5000000000L };
+        writePulses("smlsme", times);
+
+        readPulses(new FileInputStream(pulseFile()), new TapeRegion().setStart("1pulses").setEnd("3pulses"));
+        assertEquals("Pulses 1 to 3", "mle", pulses.toString());
+    }
+
+    @Test
+    public void testCharacterFormatCountsPulses() throws IOException {
+        InputStream characters = new ByteArrayInputStream("ssmml".getBytes(StandardCharsets.US_ASCII));
+        PulseSourceFromInputStream source = new PulseSourceFromInputStream(characters);
+        assertFalse("Character file is not packed", source.isPackedFormat());
+
+        readPulses(new ByteArrayInputStream("ssmml".getBytes(StandardCharsets.US_ASCII)), null);
+        assertEquals("Pulses read back", "ssmmle", pulses.toString());
+        for (int i = 0; i < timeIndexes.size(); i++)
+            assertEquals("Time index of pulse " + i, i, (long)timeIndexes.get(i));
+    }
+
+    @Test(expected = IOException.class)
+    public void testCharacterFormatRejectsTimeRegion() throws IOException {
+        PulseSourceFromInputStream source = new PulseSourceFromInputStream(new ByteArrayInputStream("ssmml".getBytes(StandardCharsets.US_ASCII)));
+        source.restrictToRegion(new TapeRegion().setStart("10"));
+    }
+
+    private void writePulses(String pulsesToWrite, long [] times) throws IOException {
+        PulseStreamFileOutput output = new PulseStreamFileOutput(temporaryFolder.getRoot().getPath(), PULSE_FILENAME, channelName);
+        for (int i = 0; i < pulsesToWrite.length(); i++)
+            output.pushPulse(pulsesToWrite.charAt(i), times[i]);
+
+        output.close();
+    }
+
+    private File pulseFile() {
+        return new File(temporaryFolder.getRoot(), PULSE_FILENAME);
+    }
+
+    private void readPulses(InputStream inputStream, TapeRegion region) throws IOException {
+        try {
+            PulseSourceFromInputStream source = new PulseSourceFromInputStream(inputStream);
+            if (region != null)
+                source.restrictToRegion(region);
+
+            source.registerPulseStreamConsumer(this);
+            while (source.getNextPulseAndPushToConsumers() == PulseSourceFromInputStream.SUCCESS)
+                ;
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @Override
+    public void pushPulse(char pulseType, long currentTimeIndex) {
+        pulses.append(pulseType);
+        timeIndexes.add(currentTimeIndex);
+    }
+
+    @Override
+    public void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters) {
+
+    }
+}
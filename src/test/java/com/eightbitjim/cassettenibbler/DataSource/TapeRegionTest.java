@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.DataSource;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TapeRegionTest {
+
+    private static final double SAMPLE_RATE = 44100.0;
+
+    @Test
+    public void testTimeFormats() {
+        assertEquals(90L * 44100L, new TapeRegion().setStart("90").getStartFrame(SAMPLE_RATE));
+        assertEquals(90L * 44100L, new TapeRegion().setStart("1:30").getStartFrame(SAMPLE_RATE));
+        assertEquals(90L * 44100L, new TapeRegion().setStart("1:30s").getStartFrame(SAMPLE_RATE));
+        assertEquals(3723L * 44100L + 22050L, new TapeRegion().setStart("1:02:03.5").getStartFrame(SAMPLE_RATE));
+        assertEquals(22050L, new TapeRegion().setStart(".5").getStartFrame(SAMPLE_RATE));
+        assertEquals(150L * 44100L, new TapeRegion().setStart("150").getStartFrame(SAMPLE_RATE));
+    }
+
+    @Test
+    public void testInvalidTimes() {
+        String [] invalidTimes = { "1:-30", "-30", "0:75", "1:60", "1:60:00", "1.5:30", "1:2:3:4", "", "1:", ":30",
+                "abc", "NaN", "Infinity", "1e3", "0x10" };
+
+        for (String time : invalidTimes) {
+            checkRejected(true, time);
+            checkRejected(false, time);
+        }
+    }
+
+    @Test
+    public void testInvalidCounts() {
+        checkRejected(true, "-5samples");
+        checkRejected(true, "samples");
+        checkRejected(true, "1.5pulses");
+    }
+
+    @Test
+    public void testMixedUnitsAreRejected() {
+        checkMixRejected("1000pulses", "2:00");
+        checkMixRejected("2:00", "1000pulses");
+        checkMixRejected("5samples", "10");
+        checkMixRejected("5samples", "10pulses");
+        checkMixRejected("5pulses", "10samples");
+    }
+
+    @Test
+    public void testEndMayBeGivenBeforeStart() {
+        try {
+            new TapeRegion().setEnd("10").setStart("5samples");
+            fail("A sample count start was accepted with a time end");
+        } catch (NumberFormatException e) {
+        }
+
+        TapeRegion region = new TapeRegion().setEnd("100samples").setStart("5samples");
+        assertEquals(5L, region.getStartFrame(SAMPLE_RATE));
+        assertEquals(100L, region.getEndFrame(SAMPLE_RATE));
+        assertTrue(region.usesSampleCounts());
+    }
+
+    @Test
+    public void testCounts() {
+        TapeRegion region = new TapeRegion().setStart("1000pulses").setEnd("2000pulses");
+        assertTrue(region.usesPulseCounts());
+        assertFalse(region.usesTimeOffsets());
+        assertEquals(1000L, region.getStartCount());
+        assertEquals(2000L, region.getEndCount());
+        assertFalse(region.isEmpty());
+        assertTrue(new TapeRegion().setStart("10pulses").setEnd("10pulses").isEmpty());
+    }
+
+    @Test
+    public void testWholeTape() {
+        TapeRegion region = new TapeRegion();
+        assertTrue(region.isWholeTape());
+        assertEquals(0L, region.getStartFrame(SAMPLE_RATE));
+        assertEquals(Long.MAX_VALUE, region.getEndFrame(SAMPLE_RATE));
+        assertTrue(new TapeRegion().setStart("10").setEnd("5").isEmpty());
+    }
+
+    private void checkRejected(boolean start, String offset) {
+        try {
+            if (start)
+                new TapeRegion().setStart(offset);
+            else
+                new TapeRegion().setEnd(offset);
+
+            fail("Offset was accepted: " + offset);
+        } catch (NumberFormatException e) {
+        }
+    }
+
+    private void checkMixRejected(String startOffset, String endOffset) {
+        try {
+            new TapeRegion().setStart(startOffset).setEnd(endOffset);
+            fail("Region was accepted from " + startOffset + " to " + endOffset);
+        } catch (NumberFormatException e) {
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Pipeline;
+
+import com.eightbitjim.cassettenibbler.Transition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalCacheTest {
+
+    private static final double ALLOWED_ERROR_IN_SECONDS = 1e-9;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String channelName = "channel";
+
+    @Test
+    public void testZigzagRoundTrip() {
+        long [] values = { 0L, 1L, -1L, 63L, -64L, 64L, 22676L, -22676L, Long.MAX_VALUE, Long.MIN_VALUE };
+        for (long value : values)
+            assertEquals("Zigzag round trip of " + value, value, IntervalCache.zigzagDecode(IntervalCache.zigzagEncode(value)));
+    }
+
+    @Test
+    public void testVarintEncoding() throws IOException {
+        assertArrayEquals("Zero", new byte [] { 0 }, varint(0L));
+        assertArrayEquals("Largest single byte", new byte [] { 0x7f }, varint(127L));
+        assertArrayEquals("Smallest two bytes", new byte [] { (byte)0x80, 0x01 }, varint(128L));
+        assertArrayEquals("300", new byte [] { (byte)0xac, 0x02 }, varint(300L));
+        assertEquals("Largest value", 10, varint(-1L).length);
+    }
+
+    @Test
+    public void testRecordedIntervalsReadBack() throws IOException {
+        File cacheFile = new File(temporaryFolder.getRoot(), "stream" + IntervalCache.FILENAME_SUFFIX);
+        IntervalCacheRecorder recorder = new IntervalCacheRecorder(channelName);
+        recorder.recordTo(cacheFile);
+
+        // An interval the same as the time since the last one, one that differs, a long gap and a zero length one
+        double [] intervals = { 0.000250, 0.000500, 0.000123, 12.5, 0.0 };
+        long [] timeIndexes = { 250000L, 750000L, 1000000L, 12501000000L, 12501000000L };
+        for (int i = 0; i < intervals.length; i++)
+            recorder.pushInterval(transition(intervals[i], i % 2 == 0), timeIndexes[i]);
+
+        assertFalse("Nothing is kept before the end of the stream", cacheFile.isFile());
+        recorder.pushInterval(transition(Transition.END_OF_STREAM, true), 12600000000L);
+        assertTrue("Stream is kept once it has ended", cacheFile.isFile());
+
+        IntervalCacheReader reader = new IntervalCacheReader(cacheFile);
+        try {
+            for (int i = 0; i < intervals.length; i++) {
+                assertTrue("Interval " + i + " read back", reader.readNextInterval());
+                assertEquals("Length of interval " + i, intervals[i], reader.getTransition().secondsSinceLastTransition, ALLOWED_ERROR_IN_SECONDS);
+                assertEquals("Level after interval " + i, i % 2 == 0, reader.getTransition().transitionedToHigh);
+                assertEquals("Time index of interval " + i, timeIndexes[i], reader.getTimeIndex());
+            }
+
+            assertTrue("End of stream read back", reader.readNextInterval());
+            assertTrue("End of stream", reader.getTransition().isEndOfStream());
+            assertEquals("Time index of end of stream", 12600000000L, reader.getTimeIndex());
+            assertFalse("Nothing after the end of stream", reader.readNextInterval());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testLongStreamReadsAcrossBuffers() throws IOException {
+        File cacheFile = new File(temporaryFolder.getRoot(), "long" + IntervalCache.FILENAME_SUFFIX);
+        IntervalCacheRecorder recorder = new IntervalCacheRecorder(channelName);
+        recorder.recordTo(cacheFile);
+        int numberOfIntervals = 100000;
+        for (int i = 1; i <= numberOfIntervals; i++)
+            recorder.pushInterval(transition(0.000001 * i, i % 2 == 0), 1000L * i * (i + 1) / 2);
+
+        recorder.pushInterval(transition(Transition.END_OF_STREAM, true), 1000L * numberOfIntervals * (numberOfIntervals + 1) / 2);
+        assertTrue("Stream is bigger than one read buffer", cacheFile.length() > 65536 * 2);
+
+        IntervalCacheReader reader = new IntervalCacheReader(cacheFile);
+        try {
+            for (int i = 1; i <= numberOfIntervals; i++) {
+                assertTrue("Interval " + i + " read back", reader.readNextInterval());
+                assertEquals("Time index of interval " + i, 1000L * i * (i + 1) / 2, reader.getTimeIndex());
+                assertEquals("Length of interval " + i, 0.000001 * i, reader.getTransition().secondsSinceLastTransition, ALLOWED_ERROR_IN_SECONDS);
+            }
+
+            assertTrue("End of stream read back", reader.readNextInterval() && reader.getTransition().isEndOfStream());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testStoppedRecordingIsNotKept() {
+        File cacheFile = new File(temporaryFolder.getRoot(), "stopped" + IntervalCache.FILENAME_SUFFIX);
+        IntervalCacheRecorder recorder = new IntervalCacheRecorder(channelName);
+        recorder.recordTo(cacheFile);
+        recorder.pushInterval(transition(0.001, true), 1000000L);
+        recorder.stopRecording();
+        recorder.pushInterval(transition(Transition.END_OF_STREAM, true), 2000000L);
+
+        assertFalse("Stopped recording is not kept", cacheFile.isFile());
+        assertEquals("Partial file removed", 0, temporaryFolder.getRoot().listFiles().length);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRejectsOtherFiles() throws IOException {
+        File notACacheFile = temporaryFolder.newFile("other" + IntervalCache.FILENAME_SUFFIX);
+        new IntervalCacheReader(notACacheFile);
+    }
+
+    private static Transition transition(double secondsSinceLastTransition, boolean transitionedToHigh) {
+        Transition transition = new Transition();
+        transition.secondsSinceLastTransition = secondsSinceLastTransition;
+        transition.transitionedToHigh = transitionedToHigh;
+        return transition;
+    }
+
+    private static byte [] varint(long value) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        IntervalCache.writeVarint(outputStream, value);
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction.PulseExtractiorParameters;
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.TimeBase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GoertzelFSKDemodulatorTest implements PulseStreamConsumer {
+
+    private static final double SAMPLE_RATE = 44100.0;
+    private static final double LOW_TONE = 1200.0;
+    private static final double HIGH_TONE = 2400.0;
+    private static final int NUMBER_OF_SAMPLES = 4410;
+    private static final long RANDOM_SEED = 1234L;
+
+    private String channelName = "channel";
+
+    private ToneStreamSpec spec;
+    private GoertzelFSKDemodulator demodulator;
+    private List<Character> decisions;
+    private List<Long> timeIndexes;
+
+    @Before
+    public void individualSetup() {
+        spec = new ToneStreamSpec(LOW_TONE, HIGH_TONE);
+        demodulator = new GoertzelFSKDemodulator(spec, channelName);
+        demodulator.registerPulseStreamConsumer(this);
+        decisions = new ArrayList<>();
+        timeIndexes = new ArrayList<>();
+    }
+
+    @Test
+    public void testLowToneGivesLowToneDecisions() {
+        double [] samples = sine(LOW_TONE, NUMBER_OF_SAMPLES, 0.5);
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+
+        assertTrue("Decisions made", decisions.size() > 100);
+        for (int i = 0; i < decisions.size(); i++)
+            assertEquals("Decision " + i, GoertzelFSKDemodulator.LOW_TONE, (char)decisions.get(i));
+    }
+
+    @Test
+    public void testHighToneGivesHighToneDecisions() {
+        double [] samples = sine(HIGH_TONE, NUMBER_OF_SAMPLES, 0.5);
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+
+        assertTrue("Decisions made", decisions.size() > 100);
+        for (int i = 0; i < decisions.size(); i++)
+            assertEquals("Decision " + i, GoertzelFSKDemodulator.HIGH_TONE, (char)decisions.get(i));
+    }
+
+    @Test
+    public void testNoToneGivesSilence() {
+        double [] samples = new double[NUMBER_OF_SAMPLES];
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+
+        assertTrue("Decisions made", decisions.size() > 100);
+        for (int i = 0; i < decisions.size(); i++)
+            assertEquals("Decision " + i, PulseStreamConsumer.SILENCE, (char)decisions.get(i));
+
+        individualSetup();
+        Random random = new Random(RANDOM_SEED);
+        for (int i = 0; i < samples.length; i++)
+            samples[i] = random.nextDouble() - 0.5;
+
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        int silentDecisions = 0;
+        for (char decision : decisions)
+            if (decision == PulseStreamConsumer.SILENCE)
+                silentDecisions++;
+
+        assertTrue("Noise gave " + silentDecisions + " silent decisions out of " + decisions.size(),
+                silentDecisions > decisions.size() * 8 / 10);
+    }
+
+    @Test
+    public void testDecisionFollowsToneChangeAtWindowCentre() {
+        int switchSample = NUMBER_OF_SAMPLES / 2;
+        double [] samples = sine(LOW_TONE, NUMBER_OF_SAMPLES, 0.5);
+        double [] high = sine(HIGH_TONE, NUMBER_OF_SAMPLES, 0.5);
+        System.arraycopy(high, switchSample, samples, switchSample, NUMBER_OF_SAMPLES - switchSample);
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+
+        TimeBase timeBase = new TimeBase(SAMPLE_RATE);
+        long switchTime = timeBase.nanosecondsAt(switchSample);
+        long halfWindow = (long)(spec.getWindowInSeconds() * TimeBase.NANOSECONDS_IN_A_SECOND / 2.0);
+        long firstHighTone = -1;
+        for (int i = 0; i < decisions.size(); i++) {
+            long timeIndex = timeIndexes.get(i);
+            char decision = decisions.get(i);
+            if (timeIndex < switchTime - halfWindow)
+                assertEquals("Decision before switch at " + timeIndex, GoertzelFSKDemodulator.LOW_TONE, decision);
+            else if (timeIndex > switchTime + halfWindow)
+                assertEquals("Decision after switch at " + timeIndex, GoertzelFSKDemodulator.HIGH_TONE, decision);
+
+            if (decision == GoertzelFSKDemodulator.HIGH_TONE && firstHighTone < 0)
+                firstHighTone = timeIndex;
+        }
+
+        assertTrue("First high tone at " + firstHighTone + " for a switch at " + switchTime,
+                Math.abs(firstHighTone - switchTime) <= halfWindow / 4);
+    }
+
+    @Test
+    public void testSingleSamplesGiveSameDecisionsAsBlocks() {
+        double [] samples = sine(LOW_TONE, NUMBER_OF_SAMPLES, 0.5);
+        double [] high = sine(HIGH_TONE, NUMBER_OF_SAMPLES, 0.5);
+        for (int i = NUMBER_OF_SAMPLES / 3; i < NUMBER_OF_SAMPLES * 2 / 3; i++)
+            samples[i] = high[i];
+
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        List<Character> blockDecisions = decisions;
+        List<Long> blockTimeIndexes = timeIndexes;
+
+        individualSetup();
+        Sample sample = new Sample();
+        for (int i = 0; i < samples.length; i++) {
+            sample.setValue(samples[i]);
+            demodulator.push(sample, i / SAMPLE_RATE);
+        }
+
+        assertEquals("Decisions", blockDecisions, decisions);
+        assertEquals("Decision times", blockTimeIndexes, timeIndexes);
+    }
+
+    @Test
+    public void testEndOfStreamIsPassedOn() {
+        double [] samples = sine(LOW_TONE, NUMBER_OF_SAMPLES, 0.5);
+        demodulator.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        Sample sample = new Sample();
+        sample.normalizedValue = Sample.END_OF_STREAM;
+        demodulator.push(sample, NUMBER_OF_SAMPLES / SAMPLE_RATE);
+
+        int last = decisions.size() - 1;
+        assertEquals("Last decision", PulseStreamConsumer.END_OF_STREAM, (char)decisions.get(last));
+        assertEquals("End of stream time", new TimeBase(SAMPLE_RATE).nanosecondsAt(NUMBER_OF_SAMPLES - 1),
+                (long)timeIndexes.get(last));
+    }
+
+    private static double [] sine(double frequency, int numberOfSamples, double amplitude) {
+        double [] samples = new double[numberOfSamples];
+        for (int i = 0; i < numberOfSamples; i++)
+            samples[i] = amplitude * Math.sin(2.0 * Math.PI * frequency * i / SAMPLE_RATE);
+
+        return samples;
+    }
+
+    @Override
+    public void pushPulse(char pulseType, long currentTimeIndex) {
+        decisions.add(pulseType);
+        timeIndexes.add(currentTimeIndex);
+    }
+
+    @Override
+    public void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters) {
+
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.TimeBase;
+import com.eightbitjim.cassettenibbler.Transition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HysteresisIntervalExtractorTest implements IntervalStreamConsumer {
+
+    private static final double SAMPLE_RATE = 44100.0;
+    private static final double HYSTERESIS = 0.2;
+    private static final double FREQUENCY = 1000.0;
+    private static final int NUMBER_OF_SAMPLES = 4410;
+    private static final long NANOSECONDS_PER_HALF_CYCLE = (long)(TimeBase.NANOSECONDS_IN_A_SECOND / FREQUENCY / 2.0);
+    private static final long CROSSING_TIME_TOLERANCE_IN_NANOSECONDS = 1000;
+
+    private HysteresisIntervalExtractor extractor;
+    private List<Double> intervals;
+    private List<Boolean> directions;
+    private List<Long> timeIndexes;
+    private boolean endOfStreamSeen;
+
+    @Before
+    public void individualSetup() {
+        setupWithHysteresis(HYSTERESIS);
+    }
+
+    private void setupWithHysteresis(double hysteresis) {
+        extractor = new HysteresisIntervalExtractor(hysteresis);
+        extractor.registerIntervalStreamConsumer(this);
+        intervals = new ArrayList<>();
+        directions = new ArrayList<>();
+        timeIndexes = new ArrayList<>();
+        endOfStreamSeen = false;
+    }
+
+    @Test
+    public void testNoiseInsideBandIsRejected() {
+        double [] samples = squareWaveWithNoisyEdges();
+        extractor.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+
+        assertEquals("Transitions with hysteresis", 9, intervals.size());
+        for (int i = 0; i < directions.size(); i++)
+            assertEquals("Direction of transition " + i, i % 2 == 0, directions.get(i));
+
+        setupWithHysteresis(0.0);
+        extractor.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        assertTrue("Transitions without hysteresis " + intervals.size(), intervals.size() > 9 * 4);
+    }
+
+    @Test
+    public void testTransitionsAreTimedAtInterpolatedCrossing() {
+        double [] samples = sine(0.0);
+        extractor.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        checkTransitionsAtZeroCrossings();
+    }
+
+    @Test
+    public void testThreasholdLineMovesCrossings() {
+        double offset = 0.3;
+        double [] samples = sine(offset);
+        extractor.setThreasholdLine(offset);
+        extractor.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        checkTransitionsAtZeroCrossings();
+    }
+
+    @Test
+    public void testEndOfStreamClosesLastInterval() {
+        double [] samples = sine(0.0);
+        extractor.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        int transitionsBeforeEnd = intervals.size();
+
+        Sample sample = new Sample();
+        sample.normalizedValue = Sample.END_OF_STREAM;
+        extractor.push(sample, NUMBER_OF_SAMPLES / SAMPLE_RATE);
+
+        assertTrue("End of stream seen", endOfStreamSeen);
+        assertEquals("Final interval pushed", transitionsBeforeEnd + 1, intervals.size());
+        assertEquals("Final interval ends at last sample", new TimeBase(SAMPLE_RATE).nanosecondsAt(NUMBER_OF_SAMPLES - 1),
+                (long)timeIndexes.get(timeIndexes.size() - 1));
+    }
+
+    private void checkTransitionsAtZeroCrossings() {
+        // The first transition only marks where the signal started
+        assertTrue("Transitions found", intervals.size() > 80);
+        for (int i = 1; i < intervals.size(); i++) {
+            long timeIndex = timeIndexes.get(i);
+            long nearestCrossing = Math.round((double)timeIndex / NANOSECONDS_PER_HALF_CYCLE) * NANOSECONDS_PER_HALF_CYCLE;
+            assertEquals("Time of transition " + i, nearestCrossing, timeIndex, CROSSING_TIME_TOLERANCE_IN_NANOSECONDS);
+            assertEquals("Direction of transition " + i, (nearestCrossing / NANOSECONDS_PER_HALF_CYCLE) % 2 == 0,
+                    directions.get(i));
+            if (i > 1)
+                assertEquals("Interval " + i, 0.5 / FREQUENCY, intervals.get(i),
+                        2.0 * CROSSING_TIME_TOLERANCE_IN_NANOSECONDS / TimeBase.NANOSECONDS_IN_A_SECOND);
+        }
+
+        assertFalse("End of stream seen", endOfStreamSeen);
+    }
+
+    private static double [] sine(double offset) {
+        double [] samples = new double[NUMBER_OF_SAMPLES];
+        for (int i = 0; i < NUMBER_OF_SAMPLES; i++)
+            samples[i] = offset + 0.5 * Math.sin(2.0 * Math.PI * FREQUENCY * i / SAMPLE_RATE);
+
+        return samples;
+    }
+
+    // Starts low, then alternates high and low, each edge passing through a stretch of noise that keeps crossing
+    // the line without leaving the hysteresis band
+    private static double [] squareWaveWithNoisyEdges() {
+        int levelLength = 40;
+        int noiseLength = 12;
+        int numberOfLevels = 10;
+        double [] samples = new double[numberOfLevels * (levelLength + noiseLength)];
+        int position = 0;
+        for (int level = 0; level < numberOfLevels; level++) {
+            for (int i = 0; i < levelLength; i++)
+                samples[position++] = level % 2 == 0 ? -0.5 : 0.5;
+
+            for (int i = 0; i < noiseLength; i++)
+                samples[position++] = i % 2 == 0 ? 0.05 : -0.05;
+        }
+
+        return samples;
+    }
+
+    @Override
+    public void pushInterval(Transition transition, long currentTimeIndex) {
+        if (transition.isEndOfStream()) {
+            endOfStreamSeen = true;
+            return;
+        }
+
+        intervals.add(transition.secondsSinceLastTransition);
+        directions.add(transition.transitionedToHigh);
+        timeIndexes.add(currentTimeIndex);
+    }
+}
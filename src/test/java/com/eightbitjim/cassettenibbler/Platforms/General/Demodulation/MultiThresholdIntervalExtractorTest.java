@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Platforms.General.Demodulation;
+
+import com.eightbitjim.cassettenibbler.IntervalStreamConsumer;
+import com.eightbitjim.cassettenibbler.Platforms.General.Filters.Amplify;
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.Transition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiThresholdIntervalExtractorTest {
+
+    private static final double SAMPLE_RATE = 44100.0;
+    private static final int NUMBER_OF_SAMPLES = 20000;
+    private static final long RANDOM_SEED = 1234L;
+
+    // The volumes and threashold the ZX81 platform used to build one amplifier and zero crossing extractor for
+    private static final double MIN_VOLUME = -10.0;
+    private static final double MAX_VOLUME = 10.0;
+    private static final double THREASHOLD_LINE = 0.5;
+
+    private double [] samples;
+    private List<Double> volumes;
+    private List<Amplify> amplifiers;
+    private List<IntervalRecorder> expected;
+    private List<IntervalRecorder> actual;
+    private MultiThresholdIntervalExtractor extractor;
+
+    @Before
+    public void individualSetup() {
+        samples = zx81LikeSignal();
+        volumes = new ArrayList<>();
+        amplifiers = new ArrayList<>();
+        expected = new ArrayList<>();
+        actual = new ArrayList<>();
+        extractor = new MultiThresholdIntervalExtractor();
+
+        for (double volume = MIN_VOLUME; volume < MAX_VOLUME; volume += 1.0) {
+            if (volume == 0.0)
+                continue;
+
+            volumes.add(volume);
+            Amplify amplifier = new Amplify(volume);
+            ZeroCrossingIntervalExtractor zeroCrossing = new ZeroCrossingIntervalExtractor();
+            zeroCrossing.setThreasholdLine(THREASHOLD_LINE);
+            amplifier.registerSampleStreamConsumer(zeroCrossing);
+            IntervalRecorder oldChain = new IntervalRecorder();
+            zeroCrossing.registerIntervalStreamConsumer(oldChain);
+            amplifiers.add(amplifier);
+            expected.add(oldChain);
+
+            IntervalRecorder newStream = new IntervalRecorder();
+            extractor.addThreasholdLine(new ThreasholdLine(THREASHOLD_LINE / volume, volume < 0.0))
+                    .registerIntervalStreamConsumer(newStream);
+            actual.add(newStream);
+        }
+    }
+
+    @Test
+    public void testSharesOneStreamPerThreasholdLine() {
+        assertEquals("Threashold lines", volumes.size(), extractor.getNumberOfThreasholdLines());
+        extractor.addThreasholdLine(new ThreasholdLine(THREASHOLD_LINE, false));
+        extractor.addThreasholdLine(new ThreasholdLine(-THREASHOLD_LINE, true));
+        assertEquals("Threashold lines after adding existing ones", volumes.size(), extractor.getNumberOfThreasholdLines());
+    }
+
+    @Test
+    public void testBlocksMatchAmplifiedZeroCrossings() {
+        int [] blockLengths = { 1, 7, 1000, 3, 4096, 333 };
+        int position = 0;
+        for (int block = 0; position < samples.length; block++) {
+            int length = Math.min(blockLengths[block % blockLengths.length], samples.length - position);
+            for (Amplify amplifier : amplifiers)
+                amplifier.pushBlock(samples, position, length, position, SAMPLE_RATE);
+
+            extractor.pushBlock(samples, position, length, position, SAMPLE_RATE);
+            position += length;
+        }
+
+        pushEndOfStream();
+        checkStreamsMatch();
+    }
+
+    @Test
+    public void testSingleSamplesMatchAmplifiedZeroCrossings() {
+        Sample sample = new Sample();
+        for (int i = 0; i < samples.length; i++) {
+            double timeIndex = i / SAMPLE_RATE;
+            for (Amplify amplifier : amplifiers) {
+                sample.normalizedValue = samples[i];
+                amplifier.push(sample, timeIndex);
+            }
+
+            sample.normalizedValue = samples[i];
+            extractor.push(sample, timeIndex);
+        }
+
+        pushEndOfStream();
+        checkStreamsMatch();
+    }
+
+    private void pushEndOfStream() {
+        Sample sample = new Sample();
+        sample.normalizedValue = Sample.END_OF_STREAM;
+        double timeIndex = samples.length / SAMPLE_RATE;
+        for (Amplify amplifier : amplifiers)
+            amplifier.push(sample, timeIndex);
+
+        extractor.push(sample, timeIndex);
+    }
+
+    private void checkStreamsMatch() {
+        for (int i = 0; i < volumes.size(); i++) {
+            List<String> expectedIntervals = expected.get(i).intervals;
+            assertTrue("Transitions at volume " + volumes.get(i), expectedIntervals.size() > 10);
+            assertEquals("Intervals at volume " + volumes.get(i), expectedIntervals, actual.get(i).intervals);
+        }
+    }
+
+    // A square wave that fades in and out, with noise on top, so quiet and loud volumes both see edges and noise
+    private static double [] zx81LikeSignal() {
+        Random random = new Random(RANDOM_SEED);
+        double [] samples = new double[NUMBER_OF_SAMPLES];
+        for (int i = 0; i < NUMBER_OF_SAMPLES; i++) {
+            double envelope = 0.05 + 0.65 * Math.abs(Math.sin(Math.PI * i / 5000.0));
+            double square = (i / 17) % 2 == 0 ? envelope : -envelope;
+            samples[i] = square + (random.nextDouble() - 0.5) * 0.1;
+        }
+
+        return samples;
+    }
+
+    private static class IntervalRecorder implements IntervalStreamConsumer {
+        List<String> intervals = new ArrayList<>();
+
+        @Override
+        public void pushInterval(Transition transition, long currentTimeIndex) {
+            intervals.add(transition.secondsSinceLastTransition + " " + transition.transitionedToHigh + " " + currentTimeIndex);
+        }
+    }
+}
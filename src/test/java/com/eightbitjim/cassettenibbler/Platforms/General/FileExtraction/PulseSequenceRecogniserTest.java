@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.FileExtraction;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PulseSequenceRecogniserTest {
+
+    private static final long RANDOM_SEED = 1234L;
+    private static final int RANDOM_PULSES = 5000;
+
+    // Sequences whose starts repeat inside them, so a failed match has to fall back to a shorter one
+    private static final String [] OVERLAPPING_SEQUENCES = { "smsms", "ssm", "sssl", "smssms", "ssmssms", "msmsmm", "lslsl" };
+
+    @Test
+    public void testRecognisesSequence() {
+        PulseSequenceRecogniser recogniser = new PulseSequenceRecogniser('s', 'm', 'l');
+        addPulses(recogniser, "sm");
+        assertFalse("Not recognised before the last pulse", recogniser.isRecognised());
+        addPulses(recogniser, "l");
+        assertTrue("Recognised after the last pulse", recogniser.isRecognised());
+        addPulses(recogniser, "s");
+        assertFalse("Not recognised once another pulse arrives", recogniser.isRecognised());
+    }
+
+    @Test
+    public void testFallsBackAfterPartialMatch() {
+        // After "smsm" a further "m" breaks the match, but "sms" then still needs only "ms" more
+        PulseSequenceRecogniser recogniser = new PulseSequenceRecogniser("smsms".toCharArray());
+        addPulses(recogniser, "smsmsm");
+        assertFalse("Partial match broken", recogniser.isRecognised());
+        addPulses(recogniser, "s");
+        assertTrue("Recognised from the overlapping part of the broken match", recogniser.isRecognised());
+        addPulses(recogniser, "ms");
+        assertTrue("Overlapping repeat recognised", recogniser.isRecognised());
+    }
+
+    @Test
+    public void testPulsesInARow() {
+        PulseSequenceRecogniser recogniser = PulseSequenceRecogniser.forPulsesInARow('s', 4);
+        addPulses(recogniser, "sssmsss");
+        assertFalse("Three in a row after a break", recogniser.isRecognised());
+        addPulses(recogniser, "s");
+        assertTrue("Four in a row", recogniser.isRecognised());
+        addPulses(recogniser, "s");
+        assertTrue("Still four in a row", recogniser.isRecognised());
+    }
+
+    @Test
+    public void testUnknownPulseStartsAgain() {
+        PulseSequenceRecogniser recogniser = new PulseSequenceRecogniser("ssm".toCharArray());
+        addPulses(recogniser, "ss*m");
+        assertFalse("Unknown pulse breaks the match", recogniser.isRecognised());
+        addPulses(recogniser, "ssm");
+        assertTrue("Recognised after starting again", recogniser.isRecognised());
+    }
+
+    @Test
+    public void testReset() {
+        PulseSequenceRecogniser recogniser = new PulseSequenceRecogniser("ssm".toCharArray());
+        addPulses(recogniser, "ss");
+        recogniser.reset();
+        addPulses(recogniser, "m");
+        assertFalse("Nothing matched from before the reset", recogniser.isRecognised());
+    }
+
+    @Test
+    public void testOverlappingSequencesMatchEndOfRecentPulses() {
+        for (String sequence : OVERLAPPING_SEQUENCES) {
+            checkAgainstRecentPulses(sequence, sequence + sequence.substring(1) + sequence);
+            checkAgainstRecentPulses(sequence, randomPulses(sequence, new Random(RANDOM_SEED + sequence.hashCode())));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptySequence() {
+        new PulseSequenceRecogniser();
+    }
+
+    // Compares with checking whether the pulses so far end with the sequence, which is what the recogniser replaces
+    private void checkAgainstRecentPulses(String sequence, String pulses) {
+        PulseSequenceRecogniser recogniser = new PulseSequenceRecogniser(sequence.toCharArray());
+        for (int i = 0; i < pulses.length(); i++) {
+            recogniser.addPulse(pulses.charAt(i));
+            boolean expected = pulses.substring(0, i + 1).endsWith(sequence);
+            assertEquals("Sequence " + sequence + " after pulse " + i + " of " + pulses.substring(0, i + 1),
+                    expected, recogniser.isRecognised());
+        }
+    }
+
+    private static String randomPulses(String sequence, Random random) {
+        // Mostly pulses from the sequence, so that partial matches are common, with the odd other pulse
+        String pulseTypes = sequence + "?";
+        StringBuilder pulses = new StringBuilder();
+        for (int i = 0; i < RANDOM_PULSES; i++)
+            pulses.append(pulseTypes.charAt(random.nextInt(pulseTypes.length())));
+
+        return pulses.toString();
+    }
+
+    private static void addPulses(PulseSequenceRecogniser recogniser, String pulses) {
+        for (char pulse : pulses.toCharArray())
+            recogniser.addPulse(pulse);
+    }
+}
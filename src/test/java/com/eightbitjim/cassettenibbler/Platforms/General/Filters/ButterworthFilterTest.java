@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ButterworthFilterTest implements SampleStreamConsumer {
+
+    private static final double SAMPLE_RATE = 44100.0;
+    private static final int NUMBER_OF_SAMPLES = 44100;
+    private static final double BUTTERWORTH_Q = Math.sqrt(0.5);
+    private static final double GAIN_AT_CUTOFF = Math.sqrt(0.5);
+    private static final double ALLOWED_GAIN_ERROR = 0.01;
+
+    private String channelName = "channel";
+
+    private double [] output;
+    private int outputLength;
+
+    @Before
+    public void individualSetup() {
+        output = new double[NUMBER_OF_SAMPLES];
+        outputLength = 0;
+    }
+
+    @Test
+    public void testBiquadLowPassResponse() {
+        assertGain("Biquad low pass at DC", 1.0, Biquad.lowPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE), 0.0);
+        assertGain("Biquad low pass at cutoff", GAIN_AT_CUTOFF, Biquad.lowPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE), 1000.0);
+        assertGain("Biquad low pass at 10 times cutoff", 0.01, Biquad.lowPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE), 10000.0);
+    }
+
+    @Test
+    public void testBiquadHighPassResponse() {
+        assertGain("Biquad high pass at cutoff", GAIN_AT_CUTOFF, Biquad.highPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE), 1000.0);
+        assertGain("Biquad high pass at 10 times cutoff", 1.0, Biquad.highPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE), 10000.0);
+        assertGain("Biquad high pass at a tenth of cutoff", 0.01, Biquad.highPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE), 100.0);
+    }
+
+    @Test
+    public void testBiquadBlockMatchesSingleSamples() {
+        double [] samples = sine(3000.0, 1000);
+        double [] block = samples.clone();
+        Biquad singleSamples = Biquad.lowPass(2000.0, BUTTERWORTH_Q, SAMPLE_RATE);
+        Biquad blocks = Biquad.lowPass(2000.0, BUTTERWORTH_Q, SAMPLE_RATE);
+        blocks.filter(block, 0, 300);
+        blocks.filter(block, 300, block.length - 300);
+        for (int i = 0; i < samples.length; i++)
+            assertEquals("Sample " + i, singleSamples.filter(samples[i]), block[i], 1e-12);
+    }
+
+    @Test
+    public void testBiquadSettlesAtLevel() {
+        Biquad lowPass = Biquad.lowPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE);
+        assertEquals("Low pass settles at the input level", 0.5, lowPass.settleAt(0.5), 1e-12);
+        for (int i = 0; i < 100; i++)
+            assertEquals("Low pass stays at a steady input", 0.5, lowPass.filter(0.5), 1e-12);
+
+        Biquad highPass = Biquad.highPass(1000.0, BUTTERWORTH_Q, SAMPLE_RATE);
+        assertEquals("High pass settles at zero", 0.0, highPass.settleAt(0.5), 1e-12);
+        assertEquals("High pass stays at zero", 0.0, highPass.filter(0.5), 1e-12);
+    }
+
+    @Test
+    public void testLowPassResponse() {
+        int order = ButterworthFilter.DEFAULT_ORDER;
+        assertGain("Low pass at half cutoff", 1.0 / Math.sqrt(1.0 + Math.pow(0.5, 2 * order)), ButterworthFilter.lowPass(2000.0, order, channelName), 1000.0);
+        assertGain("Low pass at cutoff", GAIN_AT_CUTOFF, ButterworthFilter.lowPass(2000.0, order, channelName), 2000.0);
+        assertGain("Low pass at twice cutoff", 1.0 / Math.sqrt(1.0 + Math.pow(2.0, 2 * order)), ButterworthFilter.lowPass(2000.0, order, channelName), 4000.0);
+    }
+
+    @Test
+    public void testHigherOrderIsSteeper() {
+        assertGain("Eighth order low pass at cutoff", GAIN_AT_CUTOFF, ButterworthFilter.lowPass(2000.0, 8, channelName), 2000.0);
+        assertGain("Eighth order low pass at twice cutoff", 1.0 / Math.sqrt(1.0 + Math.pow(2.0, 16)), ButterworthFilter.lowPass(2000.0, 8, channelName), 4000.0);
+    }
+
+    @Test
+    public void testHighPassResponse() {
+        int order = ButterworthFilter.DEFAULT_ORDER;
+        assertGain("High pass at cutoff", GAIN_AT_CUTOFF, ButterworthFilter.highPass(500.0, order, channelName), 500.0);
+        assertGain("High pass at twice cutoff", 1.0 / Math.sqrt(1.0 + Math.pow(0.5, 2 * order)), ButterworthFilter.highPass(500.0, order, channelName), 1000.0);
+        assertGain("High pass at half cutoff", 1.0 / Math.sqrt(1.0 + Math.pow(2.0, 2 * order)), ButterworthFilter.highPass(500.0, order, channelName), 250.0);
+    }
+
+    @Test
+    public void testBandPassResponse() {
+        int order = ButterworthFilter.DEFAULT_ORDER;
+        assertGain("Band pass in the middle", 1.0, ButterworthFilter.bandPass(300.0, 4800.0, order, channelName), 1200.0);
+        assertGain("Band pass at lower edge", GAIN_AT_CUTOFF, ButterworthFilter.bandPass(300.0, 4800.0, order, channelName), 300.0);
+        assertGain("Band pass at upper edge", GAIN_AT_CUTOFF, ButterworthFilter.bandPass(300.0, 4800.0, order, channelName), 4800.0);
+        assertGain("Band pass below the band", 0.01, ButterworthFilter.bandPass(300.0, 4800.0, order, channelName), 60.0);
+        assertGain("Band pass above the band", 0.01, ButterworthFilter.bandPass(300.0, 4800.0, order, channelName), 16000.0);
+    }
+
+    @Test
+    public void testStartsWithoutRinging() {
+        ButterworthFilter filter = ButterworthFilter.lowPass(2000.0, ButterworthFilter.DEFAULT_ORDER, channelName);
+        filter.registerSampleStreamConsumer(this);
+        double [] steadyLevel = new double[1000];
+        Arrays.fill(steadyLevel, 0.25);
+        filter.pushBlock(steadyLevel, 0, steadyLevel.length, 0, SAMPLE_RATE);
+        for (int i = 0; i < outputLength; i++)
+            assertEquals("Output sample " + i, 0.25, output[i], 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsBandPassEdgesInWrongOrder() {
+        ButterworthFilter.bandPass(4800.0, 300.0, ButterworthFilter.DEFAULT_ORDER, channelName);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsOddOrder() {
+        ButterworthFilter.lowPass(2000.0, 3, channelName);
+    }
+
+    private void assertGain(String message, double expectedGain, Biquad biquad, double frequency) {
+        double [] samples = frequency == 0.0 ? constant(NUMBER_OF_SAMPLES) : sine(frequency, NUMBER_OF_SAMPLES);
+        biquad.filter(samples, 0, samples.length);
+        checkGain(message, expectedGain, samples, samples.length);
+    }
+
+    private void assertGain(String message, double expectedGain, ButterworthFilter filter, double frequency) {
+        individualSetup();
+        filter.registerSampleStreamConsumer(this);
+        double [] samples = sine(frequency, NUMBER_OF_SAMPLES);
+        filter.pushBlock(samples, 0, samples.length, 0, SAMPLE_RATE);
+        checkGain(message, expectedGain, output, outputLength);
+    }
+
+    // Gain is the peak level over the second half, once the filter has settled
+    private static void checkGain(String message, double expectedGain, double [] samples, int length) {
+        double peak = 0.0;
+        for (int i = length / 2; i < length; i++)
+            peak = Math.max(peak, Math.abs(samples[i]));
+
+        if (expectedGain <= ALLOWED_GAIN_ERROR)
+            assertTrue(message + ": gain " + peak + " should be below " + expectedGain, peak < expectedGain);
+        else
+            assertEquals(message, expectedGain, peak, ALLOWED_GAIN_ERROR);
+    }
+
+    private static double [] sine(double frequency, int numberOfSamples) {
+        double [] samples = new double[numberOfSamples];
+        for (int i = 0; i < numberOfSamples; i++)
+            samples[i] = Math.sin(2.0 * Math.PI * frequency * i / SAMPLE_RATE);
+
+        return samples;
+    }
+
+    private static double [] constant(int numberOfSamples) {
+        double [] samples = new double[numberOfSamples];
+        Arrays.fill(samples, 1.0);
+        return samples;
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        System.arraycopy(samples, offset, output, outputLength, length);
+        outputLength += length;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.Filters;
+
+import com.eightbitjim.cassettenibbler.Sample;
+import com.eightbitjim.cassettenibbler.SampleStreamConsumer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DecimatorTest implements SampleStreamConsumer {
+
+    private static final double TARGET_SAMPLE_RATE = 44100.0;
+    private static final double HIGH_SAMPLE_RATE = 176400.0;
+    private static final int FACTOR = 4;
+    private static final int NUMBER_OF_SAMPLES = 40000;
+
+    private String channelName = "channel";
+
+    private Decimator decimator;
+    private List<Double> output;
+    private long firstOutputIndex;
+    private double outputSampleRate;
+
+    @Before
+    public void individualSetup() {
+        decimator = new Decimator(TARGET_SAMPLE_RATE, channelName);
+        decimator.registerSampleStreamConsumer(this);
+        output = new ArrayList<>();
+        firstOutputIndex = -1;
+        outputSampleRate = 0.0;
+    }
+
+    @Test
+    public void testPassesTargetRateThroughUntouched() {
+        double [] samples = sine(1000.0, TARGET_SAMPLE_RATE, 1000);
+        decimator.pushBlock(samples, 0, samples.length, 0, TARGET_SAMPLE_RATE);
+
+        assertEquals("Factor at the target rate", 1, decimator.getFactor());
+        assertEquals("Sample rate passed through", TARGET_SAMPLE_RATE, outputSampleRate, 0.0);
+        assertEquals("Samples passed through", samples.length, output.size());
+        for (int i = 0; i < samples.length; i++)
+            assertEquals("Sample " + i + " passed through", samples[i], output.get(i), 0.0);
+    }
+
+    @Test
+    public void testReducesByWholeFactor() {
+        double [] samples = sine(1000.0, HIGH_SAMPLE_RATE, NUMBER_OF_SAMPLES);
+        decimator.pushBlock(samples, 0, samples.length, 0, HIGH_SAMPLE_RATE);
+
+        assertEquals("Factor for " + HIGH_SAMPLE_RATE + "hz", FACTOR, decimator.getFactor());
+        assertEquals("Output sample rate", TARGET_SAMPLE_RATE, outputSampleRate, 0.0);
+        assertTrue("Number of output samples " + output.size(),
+                Math.abs(output.size() - NUMBER_OF_SAMPLES / FACTOR) <= 24);
+    }
+
+    @Test
+    public void testKeepsTimingAndLevelOfPassband() {
+        double frequency = 2000.0;
+        double [] samples = sine(frequency, HIGH_SAMPLE_RATE, NUMBER_OF_SAMPLES);
+        decimator.pushBlock(samples, 0, samples.length, 0, HIGH_SAMPLE_RATE);
+
+        // Ignore the ends, where the filter is filling up or has not caught up with the input
+        for (int i = 100; i < output.size() - 100; i++) {
+            double timeIndex = (firstOutputIndex + i) / outputSampleRate;
+            double expected = Math.sin(2.0 * Math.PI * frequency * timeIndex);
+            assertEquals("Output sample " + i, expected, output.get(i), 0.01);
+        }
+    }
+
+    @Test
+    public void testRemovesFrequenciesAboveOutputNyquist() {
+        double [] samples = sine(30000.0, HIGH_SAMPLE_RATE, NUMBER_OF_SAMPLES);
+        decimator.pushBlock(samples, 0, samples.length, 0, HIGH_SAMPLE_RATE);
+
+        double peak = 0.0;
+        for (int i = 100; i < output.size() - 100; i++)
+            peak = Math.max(peak, Math.abs(output.get(i)));
+
+        assertTrue("Alias of 30khz tone has level " + peak, peak < 0.01);
+    }
+
+    @Test
+    public void testBlockBoundariesDoNotChangeOutput() {
+        double [] samples = sine(3000.0, HIGH_SAMPLE_RATE, NUMBER_OF_SAMPLES);
+        decimator.pushBlock(samples, 0, samples.length, 0, HIGH_SAMPLE_RATE);
+        List<Double> inOneBlock = output;
+        long firstIndexInOneBlock = firstOutputIndex;
+
+        individualSetup();
+        int [] blockLengths = { 1, 7, 1000, 3, 4096, 333 };
+        int position = 0;
+        for (int block = 0; position < samples.length; block++) {
+            int length = Math.min(blockLengths[block % blockLengths.length], samples.length - position);
+            decimator.pushBlock(samples, position, length, position, HIGH_SAMPLE_RATE);
+            position += length;
+        }
+
+        assertEquals("First output index", firstIndexInOneBlock, firstOutputIndex);
+        assertEquals("Number of output samples", inOneBlock.size(), output.size());
+        for (int i = 0; i < output.size(); i++)
+            assertEquals("Output sample " + i, inOneBlock.get(i), output.get(i), 1e-12);
+    }
+
+    private static double [] sine(double frequency, double sampleRate, int numberOfSamples) {
+        double [] samples = new double[numberOfSamples];
+        for (int i = 0; i < numberOfSamples; i++)
+            samples[i] = Math.sin(2.0 * Math.PI * frequency * i / sampleRate);
+
+        return samples;
+    }
+
+    @Override
+    public void push(Sample sample, double currentTimeIndex) {
+
+    }
+
+    @Override
+    public void pushBlock(double [] samples, int offset, int length, long firstSampleIndex, double sampleRateInHertz) {
+        if (firstOutputIndex < 0)
+            firstOutputIndex = firstSampleIndex;
+
+        assertEquals("Blocks follow on from each other", firstOutputIndex + output.size(), firstSampleIndex);
+        outputSampleRate = sampleRateInHertz;
+        for (int i = 0; i < length; i++)
+            output.add(samples[offset + i]);
+    }
+}
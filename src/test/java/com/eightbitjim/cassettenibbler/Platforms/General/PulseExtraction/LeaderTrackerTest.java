@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeaderTrackerTest {
+
+    private static final long RANDOM_SEED = 1234L;
+    private static final int RANDOM_PULSES = 20000;
+    private static final int [] BUFFER_LENGTHS = { 2, 3, 16, 64 };
+    private static final double [] PERCENTAGES = { 5.0, 15.0, 30.0 };
+    private static final double SHORT_PULSE = 0.000352;
+
+    @Test
+    public void testEmptyBufferIsSteady() {
+        // The buffer starts full of zero lengths, which the rescan also treated as even
+        LeaderTracker tracker = new LeaderTracker(8, 10.0);
+        assertTrue("Starting buffer", tracker.isSteady());
+        assertEquals("Starting average", 0.0, tracker.getAveragePulseLength(), 0.0);
+    }
+
+    @Test
+    public void testSteadyOnceBufferIsFull() {
+        LeaderTracker tracker = new LeaderTracker(8, 10.0);
+        for (int i = 0; i < 7; i++) {
+            tracker.addPulseLength(SHORT_PULSE);
+            assertFalse("Zero length left in buffer after " + (i + 1) + " pulses", tracker.isSteady());
+        }
+
+        tracker.addPulseLength(SHORT_PULSE);
+        assertTrue("Buffer full of even pulses", tracker.isSteady());
+        assertEquals("Average", SHORT_PULSE, tracker.getAveragePulseLength(), 1e-15);
+    }
+
+    @Test
+    public void testOneUnevenPulseBreaksLeaderUntilItLeaves() {
+        LeaderTracker tracker = new LeaderTracker(8, 10.0);
+        addPulses(tracker, SHORT_PULSE, 8);
+        tracker.addPulseLength(SHORT_PULSE * 2.0);
+        assertFalse("Uneven pulse in buffer", tracker.isSteady());
+        addPulses(tracker, SHORT_PULSE, 7);
+        assertFalse("Uneven pulse still in buffer", tracker.isSteady());
+        addPulses(tracker, SHORT_PULSE, 1);
+        assertTrue("Uneven pulse replaced", tracker.isSteady());
+    }
+
+    @Test
+    public void testMatchesRescanOnRandomPulses() {
+        Random random = new Random(RANDOM_SEED);
+        for (int bufferLength : BUFFER_LENGTHS) {
+            for (double percentage : PERCENTAGES)
+                checkAgainstRescan(bufferLength, percentage, random);
+        }
+    }
+
+    // Compares with rescanning the whole buffer after every pulse, as the pulse extractors did before
+    private void checkAgainstRescan(int bufferLength, double percentage, Random random) {
+        LeaderTracker tracker = new LeaderTracker(bufferLength, percentage);
+        double [] buffer = new double[bufferLength];
+        int pointer = 0;
+        int steadyCount = 0;
+        double pulseLength = SHORT_PULSE;
+
+        for (int i = 0; i < RANDOM_PULSES; i++) {
+            pulseLength = nextPulseLength(pulseLength, percentage, bufferLength, random);
+            tracker.addPulseLength(pulseLength);
+            buffer[pointer] = pulseLength;
+            pointer = (pointer + 1) % bufferLength;
+
+            String message = "Buffer " + bufferLength + " at " + percentage + "% after pulse " + i;
+            double expectedAverage = averageIfSteady(buffer, percentage);
+            boolean expectedSteady = !Double.isNaN(expectedAverage);
+            assertEquals(message, expectedSteady, tracker.isSteady());
+            if (expectedSteady) {
+                assertEquals(message, expectedAverage, tracker.getAveragePulseLength(), expectedAverage * 1e-9);
+                steadyCount++;
+            }
+        }
+
+        assertTrue("Leader found at some point with buffer " + bufferLength + " at " + percentage + "%", steadyCount > 0);
+        assertTrue("Leader broken at some point with buffer " + bufferLength + " at " + percentage + "%",
+                steadyCount < RANDOM_PULSES);
+    }
+
+    private static double nextPulseLength(double previous, double percentage, int bufferLength, Random random) {
+        // Runs of even pulses long enough to fill the buffer, broken by pulses either side of the tolerance and
+        // the odd jump to another speed, so that both outcomes are common
+        int chance = random.nextInt(bufferLength * 4);
+        if (chance == 0)
+            return SHORT_PULSE * (0.5 + random.nextDouble() * 2.0);
+
+        double largestChange = chance < 3 ? 1.1 : 0.5;
+        double change = (random.nextDouble() * 2.0 - 1.0) * percentage / 100.0 * largestChange;
+        return Math.min(Math.max(previous * (1.0 + change), SHORT_PULSE * 0.25), SHORT_PULSE * 4.0);
+    }
+
+    private static double averageIfSteady(double [] buffer, double percentage) {
+        double lastValue = buffer[0];
+        double sum = lastValue;
+        for (int i = 1; i < buffer.length; i++) {
+            double differenceFromLastPulseLength = Math.abs(buffer[i] - lastValue);
+            lastValue = buffer[i];
+            sum += lastValue;
+            if (differenceFromLastPulseLength / lastValue * 100.0 > percentage)
+                return Double.NaN;
+        }
+
+        return sum / (double)buffer.length;
+    }
+
+    private static void addPulses(LeaderTracker tracker, double pulseLength, int count) {
+        for (int i = 0; i < count; i++)
+            tracker.addPulseLength(pulseLength);
+    }
+}
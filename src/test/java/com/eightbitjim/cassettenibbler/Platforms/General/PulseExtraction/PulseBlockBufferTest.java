@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PulseBlockBufferTest {
+
+    private static final int BLOCK_LENGTH = 4;
+
+    private BlockRecorder blockConsumer;
+    private PulseRecorder pulseConsumer;
+    private PulseBlockBuffer buffer;
+    private long timeIndex;
+
+    @Before
+    public void individualSetup() {
+        blockConsumer = new BlockRecorder();
+        pulseConsumer = new PulseRecorder();
+        List<PulseStreamConsumer> consumers = new ArrayList<>();
+        consumers.add(blockConsumer);
+        consumers.add(pulseConsumer);
+        buffer = new PulseBlockBuffer(consumers, BLOCK_LENGTH);
+        timeIndex = 0;
+    }
+
+    @Test
+    public void testFullBlockIsFlushed() {
+        addPulses("sls");
+        assertEquals("Blocks before the block is full", 0, blockConsumer.blocks.size());
+        assertEquals("Pulses before the block is full", "", pulseConsumer.pulses.toString());
+
+        addPulses("m");
+        assertEquals("Blocks", Arrays.asList("slsm"), blockConsumer.blocks);
+
+        addPulses("ssllm");
+        assertEquals("Blocks", Arrays.asList("slsm", "ssll"), blockConsumer.blocks);
+
+        buffer.flush();
+        assertEquals("Blocks after flush", Arrays.asList("slsm", "ssll", "m"), blockConsumer.blocks);
+        buffer.flush();
+        assertEquals("Blocks after flushing an empty block", 3, blockConsumer.blocks.size());
+    }
+
+    @Test
+    public void testEndOfStreamClosesBlock() {
+        addPulses("sl" + PulseStreamConsumer.END_OF_STREAM);
+        assertEquals("Blocks", Arrays.asList("sl" + PulseStreamConsumer.END_OF_STREAM), blockConsumer.blocks);
+
+        addPulses("s");
+        buffer.flush();
+        assertEquals("Blocks after the end of stream", 2, blockConsumer.blocks.size());
+    }
+
+    @Test
+    public void testPulsesThatCanEndAFileCloseBlock() {
+        addPulses("s" + PulseStreamConsumer.SILENCE + "l" + PulseStreamConsumer.INVALID_PULSE_TOO_LONG
+                + PulseStreamConsumer.INVALID_PULSE_TOO_SHORT + "m");
+        assertEquals("Blocks", Arrays.asList("s" + PulseStreamConsumer.SILENCE, "l" + PulseStreamConsumer.INVALID_PULSE_TOO_LONG),
+                blockConsumer.blocks);
+    }
+
+    @Test
+    public void testSinglePulseConsumerGetsEveryPulseInOrder() {
+        String pulses = "slsmssll" + PulseStreamConsumer.SILENCE + "ls" + PulseStreamConsumer.END_OF_STREAM + "mm";
+        addPulses(pulses);
+        buffer.flush();
+
+        assertEquals("Pulses pushed one at a time", pulses, pulseConsumer.pulses.toString());
+        assertEquals("Pulses pushed in blocks", pulses, String.join("", blockConsumer.blocks));
+        assertEquals("Time indexes pushed one at a time", blockConsumer.timeIndexes, pulseConsumer.timeIndexes);
+        for (int i = 0; i < pulses.length(); i++)
+            assertEquals("Time index " + i, i * 1000L, (long)pulseConsumer.timeIndexes.get(i));
+    }
+
+    private void addPulses(String pulses) {
+        for (char pulse : pulses.toCharArray()) {
+            buffer.addPulse(pulse, timeIndex);
+            timeIndex += 1000;
+        }
+    }
+
+    private static class BlockRecorder implements PulseStreamConsumer {
+        List<String> blocks = new ArrayList<>();
+        List<Long> timeIndexes = new ArrayList<>();
+
+        @Override
+        public void pushPulses(byte [] symbols, long [] timestamps, int count) {
+            StringBuilder block = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                block.append((char)(symbols[i] & 0xff));
+                timeIndexes.add(timestamps[i]);
+            }
+
+            blocks.add(block.toString());
+        }
+
+        @Override
+        public void pushPulse(char pulseType, long currentTimeIndex) {
+            throw new IllegalStateException("Pulse pushed outside a block");
+        }
+
+        @Override
+        public void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters) {
+
+        }
+    }
+
+    private static class PulseRecorder implements PulseStreamConsumer {
+        StringBuilder pulses = new StringBuilder();
+        List<Long> timeIndexes = new ArrayList<>();
+
+        @Override
+        public void pushPulse(char pulseType, long currentTimeIndex) {
+            pulses.append(pulseType);
+            timeIndexes.add(currentTimeIndex);
+        }
+
+        @Override
+        public void notifyChangeOfPulseLengths(PulseExtractiorParameters pulseExtractiorParameters) {
+
+        }
+    }
+}
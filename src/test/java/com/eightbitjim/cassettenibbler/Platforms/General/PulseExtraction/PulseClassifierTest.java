@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import com.eightbitjim.cassettenibbler.PulseStreamConsumer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PulseClassifierTest {
+
+    private static final char [] SHORT_MEDIUM_AND_LONG = {
+            PulseStreamConsumer.INVALID_PULSE_TOO_SHORT,
+            PulseStreamConsumer.SHORT_PULSE,
+            PulseStreamConsumer.MEDIUM_PULSE,
+            PulseStreamConsumer.LONG_PULSE };
+
+    private static final char [] SHORT_AND_LONG = {
+            PulseStreamConsumer.INVALID_PULSE_TOO_SHORT,
+            PulseStreamConsumer.SHORT_PULSE,
+            PulseStreamConsumer.LONG_PULSE };
+
+    @Test
+    public void testShortMediumAndLongMatchesIfChain() {
+        // Commodore ROM loader limits, then limits shifted by a leader
+        checkShortMediumAndLong(0.000150, 0.000440, 0.000600, 0.000800);
+        checkShortMediumAndLong(0.000150 * 1.0371, 0.000440 * 1.0371, 0.000600 * 1.0371, 0.000800 * 1.0371);
+    }
+
+    @Test
+    public void testShortAndLongMatchesIfChain() {
+        // Acorn 1200 baud limits
+        checkShortAndLong(0.000100, 0.000312, 0.000700);
+        checkShortAndLong(0.0000001, 0.0000002, 0.0000003);
+    }
+
+    @Test
+    public void testLimitsInSameBucket() {
+        checkShortMediumAndLong(0.0002001, 0.0002002, 0.0002003, 0.0002004);
+        checkShortMediumAndLong(0.0003, 0.0003, 0.0005, 0.0005);
+    }
+
+    @Test
+    public void testLimitsLongerThanTable() {
+        // Longer than the table can hold at one bucket per microsecond
+        checkShortAndLong(0.001, 0.025, 0.250);
+        checkShortMediumAndLong(0.5, 1.0, 2.0, 3.0);
+    }
+
+    @Test
+    public void testLimitsCanChange() {
+        PulseClassifier classifier = PulseClassifier.forShortAndLongPulses();
+        classifier.setUpperLimits(0.0001, 0.0003, 0.0007);
+        assertEquals("Long pulse with first limits", PulseStreamConsumer.LONG_PULSE, classifier.getPulseType(0.0004));
+
+        classifier.setUpperLimits(0.0001, 0.0005, 0.0007);
+        assertEquals("Short pulse with new limits", PulseStreamConsumer.SHORT_PULSE, classifier.getPulseType(0.0004));
+        checkAroundLimits(classifier, new double [] { 0.0001, 0.0005, 0.0007 }, SHORT_AND_LONG);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNeedsOneLimitPerPulseType() {
+        PulseClassifier.forShortAndLongPulses().setUpperLimits(0.0001, 0.0003);
+    }
+
+    private void checkShortMediumAndLong(double... limits) {
+        PulseClassifier classifier = PulseClassifier.forShortMediumAndLongPulses();
+        classifier.setUpperLimits(limits);
+        checkAroundLimits(classifier, limits, SHORT_MEDIUM_AND_LONG);
+    }
+
+    private void checkShortAndLong(double... limits) {
+        PulseClassifier classifier = PulseClassifier.forShortAndLongPulses();
+        classifier.setUpperLimits(limits);
+        checkAroundLimits(classifier, limits, SHORT_AND_LONG);
+    }
+
+    private void checkAroundLimits(PulseClassifier classifier, double [] limits, char [] pulseTypes) {
+        for (double limit : limits) {
+            double [] lengths = { limit, Math.nextDown(limit), Math.nextUp(limit), limit * 0.999999, limit * 1.000001,
+                    limit - 0.0000005, limit + 0.0000005, limit - 0.000001, limit + 0.000001, limit / 2.0, limit * 2.0 };
+            for (double length : lengths)
+                checkLength(classifier, limits, pulseTypes, length);
+        }
+
+        double [] otherLengths = { 0.0, -0.0001, Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE, 10.0 };
+        for (double length : otherLengths)
+            checkLength(classifier, limits, pulseTypes, length);
+
+        double longestLimit = limits[limits.length - 1];
+        for (int step = 0; step <= 10000; step++)
+            checkLength(classifier, limits, pulseTypes, longestLimit * 1.2 * step / 10000.0);
+    }
+
+    private void checkLength(PulseClassifier classifier, double [] limits, char [] pulseTypes, double length) {
+        assertEquals("Pulse type for length " + length, ifChain(limits, pulseTypes, length), classifier.getPulseType(length));
+    }
+
+    // The comparisons each pulse extractor made before using a classifier
+    private static char ifChain(double [] limits, char [] pulseTypes, double length) {
+        for (int i = 0; i < limits.length; i++) {
+            if (length < limits[i])
+                return pulseTypes[i];
+        }
+
+        return PulseStreamConsumer.INVALID_PULSE_TOO_LONG;
+    }
+}
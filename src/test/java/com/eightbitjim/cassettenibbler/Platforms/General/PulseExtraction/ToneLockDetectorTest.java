@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2017 James Lean.
+ *
+ * This file is part of cassette-nibbler.
+ *
+ * cassette-nibbler is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * cassette-nibbler is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with cassette-nibbler.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.eightbitjim.cassettenibbler.Platforms.General.PulseExtraction;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ToneLockDetectorTest {
+
+    private static final long RANDOM_SEED = 1234L;
+    private static final int RANDOM_INTERVALS = 20000;
+
+    // Target period, tolerance and intervals before losing lock of the Spectrum, Amstrad and Apple pilot tones and
+    // the MPF-I lead and mid sync tones
+    private static final int [][] PLATFORM_SETTINGS = { { 2168, 400, 3 }, { 2301, 300, 3 }, { 650, 300, 3 },
+            { 500, 100, 6 }, { 250, 100, 6 } };
+
+    private static final int [] BUFFER_LENGTHS = { 2, 8, 32 };
+
+    @Test
+    public void testStartingStateMatchesRescan() {
+        // The buffer starts full of zeros, and the old detectors counted on from Integer.MAX_VALUE, so the first
+        // interval that does not lock wraps the count round. Both must behave the same from the start.
+        for (int [] settings : PLATFORM_SETTINGS) {
+            ToneLockDetector detector = new ToneLockDetector(settings[0], settings[1], settings[2]);
+            RescanningToneDetector rescan = new RescanningToneDetector(settings[0], settings[1], settings[2], 32);
+            assertFalse("Not locked before any interval", detector.isLocked());
+            assertEquals("Starting lock", rescan.isLocked(), detector.isLocked());
+
+            for (int i = 0; i < 4; i++) {
+                assertEquals("Shift after interval " + i, rescan.registerInterval(0), detector.registerIntervalAndReturnIntervalShift(0), 0.0);
+                assertEquals("Lock after interval " + i, rescan.isLocked(), detector.isLocked());
+            }
+        }
+    }
+
+    @Test
+    public void testLocksOnSteadyToneAndMeasuresShift() {
+        ToneLockDetector detector = new ToneLockDetector(2168, 400, 3);
+        double shift = 1.0;
+        for (int i = 0; i < 32; i++)
+            shift = detector.registerIntervalAndReturnIntervalShift(i % 2 == 0 ? 2000 : 2100);
+
+        assertTrue("Locked on full buffer of tone", detector.isLocked());
+        assertEquals("Interval shift", 2168.0 / 2050.0, shift, 1e-12);
+    }
+
+    @Test
+    public void testKeepsLockForAFewIntervals() {
+        ToneLockDetector detector = new ToneLockDetector(2168, 400, 3);
+        for (int i = 0; i < 32; i++)
+            detector.registerIntervalAndReturnIntervalShift(2168);
+
+        double shift = detector.registerIntervalAndReturnIntervalShift(5000);
+        assertEquals("Shift kept from while locked", 1.0, shift, 0.0);
+        assertTrue("Still locked after one bad interval", detector.isLocked());
+        detector.registerIntervalAndReturnIntervalShift(2168);
+        assertTrue("Still locked after two", detector.isLocked());
+        detector.registerIntervalAndReturnIntervalShift(2168);
+        assertFalse("Lock lost after three", detector.isLocked());
+    }
+
+    @Test
+    public void testMatchesRescanOnRandomIntervals() {
+        Random random = new Random(RANDOM_SEED);
+        for (int [] settings : PLATFORM_SETTINGS) {
+            for (int bufferLength : BUFFER_LENGTHS)
+                checkAgainstRescan(settings[0], settings[1], settings[2], bufferLength, random);
+        }
+    }
+
+    private void checkAgainstRescan(int targetPeriod, int tolerance, int maximumIntervalsBeforeLosingLock, int bufferLength, Random random) {
+        ToneLockDetector detector = new ToneLockDetector(targetPeriod, tolerance, maximumIntervalsBeforeLosingLock, bufferLength);
+        RescanningToneDetector rescan = new RescanningToneDetector(targetPeriod, tolerance, maximumIntervalsBeforeLosingLock, bufferLength);
+        int lockedCount = 0;
+
+        for (int i = 0; i < RANDOM_INTERVALS; i++) {
+            int interval = nextInterval(targetPeriod, tolerance, bufferLength, random);
+            String message = "Period " + targetPeriod + " buffer " + bufferLength + " after interval " + i;
+            assertEquals(message, rescan.registerInterval(interval), detector.registerIntervalAndReturnIntervalShift(interval), 0.0);
+            assertEquals(message, rescan.isLocked(), detector.isLocked());
+            if (rescan.bufferIsValid())
+                lockedCount++;
+        }
+
+        String settings = "period " + targetPeriod + " buffer " + bufferLength;
+        assertTrue("Tone found at some point with " + settings, lockedCount > 0);
+        assertTrue("Tone broken at some point with " + settings, lockedCount < RANDOM_INTERVALS);
+    }
+
+    private static int nextInterval(int targetPeriod, int tolerance, int bufferLength, Random random) {
+        // Mostly intervals whose pairs are well within the tolerance, broken by some either side of it and the odd
+        // interval that is nothing like the tone
+        int chance = random.nextInt(bufferLength * 4);
+        if (chance == 0)
+            return random.nextInt(targetPeriod * 3);
+
+        double largestDeviation = chance < 3 ? 0.75 : 0.4;
+        return targetPeriod + (int)Math.round((random.nextDouble() * 2.0 - 1.0) * tolerance * largestDeviation);
+    }
+
+    // The pilot and sync tone detectors as they were, rescanning the whole buffer for every interval
+    private static class RescanningToneDetector {
+        private int targetPeriod;
+        private int tolerance;
+        private int maximumIntervalsBeforeLosingLock;
+        private int [] buffer;
+        private int pointer;
+        private int numberOfIntervalsSinceValid;
+        private double intervalShift;
+        private boolean bufferValid;
+
+        RescanningToneDetector(int targetPeriod, int tolerance, int maximumIntervalsBeforeLosingLock, int bufferLength) {
+            this.targetPeriod = targetPeriod;
+            this.tolerance = tolerance;
+            this.maximumIntervalsBeforeLosingLock = maximumIntervalsBeforeLosingLock;
+            buffer = new int[bufferLength];
+            numberOfIntervalsSinceValid = Integer.MAX_VALUE;
+            intervalShift = 1.0;
+        }
+
+        double registerInterval(int interval) {
+            buffer[pointer] = interval;
+            pointer = (pointer + 1) % buffer.length;
+            bufferValid = checkBuffer();
+            if (bufferValid)
+                intervalShift = getIntervalShiftMultiplier();
+
+            return intervalShift;
+        }
+
+        private boolean checkBuffer() {
+            for (int i = 0; i < buffer.length - 1; i++) {
+                if (Math.abs((buffer[i] + buffer[i + 1]) - targetPeriod * 2) >= tolerance) {
+                    numberOfIntervalsSinceValid++;
+                    return false;
+                }
+            }
+
+            numberOfIntervalsSinceValid = 0;
+            return true;
+        }
+
+        private double getIntervalShiftMultiplier() {
+            double sum = 0.0;
+            for (int interval : buffer)
+                sum += interval;
+
+            return (double)targetPeriod / (sum / (double)buffer.length);
+        }
+
+        boolean bufferIsValid() {
+            return bufferValid;
+        }
+
+        boolean isLocked() {
+            return numberOfIntervalsSinceValid < maximumIntervalsBeforeLosingLock;
+        }
+    }
+}
@@ -106,7 +106,7 @@ public class SpectrumFileTest implements FileStreamConsumer {
     @Test
     public void testDataFileOnly() throws Throwable {
         parseFile(ORPHAN_DATA_FILENAME, 1);
-        checkFileResult(0, 94, "headlessFile1.incomplete.unknown", -1564238850);
+        checkFileResult(0, 94, "headlessFile0s.incomplete.unknown", -1564238850);
     }
 
     @Test